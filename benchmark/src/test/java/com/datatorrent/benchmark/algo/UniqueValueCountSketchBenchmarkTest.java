@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.benchmark.algo;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+
+import com.datatorrent.api.Sink;
+
+import com.datatorrent.lib.algo.UniqueValueCount;
+import com.datatorrent.lib.util.KeyValPair;
+
+/**
+ * Measures the throughput of {@link UniqueValueCount} with exact and approximate counts, the size of the serialized
+ * tuples it emits and the error of the approximate counts.
+ */
+public class UniqueValueCountSketchBenchmarkTest
+{
+  private static final int NUM_KEYS = 5;
+  private static final int VALUES_PER_KEY = 100000;
+
+  private static class CountingSink implements Sink<Object>
+  {
+    final Kryo kryo = new Kryo();
+    final Output output = new Output(4096, -1);
+    long bytes;
+    long tuples;
+    double maxError;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void put(Object tuple)
+    {
+      output.clear();
+      kryo.writeClassAndObject(output, tuple);
+      bytes += output.position();
+      tuples++;
+      int count = ((KeyValPair<Integer, Integer>)tuple).getValue();
+      maxError = Math.max(maxError, Math.abs(count - VALUES_PER_KEY) / (double)VALUES_PER_KEY);
+    }
+
+    @Override
+    public int getCount(boolean reset)
+    {
+      return (int)tuples;
+    }
+  }
+
+  private void run(boolean approximate)
+  {
+    UniqueValueCount<Integer> operator = new UniqueValueCount<Integer>();
+    operator.setApproximate(approximate);
+    CountingSink sink = new CountingSink();
+    operator.output.setSink(sink);
+
+    Random random = new Random(0);
+    long start = System.nanoTime();
+    operator.beginWindow(0);
+    for (int i = 0; i < VALUES_PER_KEY; i++) {
+      for (int key = 0; key < NUM_KEYS; key++) {
+        operator.input.process(new KeyValPair<Integer, Object>(key, random.nextLong()));
+      }
+    }
+    operator.endWindow();
+    long elapsed = System.nanoTime() - start;
+
+    long tuplesPerSecond = (long)NUM_KEYS * VALUES_PER_KEY * 1000000000L / elapsed;
+    logger.info("approximate {} tuples/s {} emitted bytes per key {} max relative error {}", approximate, tuplesPerSecond,
+        sink.bytes / sink.tuples, sink.maxError);
+    Assert.assertEquals("emitted tuples", NUM_KEYS, sink.tuples);
+    Assert.assertTrue("error", sink.maxError < (approximate ? 0.03 : 0.0001));
+  }
+
+  @Test
+  public void benchmark()
+  {
+    // warm up the jit
+    run(false);
+    run(true);
+
+    run(false);
+    run(true);
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(UniqueValueCountSketchBenchmarkTest.class);
+}
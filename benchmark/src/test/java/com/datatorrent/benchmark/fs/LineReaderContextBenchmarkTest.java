@@ -0,0 +1,198 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.benchmark.fs;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import com.datatorrent.lib.io.block.BlockMetadata;
+import com.datatorrent.lib.io.block.ReaderContext;
+
+/**
+ * Compares the throughput of {@link ReaderContext.LineReaderContext} with the previous char based implementation.<br/>
+ * The size of the generated file in MB can be set with the system property <code>benchmark.lineReader.fileSizeMB</code>,
+ * for eg. -Dbenchmark.lineReader.fileSizeMB=4096 for a multi-GB run.
+ */
+public class LineReaderContextBenchmarkTest
+{
+  private static final long BLOCK_SIZE = 128 * 1024 * 1024;
+
+  @Test
+  public void benchmark() throws IOException
+  {
+    long fileSize = Long.getLong("benchmark.lineReader.fileSizeMB", 64) * 1024 * 1024;
+    File file = new File("target/LineReaderContextBenchmark/data.txt");
+    file.getParentFile().mkdirs();
+    writeFile(file, fileSize);
+
+    FileSystem fs = FileSystem.newInstance(new Configuration());
+    try {
+      long legacyRecords = read(fs, file, new LegacyLineReaderContext<FSDataInputStream>(), "char based");
+      long records = read(fs, file, new ReaderContext.LineReaderContext<FSDataInputStream>(), "byte based");
+      Assert.assertEquals("records", legacyRecords, records);
+    }
+    finally {
+      fs.close();
+      file.delete();
+    }
+  }
+
+  private long read(FileSystem fs, File file, ReaderContext<FSDataInputStream> context, String name) throws IOException
+  {
+    long length = file.length();
+    long records = 0;
+    long start = System.currentTimeMillis();
+    FSDataInputStream stream = fs.open(new Path(file.getAbsolutePath()));
+    try {
+      long blockId = 0;
+      for (long offset = 0; offset < length; offset += BLOCK_SIZE) {
+        long end = Math.min(offset + BLOCK_SIZE, length);
+        BlockMetadata.FileBlockMetadata block = new BlockMetadata.FileBlockMetadata(file.getAbsolutePath(), blockId,
+          offset, end, end == length, blockId - 1);
+        context.initialize(stream, block, offset != 0);
+        while (context.next() != null) {
+          records++;
+        }
+        blockId++;
+      }
+    }
+    finally {
+      stream.close();
+    }
+    long time = Math.max(System.currentTimeMillis() - start, 1);
+    LOG.info("{} line reader: {} records, {} MB/s", name, records, (length * 1000 / time) / (1024 * 1024));
+    return records;
+  }
+
+  private static void writeFile(File file, long size) throws IOException
+  {
+    Random random = new Random(7);
+    OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 20);
+    try {
+      long written = 0;
+      StringBuilder line = new StringBuilder();
+      while (written < size) {
+        line.setLength(0);
+        int fields = 5 + random.nextInt(10);
+        for (int i = 0; i < fields; i++) {
+          line.append(random.nextInt(100000)).append(',');
+        }
+        line.append('\n');
+        byte[] bytes = line.toString().getBytes();
+        out.write(bytes);
+        written += bytes.length;
+      }
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Char based line reader which decodes the buffer and copies every line through byte-array streams. This was the
+   * implementation of {@link ReaderContext.LineReaderContext} and is the baseline of this benchmark.
+   */
+  private static class LegacyLineReaderContext<STREAM extends FSDataInputStream> extends ReaderContext.AbstractReaderContext<STREAM>
+  {
+    private final ByteArrayOutputStream lineBuilder = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream emptyBuilder = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream tmpBuilder = new ByteArrayOutputStream();
+    private final byte[] buffer = new byte[8192];
+    private String strBuffer;
+    private int posInStr;
+
+    @Override
+    protected Entity readEntity() throws IOException
+    {
+      boolean foundEOL = false;
+      int bytesRead = 0;
+      long usedBytes = 0;
+
+      while (!foundEOL) {
+        tmpBuilder.reset();
+        if (posInStr == 0) {
+          bytesRead = stream.read(offset + usedBytes, buffer, 0, buffer.length);
+          if (bytesRead == -1) {
+            break;
+          }
+          strBuffer = new String(buffer, 0, bytesRead);
+        }
+
+        while (posInStr < strBuffer.length()) {
+          char c = strBuffer.charAt(posInStr);
+          if (c != '\r' && c != '\n') {
+            tmpBuilder.write(c);
+            posInStr++;
+          }
+          else {
+            foundEOL = true;
+            break;
+          }
+        }
+        byte[] subLine = tmpBuilder.toByteArray();
+        usedBytes += subLine.length;
+        lineBuilder.write(subLine);
+
+        if (foundEOL) {
+          while (posInStr < strBuffer.length()) {
+            char c = strBuffer.charAt(posInStr);
+            if (c == '\r' || c == '\n') {
+              emptyBuilder.write(c);
+              posInStr++;
+            }
+            else {
+              break;
+            }
+          }
+          usedBytes += emptyBuilder.toByteArray().length;
+        }
+        else {
+          posInStr = 0;
+        }
+      }
+      posInStr = 0;
+      if (bytesRead == -1) {
+        lineBuilder.reset();
+        emptyBuilder.reset();
+        return null;
+      }
+      entity.clear();
+      entity.setRecord(lineBuilder.toByteArray());
+      entity.setUsedBytes(usedBytes);
+
+      lineBuilder.reset();
+      emptyBuilder.reset();
+      return entity;
+    }
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(LineReaderContextBenchmarkTest.class);
+}
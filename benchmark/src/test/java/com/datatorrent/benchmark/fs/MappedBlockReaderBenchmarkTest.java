@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.benchmark.fs;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+
+import com.datatorrent.api.Attribute;
+import com.datatorrent.api.Context;
+import com.datatorrent.api.DAG;
+import com.datatorrent.api.Sink;
+
+import com.datatorrent.lib.helper.OperatorContextTestHelper;
+import com.datatorrent.lib.io.block.AbstractBlockReader;
+import com.datatorrent.lib.io.block.AbstractFSBlockReader;
+import com.datatorrent.lib.io.block.BlockMetadata;
+import com.datatorrent.lib.io.block.FSMappedByteBufferReader;
+import com.datatorrent.lib.io.block.FSMappedSliceReader;
+import com.datatorrent.lib.io.block.FSSliceReader;
+import com.datatorrent.lib.io.block.ReaderContext;
+import com.datatorrent.netlet.util.Slice;
+
+/**
+ * Compares MB/s per core of {@link FSMappedSliceReader} and {@link FSMappedByteBufferReader} with {@link FSSliceReader}
+ * on the local file system.<br/>
+ * The size of the generated file in MB can be set with the system property
+ * <code>benchmark.mappedReader.fileSizeMB</code>.
+ */
+public class MappedBlockReaderBenchmarkTest
+{
+  private static final long BLOCK_SIZE = 64 * 1024 * 1024;
+  private static final int SLICE_SIZE = 8192;
+
+  @Test
+  public void benchmark() throws IOException
+  {
+    long fileSize = Long.getLong("benchmark.mappedReader.fileSizeMB", 256) * 1024 * 1024;
+    File file = new File("target/MappedBlockReaderBenchmark/data.bin");
+    file.getParentFile().mkdirs();
+    writeFile(file, fileSize);
+
+    try {
+      FSSliceReader streamReader = new FSSliceReader();
+      FSMappedSliceReader mappedReader = new FSMappedSliceReader();
+      FSMappedByteBufferReader viewReader = new FSMappedByteBufferReader();
+      long streamBytes = read(file, streamReader, "stream");
+      long mappedBytes = read(file, mappedReader, "mapped");
+      long viewBytes = read(file, viewReader, "mapped view");
+      Assert.assertEquals("bytes read", streamBytes, mappedBytes);
+      Assert.assertEquals("bytes read", streamBytes, viewBytes);
+      Assert.assertEquals("file size", file.length(), mappedBytes);
+    }
+    finally {
+      file.delete();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private long read(File file, AbstractFSBlockReader<?> reader, String name)
+  {
+    ((ReaderContext.FixedBytesReaderContext<FSDataInputStream>) reader.getReaderContext()).setLength(SLICE_SIZE);
+    final long[] bytes = new long[1];
+    Attribute.AttributeMap.DefaultAttributeMap attributes = new Attribute.AttributeMap.DefaultAttributeMap();
+    attributes.put(DAG.APPLICATION_ID, Long.toHexString(System.currentTimeMillis()));
+    attributes.put(Context.OperatorContext.SPIN_MILLIS, 10);
+    reader.setup(new OperatorContextTestHelper.TestIdOperatorContext(1, attributes));
+    @SuppressWarnings({"rawtypes"})
+    Sink sink = new Sink<AbstractBlockReader.ReaderRecord<?>>()
+    {
+      private int count;
+
+      @Override
+      public void put(AbstractBlockReader.ReaderRecord<?> tuple)
+      {
+        Object record = tuple.getRecord();
+        bytes[0] += record instanceof Slice ? ((Slice) record).length : ((ByteBuffer) record).remaining();
+        count++;
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return count;
+      }
+    };
+    reader.messages.setSink(sink);
+
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    long cpuStart = threadMXBean.getCurrentThreadCpuTime();
+    long start = System.currentTimeMillis();
+
+    long length = file.length();
+    reader.beginWindow(1);
+    long blockId = 0;
+    for (long offset = 0; offset < length; offset += BLOCK_SIZE) {
+      long end = Math.min(offset + BLOCK_SIZE, length);
+      reader.blocksMetadataInput.process(new BlockMetadata.FileBlockMetadata(file.getAbsolutePath(), blockId, offset,
+        end, end == length, blockId - 1));
+      blockId++;
+    }
+    reader.endWindow();
+
+    long time = Math.max(System.currentTimeMillis() - start, 1);
+    long cpuTime = Math.max((threadMXBean.getCurrentThreadCpuTime() - cpuStart) / 1000000, 1);
+    reader.teardown();
+
+    LOG.info("{} reader: {} MB/s, {} MB/s per core", name, (length * 1000 / time) / (1024 * 1024),
+      (length * 1000 / cpuTime) / (1024 * 1024));
+    return bytes[0];
+  }
+
+  private static void writeFile(File file, long size) throws IOException
+  {
+    Random random = new Random(7);
+    byte[] chunk = new byte[1 << 20];
+    OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+    try {
+      for (long written = 0; written < size; written += chunk.length) {
+        random.nextBytes(chunk);
+        out.write(chunk);
+      }
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(MappedBlockReaderBenchmarkTest.class);
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.benchmark.kafka;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datatorrent.api.Attribute;
+import com.datatorrent.api.Context;
+import com.datatorrent.api.Partitioner;
+import com.datatorrent.api.Sink;
+
+import com.datatorrent.contrib.kafka.AbstractKafkaInputOperator;
+import com.datatorrent.contrib.kafka.KafkaConsumer;
+import com.datatorrent.contrib.kafka.KafkaOperatorTestBase;
+import com.datatorrent.contrib.kafka.KafkaTestProducer;
+import com.datatorrent.contrib.kafka.SimpleKafkaConsumer;
+import com.datatorrent.lib.helper.OperatorContextTestHelper;
+import com.datatorrent.lib.partitioner.StatelessPartitionerTest;
+
+/**
+ * Measures the rate at which {@link BenchmarkKafkaInputOperator} emits messages from the embedded kafka broker
+ * together with the garbage collections during the run.<br/>
+ * The number of messages can be set with the system property <code>benchmark.kafkaInput.messages</code>.
+ */
+public class KafkaInputOperatorBenchmarkTest extends KafkaOperatorTestBase
+{
+  @Test
+  public void benchmark() throws Exception
+  {
+    int totalCount = Integer.getInteger("benchmark.kafkaInput.messages", 200000);
+
+    KafkaTestProducer p = new KafkaTestProducer(TEST_TOPIC);
+    p.setSendCount(totalCount);
+    p.run();
+    p.close();
+
+    BenchmarkKafkaInputOperator template = new BenchmarkKafkaInputOperator();
+    KafkaConsumer consumer = new SimpleKafkaConsumer();
+    consumer.setTopic(TEST_TOPIC);
+    consumer.setInitialOffset("earliest");
+    template.setConsumer(consumer);
+    template.setZookeeper("localhost:" + KafkaOperatorTestBase.TEST_ZOOKEEPER_PORT[0]);
+
+    List<Partitioner.Partition<AbstractKafkaInputOperator<KafkaConsumer>>> partitions = new LinkedList<Partitioner.Partition<AbstractKafkaInputOperator<KafkaConsumer>>>();
+    Collection<Partitioner.Partition<AbstractKafkaInputOperator<KafkaConsumer>>> newPartitions = template.definePartitions(partitions, new StatelessPartitionerTest.PartitioningContextImpl(null, 0));
+    BenchmarkKafkaInputOperator operator = (BenchmarkKafkaInputOperator)newPartitions.iterator().next().getPartitionedInstance();
+
+    final int[] count = new int[1];
+    @SuppressWarnings({"rawtypes"})
+    Sink sink = new Sink<String>()
+    {
+      @Override
+      public void put(String tuple)
+      {
+        count[0]++;
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return count[0];
+      }
+    };
+    operator.oport.setSink(sink);
+
+    Attribute.AttributeMap attributeMap = new Attribute.AttributeMap.DefaultAttributeMap();
+    attributeMap.put(Context.OperatorContext.SPIN_MILLIS, 10);
+    attributeMap.put(Context.DAGContext.APPLICATION_PATH, "target/" + KafkaInputOperatorBenchmarkTest.class.getName());
+    Context.OperatorContext context = new OperatorContextTestHelper.TestIdOperatorContext(1, attributeMap);
+    operator.setup(context);
+    operator.activate(context);
+
+    long gcCount = gcCount();
+    long gcTime = gcTime();
+    long start = System.currentTimeMillis();
+    long windowId = 1;
+    // the producer also sends the end tuple
+    while (count[0] < totalCount + 1 && System.currentTimeMillis() - start < 120000) {
+      operator.beginWindow(windowId++);
+      for (int i = 0; i < 100; i++) {
+        operator.emitTuples();
+      }
+      operator.endWindow();
+    }
+    long time = Math.max(System.currentTimeMillis() - start, 1);
+    gcCount = gcCount() - gcCount;
+    gcTime = gcTime() - gcTime;
+
+    operator.deactivate();
+    operator.teardown();
+
+    LOG.info("emitted {} messages in {} ms: {} msgs/s, {} collections/s, {} ms gc/s", count[0], time,
+      count[0] * 1000L / time, gcCount * 1000.0 / time, gcTime * 1000.0 / time);
+    Assert.assertEquals("messages", totalCount + 1, count[0]);
+  }
+
+  private static long gcCount()
+  {
+    long count = 0;
+    for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(bean.getCollectionCount(), 0);
+    }
+    return count;
+  }
+
+  private static long gcTime()
+  {
+    long time = 0;
+    for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      time += Math.max(bean.getCollectionTime(), 0);
+    }
+    return time;
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(KafkaInputOperatorBenchmarkTest.class);
+}
@@ -15,9 +15,12 @@
  */
 package com.datatorrent.contrib.hbase;
 
+import java.io.IOException;
 import java.io.InterruptedIOException;
 
+import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +29,8 @@ import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.RetriesExhaustedWithDetailsException;
 
+import com.datatorrent.api.Context.OperatorContext;
+
 import com.datatorrent.lib.db.AbstractStoreOutputOperator;
 
 import com.datatorrent.netlet.util.DTThrowable;
@@ -42,6 +47,8 @@ import com.datatorrent.netlet.util.DTThrowable;
  *
  * <br>
  * This class offers non-transactional put where tuples are put as they come in.
+ * When async write is enabled the puts are written in the background by a {@link HBaseAsyncWriter}
+ * and all of them are written by the end of the window.
  * @displayName Abstract HBase Put Output
  * @category Output
  * @tags hbase, put
@@ -54,13 +61,39 @@ public abstract class AbstractHBasePutOutputOperator<T> extends AbstractStoreOut
   public static final int DEFAULT_BATCH_SIZE = 1000;
   private int batchSize = DEFAULT_BATCH_SIZE;
   protected int unCommittedSize = 0;
+  @Valid
+  @NotNull
+  private HBaseAsyncWriteConfig asyncWriteConfig = new HBaseAsyncWriteConfig();
+  private transient HBaseAsyncWriter writer;
+  private transient OperatorContext context;
 
   public AbstractHBasePutOutputOperator() {
     store = new HBaseStore();
   }
 
+  @Override
+  public void setup(OperatorContext context)
+  {
+    super.setup(context);
+    this.context = context;
+    try {
+      writer = asyncWriteConfig.createWriter(store);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   @Override
   public void processTuple(T tuple) {
+    if (writer != null) {
+      try {
+        writer.put(operationPut(tuple));
+      } catch (IOException e) {
+        logger.error("Could not output tuple", e);
+        DTThrowable.rethrow(e);
+      }
+      return;
+    }
     HTable table = store.getTable();
     Put put = operationPut(tuple);
     try {
@@ -83,6 +116,16 @@ public abstract class AbstractHBasePutOutputOperator<T> extends AbstractStoreOut
   @Override
   public void endWindow()
   {
+    if (writer != null) {
+      try {
+        writer.flush();
+      } catch (IOException e) {
+        logger.error("Could not output tuple", e);
+        DTThrowable.rethrow(e);
+      }
+      context.setCounters(writer.getCounters());
+      return;
+    }
     try
     {
       if( unCommittedSize > 0 ) {
@@ -118,5 +161,33 @@ public abstract class AbstractHBasePutOutputOperator<T> extends AbstractStoreOut
     this.batchSize = batchSize;
   }
 
+  @Override
+  public void teardown()
+  {
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        logger.error("Could not close writer", e);
+      }
+      writer = null;
+    }
+    super.teardown();
+  }
+
+  public HBaseAsyncWriteConfig getAsyncWriteConfig()
+  {
+    return asyncWriteConfig;
+  }
+
+  /**
+   * Configuration of the writer which writes the puts in the background instead of in batches of batch size.
+   * Async write is disabled by default.
+   */
+  public void setAsyncWriteConfig(HBaseAsyncWriteConfig asyncWriteConfig)
+  {
+    this.asyncWriteConfig = asyncWriteConfig;
+  }
+
 
 }
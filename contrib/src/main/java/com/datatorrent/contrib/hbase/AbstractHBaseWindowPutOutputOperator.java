@@ -21,6 +21,8 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
 
 import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.Put;
@@ -53,6 +55,11 @@ import com.datatorrent.lib.db.AbstractAggregateTransactionableStoreOutputOperato
  * the operator shutdown.
  * It supports atleast once and atmost once processing modes.
  * Exactly once is not supported
+ *
+ * <br>
+ * When async write is enabled the puts are written in the background by a {@link HBaseAsyncWriter} as the tuples arrive,
+ * instead of being collected till the end window. All the puts of the window are written before the committed window id
+ * is stored.
  * @displayName Abstract HBase Window Put Output
  * @category Output
  * @tags hbase, put, transactionable, batch
@@ -64,6 +71,11 @@ public abstract class AbstractHBaseWindowPutOutputOperator<T> extends AbstractAg
   private static final transient Logger logger = LoggerFactory.getLogger(AbstractHBaseWindowPutOutputOperator.class);
   private List<T> tuples;
   private transient ProcessingMode mode;
+  @Valid
+  @NotNull
+  private HBaseAsyncWriteConfig asyncWriteConfig = new HBaseAsyncWriteConfig();
+  private transient HBaseAsyncWriter writer;
+  private transient OperatorContext context;
   public ProcessingMode getMode()
   {
     return mode;
@@ -81,6 +93,15 @@ public abstract class AbstractHBaseWindowPutOutputOperator<T> extends AbstractAg
 
   @Override
   public void storeAggregate() {
+    if (writer != null) {
+      try {
+        writer.flush();
+      } catch (IOException e) {
+        logger.error("Could not output tuple", e);
+        DTThrowable.rethrow(e);
+      }
+      return;
+    }
     HTable table = store.getTable();
     Iterator<T> it = tuples.iterator();
     while (it.hasNext()) {
@@ -111,9 +132,27 @@ public abstract class AbstractHBaseWindowPutOutputOperator<T> extends AbstractAg
 
   @Override
   public void processTuple(T tuple) {
+    if (writer != null) {
+      try {
+        writer.put(operationPut(tuple));
+      } catch (IOException e) {
+        logger.error("Could not output tuple", e);
+        DTThrowable.rethrow(e);
+      }
+      return;
+    }
     tuples.add(tuple);
   }
 
+  @Override
+  public void endWindow()
+  {
+    super.endWindow();
+    if (writer != null) {
+      context.setCounters(writer.getCounters());
+    }
+  }
+
   @Override
   public void setup(OperatorContext context)
   {
@@ -125,6 +164,40 @@ public abstract class AbstractHBaseWindowPutOutputOperator<T> extends AbstractAg
       tuples.clear();
     }
     super.setup(context);
+    this.context = context;
+    try {
+      writer = asyncWriteConfig.createWriter(store);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void teardown()
+  {
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        logger.error("Could not close writer", e);
+      }
+      writer = null;
+    }
+    super.teardown();
+  }
+
+  public HBaseAsyncWriteConfig getAsyncWriteConfig()
+  {
+    return asyncWriteConfig;
+  }
+
+  /**
+   * Configuration of the writer which writes the puts in the background as the tuples arrive.
+   * Async write is disabled by default.
+   */
+  public void setAsyncWriteConfig(HBaseAsyncWriteConfig asyncWriteConfig)
+  {
+    this.asyncWriteConfig = asyncWriteConfig;
   }
 
 }
@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.contrib.hbase;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Configuration of the {@link HBaseAsyncWriter} of the HBase put output operators.
+ *
+ * @since 3.0.0
+ */
+public class HBaseAsyncWriteConfig implements Serializable
+{
+  public static final long DEFAULT_WRITE_BUFFER_SIZE = 8 * 1024 * 1024;
+  public static final long DEFAULT_FLUSH_SIZE = 2 * 1024 * 1024;
+  public static final int DEFAULT_FLUSH_THREADS = 4;
+  public static final int DEFAULT_MAX_RETRIES = 3;
+
+  private boolean enabled;
+  @Min(1)
+  private long writeBufferSize = DEFAULT_WRITE_BUFFER_SIZE;
+  @Min(1)
+  private long flushSize = DEFAULT_FLUSH_SIZE;
+  @Min(1)
+  private int flushThreads = DEFAULT_FLUSH_THREADS;
+  @Min(0)
+  private int maxRetries = DEFAULT_MAX_RETRIES;
+
+  /**
+   * Creates a writer for the table of the store.
+   *
+   * @param store store which is connected.
+   * @return the writer, or null when async write is not enabled.
+   * @throws IOException
+   */
+  public HBaseAsyncWriter createWriter(HBaseStore store) throws IOException
+  {
+    return enabled ? new HBaseAsyncWriter(store, this) : null;
+  }
+
+  public boolean isEnabled()
+  {
+    return enabled;
+  }
+
+  /**
+   * Whether the puts are written in the background by a {@link HBaseAsyncWriter}.
+   */
+  public void setEnabled(boolean enabled)
+  {
+    this.enabled = enabled;
+  }
+
+  public long getWriteBufferSize()
+  {
+    return writeBufferSize;
+  }
+
+  /**
+   * Max bytes of the puts which are buffered or being written.
+   */
+  public void setWriteBufferSize(long writeBufferSize)
+  {
+    this.writeBufferSize = writeBufferSize;
+  }
+
+  public long getFlushSize()
+  {
+    return flushSize;
+  }
+
+  /**
+   * Bytes of the puts for a region server after which they are written.
+   */
+  public void setFlushSize(long flushSize)
+  {
+    this.flushSize = flushSize;
+  }
+
+  public int getFlushThreads()
+  {
+    return flushThreads;
+  }
+
+  /**
+   * Number of threads which write to the region servers in parallel.
+   */
+  public void setFlushThreads(int flushThreads)
+  {
+    this.flushThreads = flushThreads;
+  }
+
+  public int getMaxRetries()
+  {
+    return maxRetries;
+  }
+
+  /**
+   * Number of times the puts of a batch which failed are retried.
+   */
+  public void setMaxRetries(int maxRetries)
+  {
+    this.maxRetries = maxRetries;
+  }
+
+  private static final long serialVersionUID = 201510181200L;
+}
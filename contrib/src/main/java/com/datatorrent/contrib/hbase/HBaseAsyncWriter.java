@@ -0,0 +1,392 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.contrib.hbase;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.commons.lang.mutable.MutableLong;
+
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.HConnection;
+import org.apache.hadoop.hbase.client.HConnectionManager;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RetriesExhaustedWithDetailsException;
+import org.apache.hadoop.hbase.client.Row;
+
+import com.google.common.collect.Maps;
+
+import com.datatorrent.common.util.NameableThreadFactory;
+import com.datatorrent.lib.counters.BasicCounters;
+import com.datatorrent.netlet.util.DTThrowable;
+
+/**
+ * Writes puts to HBase in the background.<br/>
+ * <p>
+ * Puts are grouped by the region server which hosts their region. When the puts for a region server reach the flush size
+ * they are written by a pool of threads, so region servers are written in parallel while the operator thread continues to
+ * process tuples. The puts which are buffered or being written are bounded by the write buffer size and the operator thread
+ * blocks in {@link #put(Put)} when the bound is reached. {@link #flush()} returns when all the puts are written.
+ * </p>
+ * <p>
+ * At most one batch is written to a region server at a time. The puts for a region server which arrive while its batch is
+ * being written are collected in the next batch, so the puts of a row are written in the order they were put.
+ * </p>
+ * <p>
+ * Puts of a batch which fail after the retries of the HBase client are retried in their order up to the max retries,
+ * before the next batch of the region server is written. The puts, batches, retries and the latency of the batches are
+ * published through {@link #getCounters()}, which is updated by {@link #flush()}.
+ * </p>
+ *
+ * @since 3.0.0
+ */
+public class HBaseAsyncWriter
+{
+  private final HConnection connection;
+  private final TableName tableName;
+  private final ExecutorService executor;
+  private final long writeBufferSize;
+  private final long flushSize;
+  private final int maxRetries;
+
+  /**
+   * Puts which are not submitted yet by region server.
+   */
+  private final Map<String, Batch> pending = Maps.newHashMap();
+  private final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+  /**
+   * Size of the puts which are pending or being written, guarded by this.
+   */
+  private long bufferedBytes;
+  private int inFlight;
+  /**
+   * Region servers which have a batch being written, guarded by this.
+   */
+  private final Set<String> busyServers = new HashSet<String>();
+  /**
+   * Statistics of the writes since the last flush, guarded by this.
+   */
+  private long putCount;
+  private long batchCount;
+  private long retryCount;
+  private long batchNanos;
+  private long maxBatchNanos;
+  private final BasicCounters<MutableLong> counters;
+
+  /**
+   * @param store  store which is connected.
+   * @param config sizes, threads and retries of the writer.
+   * @throws IOException
+   */
+  public HBaseAsyncWriter(HBaseStore store, HBaseAsyncWriteConfig config) throws IOException
+  {
+    this.connection = HConnectionManager.createConnection(store.getConfiguration());
+    this.tableName = TableName.valueOf(store.getTableName());
+    this.writeBufferSize = config.getWriteBufferSize();
+    this.flushSize = config.getFlushSize();
+    this.maxRetries = config.getMaxRetries();
+    this.executor = Executors.newFixedThreadPool(config.getFlushThreads(), new NameableThreadFactory("HBase-Writer-" + store.getTableName()));
+    this.counters = new BasicCounters<MutableLong>(MutableLong.class);
+    for (HBaseWriterCounters counter : HBaseWriterCounters.values()) {
+      counters.setCounter(counter, new MutableLong());
+    }
+  }
+
+  /**
+   * Buffers a put. This blocks while the write buffer is full.
+   *
+   * @param put put
+   * @throws IOException when a previous batch failed.
+   */
+  public void put(Put put) throws IOException
+  {
+    checkError();
+    HRegionLocation location = connection.getRegionLocation(tableName, put.getRow(), false);
+    String server = location.getHostnamePort();
+    long size = put.heapSize();
+
+    Batch batch = pending.get(server);
+    if (batch == null) {
+      batch = new Batch(server);
+      pending.put(server, batch);
+    }
+    batch.add(put, size);
+
+    boolean full;
+    synchronized (this) {
+      bufferedBytes += size;
+      full = bufferedBytes > writeBufferSize;
+    }
+    if (full) {
+      //write everything which is pending and wait till there is room in the buffer
+      while (true) {
+        submitAll();
+        synchronized (this) {
+          if (bufferedBytes <= writeBufferSize || inFlight == 0) {
+            break;
+          }
+          waitForBatch();
+        }
+      }
+    }
+    else if (batch.bytes >= flushSize) {
+      submit(batch);
+    }
+  }
+
+  /**
+   * Writes all the buffered puts, waits till they are written and updates the counters.
+   *
+   * @throws IOException when a batch failed.
+   */
+  public void flush() throws IOException
+  {
+    while (true) {
+      //batches of busy region servers are submitted when their previous batch is written
+      submitAll();
+      synchronized (this) {
+        if (inFlight == 0) {
+          break;
+        }
+        waitForBatch();
+      }
+    }
+    updateCounters();
+    checkError();
+  }
+
+  private synchronized void updateCounters()
+  {
+    counters.getCounter(HBaseWriterCounters.PUTS).add(putCount);
+    counters.getCounter(HBaseWriterCounters.BATCHES).add(batchCount);
+    counters.getCounter(HBaseWriterCounters.RETRIES).add(retryCount);
+    counters.getCounter(HBaseWriterCounters.BATCH_LATENCY_MILLIS).setValue(batchCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(batchNanos / batchCount));
+    counters.getCounter(HBaseWriterCounters.MAX_BATCH_LATENCY_MILLIS).setValue(TimeUnit.NANOSECONDS.toMillis(maxBatchNanos));
+    putCount = 0;
+    batchCount = 0;
+    retryCount = 0;
+    batchNanos = 0;
+    maxBatchNanos = 0;
+  }
+
+  private void submitAll()
+  {
+    for (Batch batch : new ArrayList<Batch>(pending.values())) {
+      submit(batch);
+    }
+  }
+
+  /**
+   * Submits the batch unless a batch of the same region server is being written, in which case it stays pending.
+   */
+  private void submit(final Batch batch)
+  {
+    synchronized (this) {
+      if (!busyServers.add(batch.server)) {
+        return;
+      }
+      inFlight++;
+    }
+    pending.remove(batch.server);
+    executor.submit(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        try {
+          write(batch);
+        }
+        catch (Throwable t) {
+          logger.error("writing to {}", batch.server, t);
+          error.compareAndSet(null, t);
+        }
+        finally {
+          synchronized (HBaseAsyncWriter.this) {
+            inFlight--;
+            bufferedBytes -= batch.bytes;
+            busyServers.remove(batch.server);
+            HBaseAsyncWriter.this.notifyAll();
+          }
+        }
+      }
+    });
+  }
+
+  private void waitForBatch() throws InterruptedIOException
+  {
+    try {
+      wait();
+    }
+    catch (InterruptedException e) {
+      throw new InterruptedIOException("waiting for hbase writes");
+    }
+  }
+
+  /**
+   * Writes a batch and retries the puts which failed. Called by the threads of the pool.
+   */
+  private void write(Batch batch) throws IOException, InterruptedException
+  {
+    List<Put> puts = batch.puts;
+    for (int attempt = 0; ; attempt++) {
+      long start = System.nanoTime();
+      HTableInterface table = connection.getTable(tableName);
+      try {
+        table.put(puts);
+        record(attempt == 0 ? puts.size() : 0, 0, System.nanoTime() - start);
+        return;
+      }
+      catch (RetriesExhaustedWithDetailsException e) {
+        Set<Put> failedSet = Collections.newSetFromMap(new IdentityHashMap<Put, Boolean>());
+        for (int i = 0; i < e.getNumExceptions(); i++) {
+          Row row = e.getRow(i);
+          if (row instanceof Put) {
+            failedSet.add((Put)row);
+          }
+        }
+        //keep the order of the puts for the retry
+        List<Put> failed = new ArrayList<Put>(failedSet.size());
+        for (Put put : puts) {
+          if (failedSet.contains(put)) {
+            failed.add(put);
+          }
+        }
+        record(attempt == 0 ? puts.size() : 0, failed.size(), System.nanoTime() - start);
+        if (attempt >= maxRetries || failed.isEmpty()) {
+          throw e;
+        }
+        logger.warn("retrying {} puts to {} attempt {}", failed.size(), batch.server, attempt + 1);
+        puts = failed;
+        Thread.sleep(100L << Math.min(attempt, 6));
+      }
+      finally {
+        table.close();
+      }
+    }
+  }
+
+  /**
+   * Records an attempt to write a batch. The puts which failed are counted as retries.
+   */
+  private synchronized void record(int newPuts, int failedPuts, long latencyNanos)
+  {
+    putCount += newPuts;
+    retryCount += failedPuts;
+    batchCount++;
+    batchNanos += latencyNanos;
+    maxBatchNanos = Math.max(maxBatchNanos, latencyNanos);
+  }
+
+  private void checkError() throws IOException
+  {
+    Throwable t = error.get();
+    if (t != null) {
+      if (t instanceof IOException) {
+        throw (IOException)t;
+      }
+      DTThrowable.rethrow(t);
+    }
+  }
+
+  /**
+   * @return the counters of the writes, which are updated by {@link #flush()}.
+   */
+  public BasicCounters<MutableLong> getCounters()
+  {
+    return counters;
+  }
+
+  /**
+   * Discards the buffered puts, stops the threads and closes the connection.
+   */
+  public void close() throws IOException
+  {
+    pending.clear();
+    executor.shutdownNow();
+    try {
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+    catch (InterruptedException e) {
+      throw new InterruptedIOException("closing hbase writer");
+    }
+    finally {
+      connection.close();
+    }
+  }
+
+  /**
+   * Puts for one region server.
+   */
+  static class Batch
+  {
+    final String server;
+    final List<Put> puts = new ArrayList<Put>();
+    long bytes;
+
+    Batch(String server)
+    {
+      this.server = server;
+    }
+
+    void add(Put put, long size)
+    {
+      puts.add(put);
+      bytes += size;
+    }
+  }
+
+  public static enum HBaseWriterCounters
+  {
+    /**
+     * Puts written since the writer was created
+     */
+    PUTS,
+    /**
+     * Attempts to write a batch since the writer was created
+     */
+    BATCHES,
+    /**
+     * Puts which failed a write attempt since the writer was created
+     */
+    RETRIES,
+    /**
+     * Average latency of the batches written since the previous flush
+     */
+    BATCH_LATENCY_MILLIS,
+    /**
+     * Latency of the slowest batch written since the previous flush
+     */
+    MAX_BATCH_LATENCY_MILLIS
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(HBaseAsyncWriter.class);
+}
@@ -129,8 +129,16 @@ public class HBaseWindowStore extends HBaseStore implements TransactionableStore
 
   @Override
   public void commitTransaction() {
-    // HBase does support transactions so this method left empty
-
+    // HBase does not support transactions, the committed window id is flushed so that it is durable when the window ends
+    try {
+      table.flushCommits();
+    } catch (RetriesExhaustedWithDetailsException e) {
+      logger.error("Could not store window id ", e);
+      DTThrowable.rethrow(e);
+    } catch (InterruptedIOException e) {
+      logger.error("Could not store window id ", e);
+      DTThrowable.rethrow(e);
+    }
   }
 
   @Override
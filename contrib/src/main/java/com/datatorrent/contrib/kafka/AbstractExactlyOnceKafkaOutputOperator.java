@@ -15,10 +15,22 @@
  */
 package com.datatorrent.contrib.kafka;
 
-import com.datatorrent.api.Context.OperatorContext;
-import com.datatorrent.api.DefaultInputPort;
-import com.datatorrent.common.util.Pair;
-import com.google.common.collect.Sets;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.validation.constraints.Min;
+
 import kafka.api.FetchRequest;
 import kafka.api.FetchRequestBuilder;
 import kafka.javaapi.FetchResponse;
@@ -27,14 +39,22 @@ import kafka.javaapi.TopicMetadata;
 import kafka.javaapi.consumer.SimpleConsumer;
 import kafka.message.Message;
 import kafka.message.MessageAndOffset;
+import kafka.producer.DefaultPartitioner;
 import kafka.producer.KeyedMessage;
 import kafka.producer.Partitioner;
+import kafka.utils.VerifiableProperties;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.ByteBuffer;
-import java.util.HashMap;
-import java.util.Map;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import com.datatorrent.api.Context.OperatorContext;
+import com.datatorrent.api.DefaultInputPort;
+import com.datatorrent.api.annotation.OperatorAnnotation;
+import com.datatorrent.common.util.NameableThreadFactory;
+import com.datatorrent.common.util.Pair;
 
 
 /**
@@ -50,7 +70,16 @@ import java.util.Map;
  * 1 Multiple producers produce messages to same kafka partition
  * 2 You have same message sent out and before kafka synchronized this message among all the brokers, the operator is
  * started again.
+ * The recovery relies on the operator being the only producer of the topic, so it is not partitionable.
+ *
+ * When {@link #isTrackPartitionOffsets()} is set the operator does not compare messages. It keeps the log end offset
+ * of every partition as of the end of each window in its checkpointed state instead. After a failure the current
+ * log end offsets are looked up once and the number of replayed tuples of a partition that are already in kafka
+ * is skipped. This requires that the operator is the only producer of the topic, that the tuples have keys and
+ * that the producer is synchronous.
  *
+ * Tuples are sent in batches of {@link #getBatchSize()} by a sender thread. All the batches of a window are
+ * acknowledged before the window ends.
  * <br>
  * Ports:<br>
  * <b>Input</b>: One input port<br>
@@ -62,10 +91,11 @@ import java.util.Map;
  * Compile time checks:<br>
  * Class derived from has to implement 2 methods:<br>
  * tupleToKeyValue() to convert input tuples to kafka key value objects<br>
- * compareToLastMsg() to compare incoming tuple with the last received msg in kafka so that the operator could skip the received ones<br>
+ * compareToLastMsg() to compare incoming tuple with the last received msg in kafka so that the operator could skip the received ones,
+ * not called when partition offsets are tracked<br>
  * <br>
  * Run time checks:<br>
- * None<br>
+ * Tuples without a key are rejected when partition offsets are tracked<br>
  * <br>
  * Benchmarks:<br>
  * TBD<br>
@@ -77,6 +107,7 @@ import java.util.Map;
  *
  * @since 1.0.2
  */
+@OperatorAnnotation(partitionable = false)
 public abstract class AbstractExactlyOnceKafkaOutputOperator<T, K, V> extends AbstractKafkaOutputOperator<K, V>
 {
 
@@ -86,6 +117,37 @@ public abstract class AbstractExactlyOnceKafkaOutputOperator<T, K, V> extends Ab
 
   private transient int partitionNum = 1;
 
+  /**
+   * Recover with the log end offsets of the partitions instead of comparing tuples with the last messages
+   */
+  private boolean trackPartitionOffsets = false;
+
+  /**
+   * Number of tuples sent to kafka in one request
+   */
+  @Min(1)
+  private int batchSize = 1000;
+
+  /**
+   * Number of batches that can be in flight before the operator waits for the oldest one
+   */
+  @Min(1)
+  private int maxInFlightBatches = 4;
+
+  /**
+   * Log end offset of every partition at the end of the last window, only used when partition offsets are tracked
+   */
+  private long[] partitionOffsets;
+
+  /**
+   * Number of replayed tuples of every partition that are already in kafka
+   */
+  private transient long[] replayedMessages;
+
+  private transient List<KeyedMessage<K, V>> batch;
+  private transient Deque<Future<?>> inFlightBatches;
+  private transient ExecutorService sender;
+
   @Override
   public void setup(OperatorContext context)
   {
@@ -93,13 +155,35 @@ public abstract class AbstractExactlyOnceKafkaOutputOperator<T, K, V> extends Ab
     try {
       String className = (String) getConfigProperties().get(KafkaMetadataUtil.PRODUCER_PROP_PARTITIONER);
       if (className != null) {
-        partitioner = (Partitioner) Class.forName(className).newInstance();
+        partitioner = createPartitioner(Class.forName(className));
+      }
+      else if (trackPartitionOffsets) {
+        partitioner = new DefaultPartitioner(null);
       }
     } catch (Exception e) {
       throw new RuntimeException("Failed to initialize partitioner", e);
     }
-    //read last message from kafka
-    initializeLastProcessingOffset();
+    if (trackPartitionOffsets) {
+      initializePartitionOffsets();
+    }
+    else {
+      //read last message from kafka
+      initializeLastProcessingOffset();
+    }
+    batch = new ArrayList<KeyedMessage<K, V>>(batchSize);
+    inFlightBatches = new ArrayDeque<Future<?>>();
+    sender = Executors.newSingleThreadExecutor(new NameableThreadFactory("Kafka-Sender-" + getTopic()));
+  }
+
+  private static Partitioner createPartitioner(Class<?> clazz) throws Exception
+  {
+    try {
+      // kafka instantiates partitioners with the producer properties
+      return (Partitioner) clazz.getConstructor(VerifiableProperties.class).newInstance(new Object[] {null});
+    }
+    catch (NoSuchMethodException e) {
+      return (Partitioner) clazz.newInstance();
+    }
   }
 
   /**
@@ -112,27 +196,94 @@ public abstract class AbstractExactlyOnceKafkaOutputOperator<T, K, V> extends Ab
       Pair<K, V> keyValue = tupleToKeyValue(tuple);
       int pid = 0;
 
+      if (trackPartitionOffsets && keyValue.first == null) {
+        // kafka sends messages without a key to any partition, so their offsets can't be tracked
+        throw new IllegalArgumentException("Tuple " + tuple + " has no key, keys are required when partition offsets are tracked");
+      }
+
       if(partitioner!=null){
         pid = partitioner.partition(keyValue.first, partitionNum);
       }
 
-      Pair<byte[], byte[]> lastMsg = lastMsgs.get(pid);
+      if (trackPartitionOffsets) {
+        partitionOffsets[pid]++;
+        if (replayedMessages[pid] > 0) {
+          // ignore tuple because it was sent before the failure
+          replayedMessages[pid]--;
+          return;
+        }
+      }
+      else {
+        Pair<byte[], byte[]> lastMsg = lastMsgs.get(pid);
 
-      if(lastMsg == null || compareToLastMsg(keyValue, lastMsg) > 0){
-        getProducer().send(new KeyedMessage<K, V>(getTopic(), keyValue.first, keyValue.second));
-        sendCount ++;
-      } else {
-        // ignore tuple because kafka has already had the tuple
-        logger.debug("Ingore tuple " + tuple);
-        return;
+        if (lastMsg != null && compareToLastMsg(keyValue, lastMsg) <= 0) {
+          // ignore tuple because kafka has already had the tuple
+          logger.debug("Ingore tuple " + tuple);
+          return;
+        }
+      }
+      batch.add(new KeyedMessage<K, V>(getTopic(), keyValue.first, keyValue.second));
+      sendCount ++;
+      if (batch.size() >= batchSize) {
+        sendBatch();
       }
     }
   };
 
-  private void initializeLastProcessingOffset()
+  /**
+   * Hands over the buffered messages to the sender thread.
+   */
+  private void sendBatch()
   {
+    if (batch.isEmpty()) {
+      return;
+    }
+    final List<KeyedMessage<K, V>> messages = batch;
+    batch = new ArrayList<KeyedMessage<K, V>>(batchSize);
+    waitForBatches(maxInFlightBatches - 1);
+    inFlightBatches.add(sender.submit(new Callable<Void>()
+    {
+      @Override
+      public Void call() throws Exception
+      {
+        getProducer().send(messages);
+        return null;
+      }
+    }));
+  }
 
-    // read last received kafka message
+  private void waitForBatches(int maxInFlight)
+  {
+    try {
+      while (inFlightBatches.size() > maxInFlight) {
+        inFlightBatches.poll().get();
+      }
+    }
+    catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+    catch (ExecutionException e) {
+      throw new RuntimeException("sending to kafka failed", e.getCause());
+    }
+  }
+
+  @Override
+  public void endWindow()
+  {
+    sendBatch();
+    waitForBatches(0);
+    super.endWindow();
+  }
+
+  @Override
+  public void teardown()
+  {
+    sender.shutdownNow();
+    super.teardown();
+  }
+
+  private TopicMetadata getTopicMetadata()
+  {
     TopicMetadata tm = KafkaMetadataUtil.getTopicMetadata(Sets.newHashSet((String)getConfigProperties().get(KafkaMetadataUtil.PRODUCER_PROP_BROKERLIST)), this.getTopic());
 
     if (tm == null) {
@@ -140,40 +291,115 @@ public abstract class AbstractExactlyOnceKafkaOutputOperator<T, K, V> extends Ab
     }
 
     partitionNum = tm.partitionsMetadata().size();
+    return tm;
+  }
+
+  /**
+   * Looks up the log end offset of every partition and computes how many replayed tuples are already in kafka.
+   */
+  private void initializePartitionOffsets()
+  {
+    TopicMetadata tm = getTopicMetadata();
+    String clientName = getClientName(tm);
+    long[] logEndOffsets = new long[partitionNum];
+    Map<String, SimpleConsumer> consumers = Maps.newHashMap();
+    try {
+      for (PartitionMetadata pm : tm.partitionsMetadata()) {
+        SimpleConsumer consumer = getConsumer(consumers, pm, clientName);
+        logEndOffsets[pm.partitionId()] = KafkaMetadataUtil.getLastOffset(consumer, tm.topic(), pm.partitionId(), kafka.api.OffsetRequest.LatestTime(), clientName);
+      }
+    }
+    finally {
+      closeConsumers(consumers);
+    }
+
+    replayedMessages = new long[partitionNum];
+    if (partitionOffsets == null) {
+      partitionOffsets = logEndOffsets;
+      return;
+    }
+    if (partitionOffsets.length != partitionNum) {
+      logger.warn("Number of partitions of {} changed from {} to {}", getTopic(), partitionOffsets.length, partitionNum);
+      partitionOffsets = Arrays.copyOf(partitionOffsets, partitionNum);
+    }
+    for (int pid = 0; pid < partitionNum; pid++) {
+      replayedMessages[pid] = Math.max(logEndOffsets[pid] - partitionOffsets[pid], 0);
+      if (replayedMessages[pid] > 0) {
+        logger.info("Skipping {} replayed messages of partition {}", replayedMessages[pid], pid);
+      }
+    }
+  }
+
+  private void initializeLastProcessingOffset()
+  {
+
+    // read last received kafka message
+    TopicMetadata tm = getTopicMetadata();
 
     lastMsgs = new HashMap<Integer, Pair<byte[],byte[]>>(partitionNum);
 
-    for (PartitionMetadata pm : tm.partitionsMetadata()) {
+    String clientName = getClientName(tm);
+    Map<String, SimpleConsumer> consumers = Maps.newHashMap();
+    try {
+      for (PartitionMetadata pm : tm.partitionsMetadata()) {
+        readLastMessage(getConsumer(consumers, pm, clientName), tm, pm, clientName);
+      }
+    }
+    finally {
+      closeConsumers(consumers);
+    }
+  }
 
-      String leadBroker = pm.leader().host();
-      int port = pm.leader().port();
-      String clientName = this.getClass().getName().replace('$', '.') + "_Client_" + tm.topic() + "_" + pm.partitionId();
-      SimpleConsumer consumer = new SimpleConsumer(leadBroker, port, 100000, 64 * 1024, clientName);
+  private void readLastMessage(SimpleConsumer consumer, TopicMetadata tm, PartitionMetadata pm, String clientName)
+  {
+    long readOffset = KafkaMetadataUtil.getLastOffset(consumer, tm.topic(), pm.partitionId(), kafka.api.OffsetRequest.LatestTime(), clientName);
 
-      long readOffset = KafkaMetadataUtil.getLastOffset(consumer, tm.topic(), pm.partitionId(), kafka.api.OffsetRequest.LatestTime(), clientName);
+    FetchRequest req = new FetchRequestBuilder().clientId(clientName).addFetch(tm.topic(), pm.partitionId(), readOffset - 1, 100000).build();
 
-      FetchRequest req = new FetchRequestBuilder().clientId(clientName).addFetch(tm.topic(), pm.partitionId(), readOffset - 1, 100000).build();
+    FetchResponse fetchResponse = consumer.fetch(req);
+    for (MessageAndOffset messageAndOffset : fetchResponse.messageSet(tm.topic(), pm.partitionId())) {
 
-      FetchResponse fetchResponse = consumer.fetch(req);
-      for (MessageAndOffset messageAndOffset : fetchResponse.messageSet(tm.topic(), pm.partitionId())) {
+      Message m = messageAndOffset.message();
 
-        Message m = messageAndOffset.message();
+      ByteBuffer payload = m.payload();
+      ByteBuffer key = m.key();
+      byte[] valueBytes = new byte[payload.limit()];
+      byte[] keyBytes = new byte[key.limit()];
+      payload.get(valueBytes);
+      key.get(keyBytes);
+      lastMsgs.put(pm.partitionId(), new Pair<byte[], byte[]>(keyBytes, valueBytes));
+    }
+  }
 
-        ByteBuffer payload = m.payload();
-        ByteBuffer key = m.key();
-        byte[] valueBytes = new byte[payload.limit()];
-        byte[] keyBytes = new byte[key.limit()];
-        payload.get(valueBytes);
-        key.get(keyBytes);
-        lastMsgs.put(pm.partitionId(), new Pair<byte[], byte[]>(keyBytes, valueBytes));
-      }
+  private String getClientName(TopicMetadata tm)
+  {
+    return this.getClass().getName().replace('$', '.') + "_Client_" + tm.topic();
+  }
 
+  /**
+   * Returns the consumer of the leader broker of the partition, the partitions led by the same broker share it.
+   */
+  private static SimpleConsumer getConsumer(Map<String, SimpleConsumer> consumers, PartitionMetadata pm, String clientName)
+  {
+    String leader = pm.leader().host() + ":" + pm.leader().port();
+    SimpleConsumer consumer = consumers.get(leader);
+    if (consumer == null) {
+      consumer = new SimpleConsumer(pm.leader().host(), pm.leader().port(), 100000, 64 * 1024, clientName);
+      consumers.put(leader, consumer);
     }
+    return consumer;
+  }
 
+  private static void closeConsumers(Map<String, SimpleConsumer> consumers)
+  {
+    for (SimpleConsumer consumer : consumers.values()) {
+      consumer.close();
+    }
   }
 
   /**
    * compare the incoming tuple with the last received message in kafka.
+   * This is not called when partition offsets are tracked.
    *
    * @param tupleKeyValue
    * @param lastReceivedKeyValue
@@ -189,6 +415,46 @@ public abstract class AbstractExactlyOnceKafkaOutputOperator<T, K, V> extends Ab
    */
   protected abstract Pair<K, V> tupleToKeyValue(T tuple);
 
+  public boolean isTrackPartitionOffsets()
+  {
+    return trackPartitionOffsets;
+  }
+
+  /**
+   * When set the operator recovers with the log end offsets of the partitions of the topic instead of comparing
+   * tuples with the last message of every partition.
+   */
+  public void setTrackPartitionOffsets(boolean trackPartitionOffsets)
+  {
+    this.trackPartitionOffsets = trackPartitionOffsets;
+  }
+
+  public int getBatchSize()
+  {
+    return batchSize;
+  }
+
+  /**
+   * Sets the number of tuples that are sent to kafka in one request.
+   */
+  public void setBatchSize(int batchSize)
+  {
+    this.batchSize = batchSize;
+  }
+
+  public int getMaxInFlightBatches()
+  {
+    return maxInFlightBatches;
+  }
+
+  /**
+   * Sets the number of batches that can be in flight before the operator waits for the oldest one to be acknowledged.
+   */
+  public void setMaxInFlightBatches(int maxInFlightBatches)
+  {
+    this.maxInFlightBatches = maxInFlightBatches;
+  }
+
   private static final Logger logger = LoggerFactory.getLogger(AbstractExactlyOnceKafkaOutputOperator.class);
 
 }
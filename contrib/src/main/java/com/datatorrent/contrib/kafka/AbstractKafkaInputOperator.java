@@ -138,6 +138,10 @@ public abstract class AbstractKafkaInputOperator<K extends KafkaConsumer> implem
   @Min(1)
   private int maxTuplesPerWindow = Integer.MAX_VALUE;
   private transient int emitCount = 0;
+  /**
+   * Batch handed over by the consumer which was not completely emitted in the last call to emitTuples
+   */
+  private transient KafkaConsumer.KafkaMessageBatch pendingBatch;
   protected IdempotentStorageManager idempotentStorageManager;
   protected transient long currentWindowId;
   protected transient int operatorId;
@@ -347,6 +351,7 @@ public abstract class AbstractKafkaInputOperator<K extends KafkaConsumer> implem
   @Override
   public void deactivate()
   {
+    pendingBatch = null;
     consumer.stop();
   }
 
@@ -357,24 +362,65 @@ public abstract class AbstractKafkaInputOperator<K extends KafkaConsumer> implem
       return;
     }
     int count = consumer.messageSize();
+    if (pendingBatch != null) {
+      count += pendingBatch.remaining();
+    }
     if (maxTuplesPerWindow > 0) {
       count = Math.min(count, maxTuplesPerWindow - emitCount);
     }
-    for (int i = 0; i < count; i++) {
-      KafkaConsumer.KafkaMessage message = consumer.pollMessage();
+    int remaining = count;
+    while (remaining > 0) {
+      if (pendingBatch == null) {
+        pendingBatch = consumer.pollBatch();
+        if (pendingBatch == null) {
+          break;
+        }
+      }
+      remaining -= emitBatch(pendingBatch, remaining);
+      if (pendingBatch.remaining() == 0) {
+        pendingBatch = null;
+      }
+    }
+    emitCount += count - remaining;
+  }
+
+  /**
+   * Emits up to limit messages of a batch. The offset and the recovery state of the partition are updated
+   * once for the whole batch.
+   *
+   * @return the number of messages taken from the batch
+   */
+  private int emitBatch(KafkaConsumer.KafkaMessageBatch batch, int limit)
+  {
+    Long lastOffset = offsetStats.get(batch.kafkaPart);
+    long emittedOffset = lastOffset == null ? -1 : lastOffset;
+    long firstOffset = -1;
+    int emitted = 0;
+    int end = Math.min(batch.messages.length, batch.position + limit);
+    for (int i = batch.position; i < end; i++) {
+      MessageAndOffset message = batch.messages[i];
       // Ignore the duplicate messages
-      if(offsetStats.containsKey(message.kafkaPart) && message.offSet <= offsetStats.get(message.kafkaPart))
+      if (message.offset() <= emittedOffset) {
         continue;
-      emitTuple(message.msg);
-      offsetStats.put(message.kafkaPart, message.offSet);
-      MutablePair<Long, Integer> offsetAndCount = currentWindowRecoveryState.get(message.kafkaPart);
-      if(offsetAndCount == null) {
-        currentWindowRecoveryState.put(message.kafkaPart, new MutablePair<Long, Integer>(message.offSet, 1));
+      }
+      emitTuple(message.message());
+      if (emitted++ == 0) {
+        firstOffset = message.offset();
+      }
+      emittedOffset = message.offset();
+    }
+    int taken = end - batch.position;
+    batch.position = end;
+    if (emitted > 0) {
+      offsetStats.put(batch.kafkaPart, emittedOffset);
+      MutablePair<Long, Integer> offsetAndCount = currentWindowRecoveryState.get(batch.kafkaPart);
+      if (offsetAndCount == null) {
+        currentWindowRecoveryState.put(batch.kafkaPart, new MutablePair<Long, Integer>(firstOffset, emitted));
       } else {
-        offsetAndCount.setRight(offsetAndCount.right+1);
+        offsetAndCount.setRight(offsetAndCount.right + emitted);
       }
     }
-    emitCount += count;
+    return taken;
   }
 
   public void setConsumer(K consumer)
@@ -23,14 +23,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import kafka.message.Message;
+import kafka.message.MessageAndOffset;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Pattern.Flag;
@@ -55,6 +60,8 @@ public abstract class KafkaConsumer implements Closeable
   protected final static String HIGHLEVEL_CONSUMER_ID_SUFFIX = "_stream_";
 
   protected final static String SIMPLE_CONSUMER_ID_SUFFIX = "_partition_";
+
+  private static final long WAIT_FOR_SPACE_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
   private String zookeeper;
 
   public KafkaConsumer()
@@ -73,11 +80,28 @@ public abstract class KafkaConsumer implements Closeable
     setZookeeper(zks);
   }
 
+  /**
+   * The number of fetched batches each consumer thread can hand over to the operator before it blocks
+   */
   private int cacheSize = 1024;
 
+  /**
+   * The number of message bytes that can be held by the consumer before the consumer threads block
+   */
+  @Min(1)
+  private long maxBufferedBytes = 8 * 1024 * 1024;
+
   protected transient boolean isAlive = false;
 
-  private transient ArrayBlockingQueue<KafkaMessage> holdingBuffer;
+  /**
+   * One single producer single consumer ring for every consumer thread, all drained by the operator thread
+   */
+  private transient List<KafkaMessageBatchRing> rings;
+  private transient ThreadLocal<KafkaMessageBatchRing> threadRing;
+  private transient AtomicLong bufferedBytes;
+  private transient AtomicInteger bufferedMessages;
+  private transient AtomicLong batchSequence;
+  private transient KafkaMessageBatch pollCursor;
 
   /**
    * The topic that this consumer consumes
@@ -116,7 +140,21 @@ public abstract class KafkaConsumer implements Closeable
    */
   public void create(){
     initBrokers();
-    holdingBuffer = new ArrayBlockingQueue<KafkaMessage>(cacheSize);
+    rings = new CopyOnWriteArrayList<KafkaMessageBatchRing>();
+    threadRing = new ThreadLocal<KafkaMessageBatchRing>()
+    {
+      @Override
+      protected KafkaMessageBatchRing initialValue()
+      {
+        KafkaMessageBatchRing ring = new KafkaMessageBatchRing(cacheSize, Thread.currentThread());
+        rings.add(ring);
+        return ring;
+      }
+    };
+    bufferedBytes = new AtomicLong();
+    bufferedMessages = new AtomicInteger();
+    batchSequence = new AtomicLong();
+    pollCursor = null;
   }
 
   public void initBrokers()
@@ -153,7 +191,7 @@ public abstract class KafkaConsumer implements Closeable
   public void stop() {
     isAlive = false;
     statsSnapShot.stop();
-    holdingBuffer.clear();
+    clearBuffer();
     IOUtils.closeQuietly(this);
   };
 
@@ -162,7 +200,16 @@ public abstract class KafkaConsumer implements Closeable
    */
   public void teardown()
   {
-    holdingBuffer.clear();
+    clearBuffer();
+  }
+
+  private void clearBuffer()
+  {
+    pollCursor = null;
+    if (rings != null) {
+      while (pollBatch() != null) {
+      }
+    }
   }
 
   public boolean isAlive()
@@ -188,14 +235,66 @@ public abstract class KafkaConsumer implements Closeable
     return topic;
   }
 
+  /**
+   * Polls a single message. {@link #pollBatch()} hands over a whole fetched batch instead.
+   */
   public KafkaMessage pollMessage()
   {
-    return holdingBuffer.poll();
+    if (pollCursor == null || pollCursor.remaining() == 0) {
+      pollCursor = pollBatch();
+      if (pollCursor == null) {
+        return null;
+      }
+    }
+    MessageAndOffset message = pollCursor.messages[pollCursor.position++];
+    return new KafkaMessage(pollCursor.kafkaPart, message.message(), message.offset());
+  }
+
+  /**
+   * Removes the oldest batch handed over by the consumer threads. Batches are returned in the order in which
+   * they were put, across all the consumer threads, so the messages of a partition stay in offset order even
+   * when the partition moves to another consumer thread.<br/>
+   * This must only be called from the operator thread.
+   *
+   * @return the oldest batch or null if there are no buffered messages
+   */
+  public KafkaMessageBatch pollBatch()
+  {
+    KafkaMessageBatchRing oldest = null;
+    long sequence = Long.MAX_VALUE;
+    for (KafkaMessageBatchRing ring : rings) {
+      // check the producer before peeking, a producer that has died can not have put anything after the peek
+      boolean producerAlive = ring.isProducerAlive();
+      KafkaMessageBatch batch = ring.peek();
+      if (batch == null) {
+        if (!producerAlive) {
+          rings.remove(ring);
+        }
+      }
+      else if (batch.sequence < sequence) {
+        sequence = batch.sequence;
+        oldest = ring;
+      }
+    }
+    if (oldest == null) {
+      return null;
+    }
+    KafkaMessageBatch batch = oldest.poll();
+    bufferedBytes.addAndGet(-batch.sizeInBytes);
+    bufferedMessages.addAndGet(-batch.messages.length);
+    return batch;
   }
 
+  /**
+   * @return the number of messages buffered by the consumer
+   */
   public int messageSize()
   {
-    return holdingBuffer.size();
+    int size = bufferedMessages.get();
+    if (pollCursor != null) {
+      size += pollCursor.remaining();
+    }
+    return size;
   }
 
   public void setInitialOffset(String initialOffset)
@@ -218,11 +317,56 @@ public abstract class KafkaConsumer implements Closeable
     this.cacheSize = cacheSize;
   }
 
+  public long getMaxBufferedBytes()
+  {
+    return maxBufferedBytes;
+  }
+
+  /**
+   * Sets the number of message bytes the consumer holds before the consumer threads stop fetching.
+   * A single batch larger than this is still accepted when nothing else is buffered.
+   */
+  public void setMaxBufferedBytes(long maxBufferedBytes)
+  {
+    this.maxBufferedBytes = maxBufferedBytes;
+  }
 
   final protected void putMessage(KafkaPartition partition, Message msg, long offset) throws InterruptedException{
+    putMessages(partition, new MessageAndOffset[] {new MessageAndOffset(msg, offset)}, msg.payloadSize());
+  }
+
+  /**
+   * Hands over a batch of messages of one partition to the operator. The calling thread blocks while the
+   * buffered bytes are over {@link #getMaxBufferedBytes()} or its ring is full.
+   *
+   * @param partition   partition of the messages
+   * @param messages    messages in offset order
+   * @param sizeInBytes size of the batch
+   * @throws InterruptedException
+   */
+  final protected void putMessages(KafkaPartition partition, MessageAndOffset[] messages, int sizeInBytes) throws InterruptedException
+  {
+    KafkaMessageBatchRing ring = threadRing.get();
     // block from receiving more message
-    holdingBuffer.put(new KafkaMessage(partition, msg, offset));
-    statsSnapShot.mark(partition, msg.payloadSize());
+    long buffered;
+    while ((buffered = bufferedBytes.get()) > 0 && buffered + sizeInBytes > maxBufferedBytes) {
+      waitForSpace();
+    }
+    KafkaMessageBatch batch = new KafkaMessageBatch(partition, messages, sizeInBytes, batchSequence.getAndIncrement());
+    bufferedBytes.addAndGet(sizeInBytes);
+    bufferedMessages.addAndGet(messages.length);
+    while (!ring.offer(batch)) {
+      waitForSpace();
+    }
+    statsSnapShot.mark(partition, messages.length, sizeInBytes);
+  }
+
+  private static void waitForSpace() throws InterruptedException
+  {
+    LockSupport.parkNanos(WAIT_FOR_SPACE_NANOS);
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
   }
 
   protected abstract void commitOffset();
@@ -342,6 +486,34 @@ public abstract class KafkaConsumer implements Closeable
 
   }
 
+  /**
+   * Messages of one partition fetched together by a consumer thread
+   */
+  public static class KafkaMessageBatch
+  {
+    final KafkaPartition kafkaPart;
+    final MessageAndOffset[] messages;
+    final int sizeInBytes;
+    final long sequence;
+    /**
+     * Index of the next message to emit, only used by the operator thread
+     */
+    int position;
+
+    KafkaMessageBatch(KafkaPartition kafkaPart, MessageAndOffset[] messages, int sizeInBytes, long sequence)
+    {
+      this.kafkaPart = kafkaPart;
+      this.messages = messages;
+      this.sizeInBytes = sizeInBytes;
+      this.sequence = sequence;
+    }
+
+    int remaining()
+    {
+      return messages.length - position;
+    }
+  }
+
   public static class KafkaMeterStatsUtil {
 
     public static Map<KafkaPartition, Long> getOffsetsForPartitions(List<KafkaMeterStats> kafkaMeterStats)
@@ -485,9 +657,13 @@ public abstract class KafkaConsumer implements Closeable
       }
     }
 
-    public synchronized void mark(KafkaPartition partition, long bytes){
-      msgSec[cursor]++;
-      msgSec[60]++;
+    public void mark(KafkaPartition partition, long bytes){
+      mark(partition, 1, bytes);
+    }
+
+    public synchronized void mark(KafkaPartition partition, int msgs, long bytes){
+      msgSec[cursor] += msgs;
+      msgSec[60] += msgs;
       bytesSec[cursor] += bytes;
       bytesSec[60] += bytes;
       long[] msgv = _1_min_msg_sum_par.get(partition);
@@ -498,8 +674,8 @@ public abstract class KafkaConsumer implements Closeable
         _1_min_msg_sum_par.put(partition, msgv);
         _1_min_byte_sum_par.put(partition, bytev);
       }
-      msgv[cursor]++;
-      msgv[60]++;
+      msgv[cursor] += msgs;
+      msgv[60] += msgs;
       bytev[cursor] += bytes;
       bytev[60] += bytes;
     }
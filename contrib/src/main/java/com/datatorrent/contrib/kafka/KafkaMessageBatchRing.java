@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.contrib.kafka;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, lock free ring of message batches with exactly one producer thread and one consumer thread.<br/>
+ * <p>
+ * Every consumer thread of a {@link KafkaConsumer} owns one ring and the operator thread drains all of them.
+ * The producer publishes a batch by writing the slot and then advancing the tail with an ordered store,
+ * the consumer releases a slot the same way by advancing the head, so neither side ever takes a lock.
+ *
+ * @since 3.0.0
+ */
+class KafkaMessageBatchRing
+{
+  private final KafkaConsumer.KafkaMessageBatch[] batches;
+  private final int mask;
+  /**
+   * Index of the next batch to poll, written by the consumer thread only.
+   */
+  private final AtomicLong head = new AtomicLong();
+  /**
+   * Index of the next batch to offer, written by the producer thread only.
+   */
+  private final AtomicLong tail = new AtomicLong();
+  private final Thread producer;
+
+  KafkaMessageBatchRing(int capacity, Thread producer)
+  {
+    int size = 1;
+    while (size < capacity) {
+      size <<= 1;
+    }
+    batches = new KafkaConsumer.KafkaMessageBatch[size];
+    mask = size - 1;
+    this.producer = producer;
+  }
+
+  /**
+   * Called by the producer thread.
+   *
+   * @return false if the ring is full
+   */
+  boolean offer(KafkaConsumer.KafkaMessageBatch batch)
+  {
+    long t = tail.get();
+    if (t - head.get() == batches.length) {
+      return false;
+    }
+    batches[(int)t & mask] = batch;
+    tail.lazySet(t + 1);
+    return true;
+  }
+
+  /**
+   * Called by the consumer thread.
+   *
+   * @return the oldest batch in the ring without removing it, or null if the ring is empty
+   */
+  KafkaConsumer.KafkaMessageBatch peek()
+  {
+    long h = head.get();
+    if (h == tail.get()) {
+      return null;
+    }
+    return batches[(int)h & mask];
+  }
+
+  /**
+   * Called by the consumer thread.
+   *
+   * @return the oldest batch in the ring, or null if the ring is empty
+   */
+  KafkaConsumer.KafkaMessageBatch poll()
+  {
+    long h = head.get();
+    if (h == tail.get()) {
+      return null;
+    }
+    int index = (int)h & mask;
+    KafkaConsumer.KafkaMessageBatch batch = batches[index];
+    batches[index] = null;
+    head.lazySet(h + 1);
+    return batch;
+  }
+
+  boolean isProducerAlive()
+  {
+    return producer.isAlive();
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.datatorrent.contrib.kafka;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -132,6 +133,7 @@ public class SimpleKafkaConsumer extends KafkaConsumer
           }
         }
 
+        List<MessageAndOffset> messages = new ArrayList<MessageAndOffset>();
         // stop consuming only when the consumer container is stopped or the metadata can not be refreshed
         while (consumer.isAlive && (consumer.metadataRefreshRetryLimit == -1 || consumer.retryCounter.get() < consumer.metadataRefreshRetryLimit)) {
 
@@ -166,12 +168,17 @@ public class SimpleKafkaConsumer extends KafkaConsumer
                 continue;
               } 
               // If the fetchResponse either has no error or the no error for $kafkaPartition get the data
+              // hand over the messages of the partition as one batch
               long offset = -1l;
+              int bytes = 0;
               for (MessageAndOffset msg : fetchResponse.messageSet(consumer.topic, kafkaPartition.getPartitionId())) {
                 offset = msg.nextOffset();
-                consumer.putMessage(kafkaPartition, msg.message(), msg.offset());
+                bytes += msg.message().payloadSize();
+                messages.add(msg);
               }
               if (offset != -1) {
+                consumer.putMessages(kafkaPartition, messages.toArray(new MessageAndOffset[messages.size()]), bytes);
+                messages.clear();
                 consumer.offsetTrack.put(kafkaPartition, offset);
               }
 
@@ -20,10 +20,14 @@ import com.amazonaws.services.kinesis.AmazonKinesisClient;
 import com.amazonaws.services.kinesis.model.PutRecordRequest;
 import com.amazonaws.services.kinesis.model.PutRecordsRequest;
 import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import com.amazonaws.services.kinesis.model.PutRecordsResult;
+import com.amazonaws.services.kinesis.model.PutRecordsResultEntry;
 import com.datatorrent.api.Context.OperatorContext;
 import com.datatorrent.api.DefaultInputPort;
 import com.datatorrent.api.Operator;
+import com.datatorrent.common.util.NameableThreadFactory;
 import com.datatorrent.common.util.Pair;
+import com.google.common.base.Utf8;
 
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
@@ -33,8 +37,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 /**
  * Base implementation of Kinesis Output Operator. Convert tuples to records and emits to Kinesis.<br/>
  *
@@ -42,6 +53,13 @@ import java.util.List;
  * {@link #accessKey} : AWS Credentials AccessKeyId <br/>
  * {@link #secretKey} : AWS Credentials SecretAccessKey <br/>
  * streamName : Name of the stream from where the records to be accessed
+ * <p>
+ * With batch processing a batch is closed when it has batchSize records or when the next record would take it
+ * over maxBatchBytes. Closed batches are put by a writer thread while the operator keeps processing. Records which fail
+ * within a PutRecords call are retried with exponential backoff, up to maxRetries times. All the records of a window are
+ * written before the window ends.
+ * By default one PutRecords call is outstanding at a time, which keeps the order of the records. Setting
+ * maxInFlightRequests higher puts batches in parallel, in which case records of the same partition key can be reordered.
  *
  * @param <T>
  * @since 2.0.0
@@ -80,6 +98,24 @@ public abstract class AbstractKinesisOutputOperator<V, T> implements Operator
   @Min(2)
   @Max(500)
   protected int batchSize = 92;
+  /**
+   * Max size of the data and partition keys of the records in one PutRecords call
+   */
+  @Min(1)
+  protected int maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+  @Min(1)
+  private int maxInFlightRequests = 1;
+  @Min(0)
+  private int maxRetries = 10;
+  @Min(0)
+  private long retryBackoffMillis = 100;
+  private transient int batchBytes;
+  private transient ExecutorService writer;
+  private transient Deque<Future<Void>> inFlightRequests;
+
+  private static final int DEFAULT_MAX_BATCH_BYTES = 4608 * 1024;
+  private static final long MAX_RETRY_BACKOFF_MILLIS = 10000;
+
   /**
    * Implement Operator Interface.
    */
@@ -94,6 +130,9 @@ public abstract class AbstractKinesisOutputOperator<V, T> implements Operator
   @Override
   public void teardown()
   {
+    if (writer != null) {
+      writer.shutdownNow();
+    }
   }
 
   /**
@@ -102,12 +141,11 @@ public abstract class AbstractKinesisOutputOperator<V, T> implements Operator
   @Override
   public void endWindow()
   {
-    if (isBatchProcessing && putRecordsRequestEntryList.size() != 0) {
-      try {
+    if (isBatchProcessing) {
+      if (putRecordsRequestEntryList.size() != 0) {
         flushRecords();
-      } catch (AmazonClientException e) {
-        throw new RuntimeException(e);
       }
+      waitForRequests(0);
     }
   }
 
@@ -129,6 +167,9 @@ public abstract class AbstractKinesisOutputOperator<V, T> implements Operator
     if(isBatchProcessing)
     {
       putRecordsRequestEntryList.clear();
+      batchBytes = 0;
+      inFlightRequests = new ArrayDeque<Future<Void>>();
+      writer = Executors.newFixedThreadPool(maxInFlightRequests, new NameableThreadFactory("Kinesis-Writer-" + streamName));
     }
   }
 
@@ -151,11 +192,6 @@ public abstract class AbstractKinesisOutputOperator<V, T> implements Operator
     try {
       if(isBatchProcessing)
       {
-        if(putRecordsRequestEntryList.size() == batchSize)
-        {
-          flushRecords();
-          logger.debug( "flushed {} records.", batchSize );
-        }
         addRecord(tuple);
 
       } else {
@@ -177,29 +213,87 @@ public abstract class AbstractKinesisOutputOperator<V, T> implements Operator
   
   private void addRecord(T tuple)
   {
-    try {
-      Pair<String, V> keyValue = tupleToKeyValue(tuple);
-      PutRecordsRequestEntry putRecordsEntry = new PutRecordsRequestEntry();
-      putRecordsEntry.setData(ByteBuffer.wrap(getRecord(keyValue.second)));
-      putRecordsEntry.setPartitionKey(keyValue.first);
-      putRecordsRequestEntryList.add(putRecordsEntry);
-    } catch (AmazonClientException e) {
-      throw new RuntimeException(e);
+    Pair<String, V> keyValue = tupleToKeyValue(tuple);
+    byte[] data = getRecord(keyValue.second);
+    // the size limits of PutRecords count the partition key in UTF-8 bytes
+    int recordBytes = data.length + Utf8.encodedLength(keyValue.first);
+    if (putRecordsRequestEntryList.size() == batchSize ||
+        (putRecordsRequestEntryList.size() != 0 && batchBytes + recordBytes > maxBatchBytes)) {
+      flushRecords();
     }
+    PutRecordsRequestEntry putRecordsEntry = new PutRecordsRequestEntry();
+    putRecordsEntry.setData(ByteBuffer.wrap(data));
+    putRecordsEntry.setPartitionKey(keyValue.first);
+    putRecordsRequestEntryList.add(putRecordsEntry);
+    batchBytes += recordBytes;
   }
 
+  /**
+   * Hands over the batched records to a writer thread. Waits if there are already maxInFlightRequests requests.
+   */
   private void flushRecords()
+  {
+    final List<PutRecordsRequestEntry> records = putRecordsRequestEntryList;
+    putRecordsRequestEntryList = new ArrayList<PutRecordsRequestEntry>();
+    batchBytes = 0;
+    waitForRequests(maxInFlightRequests - 1);
+    inFlightRequests.add(writer.submit(new Callable<Void>()
+    {
+      @Override
+      public Void call() throws Exception
+      {
+        putRecords(records);
+        return null;
+      }
+    }));
+    logger.debug("flushed {} records.", records.size());
+  }
+
+  private void waitForRequests(int maxInFlight)
   {
     try {
+      while (inFlightRequests.size() > maxInFlight) {
+        inFlightRequests.poll().get();
+      }
+    }
+    catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+    catch (ExecutionException e) {
+      logger.warn("PutRecordsRequest exception.", e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  /**
+   * Puts the records and retries the ones which failed with exponential backoff.
+   */
+  private void putRecords(List<PutRecordsRequestEntry> records) throws InterruptedException
+  {
+    long backoff = retryBackoffMillis;
+    for (int retry = 0; ; retry++) {
       PutRecordsRequest putRecordsRequest = new PutRecordsRequest();
       putRecordsRequest.setStreamName(streamName);
-      putRecordsRequest.setRecords(putRecordsRequestEntryList);
-      client.putRecords(putRecordsRequest);
-      putRecordsRequestEntryList.clear();
-      logger.debug( "Records flushed." );
-    } catch (AmazonClientException e) {
-      logger.warn( "PutRecordsRequest exception.", e );
-      throw new RuntimeException(e);
+      putRecordsRequest.setRecords(records);
+      PutRecordsResult result = client.putRecords(putRecordsRequest);
+      Integer failedRecordCount = result.getFailedRecordCount();
+      if (failedRecordCount == null || failedRecordCount == 0) {
+        return;
+      }
+      if (retry == maxRetries) {
+        throw new AmazonClientException("Failed to put " + failedRecordCount + " records to " + streamName + " after " + maxRetries + " retries");
+      }
+      List<PutRecordsRequestEntry> failedRecords = new ArrayList<PutRecordsRequestEntry>(failedRecordCount);
+      List<PutRecordsResultEntry> resultEntries = result.getRecords();
+      for (int i = 0; i < resultEntries.size(); i++) {
+        if (resultEntries.get(i).getErrorCode() != null) {
+          failedRecords.add(records.get(i));
+        }
+      }
+      logger.debug("retrying {} of {} records in {} ms", failedRecords.size(), records.size(), backoff);
+      records = failedRecords;
+      Thread.sleep(backoff);
+      backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MILLIS);
     }
   }
   public void setClient(AmazonKinesisClient _client)
@@ -227,6 +321,59 @@ public abstract class AbstractKinesisOutputOperator<V, T> implements Operator
     this.batchSize = batchSize;
   }
 
+  public int getMaxBatchBytes()
+  {
+    return maxBatchBytes;
+  }
+
+  /**
+   * Sets the max size of the data and partition keys of the records put in one request, 4.5MB by default.
+   */
+  public void setMaxBatchBytes(int maxBatchBytes)
+  {
+    this.maxBatchBytes = maxBatchBytes;
+  }
+
+  public int getMaxInFlightRequests()
+  {
+    return maxInFlightRequests;
+  }
+
+  /**
+   * Sets the number of PutRecords requests that can be outstanding at the same time, 1 by default.
+   * With more than one request in flight records of the same partition key can be reordered.
+   */
+  public void setMaxInFlightRequests(int maxInFlightRequests)
+  {
+    this.maxInFlightRequests = maxInFlightRequests;
+  }
+
+  public int getMaxRetries()
+  {
+    return maxRetries;
+  }
+
+  /**
+   * Sets how many times the records that failed within a PutRecords request are retried.
+   */
+  public void setMaxRetries(int maxRetries)
+  {
+    this.maxRetries = maxRetries;
+  }
+
+  public long getRetryBackoffMillis()
+  {
+    return retryBackoffMillis;
+  }
+
+  /**
+   * Sets the wait before the first retry, the wait doubles with every further retry.
+   */
+  public void setRetryBackoffMillis(long retryBackoffMillis)
+  {
+    this.retryBackoffMillis = retryBackoffMillis;
+  }
+
   public boolean isBatchProcessing()
   {
     return isBatchProcessing;
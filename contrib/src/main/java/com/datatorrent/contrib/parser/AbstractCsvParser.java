@@ -15,24 +15,16 @@
  */
 package com.datatorrent.contrib.parser;
 
-import java.util.ArrayList;
-
 import javax.validation.constraints.NotNull;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.supercsv.prefs.CsvPreference;
 
-import com.datatorrent.common.util.BaseOperator;
 import com.datatorrent.api.Context.OperatorContext;
-import com.datatorrent.api.DefaultInputPort;
-import com.datatorrent.api.DefaultOutputPort;
 import com.datatorrent.netlet.util.DTThrowable;
 import com.datatorrent.lib.util.ReusableStringReader;
 import java.io.*;
-import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FileSystem;
-import org.apache.hadoop.fs.Path;
 import org.supercsv.cellprocessor.*;
 import org.supercsv.cellprocessor.ift.CellProcessor;
 import org.supercsv.io.*;
@@ -47,28 +39,18 @@ import org.supercsv.io.*;
  *  Other properties to be specified
  *        - Input Stream encoding - default value should be UTF-8
  *        - End of line character - default should be ‘\r\n’
+ *  The tuples are decoded into strings and read with the SuperCSV reader which is returned by the implementation.
  *
  * @param <T> This is the output tuple type.
  *
  * @since 2.1.0
  */
-public abstract class AbstractCsvParser<T> extends BaseOperator
+public abstract class AbstractCsvParser<T> extends AbstractDelimitedParser<T>
 {
-  // List of key value pairs which has name of the field as key , data type of the field as value.
-  private ArrayList<Field> fields;
-
-  protected String inputEncoding;
-  @NotNull
-  protected int fieldDelimiter;
   protected String lineDelimiter;
-  //User gets an option to specify filename containing name of the field and data type of the field.
-  protected String fieldmappingFile;
-  //Field and its data type can be separated by a user defined delimiter in the file.
-  protected String fieldmappingFileDelimiter;
 
   protected transient String[] properties;
   protected transient CellProcessor[] processors;
-  protected boolean hasHeader;
 
   private transient ICsvReader csvReader;
 
@@ -82,89 +64,48 @@ public abstract class AbstractCsvParser<T> extends BaseOperator
 
   public AbstractCsvParser()
   {
-    fields = new ArrayList<Field>();
-    fieldDelimiter = ',';
-    fieldmappingFileDelimiter = ":";
-    inputEncoding = "UTF8";
     lineDelimiter = "\r\n";
-    hasHeader = false;
   }
 
   /**
-   * Output port that emits value of the fields.
-   * Output data type can be configured in the implementation of this operator.
-   */
-  public final transient DefaultOutputPort<T> output = new DefaultOutputPort<T>();
-
-  /**
-   * This input port receives byte array as tuple.
+   * Parses the lines in a tuple and emits the data which is read from them.
+   *
+   * @param tuple delimited lines.
    */
-  public final transient DefaultInputPort<byte[]> input = new DefaultInputPort<byte[]>()
+  @Override
+  protected void processTuple(byte[] tuple)
   {
-    @Override
-    public void process(byte[] tuple)
-    {
-      try {
-        csvStringReader.open(new String(tuple, inputEncoding));
-        if (hasHeader) {
-          String[] header = csvReader.getHeader(true);
-          int len = header.length;
-          for (int i = 0; i < len; i++) {
-            logger.debug("header is {}", header[i]);
-            @SuppressWarnings("unchecked")
-            T headerData = (T)header[i];
-            output.emit(headerData);
-          }
+    try {
+      csvStringReader.open(new String(tuple, inputEncoding));
+      if (hasHeader) {
+        String[] header = csvReader.getHeader(true);
+        int len = header.length;
+        for (int i = 0; i < len; i++) {
+          logger.debug("header is {}", header[i]);
+          @SuppressWarnings("unchecked")
+          T headerData = (T)header[i];
+          output.emit(headerData);
         }
+      }
 
-        while (true) {
-          T data = readData(properties, processors);
-          if (data == null) {
-            break;
-          }
-          logger.debug("data in loop is {}", data.toString());
-          output.emit(data);
+      while (true) {
+        T data = readData(properties, processors);
+        if (data == null) {
+          break;
         }
+        logger.debug("data in loop is {}", data.toString());
+        output.emit(data);
       }
-      catch (IOException ex) {
-        throw new RuntimeException(ex);
-      }
-
     }
-
-  };
+    catch (IOException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
 
   @Override
   public void setup(OperatorContext context)
   {
-    if (fieldmappingFile != null) {
-      Configuration conf = new Configuration();
-      try {
-        FileSystem fs = FileSystem.get(conf);
-        Path filepath = new Path(fieldmappingFile);
-        if (fs.exists(filepath)) {
-          BufferedReader bfr = new BufferedReader(new InputStreamReader(fs.open(filepath)));
-          String str;
-
-          while ((str = bfr.readLine()) != null) {
-            logger.debug("string is {}", str);
-            String[] temp = str.split(fieldmappingFileDelimiter);
-            Field field = new Field();
-            field.setName(temp[0]);
-            field.setType(temp[1]);
-            getFields().add(field);
-          }
-        }
-        else {
-          logger.debug("File containing fields and their data types does not exist.Please specify the fields and data type through properties of this operator.");
-        }
-      }
-      catch (IOException ex) {
-        DTThrowable.rethrow(ex);
-      }
-
-    }
-
+    super.setup(context);
     int countKeyValue = getFields().size();
     properties = new String[countKeyValue];
     processors = new CellProcessor[countKeyValue];
@@ -289,108 +230,6 @@ public abstract class AbstractCsvParser<T> extends BaseOperator
     this.lineDelimiter = lineDelimiter;
   }
 
-  /**
-   * Gets the delimiter which separates fields in incoming data.
-   *
-   * @return fieldDelimiter
-   */
-  public int getFieldDelimiter()
-  {
-    return fieldDelimiter;
-  }
-
-  /**
-   * Sets the delimiter which separates fields in incoming data.
-   *
-   * @param fieldDelimiter
-   */
-  public void setFieldDelimiter(int fieldDelimiter)
-  {
-    this.fieldDelimiter = fieldDelimiter;
-  }
-
-  /**
-   * Gets the option if incoming data has header or not.
-   *
-   * @return hasHeader
-   */
-  public boolean isHasHeader()
-  {
-    return hasHeader;
-  }
-
-  /**
-   * Sets the option if incoming data has header or not.
-   *
-   * @param hasHeader
-   */
-  public void setHasHeader(boolean hasHeader)
-  {
-    this.hasHeader = hasHeader;
-  }
-
-  /**
-   * Gets the arraylist of the fields, a field being a POJO containing
-   * the name of the field and type of field.
-   *
-   * @return An arraylist of Fields.
-   */
-  public ArrayList<Field> getFields()
-  {
-    return fields;
-  }
-
-  /**
-   * Sets the arraylist of the fields, a field being a POJO containing
-   * the name of the field and type of field.
-   *
-   * @param fields An arraylist of Fields.
-   */
-  public void setFields(ArrayList<Field> fields)
-  {
-    this.fields = fields;
-  }
-
-  /**
-   * Gets the path of the file which contains mapping of field names to data type.
-   *
-   * @return Path
-   */
-  public String getFieldmappingFile()
-  {
-    return fieldmappingFile;
-  }
-
-  /**
-   * Sets the path of the file which contains mapping of field names to data type.
-   *
-   * @param fieldmappingFile The path where fieldmappingFile is created.
-   */
-  public void setFieldmappingFile(String fieldmappingFile)
-  {
-    this.fieldmappingFile = fieldmappingFile;
-  }
-
-  /**
-   * Gets the delimiter which separates field name and data type in input file.
-   *
-   * @return fieldmappingFileDelimiter
-   */
-  public String getFieldmappingFileDelimiter()
-  {
-    return fieldmappingFileDelimiter;
-  }
-
-  /**
-   * Sets the delimiter which separates field name and data type in input file.
-   *
-   * @param fieldmappingFileDelimiter
-   */
-  public void setFieldmappingFileDelimiter(String fieldmappingFileDelimiter)
-  {
-    this.fieldmappingFileDelimiter = fieldmappingFileDelimiter;
-  }
-
   private static final Logger logger = LoggerFactory.getLogger(AbstractCsvParser.class);
 
 }
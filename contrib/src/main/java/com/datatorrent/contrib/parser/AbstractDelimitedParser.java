@@ -0,0 +1,234 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.contrib.parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+
+import javax.validation.constraints.NotNull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import com.datatorrent.api.Context.OperatorContext;
+import com.datatorrent.api.DefaultInputPort;
+import com.datatorrent.api.DefaultOutputPort;
+import com.datatorrent.common.util.BaseOperator;
+import com.datatorrent.contrib.parser.AbstractCsvParser.Field;
+import com.datatorrent.netlet.util.DTThrowable;
+
+/**
+ * Base of the parsers of delimited data. It holds the configuration of the fields, which are either specified as
+ * properties or loaded from a field mapping file in setup, and leaves the parsing of the tuples to the implementation.
+ * The fields are described by {@link AbstractCsvParser.Field}, which stays declared by the SuperCSV parser for
+ * compatibility with its existing users.
+ *
+ * @param <T> This is the output tuple type.
+ *
+ * @since 3.0.0
+ */
+public abstract class AbstractDelimitedParser<T> extends BaseOperator
+{
+  // List of key value pairs which has name of the field as key , data type of the field as value.
+  private ArrayList<Field> fields;
+
+  protected String inputEncoding;
+  @NotNull
+  protected int fieldDelimiter;
+  //User gets an option to specify filename containing name of the field and data type of the field.
+  protected String fieldmappingFile;
+  //Field and its data type can be separated by a user defined delimiter in the file.
+  protected String fieldmappingFileDelimiter;
+  protected boolean hasHeader;
+
+  public AbstractDelimitedParser()
+  {
+    fields = new ArrayList<Field>();
+    fieldDelimiter = ',';
+    fieldmappingFileDelimiter = ":";
+    inputEncoding = "UTF8";
+    hasHeader = false;
+  }
+
+  /**
+   * Output port that emits value of the fields.
+   * Output data type can be configured in the implementation of this operator.
+   */
+  public final transient DefaultOutputPort<T> output = new DefaultOutputPort<T>();
+
+  /**
+   * This input port receives byte array as tuple.
+   */
+  public final transient DefaultInputPort<byte[]> input = new DefaultInputPort<byte[]>()
+  {
+    @Override
+    public void process(byte[] tuple)
+    {
+      processTuple(tuple);
+    }
+
+  };
+
+  /**
+   * Parses the lines in a tuple and emits the data which is read from them.
+   *
+   * @param tuple delimited lines.
+   */
+  protected abstract void processTuple(byte[] tuple);
+
+  @Override
+  public void setup(OperatorContext context)
+  {
+    if (fieldmappingFile != null) {
+      Configuration conf = new Configuration();
+      try {
+        FileSystem fs = FileSystem.get(conf);
+        Path filepath = new Path(fieldmappingFile);
+        if (fs.exists(filepath)) {
+          BufferedReader bfr = new BufferedReader(new InputStreamReader(fs.open(filepath)));
+          String str;
+
+          while ((str = bfr.readLine()) != null) {
+            logger.debug("string is {}", str);
+            String[] temp = str.split(fieldmappingFileDelimiter);
+            Field field = new Field();
+            field.setName(temp[0]);
+            field.setType(temp[1]);
+            getFields().add(field);
+          }
+        }
+        else {
+          logger.debug("File containing fields and their data types does not exist.Please specify the fields and data type through properties of this operator.");
+        }
+      }
+      catch (IOException ex) {
+        DTThrowable.rethrow(ex);
+      }
+
+    }
+  }
+
+  /**
+   * Gets the delimiter which separates fields in incoming data.
+   *
+   * @return fieldDelimiter
+   */
+  public int getFieldDelimiter()
+  {
+    return fieldDelimiter;
+  }
+
+  /**
+   * Sets the delimiter which separates fields in incoming data.
+   *
+   * @param fieldDelimiter
+   */
+  public void setFieldDelimiter(int fieldDelimiter)
+  {
+    this.fieldDelimiter = fieldDelimiter;
+  }
+
+  /**
+   * Gets the option if incoming data has header or not.
+   *
+   * @return hasHeader
+   */
+  public boolean isHasHeader()
+  {
+    return hasHeader;
+  }
+
+  /**
+   * Sets the option if incoming data has header or not.
+   *
+   * @param hasHeader
+   */
+  public void setHasHeader(boolean hasHeader)
+  {
+    this.hasHeader = hasHeader;
+  }
+
+  /**
+   * Gets the arraylist of the fields, a field being a POJO containing
+   * the name of the field and type of field.
+   *
+   * @return An arraylist of Fields.
+   */
+  public ArrayList<Field> getFields()
+  {
+    return fields;
+  }
+
+  /**
+   * Sets the arraylist of the fields, a field being a POJO containing
+   * the name of the field and type of field.
+   *
+   * @param fields An arraylist of Fields.
+   */
+  public void setFields(ArrayList<Field> fields)
+  {
+    this.fields = fields;
+  }
+
+  /**
+   * Gets the path of the file which contains mapping of field names to data type.
+   *
+   * @return Path
+   */
+  public String getFieldmappingFile()
+  {
+    return fieldmappingFile;
+  }
+
+  /**
+   * Sets the path of the file which contains mapping of field names to data type.
+   *
+   * @param fieldmappingFile The path where fieldmappingFile is created.
+   */
+  public void setFieldmappingFile(String fieldmappingFile)
+  {
+    this.fieldmappingFile = fieldmappingFile;
+  }
+
+  /**
+   * Gets the delimiter which separates field name and data type in input file.
+   *
+   * @return fieldmappingFileDelimiter
+   */
+  public String getFieldmappingFileDelimiter()
+  {
+    return fieldmappingFileDelimiter;
+  }
+
+  /**
+   * Sets the delimiter which separates field name and data type in input file.
+   *
+   * @param fieldmappingFileDelimiter
+   */
+  public void setFieldmappingFileDelimiter(String fieldmappingFileDelimiter)
+  {
+    this.fieldmappingFileDelimiter = fieldmappingFileDelimiter;
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(AbstractDelimitedParser.class);
+
+}
@@ -0,0 +1,583 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.contrib.parser;
+
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+import com.google.common.base.Preconditions;
+
+import com.datatorrent.api.Context.OperatorContext;
+import com.datatorrent.contrib.parser.AbstractCsvParser.FIELD_TYPE;
+import com.datatorrent.contrib.parser.AbstractCsvParser.Field;
+import com.datatorrent.lib.util.PojoUtils;
+import com.datatorrent.lib.util.PojoUtils.Setter;
+import com.datatorrent.lib.util.PojoUtils.SetterBoolean;
+import com.datatorrent.lib.util.PojoUtils.SetterByte;
+import com.datatorrent.lib.util.PojoUtils.SetterChar;
+import com.datatorrent.lib.util.PojoUtils.SetterDouble;
+import com.datatorrent.lib.util.PojoUtils.SetterFloat;
+import com.datatorrent.lib.util.PojoUtils.SetterInt;
+import com.datatorrent.lib.util.PojoUtils.SetterLong;
+import com.datatorrent.lib.util.PojoUtils.SetterShort;
+
+/**
+ * A delimited data parser which tokenizes the bytes of a tuple directly and sets the fields of a POJO.
+ * <p>
+ * Unlike the SuperCSV readers used by {@link AbstractCsvParser}, the tuple is not decoded into a string. Fields are
+ * found by scanning the bytes, numbers and dates are parsed from the bytes of the field and the values are set with
+ * setters which are compiled by {@link PojoUtils} in setup. Only the values of STRING fields are decoded with the input
+ * encoding, so the field delimiter has to be an ASCII character.
+ * <p>
+ * A field may be enclosed in double quotes, in which case it can contain delimiters and line breaks, and a double quote
+ * inside it is escaped by another double quote. Lines end with \n, \r\n or \r and empty lines are skipped.
+ * Empty fields leave the POJO field unset. When the data has a header, the first line of every tuple is skipped.
+ * <p>
+ * The name of every {@link AbstractCsvParser.Field} is the name of a field of the output class, or of its setter, and
+ * columns after the configured fields are ignored. DATE fields have the format dd/MM/yyyy, BOOLEAN fields are true when
+ * they start with t, y or 1. Numbers which are out of the range of the type of the POJO field, or of the configured
+ * type for fields which are not primitives, fail with a {@link NumberFormatException}.
+ *
+ * @displayName Csv POJO Parser
+ * @category Parsers
+ * @tags csv, pojo, parser
+ * @since 3.0.0
+ */
+public class CsvPOJOParser extends AbstractDelimitedParser<Object>
+{
+  private static final byte QUOTE = '"';
+  private static final Charset ASCII = Charset.forName("US-ASCII");
+
+  /*
+   * POJO class which is generated as output from this operator.
+   */
+  @NotNull
+  private String outputClass;
+
+  private transient Class<?> pojoClass;
+  private transient FieldSetter[] setters;
+  private transient byte delimiter;
+  private transient Charset charset;
+  /**
+   * Unescaped bytes of the current quoted field.
+   */
+  private transient byte[] scratch;
+  private transient int scratchLength;
+  private transient Calendar calendar;
+  private transient int lastDate = -1;
+  private transient long lastDateMillis;
+
+  @Override
+  public void setup(OperatorContext context)
+  {
+    super.setup(context);
+    Preconditions.checkArgument(fieldDelimiter > 0 && fieldDelimiter < 0x80, "field delimiter has to be an ASCII character");
+    delimiter = (byte)fieldDelimiter;
+    charset = Charset.forName(inputEncoding);
+    scratch = new byte[256];
+    calendar = Calendar.getInstance();
+    lastDate = -1;
+
+    try {
+      pojoClass = Thread.currentThread().getContextClassLoader().loadClass(outputClass);
+    }
+    catch (ClassNotFoundException ex) {
+      throw new RuntimeException(ex);
+    }
+
+    List<Field> fields = getFields();
+    setters = new FieldSetter[fields.size()];
+    for (int i = 0; i < setters.length; i++) {
+      setters[i] = createFieldSetter(fields.get(i));
+    }
+  }
+
+  @Override
+  protected void processTuple(byte[] tuple)
+  {
+    int pos = 0;
+    boolean header = hasHeader;
+    while (pos < tuple.length) {
+      byte b = tuple[pos];
+      if (b == '\n' || b == '\r') {
+        pos++;
+        continue;
+      }
+      if (header) {
+        pos = parseLine(tuple, pos, null);
+        header = false;
+        continue;
+      }
+      Object pojo = newPojo();
+      pos = parseLine(tuple, pos, pojo);
+      output.emit(pojo);
+    }
+  }
+
+  /**
+   * Sets the fields of a line on the POJO.
+   *
+   * @param pojo the POJO, or null to skip the line.
+   * @return position after the line and its line break.
+   */
+  private int parseLine(byte[] bytes, int pos, Object pojo)
+  {
+    int column = 0;
+    while (true) {
+      int start;
+      int length;
+      byte[] field;
+      if (pos < bytes.length && bytes[pos] == QUOTE) {
+        pos = parseQuoted(bytes, pos + 1);
+        field = scratch;
+        start = 0;
+        length = scratchLength;
+        //ignore anything between the closing quote and the delimiter
+        while (pos < bytes.length && bytes[pos] != delimiter && bytes[pos] != '\n' && bytes[pos] != '\r') {
+          pos++;
+        }
+      }
+      else {
+        start = pos;
+        while (pos < bytes.length && bytes[pos] != delimiter && bytes[pos] != '\n' && bytes[pos] != '\r') {
+          pos++;
+        }
+        field = bytes;
+        length = pos - start;
+      }
+
+      if (pojo != null && column < setters.length && length > 0) {
+        setters[column].set(pojo, field, start, length);
+      }
+      column++;
+
+      if (pos >= bytes.length) {
+        return pos;
+      }
+      if (bytes[pos] == delimiter) {
+        pos++;
+        continue;
+      }
+      if (bytes[pos] == '\r' && pos + 1 < bytes.length && bytes[pos + 1] == '\n') {
+        return pos + 2;
+      }
+      return pos + 1;
+    }
+  }
+
+  /**
+   * Copies a quoted field without the quotes to the scratch buffer.
+   *
+   * @param pos position after the opening quote.
+   * @return position after the closing quote.
+   */
+  private int parseQuoted(byte[] bytes, int pos)
+  {
+    scratchLength = 0;
+    while (pos < bytes.length) {
+      byte b = bytes[pos++];
+      if (b == QUOTE) {
+        if (pos < bytes.length && bytes[pos] == QUOTE) {
+          pos++;
+        }
+        else {
+          return pos;
+        }
+      }
+      if (scratchLength == scratch.length) {
+        byte[] newScratch = new byte[scratch.length * 2];
+        System.arraycopy(scratch, 0, newScratch, 0, scratchLength);
+        scratch = newScratch;
+      }
+      scratch[scratchLength++] = b;
+    }
+    throw new IllegalArgumentException("unterminated quoted field");
+  }
+
+  private Object newPojo()
+  {
+    try {
+      return pojoClass.newInstance();
+    }
+    catch (InstantiationException ex) {
+      throw new RuntimeException(ex);
+    }
+    catch (IllegalAccessException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
+  /**
+   * Type of the field or of the argument of the setter of the output class.
+   */
+  private Class<?> getPojoFieldType(String name)
+  {
+    for (Class<?> c = pojoClass; c != null; c = c.getSuperclass()) {
+      try {
+        return c.getDeclaredField(name).getType();
+      }
+      catch (NoSuchFieldException ex) {
+        //look in the super class
+      }
+    }
+    String setterName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    for (Method method : pojoClass.getMethods()) {
+      if (method.getName().equals(setterName) && method.getParameterTypes().length == 1) {
+        return method.getParameterTypes()[0];
+      }
+    }
+    throw new IllegalArgumentException("no field " + name + " in " + pojoClass.getName());
+  }
+
+  @SuppressWarnings("unchecked")
+  private FieldSetter createFieldSetter(Field field)
+  {
+    final Class<?> type = getPojoFieldType(field.name);
+    final Object setter = PojoUtils.constructSetter(pojoClass, field.name, type);
+
+    if (type == int.class) {
+      return new FieldSetter(field.type)
+      {
+        @Override
+        void set(Object pojo, byte[] bytes, int offset, int length)
+        {
+          ((SetterInt<Object>)setter).set(pojo, parseInt(bytes, offset, length));
+        }
+      };
+    }
+    if (type == long.class) {
+      return new FieldSetter(field.type)
+      {
+        @Override
+        void set(Object pojo, byte[] bytes, int offset, int length)
+        {
+          ((SetterLong<Object>)setter).set(pojo, fieldType == FIELD_TYPE.DATE ?
+            parseDateMillis(bytes, offset, length) : parseLong(bytes, offset, length));
+        }
+      };
+    }
+    if (type == short.class) {
+      return new FieldSetter(field.type)
+      {
+        @Override
+        void set(Object pojo, byte[] bytes, int offset, int length)
+        {
+          ((SetterShort<Object>)setter).set(pojo, parseShort(bytes, offset, length));
+        }
+      };
+    }
+    if (type == byte.class) {
+      return new FieldSetter(field.type)
+      {
+        @Override
+        void set(Object pojo, byte[] bytes, int offset, int length)
+        {
+          ((SetterByte<Object>)setter).set(pojo, parseByte(bytes, offset, length));
+        }
+      };
+    }
+    if (type == double.class) {
+      return new FieldSetter(field.type)
+      {
+        @Override
+        void set(Object pojo, byte[] bytes, int offset, int length)
+        {
+          ((SetterDouble<Object>)setter).set(pojo, parseDouble(bytes, offset, length));
+        }
+      };
+    }
+    if (type == float.class) {
+      return new FieldSetter(field.type)
+      {
+        @Override
+        void set(Object pojo, byte[] bytes, int offset, int length)
+        {
+          ((SetterFloat<Object>)setter).set(pojo, (float)parseDouble(bytes, offset, length));
+        }
+      };
+    }
+    if (type == boolean.class) {
+      return new FieldSetter(field.type)
+      {
+        @Override
+        void set(Object pojo, byte[] bytes, int offset, int length)
+        {
+          ((SetterBoolean<Object>)setter).set(pojo, parseBoolean(bytes, offset));
+        }
+      };
+    }
+    if (type == char.class) {
+      return new FieldSetter(field.type)
+      {
+        @Override
+        void set(Object pojo, byte[] bytes, int offset, int length)
+        {
+          ((SetterChar<Object>)setter).set(pojo, parseChar(bytes, offset, length));
+        }
+      };
+    }
+
+    return new FieldSetter(field.type)
+    {
+      @Override
+      void set(Object pojo, byte[] bytes, int offset, int length)
+      {
+        ((Setter<Object, Object>)setter).set(pojo, parseObject(bytes, offset, length));
+      }
+    };
+  }
+
+  /**
+   * Sets a field of the POJO from the bytes of a column.
+   */
+  private abstract class FieldSetter
+  {
+    final FIELD_TYPE fieldType;
+
+    FieldSetter(FIELD_TYPE fieldType)
+    {
+      this.fieldType = fieldType;
+    }
+
+    /**
+     * Parses the column as its configured type into a boxed value for a field of a non primitive type.
+     */
+    Object parseObject(byte[] bytes, int offset, int length)
+    {
+      switch (fieldType) {
+        case INTEGER:
+          return parseInt(bytes, offset, length);
+        case LONG:
+          return parseLong(bytes, offset, length);
+        case SHORT:
+          return parseShort(bytes, offset, length);
+        case DOUBLE:
+          return parseDouble(bytes, offset, length);
+        case FLOAT:
+          return (float)parseDouble(bytes, offset, length);
+        case BOOLEAN:
+          return parseBoolean(bytes, offset);
+        case CHARACTER:
+          return parseChar(bytes, offset, length);
+        case DATE:
+          return new Date(parseDateMillis(bytes, offset, length));
+        default:
+          return new String(bytes, offset, length, charset);
+      }
+    }
+
+    abstract void set(Object pojo, byte[] bytes, int offset, int length);
+  }
+
+  /**
+   * Parses a decimal long from the bytes. The digits are accumulated as a negative number, like
+   * {@link Long#parseLong(String)}, so that {@link Long#MIN_VALUE} can be parsed and overflow is detected.
+   */
+  private static long parseLong(byte[] bytes, int offset, int length)
+  {
+    int pos = offset;
+    int end = offset + length;
+    boolean negative = false;
+    if (bytes[pos] == '-' || bytes[pos] == '+') {
+      negative = bytes[pos] == '-';
+      pos++;
+    }
+    if (pos == end) {
+      throw numberFormatException(bytes, offset, length);
+    }
+    long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    long multiplyLimit = limit / 10;
+    long value = 0;
+    while (pos < end) {
+      int digit = bytes[pos++] - '0';
+      if (digit < 0 || digit > 9 || value < multiplyLimit) {
+        throw numberFormatException(bytes, offset, length);
+      }
+      value *= 10;
+      if (value < limit + digit) {
+        throw numberFormatException(bytes, offset, length);
+      }
+      value -= digit;
+    }
+    return negative ? value : -value;
+  }
+
+  private static int parseInt(byte[] bytes, int offset, int length)
+  {
+    long value = parseLong(bytes, offset, length);
+    if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+      throw numberFormatException(bytes, offset, length);
+    }
+    return (int)value;
+  }
+
+  private static short parseShort(byte[] bytes, int offset, int length)
+  {
+    long value = parseLong(bytes, offset, length);
+    if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+      throw numberFormatException(bytes, offset, length);
+    }
+    return (short)value;
+  }
+
+  private static byte parseByte(byte[] bytes, int offset, int length)
+  {
+    long value = parseLong(bytes, offset, length);
+    if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
+      throw numberFormatException(bytes, offset, length);
+    }
+    return (byte)value;
+  }
+
+  private static final double[] POWERS_OF_TEN = new double[23];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  /**
+   * Parses decimals with at most 15 significant digits and small exponents exactly from the bytes,
+   * anything else falls back to {@link Double#parseDouble(String)}.
+   */
+  private static double parseDouble(byte[] bytes, int offset, int length)
+  {
+    int pos = offset;
+    int end = offset + length;
+    boolean negative = false;
+    if (bytes[pos] == '-' || bytes[pos] == '+') {
+      negative = bytes[pos] == '-';
+      pos++;
+    }
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean fraction = false;
+    boolean valid = false;
+    while (pos < end) {
+      byte b = bytes[pos];
+      if (b >= '0' && b <= '9') {
+        valid = true;
+        if (mantissa != 0 || b != '0') {
+          digits++;
+        }
+        mantissa = mantissa * 10 + (b - '0');
+        if (fraction) {
+          exponent--;
+        }
+      }
+      else if (b == '.' && !fraction) {
+        fraction = true;
+      }
+      else {
+        break;
+      }
+      pos++;
+    }
+    if (pos < end && (bytes[pos] == 'e' || bytes[pos] == 'E')) {
+      pos++;
+      boolean negativeExponent = false;
+      if (pos < end && (bytes[pos] == '-' || bytes[pos] == '+')) {
+        negativeExponent = bytes[pos] == '-';
+        pos++;
+      }
+      int explicitExponent = 0;
+      valid &= pos < end;
+      while (pos < end && bytes[pos] >= '0' && bytes[pos] <= '9' && explicitExponent < 10000) {
+        explicitExponent = explicitExponent * 10 + (bytes[pos++] - '0');
+      }
+      exponent += negativeExponent ? -explicitExponent : explicitExponent;
+    }
+
+    if (valid && pos == end && digits <= 15 && exponent >= -22 && exponent <= 22) {
+      //both the mantissa and the power of ten are exact doubles, so the result is correctly rounded
+      double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+      return negative ? -value : value;
+    }
+    try {
+      return Double.parseDouble(new String(bytes, offset, length, ASCII));
+    }
+    catch (NumberFormatException ex) {
+      throw numberFormatException(bytes, offset, length);
+    }
+  }
+
+  private static boolean parseBoolean(byte[] bytes, int offset)
+  {
+    byte b = bytes[offset];
+    return b == 't' || b == 'T' || b == 'y' || b == 'Y' || b == '1';
+  }
+
+  private char parseChar(byte[] bytes, int offset, int length)
+  {
+    return bytes[offset] >= 0 ? (char)bytes[offset] : new String(bytes, offset, length, charset).charAt(0);
+  }
+
+  /**
+   * Parses a date in the format dd/MM/yyyy in the default time zone. The last date is cached since consecutive
+   * lines usually have the same date.
+   */
+  private long parseDateMillis(byte[] bytes, int offset, int length)
+  {
+    if (length != 10 || bytes[offset + 2] != '/' || bytes[offset + 5] != '/') {
+      throw new IllegalArgumentException("date " + new String(bytes, offset, length, charset) + " is not in format dd/MM/yyyy");
+    }
+    int day = (int)parseLong(bytes, offset, 2);
+    int month = (int)parseLong(bytes, offset + 3, 2);
+    int year = (int)parseLong(bytes, offset + 6, 4);
+    int date = (year * 100 + month) * 100 + day;
+    if (date != lastDate) {
+      calendar.clear();
+      calendar.set(year, month - 1, day);
+      lastDateMillis = calendar.getTimeInMillis();
+      lastDate = date;
+    }
+    return lastDateMillis;
+  }
+
+  private static NumberFormatException numberFormatException(byte[] bytes, int offset, int length)
+  {
+    return new NumberFormatException("For input string: \"" + new String(bytes, offset, length, ASCII) + "\"");
+  }
+
+  /**
+   * Gets the name of the class of the POJOs which are emitted.
+   *
+   * @return outputClass
+   */
+  public String getOutputClass()
+  {
+    return outputClass;
+  }
+
+  /**
+   * Sets the name of the class of the POJOs which are emitted. The class needs a public no argument constructor.
+   *
+   * @param outputClass name of the class.
+   */
+  public void setOutputClass(String outputClass)
+  {
+    this.outputClass = outputClass;
+  }
+
+}
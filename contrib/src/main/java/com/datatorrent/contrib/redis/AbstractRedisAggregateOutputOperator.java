@@ -15,11 +15,19 @@
  */
 package com.datatorrent.contrib.redis;
 
+import org.apache.commons.lang.mutable.MutableLong;
+
+import com.datatorrent.api.Context.OperatorContext;
+
+import com.datatorrent.lib.counters.BasicCounters;
 import com.datatorrent.lib.db.AbstractAggregateTransactionableKeyValueStoreOutputOperator;
 
 /**
  * This is the base implementation of a Redis aggregate output operator.
- * <p></p>
+ * <p>
+ * The round trips to redis of every window and their average latency are published as counters.
+ * Set the store to pipelined to sum up increments of the same key on the client.
+ * </p>
  * @displayName Abstract Redis Aggregate Output
  * @category Output
  * @tags redis, key value, aggregate
@@ -30,9 +38,63 @@ import com.datatorrent.lib.db.AbstractAggregateTransactionableKeyValueStoreOutpu
 public abstract class AbstractRedisAggregateOutputOperator<T>
         extends AbstractAggregateTransactionableKeyValueStoreOutputOperator<T, RedisStore>
 {
+  protected transient BasicCounters<MutableLong> counters;
+  private transient OperatorContext context;
+  private transient long windowStartRoundTrips;
+  private transient long windowStartRoundTripNanos;
+
   public AbstractRedisAggregateOutputOperator()
   {
     store = new RedisStore();
   }
 
+  @Override
+  public void setup(OperatorContext context)
+  {
+    super.setup(context);
+    this.context = context;
+    counters = new BasicCounters<MutableLong>(MutableLong.class);
+    counters.setCounter(RedisCounters.ROUND_TRIPS, new MutableLong());
+    counters.setCounter(RedisCounters.WINDOW_ROUND_TRIPS, new MutableLong());
+    counters.setCounter(RedisCounters.ROUND_TRIP_LATENCY_MICROS, new MutableLong());
+  }
+
+  @Override
+  public void beginWindow(long windowId)
+  {
+    windowStartRoundTrips = store.getRoundTrips();
+    windowStartRoundTripNanos = store.getRoundTripNanos();
+    super.beginWindow(windowId);
+  }
+
+  @Override
+  public void endWindow()
+  {
+    super.endWindow();
+    long windowRoundTrips = store.getRoundTrips() - windowStartRoundTrips;
+    counters.getCounter(RedisCounters.ROUND_TRIPS).add(windowRoundTrips);
+    counters.getCounter(RedisCounters.WINDOW_ROUND_TRIPS).setValue(windowRoundTrips);
+    counters.getCounter(RedisCounters.ROUND_TRIP_LATENCY_MICROS).setValue(windowRoundTrips == 0 ? 0 :
+        (store.getRoundTripNanos() - windowStartRoundTripNanos) / windowRoundTrips / 1000);
+    if (context != null) {
+      context.setCounters(counters);
+    }
+  }
+
+  public static enum RedisCounters
+  {
+    /**
+     * Round trips to redis since the operator was deployed
+     */
+    ROUND_TRIPS,
+    /**
+     * Round trips to redis in the last window
+     */
+    WINDOW_ROUND_TRIPS,
+    /**
+     * Average latency of the round trips in the last window
+     */
+    ROUND_TRIP_LATENCY_MICROS
+  }
+
 }
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.contrib.redis;
+
+import java.util.Map;
+
+import org.apache.commons.lang.mutable.MutableDouble;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Increments of keys and hash fields that are summed up on the client until they are written to redis.
+ * Not to be exported outside of this package
+ *
+ * @since 3.0.0
+ */
+class CoalescedIncrements
+{
+  final Map<String, MutableDouble> increments = Maps.newHashMap();
+  final Map<String, Map<String, MutableDouble>> hashIncrements = Maps.newHashMap();
+
+  void incrByFloat(String key, double value)
+  {
+    MutableDouble sum = increments.get(key);
+    if (sum == null) {
+      increments.put(key, new MutableDouble(value));
+    }
+    else {
+      sum.add(value);
+    }
+  }
+
+  void hincrByFloat(String key, String field, double value)
+  {
+    Map<String, MutableDouble> fields = hashIncrements.get(key);
+    if (fields == null) {
+      fields = Maps.newHashMap();
+      hashIncrements.put(key, fields);
+    }
+    MutableDouble sum = fields.get(field);
+    if (sum == null) {
+      fields.put(field, new MutableDouble(value));
+    }
+    else {
+      sum.add(value);
+    }
+  }
+
+  /**
+   * @return true if there is a pending increment of the key or of one of its hash fields
+   */
+  boolean contains(String key)
+  {
+    return increments.containsKey(key) || hashIncrements.containsKey(key);
+  }
+
+  boolean isEmpty()
+  {
+    return increments.isEmpty() && hashIncrements.isEmpty();
+  }
+
+  void clear()
+  {
+    increments.clear();
+    hashIncrements.clear();
+  }
+}
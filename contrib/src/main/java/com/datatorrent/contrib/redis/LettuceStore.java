@@ -18,18 +18,31 @@ package com.datatorrent.contrib.redis;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 
+import javax.validation.constraints.Min;
+
+import org.apache.commons.lang.mutable.MutableDouble;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.lambdaworks.redis.RedisAsyncConnection;
 import com.lambdaworks.redis.RedisClient;
 import com.lambdaworks.redis.RedisConnection;
+import com.lambdaworks.redis.RedisException;
+import com.lambdaworks.redis.protocol.Command;
 
 import com.datatorrent.lib.db.TransactionableKeyValueStore;
 
 /**
  * Provides the implementation of a Redis store using Lettuce java client. <br/>
+ * <p>
+ * In pipelined mode the writes are sent on an asynchronous connection without waiting for the replies. The replies
+ * are awaited when {@link #flush()} is called, when a transaction ends, before a read and after every pipelineSize
+ * commands when it is set. Increments of the same key or hash field are summed up on the client and sent as one
+ * command.
  *
  * @since 0.9.4
  */
@@ -43,6 +56,14 @@ public class LettuceStore implements TransactionableKeyValueStore
   protected transient RedisClient client;
   protected transient RedisConnection<String, String> connection;
   private transient boolean inTransaction;
+  private boolean pipelined = false;
+  @Min(0)
+  private int pipelineSize = 0;
+  protected transient RedisAsyncConnection<String, String> asyncConnection;
+  private transient List<Future<?>> pendingCommands;
+  private transient CoalescedIncrements increments;
+  private transient long roundTrips;
+  private transient long roundTripNanos;
 
   /**
    * @return redis host.
@@ -122,13 +143,23 @@ public class LettuceStore implements TransactionableKeyValueStore
     client = new RedisClient(host, port);
     connection = client.connect();
     connection.select(dbIndex);
+    if (pipelined) {
+      asyncConnection = client.connectAsync();
+      asyncConnection.select(dbIndex);
+      pendingCommands = Lists.newArrayList();
+      increments = new CoalescedIncrements();
+    }
   }
 
   @Override
   public void disconnect() throws IOException
   {
+    if (connection != null && !inTransaction) {
+      flush();
+    }
     client.shutdown();
     connection = null;
+    asyncConnection = null;
   }
 
   @Override
@@ -140,22 +171,50 @@ public class LettuceStore implements TransactionableKeyValueStore
   @Override
   public void beginTransaction()
   {
-    connection.multi();
+    if (pipelined) {
+      flush();
+      pendingCommands.add(asyncConnection.multi());
+    }
+    else {
+      long start = System.nanoTime();
+      connection.multi();
+      completed(start);
+    }
     inTransaction = true;
   }
 
   @Override
   public void commitTransaction()
   {
-    connection.exec();
-    inTransaction = false;
+    if (pipelined) {
+      writeIncrements();
+      pendingCommands.add(asyncConnection.exec());
+      inTransaction = false;
+      sync();
+    }
+    else {
+      long start = System.nanoTime();
+      connection.exec();
+      completed(start);
+      inTransaction = false;
+    }
   }
 
   @Override
   public void rollbackTransaction()
   {
-    connection.discard();
-    inTransaction = false;
+    if (pipelined) {
+      increments.clear();
+      pendingCommands.add(asyncConnection.discard());
+      inTransaction = false;
+      sync();
+    }
+    else {
+      long start = System.nanoTime();
+      connection.discard();
+      completed(start);
+      inTransaction = false;
+    }
   }
 
   @Override
@@ -177,7 +236,11 @@ public class LettuceStore implements TransactionableKeyValueStore
     if (isInTransaction()) {
       throw new RuntimeException("Cannot call get when in redis transaction");
     }
-    return connection.get(key.toString());
+    flush();
+    long start = System.nanoTime();
+    String value = connection.get(key.toString());
+    completed(start);
+    return value;
   }
 
   /**
@@ -194,21 +257,43 @@ public class LettuceStore implements TransactionableKeyValueStore
     if (isInTransaction()) {
       throw new RuntimeException("Cannot call get when in redis transaction");
     }
-    return (List<Object>) (List<?>) connection.mget(keys.toArray(new String[]{}));
+    flush();
+    long start = System.nanoTime();
+    List<String> values = connection.mget(keys.toArray(new String[]{}));
+    completed(start);
+    return (List<Object>) (List<?>) values;
   }
 
   @SuppressWarnings({"unchecked", "rawtypes"})
   @Override
   public void put(Object key, Object value)
   {
+    String k = key.toString();
+    if (pipelined) {
+      writeIncrements(k);
+      if (value instanceof Map) {
+        queued(asyncConnection.hmset(k, (Map) value));
+      }
+      else {
+        queued(asyncConnection.set(k, value.toString()));
+      }
+      if (keyExpiryTime != -1) {
+        queued(asyncConnection.expire(k, keyExpiryTime));
+      }
+      return;
+    }
+    long start = System.nanoTime();
     if (value instanceof Map) {
-      connection.hmset(key.toString(), (Map) value);
+      connection.hmset(k, (Map) value);
     }
     else {
-      connection.set(key.toString(), value.toString());
+      connection.set(k, value.toString());
     }
+    completed(start);
     if (keyExpiryTime != -1) {
-      connection.expire(key.toString(), keyExpiryTime);
+      start = System.nanoTime();
+      connection.expire(k, keyExpiryTime);
+      completed(start);
     }
   }
 
@@ -220,13 +305,28 @@ public class LettuceStore implements TransactionableKeyValueStore
     for (Map.Entry<Object, Object> entry : m.entrySet()) {
       params.put(entry.getKey().toString(), entry.getValue().toString());
     }
+    if (pipelined) {
+      writeIncrements();
+      queued(asyncConnection.mset(params));
+      return;
+    }
+    long start = System.nanoTime();
     connection.mset(params);
+    completed(start);
   }
 
   @Override
   public void remove(Object key)
   {
-    connection.del(key.toString());
+    String k = key.toString();
+    if (pipelined) {
+      writeIncrements(k);
+      queued(asyncConnection.del(k));
+      return;
+    }
+    long start = System.nanoTime();
+    connection.del(k);
+    completed(start);
   }
 
   /**
@@ -238,9 +338,17 @@ public class LettuceStore implements TransactionableKeyValueStore
    */
   public void hincrByFloat(String key, String field, double doubleValue)
   {
+    if (pipelined) {
+      increments.hincrByFloat(key, field, doubleValue);
+      return;
+    }
+    long start = System.nanoTime();
     connection.hincrbyfloat(key, field, doubleValue);
+    completed(start);
     if (keyExpiryTime != -1) {
+      start = System.nanoTime();
       connection.expire(key, keyExpiryTime);
+      completed(start);
     }
   }
 
@@ -252,12 +360,157 @@ public class LettuceStore implements TransactionableKeyValueStore
    */
   public void incrByFloat(String key, double doubleValue)
   {
+    if (pipelined) {
+      increments.incrByFloat(key, doubleValue);
+      return;
+    }
+    long start = System.nanoTime();
     connection.incrbyfloat(key, doubleValue);
+    completed(start);
     if (keyExpiryTime != -1) {
+      start = System.nanoTime();
       connection.expire(key, keyExpiryTime);
+      completed(start);
     }
   }
 
+  /**
+   * Sends the coalesced increments and waits for the replies of all the pipelined commands. Does nothing when the
+   * store is not pipelined or is in a transaction.
+   */
+  public void flush()
+  {
+    if (!pipelined || inTransaction) {
+      return;
+    }
+    writeIncrements();
+    sync();
+  }
+
+  /**
+   * Sends the pending increments of a key before another write to the key, to keep the writes in order.
+   */
+  private void writeIncrements(String key)
+  {
+    if (!increments.isEmpty() && increments.contains(key)) {
+      writeIncrements();
+    }
+  }
+
+  private void writeIncrements()
+  {
+    for (Map.Entry<String, MutableDouble> entry : increments.increments.entrySet()) {
+      queued(asyncConnection.incrbyfloat(entry.getKey(), entry.getValue().doubleValue()));
+      if (keyExpiryTime != -1) {
+        queued(asyncConnection.expire(entry.getKey(), keyExpiryTime));
+      }
+    }
+    for (Map.Entry<String, Map<String, MutableDouble>> entry : increments.hashIncrements.entrySet()) {
+      for (Map.Entry<String, MutableDouble> field : entry.getValue().entrySet()) {
+        queued(asyncConnection.hincrbyfloat(entry.getKey(), field.getKey(), field.getValue().doubleValue()));
+      }
+      if (keyExpiryTime != -1) {
+        queued(asyncConnection.expire(entry.getKey(), keyExpiryTime));
+      }
+    }
+    increments.clear();
+  }
+
+  private void queued(Future<?> command)
+  {
+    pendingCommands.add(command);
+    // the replies of commands in a transaction only arrive with exec
+    if (pipelineSize > 0 && !inTransaction && pendingCommands.size() >= pipelineSize) {
+      sync();
+    }
+  }
+
+  /**
+   * Waits for the replies of the pending commands.
+   */
+  private void sync()
+  {
+    if (pendingCommands.isEmpty()) {
+      return;
+    }
+    long start = System.nanoTime();
+    boolean completed = asyncConnection.awaitAll(pendingCommands.toArray(new Future<?>[pendingCommands.size()]));
+    completed(start);
+    try {
+      if (!completed) {
+        throw new RedisException("Timed out waiting for " + pendingCommands.size() + " commands");
+      }
+      for (Future<?> command : pendingCommands) {
+        String error = ((Command<?, ?, ?>) command).getOutput().getError();
+        if (error != null) {
+          throw new RedisException(error);
+        }
+      }
+    }
+    finally {
+      pendingCommands.clear();
+    }
+  }
+
+  private void completed(long start)
+  {
+    roundTrips++;
+    roundTripNanos += System.nanoTime() - start;
+  }
+
+  /**
+   * @return true if the writes are pipelined and increments are coalesced.
+   */
+  public boolean isPipelined()
+  {
+    return pipelined;
+  }
+
+  /**
+   * Sets the pipelined mode, takes effect on connect.
+   *
+   * @param pipelined
+   */
+  public void setPipelined(boolean pipelined)
+  {
+    this.pipelined = pipelined;
+  }
+
+  /**
+   * @return number of pipelined commands after which the replies are awaited, 0 if they are only awaited on flush.
+   */
+  public int getPipelineSize()
+  {
+    return pipelineSize;
+  }
+
+  /**
+   * Sets the number of pipelined commands after which the replies are awaited. With 0 the replies are only awaited
+   * on {@link #flush()} and at the end of a transaction.
+   *
+   * @param pipelineSize
+   */
+  public void setPipelineSize(int pipelineSize)
+  {
+    this.pipelineSize = pipelineSize;
+  }
+
+  /**
+   * @return number of round trips to redis since the store was created.
+   */
+  public long getRoundTrips()
+  {
+    return roundTrips;
+  }
+
+  /**
+   * @return time spent waiting for redis in the round trips, in nanoseconds.
+   */
+  public long getRoundTripNanos()
+  {
+    return roundTripNanos;
+  }
+
   @Override
   public long getCommittedWindowId(String appId, int operatorId)
   {
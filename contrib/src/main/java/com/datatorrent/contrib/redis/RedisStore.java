@@ -20,15 +20,25 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import javax.validation.constraints.Min;
+
+import org.apache.commons.lang.mutable.MutableDouble;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.MultiKeyPipelineBase;
+import redis.clients.jedis.Pipeline;
 import redis.clients.jedis.Transaction;
 
 import com.datatorrent.lib.db.TransactionableKeyValueStore;
 
 /**
  * Provides the implementation of a Redis store.
+ * <p>
+ * Outside of a transaction every command is a round trip to redis. In pipelined mode the writes are queued
+ * on a pipeline which is synced when {@link #flush()} is called, before a read or a transaction, and after
+ * every pipelineSize commands when it is set. Increments of the same key or hash field are summed up on the client
+ * and sent as one command when the pipeline or the transaction is written out.
  *
  * @since 0.9.3
  */
@@ -42,6 +52,14 @@ public class RedisStore implements TransactionableKeyValueStore
   protected int keyExpiryTime = -1;
   private transient Transaction transaction;
   private transient int timeOut = 30000;
+  private boolean pipelined = false;
+  @Min(0)
+  private int pipelineSize = 0;
+  private transient Pipeline pipeline;
+  private transient int queuedCommands;
+  private transient CoalescedIncrements increments;
+  private transient long roundTrips;
+  private transient long roundTripNanos;
 
   /**
    *
@@ -125,11 +143,17 @@ public class RedisStore implements TransactionableKeyValueStore
     jedis = new Jedis(host, port,timeOut);
     jedis.connect();
     jedis.select(dbIndex);
+    pipeline = null;
+    queuedCommands = 0;
+    increments = pipelined ? new CoalescedIncrements() : null;
   }
 
   @Override
   public void disconnect() throws IOException
   {
+    if (jedis.isConnected() && !isInTransaction()) {
+      flush();
+    }
     jedis.disconnect();
   }
 
@@ -142,19 +166,28 @@ public class RedisStore implements TransactionableKeyValueStore
   @Override
   public void beginTransaction()
   {
+    flush();
     transaction = jedis.multi();
   }
 
   @Override
   public void commitTransaction()
   {
+    if (increments != null) {
+      writeIncrements(transaction);
+    }
+    long start = System.nanoTime();
     transaction.exec();
+    completed(start);
     transaction = null;
   }
 
   @Override
   public void rollbackTransaction()
   {
+    if (increments != null) {
+      increments.clear();
+    }
     transaction.discard();
     transaction = null;
   }
@@ -178,7 +211,11 @@ public class RedisStore implements TransactionableKeyValueStore
     if (isInTransaction()) {
       throw new RuntimeException("Cannot call get when in redis transaction");
     }
-    return jedis.get(key.toString());
+    flush();
+    long start = System.nanoTime();
+    String value = jedis.get(key.toString());
+    completed(start);
+    return value;
   }
 
   /**
@@ -195,33 +232,44 @@ public class RedisStore implements TransactionableKeyValueStore
     if (isInTransaction()) {
       throw new RuntimeException("Cannot call get when in redis transaction");
     }
-    return (List<Object>) (List<?>) jedis.mget(keys.toArray(new String[]{}));
+    flush();
+    long start = System.nanoTime();
+    List<String> values = jedis.mget(keys.toArray(new String[]{}));
+    completed(start);
+    return (List<Object>) (List<?>) values;
   }
 
   @SuppressWarnings({"unchecked", "rawtypes"})
   @Override
   public void put(Object key, Object value)
   {
-    if (isInTransaction()) {
+    String k = key.toString();
+    MultiKeyPipelineBase queue = getQueue(k);
+    if (queue != null) {
       if (value instanceof Map) {
-        transaction.hmset(key.toString(), (Map) value);
+        queue.hmset(k, (Map) value);
       }
       else {
-        transaction.set(key.toString(), value.toString());
+        queue.set(k, value.toString());
       }
       if (keyExpiryTime != -1) {
-        transaction.expire(key.toString(), keyExpiryTime);
+        queue.expire(k, keyExpiryTime);
       }
+      queued(keyExpiryTime != -1 ? 2 : 1);
     }
     else {
+      long start = System.nanoTime();
       if (value instanceof Map) {
-        jedis.hmset(key.toString(), (Map) value);
+        jedis.hmset(k, (Map) value);
       }
       else {
-        jedis.set(key.toString(), value.toString());
+        jedis.set(k, value.toString());
       }
+      completed(start);
       if (keyExpiryTime != -1) {
-        jedis.expire(key.toString(), keyExpiryTime);
+        start = System.nanoTime();
+        jedis.expire(k, keyExpiryTime);
+        completed(start);
       }
     }
   }
@@ -236,22 +284,31 @@ public class RedisStore implements TransactionableKeyValueStore
       params.add(entry.getKey().toString());
       params.add(entry.getValue().toString());
     }
-    if (isInTransaction()) {
-      transaction.mset(params.toArray(new String[]{}));
+    MultiKeyPipelineBase queue = getQueue(null);
+    if (queue != null) {
+      queue.mset(params.toArray(new String[]{}));
+      queued(1);
     }
     else {
+      long start = System.nanoTime();
       jedis.mset(params.toArray(new String[]{}));
+      completed(start);
     }
   }
 
   @Override
   public void remove(Object key)
   {
-    if (isInTransaction()) {
-      transaction.del(key.toString());
+    String k = key.toString();
+    MultiKeyPipelineBase queue = getQueue(k);
+    if (queue != null) {
+      queue.del(k);
+      queued(1);
     }
     else {
-      jedis.del(key.toString());
+      long start = System.nanoTime();
+      jedis.del(k);
+      completed(start);
     }
   }
 
@@ -264,16 +321,23 @@ public class RedisStore implements TransactionableKeyValueStore
    */
   public void hincrByFloat(String key, String field, double doubleValue)
   {
-    if (isInTransaction()) {
+    if (increments != null) {
+      increments.hincrByFloat(key, field, doubleValue);
+    }
+    else if (isInTransaction()) {
       transaction.hincrByFloat(key, field, doubleValue);
       if (keyExpiryTime != -1) {
         transaction.expire(key, keyExpiryTime);
       }
     }
     else {
+      long start = System.nanoTime();
       jedis.hincrByFloat(key, field, doubleValue);
+      completed(start);
       if (keyExpiryTime != -1) {
+        start = System.nanoTime();
         jedis.expire(key, keyExpiryTime);
+        completed(start);
       }
     }
   }
@@ -286,21 +350,170 @@ public class RedisStore implements TransactionableKeyValueStore
    */
   public void incrByFloat(String key, double doubleValue)
   {
-    if (isInTransaction()) {
+    if (increments != null) {
+      increments.incrByFloat(key, doubleValue);
+    }
+    else if (isInTransaction()) {
       transaction.incrByFloat(key, doubleValue);
       if (keyExpiryTime != -1) {
         transaction.expire(key, keyExpiryTime);
       }
     }
     else {
+      long start = System.nanoTime();
       jedis.incrByFloat(key, doubleValue);
+      completed(start);
       if (keyExpiryTime != -1) {
+        start = System.nanoTime();
         jedis.expire(key, keyExpiryTime);
+        completed(start);
+      }
+    }
+  }
+
+  /**
+   * Writes the coalesced increments and syncs the pipeline. Does nothing when the store is not pipelined or
+   * is in a transaction.
+   */
+  public void flush()
+  {
+    if (increments == null || isInTransaction()) {
+      return;
+    }
+    if (!increments.isEmpty()) {
+      writeIncrements(getPipeline());
+    }
+    if (queuedCommands > 0) {
+      long start = System.nanoTime();
+      pipeline.sync();
+      completed(start);
+      queuedCommands = 0;
+    }
+  }
+
+  /**
+   * Returns the transaction or pipeline the next write is queued on, or null if it is sent right away.
+   * Pending increments of the key are written first so that writes to a key stay in order.
+   *
+   * @param key the key that is written, null when all the keys may be written
+   */
+  private MultiKeyPipelineBase getQueue(String key)
+  {
+    MultiKeyPipelineBase queue = isInTransaction() ? transaction : (pipelined ? getPipeline() : null);
+    if (increments != null && !increments.isEmpty() && (key == null || increments.contains(key))) {
+      writeIncrements(queue);
+    }
+    return queue;
+  }
+
+  private Pipeline getPipeline()
+  {
+    if (pipeline == null) {
+      pipeline = jedis.pipelined();
+    }
+    return pipeline;
+  }
+
+  private void writeIncrements(MultiKeyPipelineBase queue)
+  {
+    int commands = 0;
+    for (Map.Entry<String, MutableDouble> entry : increments.increments.entrySet()) {
+      queue.incrByFloat(entry.getKey(), entry.getValue().doubleValue());
+      commands++;
+      if (keyExpiryTime != -1) {
+        queue.expire(entry.getKey(), keyExpiryTime);
+        commands++;
+      }
+    }
+    for (Map.Entry<String, Map<String, MutableDouble>> entry : increments.hashIncrements.entrySet()) {
+      for (Map.Entry<String, MutableDouble> field : entry.getValue().entrySet()) {
+        queue.hincrByFloat(entry.getKey(), field.getKey(), field.getValue().doubleValue());
+        commands++;
+      }
+      if (keyExpiryTime != -1) {
+        queue.expire(entry.getKey(), keyExpiryTime);
+        commands++;
       }
     }
+    increments.clear();
+    queued(commands);
+  }
+
+  /**
+   * Counts commands queued on the pipeline and syncs it when pipelineSize commands are queued.
+   */
+  private void queued(int commands)
+  {
+    if (isInTransaction()) {
+      return;
+    }
+    queuedCommands += commands;
+    if (pipelineSize > 0 && queuedCommands >= pipelineSize) {
+      long start = System.nanoTime();
+      pipeline.sync();
+      completed(start);
+      queuedCommands = 0;
+    }
+  }
+
+  private void completed(long start)
+  {
+    roundTrips++;
+    roundTripNanos += System.nanoTime() - start;
+  }
+
+  /**
+   * @return true if writes outside of transactions are pipelined and increments are coalesced.
+   */
+  public boolean isPipelined()
+  {
+    return pipelined;
+  }
+
+  /**
+   * Sets the pipelined mode, takes effect on connect.
+   *
+   * @param pipelined
+   */
+  public void setPipelined(boolean pipelined)
+  {
+    this.pipelined = pipelined;
+  }
+
+  /**
+   * @return number of queued commands after which the pipeline is synced, 0 if it is only synced on flush.
+   */
+  public int getPipelineSize()
+  {
+    return pipelineSize;
+  }
+
+  /**
+   * Sets the number of queued commands after which the pipeline is synced. With 0 the pipeline is only synced
+   * on {@link #flush()}, so a whole window can be sent with one round trip.
+   *
+   * @param pipelineSize
+   */
+  public void setPipelineSize(int pipelineSize)
+  {
+    this.pipelineSize = pipelineSize;
+  }
+
+  /**
+   * @return number of round trips to redis since the store was created.
+   */
+  public long getRoundTrips()
+  {
+    return roundTrips;
+  }
+
+  /**
+   * @return time spent waiting for redis in the round trips, in nanoseconds.
+   */
+  public long getRoundTripNanos()
+  {
+    return roundTripNanos;
   }
-  
-  
 
   /**
    * @return the timeOut
@@ -0,0 +1,356 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io.file.tfile;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An off-heap cache of decompressed DTFile blocks with an explicit byte budget.
+ * <br>
+ * <br>
+ * Unlike the global {@link CacheManager}, a block cache is an ordinary object. An operator creates one with its own budget
+ * and passes it to the {@link DTFile.Reader}s it opens, so readers of different operators do not evict each other's blocks.
+ * <br>
+ * <br>
+ * Block data is copied into pages of direct memory which are allocated in slabs as the cache fills up,
+ * so the cached blocks neither count against the heap nor have to be traced by the garbage collector.
+ * Blocks are looked up by the primitive pair of a file id, which is handed out by {@link #newFileId()},
+ * and the offset of the block in the file. When the budget is exhausted the least recently used blocks are evicted.
+ * <br>
+ * <br>
+ * All methods are thread safe.
+ *
+ * @since 3.0.0
+ */
+public class BlockCache
+{
+  public static final int DEFAULT_PAGE_SIZE = 16 * 1024;
+
+  private static final int SLAB_SIZE = 4 * 1024 * 1024;
+
+  private final long maxBytes;
+  private final int pageSize;
+  private final int pagesPerSlab;
+  private final int maxPages;
+
+  private ByteBuffer[] slabs = new ByteBuffer[0];
+  private int allocatedPages;
+  private int[] freePages;
+  private int freePageCount;
+
+  private Entry[] table = new Entry[64];
+  private int size;
+  /**
+   * Sentinel of the circular lru list, the least recently used entry is head.next.
+   */
+  private final Entry head = new Entry(-1, -1);
+
+  private long nextFileId;
+  private long usedBytes;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  /**
+   * @param maxBytes maximum number of bytes of off-heap memory used by the cache
+   */
+  public BlockCache(long maxBytes)
+  {
+    this(maxBytes, DEFAULT_PAGE_SIZE);
+  }
+
+  /**
+   * @param maxBytes maximum number of bytes of off-heap memory used by the cache
+   * @param pageSize size of the unit of allocation, a block occupies a whole number of pages
+   */
+  public BlockCache(long maxBytes, int pageSize)
+  {
+    if (pageSize <= 0 || maxBytes < pageSize) {
+      throw new IllegalArgumentException("Budget " + maxBytes + " is smaller than a page of " + pageSize + " bytes");
+    }
+    this.maxBytes = maxBytes;
+    this.pageSize = pageSize;
+    this.pagesPerSlab = Math.max(1, SLAB_SIZE / pageSize);
+    this.maxPages = (int)Math.min(Integer.MAX_VALUE, maxBytes / pageSize);
+    this.freePages = new int[Math.min(maxPages, pagesPerSlab)];
+    head.lruPrev = head;
+    head.lruNext = head;
+  }
+
+  /**
+   * @return a new id to key the blocks of a file
+   */
+  public synchronized long newFileId()
+  {
+    return nextFileId++;
+  }
+
+  /**
+   * Copies a cached block to the heap.
+   *
+   * @param fileId id of the file
+   * @param offset offset of the block in the file
+   * @return the data of the block or null when the block is not cached
+   */
+  public synchronized byte[] get(long fileId, long offset)
+  {
+    Entry entry = find(fileId, offset);
+    if (entry == null) {
+      missCount++;
+      return null;
+    }
+    hitCount++;
+    unlink(entry);
+    linkLast(entry);
+
+    byte[] data = new byte[entry.length];
+    int copied = 0;
+    for (int page : entry.pages) {
+      int length = Math.min(pageSize, entry.length - copied);
+      ByteBuffer slab = slabs[page / pagesPerSlab].duplicate();
+      slab.position((page % pagesPerSlab) * pageSize);
+      slab.get(data, copied, length);
+      copied += length;
+    }
+    return data;
+  }
+
+  /**
+   * Copies a block into the cache, evicting the least recently used blocks as needed.
+   * A block which is larger than the budget is not cached.
+   *
+   * @param fileId id of the file
+   * @param offset offset of the block in the file
+   * @param data   buffer holding the block
+   * @param length length of the block
+   * @return whether the block was cached
+   */
+  public synchronized boolean put(long fileId, long offset, byte[] data, int length)
+  {
+    int numPages = Math.max(1, (length + pageSize - 1) / pageSize);
+    if (numPages > maxPages) {
+      return false;
+    }
+    Entry entry = find(fileId, offset);
+    if (entry != null) {
+      remove(entry);
+    }
+    while (freePageCount + (maxPages - allocatedPages) < numPages) {
+      remove(head.lruNext);
+      evictionCount++;
+    }
+
+    entry = new Entry(fileId, offset);
+    entry.length = length;
+    entry.pages = new int[numPages];
+    int copied = 0;
+    for (int i = 0; i < numPages; i++) {
+      int page = allocatePage();
+      entry.pages[i] = page;
+      int pageLength = Math.min(pageSize, length - copied);
+      ByteBuffer slab = slabs[page / pagesPerSlab].duplicate();
+      slab.position((page % pagesPerSlab) * pageSize);
+      slab.put(data, copied, pageLength);
+      copied += pageLength;
+    }
+
+    int index = index(fileId, offset, table.length);
+    entry.hashNext = table[index];
+    table[index] = entry;
+    linkLast(entry);
+    usedBytes += length;
+    if (++size > table.length * 3 / 4) {
+      resize();
+    }
+    return true;
+  }
+
+  /**
+   * Removes a block from the cache.
+   *
+   * @param fileId id of the file
+   * @param offset offset of the block in the file
+   */
+  public synchronized void invalidate(long fileId, long offset)
+  {
+    Entry entry = find(fileId, offset);
+    if (entry != null) {
+      remove(entry);
+    }
+  }
+
+  /**
+   * Removes all blocks and releases the off-heap memory.
+   */
+  public synchronized void clear()
+  {
+    table = new Entry[64];
+    size = 0;
+    head.lruPrev = head;
+    head.lruNext = head;
+    slabs = new ByteBuffer[0];
+    allocatedPages = 0;
+    freePageCount = 0;
+    usedBytes = 0;
+  }
+
+  private Entry find(long fileId, long offset)
+  {
+    for (Entry entry = table[index(fileId, offset, table.length)]; entry != null; entry = entry.hashNext) {
+      if (entry.fileId == fileId && entry.offset == offset) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  private void remove(Entry entry)
+  {
+    int index = index(entry.fileId, entry.offset, table.length);
+    if (table[index] == entry) {
+      table[index] = entry.hashNext;
+    }
+    else {
+      Entry prev = table[index];
+      while (prev.hashNext != entry) {
+        prev = prev.hashNext;
+      }
+      prev.hashNext = entry.hashNext;
+    }
+    unlink(entry);
+    for (int page : entry.pages) {
+      freePages[freePageCount++] = page;
+    }
+    usedBytes -= entry.length;
+    size--;
+  }
+
+  private int allocatePage()
+  {
+    if (freePageCount > 0) {
+      return freePages[--freePageCount];
+    }
+    if (allocatedPages % pagesPerSlab == 0) {
+      int slabPages = Math.min(pagesPerSlab, maxPages - allocatedPages);
+      ByteBuffer[] newSlabs = new ByteBuffer[slabs.length + 1];
+      System.arraycopy(slabs, 0, newSlabs, 0, slabs.length);
+      newSlabs[slabs.length] = ByteBuffer.allocateDirect(slabPages * pageSize);
+      slabs = newSlabs;
+      if (freePages.length < allocatedPages + slabPages) {
+        int[] newFreePages = new int[allocatedPages + slabPages];
+        System.arraycopy(freePages, 0, newFreePages, 0, freePageCount);
+        freePages = newFreePages;
+      }
+    }
+    return allocatedPages++;
+  }
+
+  private void resize()
+  {
+    Entry[] newTable = new Entry[table.length * 2];
+    for (Entry entry : table) {
+      while (entry != null) {
+        Entry next = entry.hashNext;
+        int index = index(entry.fileId, entry.offset, newTable.length);
+        entry.hashNext = newTable[index];
+        newTable[index] = entry;
+        entry = next;
+      }
+    }
+    table = newTable;
+  }
+
+  private void unlink(Entry entry)
+  {
+    entry.lruPrev.lruNext = entry.lruNext;
+    entry.lruNext.lruPrev = entry.lruPrev;
+  }
+
+  private void linkLast(Entry entry)
+  {
+    entry.lruPrev = head.lruPrev;
+    entry.lruNext = head;
+    head.lruPrev.lruNext = entry;
+    head.lruPrev = entry;
+  }
+
+  private static int index(long fileId, long offset, int tableLength)
+  {
+    long h = fileId * 0x9E3779B97F4A7C15L + offset;
+    h ^= h >>> 32;
+    h ^= h >>> 16;
+    return (int)h & (tableLength - 1);
+  }
+
+  public long getMaxBytes()
+  {
+    return maxBytes;
+  }
+
+  /**
+   * @return bytes of block data in the cache
+   */
+  public synchronized long getUsedBytes()
+  {
+    return usedBytes;
+  }
+
+  /**
+   * @return bytes of off-heap memory allocated by the cache, which never exceeds the budget
+   */
+  public synchronized long getAllocatedBytes()
+  {
+    return (long)allocatedPages * pageSize;
+  }
+
+  public synchronized long getBlockCount()
+  {
+    return size;
+  }
+
+  public synchronized long getHitCount()
+  {
+    return hitCount;
+  }
+
+  public synchronized long getMissCount()
+  {
+    return missCount;
+  }
+
+  public synchronized long getEvictionCount()
+  {
+    return evictionCount;
+  }
+
+  private static class Entry
+  {
+    final long fileId;
+    final long offset;
+    int length;
+    int[] pages;
+    Entry hashNext;
+    Entry lruPrev;
+    Entry lruNext;
+
+    Entry(long fileId, long offset)
+    {
+      this.fileId = fileId;
+      this.offset = offset;
+    }
+  }
+
+}
@@ -33,6 +33,9 @@ import com.google.common.cache.Weigher;
  * <br>
  * <br>
  * It keeps {@link String} as key and {@link BlockReader} as value
+ * <br>
+ * <br>
+ * Readers which are given a {@link BlockCache} use that off-heap, per operator cache instead of this one.
  *
  * @since 2.0.0
  */
@@ -498,6 +498,11 @@ final class DTBCFile {
     //
     private ByteArrayOutputStream baos;
     private ArrayList<String> cacheKeys;
+    // suffix of the keys of this reader in the global CacheManager
+    private final String cacheKeySuffix;
+    // per operator off-heap cache, the global CacheManager is used when it is null
+    private final BlockCache blockCache;
+    private final long fileId;
 
     public ArrayList<String> getCacheKeys()
     {
@@ -513,6 +518,13 @@ final class DTBCFile {
       private final ReusableByteArrayInputStream rbain;
       private final BlockRegion region;
 
+      public RBlockState(Algorithm compressionAlgo, byte[] blockData, BlockRegion region)
+      {
+        this.compressAlgo = compressionAlgo;
+        this.region = region;
+        this.rbain = new ReusableByteArrayInputStream(blockData);
+      }
+
       public RBlockState(Algorithm compressionAlgo, FSDataInputStream fsin, BlockRegion region, Configuration conf, Reader r) throws IOException
       {
         this.compressAlgo = compressionAlgo;
@@ -661,8 +673,27 @@ final class DTBCFile {
      */
     public Reader(FSDataInputStream fin, long fileLength, Configuration conf)
         throws IOException {
+      this(fin, fileLength, conf, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param fin
+     *          FS input stream.
+     * @param fileLength
+     *          Length of the corresponding file
+     * @param blockCache
+     *          Cache of the decompressed blocks, the global {@link CacheManager} is used when null
+     * @throws IOException
+     */
+    public Reader(FSDataInputStream fin, long fileLength, Configuration conf, BlockCache blockCache)
+        throws IOException {
       this.in = fin;
       this.conf = conf;
+      this.blockCache = blockCache;
+      this.fileId = blockCache == null ? -1 : blockCache.newFileId();
+      this.cacheKeySuffix = toString();
       // A reader buffer to read the block
       baos = new ByteArrayOutputStream(DTFile.getFSInputBufferSize(conf) * 2);
       this.cacheKeys = new ArrayList<String>();
@@ -724,6 +755,15 @@ final class DTBCFile {
     @Override
     public void close() {
       // Delete buffers in cache for this reader.
+      if (blockCache != null) {
+        for (BlockRegion region : dataIndex.getBlockRegionList()) {
+          blockCache.invalidate(fileId, region.getOffset());
+        }
+        for (MetaIndexEntry entry : metaIndex.index.values()) {
+          blockCache.invalidate(fileId, entry.getRegion().getOffset());
+        }
+        return;
+      }
       CacheManager.invalidateKeys(cacheKeys);
       cacheKeys.clear();
     }
@@ -778,11 +818,22 @@ final class DTBCFile {
 
     private BlockReader createReader(Algorithm compressAlgo, BlockRegion region)
         throws IOException {
-        BlockReader br = (BlockReader) CacheManager.get(region.getOffset() + this.toString());
+        if (blockCache != null) {
+          // every reader gets its own stream over a heap copy of the block
+          byte[] blockData = blockCache.get(fileId, region.getOffset());
+          if (blockData != null) {
+            return new BlockReader(new RBlockState(compressAlgo, blockData, region));
+          }
+          RBlockState rbs = new RBlockState(compressAlgo, in, region, conf, this);
+          byte[] buf = rbs.getInputStream().getBuf();
+          blockCache.put(fileId, region.getOffset(), buf, buf.length);
+          return new BlockReader(rbs);
+        }
+        String cacheKey = region.getOffset() + cacheKeySuffix;
+        BlockReader br = CacheManager.get(cacheKey);
         if(br==null){
           RBlockState rbs = new RBlockState(compressAlgo, in, region, conf, this);
           br = new BlockReader(rbs);
-          String cacheKey = region.getOffset() + this.toString();
           CacheManager.put(cacheKey, br);
           cacheKeys.add(cacheKey);
         } else {
@@ -25,6 +25,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 
 import org.apache.commons.logging.Log;
@@ -172,6 +173,17 @@ public class DTFile {
     return conf.getInt(FS_OUTPUT_BUF_SIZE_ATTR, 256 * 1024);
   }
 
+  /**
+   * Bits of the Bloom filter per key written into the key filter meta block.
+   * About 10 bits per key give a false positive rate of 1%. The key filter is
+   * not written when it is 0, which is the default.
+   */
+  public static final String BLOOM_FILTER_BITS_PER_KEY_ATTR = "tfile.bloom.filter.bits.per.key";
+
+  static int getBloomFilterBitsPerKey(Configuration conf) {
+    return conf.getInt(BLOOM_FILTER_BITS_PER_KEY_ATTR, 0);
+  }
+
   private static final int MAX_KEY_SIZE = 64 * 1024; // 64KB
   static final Version API_VERSION = new Version((short) 1, (short) 0);
 
@@ -230,6 +242,8 @@ public class DTFile {
     // Meta blocks.
     final TFileIndex tfileIndex;
     final TFileMeta tfileMeta;
+    // null unless a Bloom filter is configured
+    final KeyFilter keyFilter;
 
     // reference to the underlying BCFile.
     private DTBCFile.Writer writerBCF;
@@ -304,6 +318,8 @@ public class DTFile {
       sizeMinBlock = minBlockSize;
       tfileMeta = new TFileMeta(comparator);
       tfileIndex = new TFileIndex(tfileMeta.getComparator());
+      int bloomFilterBitsPerKey = getBloomFilterBitsPerKey(conf);
+      keyFilter = bloomFilterBitsPerKey > 0 ? new KeyFilter(bloomFilterBitsPerKey) : null;
 
       writerBCF = new DTBCFile.Writer(fsdos, compressName, conf);
       currentKeyBufferOS = new BoundedByteArrayOutputStream(MAX_KEY_SIZE);
@@ -352,6 +368,22 @@ public class DTFile {
             outIndex.close();
           }
 
+          // last, the optional data:DTFile.keyFilter which older readers ignore
+          if (keyFilter != null) {
+            BlockAppender outFilter =
+                writerBCF.prepareMetaBlock(KeyFilter.BLOCK_NAME, COMPRESSION_NONE);
+            try {
+              RawComparable firstKey = tfileIndex.getFirstKey();
+              if (firstKey != null) {
+                keyFilter.setKeyRange(firstKey.buffer(), firstKey.offset(), firstKey.size(),
+                    lastKeyBufferOS.getBuffer(), 0, lastKeyBufferOS.size());
+              }
+              keyFilter.write(outFilter);
+            } finally {
+              outFilter.close();
+            }
+          }
+
           writerBCF.close();
         }
       } finally {
@@ -482,6 +514,10 @@ public class DTFile {
             }
           }
 
+          if (keyFilter != null) {
+            keyFilter.add(key, 0, len);
+          }
+
           BoundedByteArrayOutputStream tmp = currentKeyBufferOS;
           currentKeyBufferOS = lastKeyBufferOS;
           lastKeyBufferOS = tmp;
@@ -707,6 +743,9 @@ public class DTFile {
 
     // TFile index, it is loaded lazily.
     TFileIndex tfileIndex = null;
+    // key filter, it is loaded lazily and stays null when the file has none.
+    KeyFilter keyFilter = null;
+    boolean keyFilterLoaded = false;
     final TFileMeta tfileMeta;
     final BytesComparator comparator;
 
@@ -821,7 +860,26 @@ public class DTFile {
      */
     public Reader(FSDataInputStream fsdis, long fileLength, Configuration conf)
         throws IOException {
-      readerBCF = new DTBCFile.Reader(fsdis, fileLength, conf);
+      this(fsdis, fileLength, conf, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param fsdis
+     *          FS input stream of the TFile.
+     * @param fileLength
+     *          The length of TFile.
+     * @param conf
+     * @param blockCache
+     *          Off-heap cache of the decompressed blocks, usually shared by the
+     *          readers of one operator. The global {@link CacheManager} is used
+     *          when it is null.
+     * @throws IOException
+     */
+    public Reader(FSDataInputStream fsdis, long fileLength, Configuration conf, BlockCache blockCache)
+        throws IOException {
+      readerBCF = new DTBCFile.Reader(fsdis, fileLength, conf, blockCache);
 
       // first, read TFile meta
       BlockReader brMeta = readerBCF.getMetaBlock(TFileMeta.BLOCK_NAME);
@@ -912,6 +970,66 @@ public class DTFile {
       }
     }
 
+    /**
+     * Lazily loading the key filter.
+     *
+     * @throws IOException
+     */
+    synchronized KeyFilter checkKeyFilter() throws IOException {
+      if (!keyFilterLoaded) {
+        if (readerBCF.metaIndex.getMetaByName(KeyFilter.BLOCK_NAME) != null) {
+          BlockReader brFilter = readerBCF.getMetaBlock(KeyFilter.BLOCK_NAME);
+          try {
+            keyFilter = new KeyFilter(brFilter);
+          } finally {
+            brFilter.close();
+          }
+        }
+        keyFilterLoaded = true;
+      }
+      return keyFilter;
+    }
+
+    /**
+     * Does the file have a key filter? Files written with
+     * {@link DTFile#BLOOM_FILTER_BITS_PER_KEY_ATTR} set have one.
+     *
+     * @return true if the file has a key filter.
+     * @throws IOException
+     */
+    public boolean hasKeyFilter() throws IOException {
+      return checkKeyFilter() != null;
+    }
+
+    /**
+     * Check the key against the key range and the Bloom filter of the file
+     * without reading any data block.
+     *
+     * @param key
+     *          buffer of the key.
+     * @param offset
+     *          offset in the key buffer.
+     * @param length
+     *          length of the key.
+     * @return false if the file definitely does not contain the key, true if
+     *         it may contain it or the file has no key filter.
+     * @throws IOException
+     */
+    public boolean mightContain(byte[] key, int offset, int length) throws IOException {
+      KeyFilter filter = checkKeyFilter();
+      if (filter == null) {
+        return true;
+      }
+      if (filter.isEmpty()) {
+        return false;
+      }
+      if (isSorted() && (compareKeys(key, offset, length, filter.firstKey, 0, filter.firstKey.length) < 0
+          || compareKeys(key, offset, length, filter.lastKey, 0, filter.lastKey.length) > 0)) {
+        return false;
+      }
+      return filter.mightContain(key, offset, length);
+    }
+
     /**
      * Get the first key in the TFile.
      *
@@ -1386,6 +1504,30 @@ public class DTFile {
         return seekTo(new ByteArray(key, keyOffset, keyLen), false);
       }
 
+      /**
+       * Point lookup of a key. When the key filter of the file rules the key
+       * out, the cursor is parked at the end of the scanner without reading a
+       * data block and false is returned. Otherwise it behaves like
+       * {@link #seekTo(byte[], int, int)}.
+       *
+       * @param key
+       *          The input key
+       * @param keyOffset
+       *          offset in the key buffer.
+       * @param keyLen
+       *          key buffer length.
+       * @return true if we find an equal key; false otherwise.
+       * @throws IOException
+       */
+      public boolean seekToExact(byte[] key, int keyOffset, int keyLen)
+          throws IOException {
+        if (!reader.mightContain(key, keyOffset, keyLen)) {
+          parkCursorAtEnd();
+          return false;
+        }
+        return seekTo(key, keyOffset, keyLen);
+      }
+
       private boolean seekTo(RawComparable key, boolean beyond)
           throws IOException {
         Location l = reader.getBlockContainsKey(key, beyond);
@@ -2155,6 +2297,159 @@ public class DTFile {
     }
   } // END: class MetaTFileMeta
 
+  /**
+   * Data structure representing the optional "DTFile.keyFilter" meta block: a
+   * Bloom filter of all keys and the first and the last key of the file.
+   * Readers which do not know the block ignore it.
+   */
+  static final class KeyFilter {
+    final static String BLOCK_NAME = "DTFile.keyFilter";
+    private final static int MAX_HASHES = 30;
+
+    // hashes of the keys, only while writing
+    private long[] keyHashes;
+    private final int bitsPerKey;
+
+    private long keyCount;
+    private int numHashes;
+    private long numBits;
+    private long[] bits;
+    byte[] firstKey;
+    byte[] lastKey;
+
+    // ctor for writes
+    public KeyFilter(int bitsPerKey) {
+      this.bitsPerKey = bitsPerKey;
+      keyHashes = new long[1024];
+    }
+
+    // ctor for reads
+    public KeyFilter(DataInput in) throws IOException {
+      Version version = new Version(in);
+      if (!version.compatibleWith(DTFile.API_VERSION)) {
+        throw new RuntimeException("Incompatible key filter version.");
+      }
+      bitsPerKey = 0;
+      keyCount = Utils.readVLong(in);
+      if (keyCount == 0) {
+        return;
+      }
+      numHashes = Utils.readVInt(in);
+      numBits = Utils.readVLong(in);
+      bits = new long[Utils.readVInt(in)];
+      for (int i = 0; i < bits.length; i++) {
+        bits[i] = in.readLong();
+      }
+      firstKey = new byte[Utils.readVInt(in)];
+      in.readFully(firstKey);
+      lastKey = new byte[Utils.readVInt(in)];
+      in.readFully(lastKey);
+    }
+
+    public void add(byte[] key, int offset, int length) {
+      if (keyCount == keyHashes.length) {
+        keyHashes = Arrays.copyOf(keyHashes, keyHashes.length * 2);
+      }
+      keyHashes[(int)keyCount++] = hash(key, offset, length);
+    }
+
+    public void setKeyRange(byte[] first, int firstOffset, int firstLength, byte[] last, int lastOffset, int lastLength) {
+      firstKey = Arrays.copyOfRange(first, firstOffset, firstOffset + firstLength);
+      lastKey = Arrays.copyOfRange(last, lastOffset, lastOffset + lastLength);
+    }
+
+    public void write(DataOutput out) throws IOException {
+      DTFile.API_VERSION.write(out);
+      Utils.writeVLong(out, keyCount);
+      if (keyCount == 0) {
+        return;
+      }
+      // size the filter by the actual number of keys
+      numHashes = Math.max(1, Math.min(MAX_HASHES, (int)Math.round(bitsPerKey * Math.log(2))));
+      numBits = Math.max(64, keyCount * bitsPerKey);
+      bits = new long[(int)((numBits + 63) >>> 6)];
+      for (int i = 0; i < keyCount; i++) {
+        set(keyHashes[i]);
+      }
+      keyHashes = null;
+
+      Utils.writeVInt(out, numHashes);
+      Utils.writeVLong(out, numBits);
+      Utils.writeVInt(out, bits.length);
+      for (long word : bits) {
+        out.writeLong(word);
+      }
+      Utils.writeVInt(out, firstKey.length);
+      out.write(firstKey);
+      Utils.writeVInt(out, lastKey.length);
+      out.write(lastKey);
+    }
+
+    public boolean isEmpty() {
+      return keyCount == 0;
+    }
+
+    public boolean mightContain(byte[] key, int offset, int length) {
+      long hash = hash(key, offset, length);
+      long h1 = hash & 0xffffffffL;
+      long h2 = hash >>> 32;
+      for (int i = 0; i < numHashes; i++) {
+        long bit = (h1 + i * h2) % numBits;
+        if ((bits[(int)(bit >>> 6)] & (1L << bit)) == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void set(long hash) {
+      // double hashing, the i-th probe is h1 + i * h2
+      long h1 = hash & 0xffffffffL;
+      long h2 = hash >>> 32;
+      for (int i = 0; i < numHashes; i++) {
+        long bit = (h1 + i * h2) % numBits;
+        bits[(int)(bit >>> 6)] |= 1L << bit;
+      }
+    }
+
+    /**
+     * 64 bit MurmurHash2 (MurmurHash64A) of the key.
+     */
+    static long hash(byte[] key, int offset, int length) {
+      final long m = 0xc6a4a7935bd1e995L;
+      final int r = 47;
+      long h = 0x9747b28cL ^ (length * m);
+
+      int end = offset + (length & ~7);
+      for (int i = offset; i < end; i += 8) {
+        long k = (key[i] & 0xffL) | (key[i + 1] & 0xffL) << 8 | (key[i + 2] & 0xffL) << 16
+            | (key[i + 3] & 0xffL) << 24 | (key[i + 4] & 0xffL) << 32 | (key[i + 5] & 0xffL) << 40
+            | (key[i + 6] & 0xffL) << 48 | (key[i + 7] & 0xffL) << 56;
+        k *= m;
+        k ^= k >>> r;
+        k *= m;
+        h ^= k;
+        h *= m;
+      }
+
+      switch (length & 7) {
+        case 7: h ^= (key[end + 6] & 0xffL) << 48;
+        case 6: h ^= (key[end + 5] & 0xffL) << 40;
+        case 5: h ^= (key[end + 4] & 0xffL) << 32;
+        case 4: h ^= (key[end + 3] & 0xffL) << 24;
+        case 3: h ^= (key[end + 2] & 0xffL) << 16;
+        case 2: h ^= (key[end + 1] & 0xffL) << 8;
+        case 1: h ^= key[end] & 0xffL;
+          h *= m;
+      }
+
+      h ^= h >>> r;
+      h *= m;
+      h ^= h >>> r;
+      return h;
+    }
+  } // END: class KeyFilter
+
   /**
    * Data structure representing "TFile.index" meta block.
    */
@@ -84,6 +84,44 @@ public class HBasePOJOPutOperatorTest
     readRecordsAndVerify();
   }
 
+  /**
+   * Writes through the async writer, which writes all the puts of a window by the end window, so the records are read
+   * without waiting. The updates of a row are split into many batches and the last one has to be stored.
+   */
+  @Test
+  public void testAsyncPut() throws Exception
+  {
+    operator.teardown();
+    operator = new HBasePOJOPutOperator();
+    operator.getAsyncWriteConfig().setEnabled(true);
+    operator.getAsyncWriteConfig().setFlushSize(512);
+    operator.getAsyncWriteConfig().setWriteBufferSize(8 * 1024);
+    setupOperator(operator);
+
+    long windowId = startWindowId;
+    int countInWindow = 0;
+    for (int i = 0; i < TEST_SIZE; ++i) {
+      if (countInWindow == 0) {
+        operator.beginWindow(windowId++);
+      }
+      operator.processTuple(getNextTuple());
+      if (++countInWindow == WINDOW_SIZE) {
+        operator.endWindow();
+        countInWindow = 0;
+      }
+    }
+    readRecordsAndVerify();
+
+    operator.beginWindow(windowId);
+    for (int version = 1; version <= 1000; version++) {
+      operator.processTuple(new TestPOJO(1, "name" + version, version, "address" + version));
+    }
+    operator.endWindow();
+    Result result = operator.getStore().getTable().get(new Get(Bytes.toBytes("1")));
+    Assert.assertEquals("last update", "name1000", Bytes.toString(result.getValue(Bytes.toBytes("f0"), Bytes.toBytes("name"))));
+    operator.teardown();
+  }
+
   protected void writeRecords()
   {
     long windowId = startWindowId;
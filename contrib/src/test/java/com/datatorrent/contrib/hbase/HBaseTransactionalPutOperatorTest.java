@@ -18,6 +18,7 @@ package com.datatorrent.contrib.hbase;
 import java.io.IOException;
 import java.util.Collection;
 
+import org.apache.commons.lang.mutable.MutableLong;
 import org.apache.hadoop.hbase.client.Put;
 import org.junit.Assert;
 import org.junit.Test;
@@ -28,6 +29,7 @@ import com.datatorrent.api.Attribute;
 import com.datatorrent.api.Attribute.AttributeMap;
 import com.datatorrent.api.Context.OperatorContext;
 import com.datatorrent.api.Operator.ProcessingMode;
+import com.datatorrent.lib.counters.BasicCounters;
 
 /**
  *
@@ -236,7 +238,75 @@ public class HBaseTransactionalPutOperatorTest {
       logger.error(e.getMessage());
     }
   }
-  
+  @Test
+  public void testAsyncWrite() throws Exception {
+    try {
+      HBaseTestHelper.clearHBase();
+      TestHBasePutOperator thop = new TestHBasePutOperator();
+      thop.getStore().setTableName("table1");
+      thop.getStore().setZookeeperQuorum("127.0.0.1");
+      thop.getStore().setZookeeperClientPort(2181);
+      thop.getAsyncWriteConfig().setEnabled(true);
+      thop.getAsyncWriteConfig().setFlushSize(1024);
+      thop.getAsyncWriteConfig().setWriteBufferSize(16 * 1024);
+      final Object[] counters = new Object[1];
+      thop.setup(new OperatorContext() {
+
+        @Override
+        public <T> T getValue(Attribute<T> key) {
+          if(key.equals(PROCESSING_MODE)){
+            return (T) ProcessingMode.AT_LEAST_ONCE;
+          }
+          return key.defaultValue;
+        }
+
+        @Override
+        public AttributeMap getAttributes() {
+          return null;
+        }
+
+        @Override
+        public int getId() {
+          return 0;
+        }
+
+        @Override
+        public void setCounters(Object stats) {
+          counters[0] = stats;
+        }
+
+        @Override
+        public void sendMetrics(Collection<String> collection)
+        {
+        }
+      });
+      int numTuples = 2000;
+      thop.beginWindow(0);
+      for (int i = 0; i < numTuples; i++) {
+        HBaseTuple t = new HBaseTuple();
+        t.setColFamily("colfam0");t.setColName("col0");t.setRow("row" + i);t.setColValue("val" + i);
+        thop.input.process(t);
+      }
+      thop.endWindow();
+
+      for (int i = 0; i < numTuples; i += 199) {
+        HBaseTuple tuple = HBaseTestHelper.getHBaseTuple("row" + i, "colfam0", "col0");
+        Assert.assertNotNull("Tuple " + i, tuple);
+        Assert.assertEquals("Tuple column value", "val" + i, tuple.getColValue());
+      }
+      Assert.assertEquals("committed window", 0, thop.getStore().getCommittedWindowId(null, 0));
+
+      @SuppressWarnings("unchecked")
+      BasicCounters<MutableLong> writerCounters = (BasicCounters<MutableLong>)counters[0];
+      Assert.assertNotNull("counters", writerCounters);
+      Assert.assertEquals("puts", numTuples, writerCounters.getCounter(HBaseAsyncWriter.HBaseWriterCounters.PUTS).longValue());
+      thop.teardown();
+    } catch (IOException e) {
+
+      logger.error(e.getMessage());
+    }
+  }
+
   public static class TestHBasePutOperator extends
   AbstractHBaseWindowPutOutputOperator<HBaseTuple> {
 
@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.contrib.kafka;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import kafka.message.Message;
+import kafka.message.MessageAndOffset;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the batched hand over of messages between the consumer threads and the operator.
+ */
+public class KafkaConsumerBufferTest
+{
+  private static class TestConsumer extends KafkaConsumer
+  {
+    @Override
+    protected void commitOffset()
+    {
+    }
+
+    @Override
+    protected Map<KafkaPartition, Long> getCurrentOffsets()
+    {
+      return null;
+    }
+
+    @Override
+    protected void resetPartitionsAndOffset(Set<KafkaPartition> partitionIds, Map<KafkaPartition, Long> startOffset)
+    {
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+    }
+  }
+
+  private static MessageAndOffset[] batch(long startOffset, int size)
+  {
+    MessageAndOffset[] messages = new MessageAndOffset[size];
+    for (int i = 0; i < size; i++) {
+      messages[i] = new MessageAndOffset(new Message(new byte[10]), startOffset + i);
+    }
+    return messages;
+  }
+
+  @Test
+  public void testOrderAcrossThreads() throws Exception
+  {
+    final TestConsumer consumer = new TestConsumer();
+    consumer.create();
+    final KafkaPartition partition = new KafkaPartition(KafkaOperatorTestBase.TEST_TOPIC, 0);
+
+    // the partition moves from the first thread to the second one, the second thread must not overtake the first
+    Thread first = new Thread()
+    {
+      @Override
+      public void run()
+      {
+        try {
+          consumer.putMessages(partition, batch(0, 5), 50);
+        }
+        catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    first.start();
+    first.join();
+    Thread second = new Thread()
+    {
+      @Override
+      public void run()
+      {
+        try {
+          consumer.putMessages(partition, batch(5, 3), 30);
+        }
+        catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    second.start();
+    second.join();
+
+    Assert.assertEquals("buffered messages", 8, consumer.messageSize());
+    KafkaConsumer.KafkaMessageBatch batch = consumer.pollBatch();
+    Assert.assertEquals("first offset", 0, batch.messages[0].offset());
+    Assert.assertEquals("buffered messages", 3, consumer.messageSize());
+    batch = consumer.pollBatch();
+    Assert.assertEquals("first offset", 5, batch.messages[0].offset());
+    Assert.assertNull("no more batches", consumer.pollBatch());
+    Assert.assertNull("no more messages", consumer.pollMessage());
+    consumer.teardown();
+  }
+
+  @Test
+  public void testBoundedByBytes() throws Exception
+  {
+    final TestConsumer consumer = new TestConsumer();
+    consumer.setMaxBufferedBytes(100);
+    consumer.create();
+    final KafkaPartition partition = new KafkaPartition(KafkaOperatorTestBase.TEST_TOPIC, 0);
+    final CountDownLatch latch = new CountDownLatch(2);
+
+    Thread producer = new Thread()
+    {
+      @Override
+      public void run()
+      {
+        try {
+          consumer.putMessages(partition, batch(0, 8), 80);
+          latch.countDown();
+          consumer.putMessages(partition, batch(8, 8), 80);
+          latch.countDown();
+        }
+        catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    producer.start();
+
+    Assert.assertFalse("producer blocked", latch.await(200, TimeUnit.MILLISECONDS));
+    Assert.assertEquals("buffered messages", 8, consumer.messageSize());
+
+    for (int i = 0; i < 8; i++) {
+      KafkaConsumer.KafkaMessage message = consumer.pollMessage();
+      Assert.assertEquals("offset", i, message.offSet);
+    }
+    Assert.assertTrue("producer resumed", latch.await(5, TimeUnit.SECONDS));
+    producer.join();
+    Assert.assertEquals("buffered messages", 8, consumer.messageSize());
+    consumer.teardown();
+    Assert.assertEquals("buffered messages", 0, consumer.messageSize());
+  }
+}
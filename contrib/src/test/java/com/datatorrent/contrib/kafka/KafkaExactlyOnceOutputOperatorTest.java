@@ -32,6 +32,9 @@ import com.datatorrent.api.LocalMode;
 import com.datatorrent.api.Operator.ActivationListener;
 
 import com.datatorrent.common.util.Pair;
+import com.datatorrent.lib.helper.OperatorContextTestHelper;
+import com.datatorrent.lib.util.TestUtils;
+import com.esotericsoftware.kryo.Kryo;
 
 /**
  *
@@ -176,6 +179,63 @@ public class KafkaExactlyOnceOutputOperatorTest extends KafkaOperatorTestBase
     
   }
   
+  private static void sendWindow(SimpleKafkaExactOnceOutputOperator operator, long windowId, int from, int to, boolean complete)
+  {
+    operator.beginWindow(windowId);
+    for (int i = from; i <= to; i++) {
+      operator.inputPort.process(i + "###testString " + i);
+    }
+    if (complete) {
+      operator.endWindow();
+    }
+  }
+
+  @Test
+  @SuppressWarnings({"rawtypes"})
+  public void testTrackPartitionOffsets() throws Exception
+  {
+    KafkaTestConsumer listener = new KafkaTestConsumer(TEST_TOPIC);
+
+    SimpleKafkaExactOnceOutputOperator operator = new SimpleKafkaExactOnceOutputOperator();
+    Properties props = new Properties();
+    props.setProperty("serializer.class", "kafka.serializer.StringEncoder");
+    props.put("metadata.broker.list", "localhost:9092");
+    operator.setConfigProperties(props);
+    operator.setTopic(TEST_TOPIC);
+    operator.setTrackPartitionOffsets(true);
+    operator.setBatchSize(3);
+
+    OperatorContext context = new OperatorContextTestHelper.TestIdOperatorContext(1);
+    operator.setup(context);
+    sendWindow(operator, 1, 1, 5, true);
+    SimpleKafkaExactOnceOutputOperator checkpointed = TestUtils.clone(new Kryo(), operator);
+    sendWindow(operator, 2, 6, 10, true);
+    // fail in the middle of the third window
+    sendWindow(operator, 3, 11, 12, false);
+    operator.teardown();
+
+    operator = checkpointed;
+    operator.setup(context);
+    sendWindow(operator, 2, 6, 10, true);
+    operator.beginWindow(3);
+    for (int i = 11; i <= 13; i++) {
+      operator.inputPort.process(i + "###testString " + i);
+    }
+    operator.inputPort.process("14###" + KafkaOperatorTestBase.END_TUPLE);
+    operator.endWindow();
+    operator.teardown();
+
+    Future f = Executors.newFixedThreadPool(1).submit(listener);
+    f.get(30, TimeUnit.SECONDS);
+
+    Assert.assertEquals("Number of emitted tuples", 13, listener.holdingBuffer.size());
+    int i = 1;
+    for (kafka.message.Message message : listener.holdingBuffer) {
+      Assert.assertEquals("message", "testString " + i++, listener.getMessage(message));
+    }
+    listener.close();
+  }
+
   public static class SimpleKafkaExactOnceOutputOperator extends AbstractExactlyOnceKafkaOutputOperator<String, String, String>{
 
     @Override
@@ -0,0 +1,206 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.contrib.kinesis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.kinesis.AmazonKinesisClient;
+import com.amazonaws.services.kinesis.model.PutRecordsRequest;
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import com.amazonaws.services.kinesis.model.PutRecordsResult;
+import com.amazonaws.services.kinesis.model.PutRecordsResultEntry;
+
+import com.datatorrent.lib.helper.OperatorContextTestHelper;
+
+/**
+ * Tests the pipelined PutRecords writer of {@link AbstractKinesisOutputOperator} against a mock kinesis client.
+ */
+public class KinesisOutputOperatorPipelineTest
+{
+  /**
+   * Accepts PutRecords calls after a delay. Every record fails the first time it is put when failFirstPut is set.
+   */
+  private static class MockKinesisClient extends AmazonKinesisClient
+  {
+    final ConcurrentLinkedQueue<String> records = new ConcurrentLinkedQueue<String>();
+    final Set<String> failedOnce = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    final AtomicInteger maxRequestBytes = new AtomicInteger();
+    final long latencyMillis;
+    final boolean failFirstPut;
+    final boolean failAlways;
+
+    MockKinesisClient(long latencyMillis, boolean failFirstPut, boolean failAlways)
+    {
+      super(new BasicAWSCredentials("accessKey", "secretKey"));
+      this.latencyMillis = latencyMillis;
+      this.failFirstPut = failFirstPut;
+      this.failAlways = failAlways;
+    }
+
+    @Override
+    public PutRecordsResult putRecords(PutRecordsRequest putRecordsRequest)
+    {
+      int current = inFlight.incrementAndGet();
+      try {
+        updateMax(maxInFlight, current);
+        Thread.sleep(latencyMillis);
+
+        List<PutRecordsResultEntry> results = new ArrayList<PutRecordsResultEntry>();
+        int failed = 0;
+        int bytes = 0;
+        for (PutRecordsRequestEntry entry : putRecordsRequest.getRecords()) {
+          byte[] data = new byte[entry.getData().remaining()];
+          entry.getData().duplicate().get(data);
+          String record = new String(data);
+          bytes += data.length + entry.getPartitionKey().length();
+          PutRecordsResultEntry result = new PutRecordsResultEntry();
+          if (failAlways || (failFirstPut && failedOnce.add(record))) {
+            result.setErrorCode("ProvisionedThroughputExceededException");
+            failed++;
+          }
+          else {
+            result.setSequenceNumber(Integer.toString(records.size()));
+            records.add(record);
+          }
+          results.add(result);
+        }
+        updateMax(maxRequestBytes, bytes);
+        return new PutRecordsResult().withFailedRecordCount(failed).withRecords(results);
+      }
+      catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      finally {
+        inFlight.decrementAndGet();
+      }
+    }
+  }
+
+  private static void updateMax(AtomicInteger max, int value)
+  {
+    int current;
+    while ((current = max.get()) < value && !max.compareAndSet(current, value)) {
+    }
+  }
+
+  private static KinesisStringOutputOperator createOperator(MockKinesisClient client)
+  {
+    KinesisUtil.getInstance().setClient(client);
+    KinesisStringOutputOperator operator = new KinesisStringOutputOperator();
+    operator.setAccessKey("accessKey");
+    operator.setSecretKey("secretKey");
+    operator.setStreamName("stream");
+    operator.setRetryBackoffMillis(1);
+    return operator;
+  }
+
+  @After
+  public void resetClient()
+  {
+    KinesisUtil.getInstance().setClient(null);
+  }
+
+  @Test
+  public void testBatchesAndRetries()
+  {
+    MockKinesisClient client = new MockKinesisClient(5, true, false);
+    KinesisStringOutputOperator operator = createOperator(client);
+    operator.setBatchSize(10);
+    operator.setMaxBatchBytes(100);
+    operator.setMaxInFlightRequests(2);
+    operator.setup(new OperatorContextTestHelper.TestIdOperatorContext(1));
+
+    operator.beginWindow(1);
+    for (int i = 0; i < 50; i++) {
+      operator.inputPort.process("record-" + i);
+    }
+    operator.endWindow();
+
+    Assert.assertEquals("records written before the window ended", 50, client.records.size());
+    for (int i = 0; i < 50; i++) {
+      Assert.assertTrue("record " + i, client.records.contains("record-" + i));
+    }
+    Assert.assertTrue("request size", client.maxRequestBytes.get() <= 100);
+    Assert.assertTrue("in flight requests", client.maxInFlight.get() <= 2);
+    operator.teardown();
+  }
+
+  @Test
+  public void testRetriesExhausted()
+  {
+    MockKinesisClient client = new MockKinesisClient(0, false, true);
+    KinesisStringOutputOperator operator = createOperator(client);
+    operator.setMaxRetries(2);
+    operator.setup(new OperatorContextTestHelper.TestIdOperatorContext(1));
+
+    operator.beginWindow(1);
+    operator.inputPort.process("record");
+    try {
+      operator.endWindow();
+      Assert.fail("records could not be put");
+    }
+    catch (RuntimeException e) {
+      Assert.assertTrue("cause", e.getMessage().contains("after 2 retries"));
+    }
+    finally {
+      operator.teardown();
+    }
+  }
+
+  @Test
+  public void testThroughput()
+  {
+    for (int maxInFlightRequests : new int[] {1, 4}) {
+      MockKinesisClient client = new MockKinesisClient(2, false, false);
+      KinesisStringOutputOperator operator = createOperator(client);
+      operator.setMaxInFlightRequests(maxInFlightRequests);
+      operator.setup(new OperatorContextTestHelper.TestIdOperatorContext(1));
+
+      int count = 20000;
+      long start = System.currentTimeMillis();
+      for (long windowId = 0; windowId < count / 1000; windowId++) {
+        operator.beginWindow(windowId);
+        for (int i = 0; i < 1000; i++) {
+          operator.inputPort.process("record");
+        }
+        operator.endWindow();
+      }
+      long time = Math.max(System.currentTimeMillis() - start, 1);
+      operator.teardown();
+      KinesisUtil.getInstance().setClient(null);
+
+      Assert.assertEquals("records", count, client.records.size());
+      LOG.info("{} in flight requests: {} records/s", maxInFlightRequests, count * 1000L / time);
+    }
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(KinesisOutputOperatorPipelineTest.class);
+}
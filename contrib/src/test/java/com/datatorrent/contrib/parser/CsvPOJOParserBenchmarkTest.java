@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.contrib.parser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.io.CsvMapReader;
+import org.supercsv.io.ICsvMapReader;
+import org.supercsv.prefs.CsvPreference;
+
+import com.datatorrent.netlet.util.DTThrowable;
+import com.datatorrent.contrib.parser.AbstractCsvParser.Field;
+import com.datatorrent.lib.testbench.CollectorTestSink;
+import com.datatorrent.lib.util.ReusableStringReader;
+
+/**
+ * Measures the lines per second parsed by {@link CsvPOJOParser} against a SuperCSV map parser derived from
+ * {@link AbstractCsvParser}.
+ */
+public class CsvPOJOParserBenchmarkTest
+{
+  private static final int NUM_TUPLES = 100000;
+  private static final int NUM_ROUNDS = 3;
+
+  private static class CsvToMapParser extends AbstractCsvParser<Map<String, Object>>
+  {
+    private transient ICsvMapReader csvReader;
+
+    @Override
+    protected ICsvMapReader getReader(ReusableStringReader reader, CsvPreference preference)
+    {
+      csvReader = new CsvMapReader(reader, preference);
+      return csvReader;
+    }
+
+    @Override
+    protected Map<String, Object> readData(String[] properties, CellProcessor[] processors)
+    {
+      try {
+        return csvReader.read(properties, processors);
+      }
+      catch (IOException ex) {
+        DTThrowable.rethrow(ex);
+      }
+      return null;
+    }
+  }
+
+  private static List<byte[]> createTuples()
+  {
+    List<byte[]> tuples = new ArrayList<byte[]>();
+    for (int i = 0; i < NUM_TUPLES; i++) {
+      String line = i + ",\"name " + (i % 1000) + "\"," + (i * 37L) + "," + (i % 500) / 4.0 + ",01/02/2015,true," + (i % 20);
+      tuples.add(line.getBytes());
+    }
+    return tuples;
+  }
+
+  @SuppressWarnings("rawtypes")
+  private long run(AbstractDelimitedParser parser, List<byte[]> tuples)
+  {
+    long start = System.nanoTime();
+    for (int round = 0; round < NUM_ROUNDS; round++) {
+      for (byte[] tuple : tuples) {
+        parser.input.process(tuple);
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    long linesPerSecond = (long)NUM_ROUNDS * NUM_TUPLES * 1000000000L / elapsed;
+    logger.info("{} lines {} elapsed {} ms lines/s {}", parser.getClass().getSimpleName(), NUM_ROUNDS * NUM_TUPLES,
+        elapsed / 1000000, linesPerSecond);
+    return linesPerSecond;
+  }
+
+  @Test
+  public void benchmark()
+  {
+    List<byte[]> tuples = createTuples();
+
+    CollectorTestSink<Object> mapSink = new CollectorTestSink<Object>();
+    CsvToMapParser mapParser = new CsvToMapParser();
+    mapParser.setFieldDelimiter(',');
+    mapParser.setLineDelimiter("\n");
+    ArrayList<Field> fields = new ArrayList<Field>();
+    String[][] nameAndTypes = new String[][]{{"eid", "INTEGER"}, {"name", "STRING"}, {"salary", "LONG"}, {"rating", "DOUBLE"},
+      {"joined", "DATE"}, {"active", "STRING"}, {"dept", "INTEGER"}};
+    for (String[] nameAndType : nameAndTypes) {
+      Field field = new Field();
+      field.setName(nameAndType[0]);
+      field.setType(nameAndType[1]);
+      fields.add(field);
+    }
+    mapParser.setFields(fields);
+    mapParser.output.setSink(mapSink);
+    mapParser.setup(null);
+
+    CollectorTestSink<Object> pojoSink = new CollectorTestSink<Object>();
+    CsvPOJOParser pojoParser = CsvPOJOParserTest.createParser(pojoSink);
+    pojoParser.setup(null);
+
+    // warm up the jit
+    run(mapParser, tuples);
+    run(pojoParser, tuples);
+    mapSink.clear();
+    pojoSink.clear();
+
+    long superCsv = run(mapParser, tuples);
+    long bytes = run(pojoParser, tuples);
+    logger.info("lines/s SuperCSV {} bytes {}", superCsv, bytes);
+
+    Assert.assertEquals("tuples", mapSink.collectedTuples.size(), pojoSink.collectedTuples.size());
+    for (int i = 0; i < NUM_TUPLES; i++) {
+      @SuppressWarnings("unchecked")
+      Map<String, Object> map = (Map<String, Object>)mapSink.collectedTuples.get(i);
+      CsvPOJOParserTest.Employee employee = (CsvPOJOParserTest.Employee)pojoSink.collectedTuples.get(i);
+      Assert.assertEquals("eid", map.get("eid"), employee.eid);
+      Assert.assertEquals("name", map.get("name"), employee.getName());
+      Assert.assertEquals("salary", map.get("salary"), employee.salary);
+      Assert.assertEquals("rating", map.get("rating"), employee.rating);
+      Assert.assertEquals("joined", map.get("joined"), employee.joined);
+    }
+    mapParser.teardown();
+    pojoParser.teardown();
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(CsvPOJOParserBenchmarkTest.class);
+}
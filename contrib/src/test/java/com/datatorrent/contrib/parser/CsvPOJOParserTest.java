@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.contrib.parser;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.datatorrent.contrib.parser.AbstractCsvParser.Field;
+import com.datatorrent.lib.testbench.CollectorTestSink;
+
+/**
+ * Tests for {@link CsvPOJOParser}
+ */
+public class CsvPOJOParserTest
+{
+  public static class Employee
+  {
+    public int eid;
+    private String name;
+    public long salary;
+    public double rating;
+    public Date joined;
+    public boolean active;
+    public Integer dept;
+
+    public String getName()
+    {
+      return name;
+    }
+
+    public void setName(String name)
+    {
+      this.name = name;
+    }
+  }
+
+  static CsvPOJOParser createParser(CollectorTestSink<Object> sink)
+  {
+    CsvPOJOParser parser = new CsvPOJOParser();
+    parser.setOutputClass(Employee.class.getName());
+    parser.setFieldDelimiter(',');
+    ArrayList<Field> fields = new ArrayList<Field>();
+    String[][] nameAndTypes = new String[][]{{"eid", "INTEGER"}, {"name", "STRING"}, {"salary", "LONG"}, {"rating", "DOUBLE"},
+      {"joined", "DATE"}, {"active", "BOOLEAN"}, {"dept", "INTEGER"}};
+    for (String[] nameAndType : nameAndTypes) {
+      Field field = new Field();
+      field.setName(nameAndType[0]);
+      field.setType(nameAndType[1]);
+      fields.add(field);
+    }
+    parser.setFields(fields);
+    parser.output.setSink(sink);
+    return parser;
+  }
+
+  @Test
+  public void testParse() throws Exception
+  {
+    CollectorTestSink<Object> sink = new CollectorTestSink<Object>();
+    CsvPOJOParser parser = createParser(sink);
+    parser.setHasHeader(true);
+    parser.setup(null);
+
+    String input = "eid,name,salary,rating,joined,active,dept\n"
+      + "123,xyz,567777,4.5,01/02/2015,true,7\r\n"
+      + "\n"
+      + "-321,\"abc, \"\"jr\"\"\",7777000,-1.25e2,31/12/2014,f,\n"
+      + "456,\"p\nq\",5454545454,0.1,,1,12";
+    parser.input.process(input.getBytes());
+    parser.teardown();
+
+    Assert.assertEquals("tuples", 3, sink.collectedTuples.size());
+    SimpleDateFormat format = new SimpleDateFormat("dd/MM/yyyy");
+
+    Employee first = (Employee)sink.collectedTuples.get(0);
+    Assert.assertEquals("eid", 123, first.eid);
+    Assert.assertEquals("name", "xyz", first.getName());
+    Assert.assertEquals("salary", 567777L, first.salary);
+    Assert.assertEquals("rating", 4.5, first.rating, 0);
+    Assert.assertEquals("joined", format.parse("01/02/2015"), first.joined);
+    Assert.assertTrue("active", first.active);
+    Assert.assertEquals("dept", Integer.valueOf(7), first.dept);
+
+    Employee second = (Employee)sink.collectedTuples.get(1);
+    Assert.assertEquals("eid", -321, second.eid);
+    Assert.assertEquals("quoted name", "abc, \"jr\"", second.getName());
+    Assert.assertEquals("rating", -125, second.rating, 0);
+    Assert.assertEquals("joined", format.parse("31/12/2014"), second.joined);
+    Assert.assertFalse("active", second.active);
+    Assert.assertNull("empty dept", second.dept);
+
+    Employee third = (Employee)sink.collectedTuples.get(2);
+    Assert.assertEquals("name with line break", "p\nq", third.getName());
+    Assert.assertEquals("salary", 5454545454L, third.salary);
+    Assert.assertEquals("rating", 0.1, third.rating, 0);
+    Assert.assertNull("empty date", third.joined);
+    Assert.assertTrue("active", third.active);
+    Assert.assertEquals("dept", Integer.valueOf(12), third.dept);
+  }
+
+  @Test
+  public void testDoubles()
+  {
+    CollectorTestSink<Object> sink = new CollectorTestSink<Object>();
+    CsvPOJOParser parser = createParser(sink);
+    parser.setup(null);
+    String[] ratings = new String[]{"0", "-0.5", "3.14159", "1e10", "2.5E-3", "123456789.123456789", "1e300", "0.000000000000000000000001"};
+    StringBuilder input = new StringBuilder();
+    for (String rating : ratings) {
+      input.append("1,a,1,").append(rating).append('\n');
+    }
+    parser.input.process(input.toString().getBytes());
+    parser.teardown();
+
+    Assert.assertEquals("tuples", ratings.length, sink.collectedTuples.size());
+    for (int i = 0; i < ratings.length; i++) {
+      Assert.assertEquals(ratings[i], Double.parseDouble(ratings[i]), ((Employee)sink.collectedTuples.get(i)).rating, 0);
+    }
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testInvalidNumber()
+  {
+    CollectorTestSink<Object> sink = new CollectorTestSink<Object>();
+    CsvPOJOParser parser = createParser(sink);
+    parser.setup(null);
+    parser.input.process("12a,xyz\n".getBytes());
+  }
+
+  @Test
+  public void testLongBounds()
+  {
+    CollectorTestSink<Object> sink = new CollectorTestSink<Object>();
+    CsvPOJOParser parser = createParser(sink);
+    parser.setup(null);
+    parser.input.process(("-2147483648,a,9223372036854775807\n2147483647,b,-9223372036854775808\n").getBytes());
+    parser.teardown();
+
+    Assert.assertEquals("tuples", 2, sink.collectedTuples.size());
+    Assert.assertEquals("min int", Integer.MIN_VALUE, ((Employee)sink.collectedTuples.get(0)).eid);
+    Assert.assertEquals("max long", Long.MAX_VALUE, ((Employee)sink.collectedTuples.get(0)).salary);
+    Assert.assertEquals("max int", Integer.MAX_VALUE, ((Employee)sink.collectedTuples.get(1)).eid);
+    Assert.assertEquals("min long", Long.MIN_VALUE, ((Employee)sink.collectedTuples.get(1)).salary);
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testIntOverflow()
+  {
+    CollectorTestSink<Object> sink = new CollectorTestSink<Object>();
+    CsvPOJOParser parser = createParser(sink);
+    parser.setup(null);
+    parser.input.process("2147483648,xyz\n".getBytes());
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testLongOverflow()
+  {
+    CollectorTestSink<Object> sink = new CollectorTestSink<Object>();
+    CsvPOJOParser parser = createParser(sink);
+    parser.setup(null);
+    parser.input.process("1,xyz,9223372036854775808\n".getBytes());
+  }
+}
@@ -15,10 +15,19 @@
  */
 package com.datatorrent.contrib.redis;
 
+import java.util.Map;
+
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableMap;
+
+import com.datatorrent.api.Attribute;
+import com.datatorrent.api.DAG;
+
 import com.datatorrent.lib.db.TransactionableKeyValueStoreOperatorTest;
+import com.datatorrent.lib.helper.OperatorContextTestHelper;
 
 /**
  *
@@ -52,4 +61,99 @@ public class RedisOperatorTest
     testFramework.testInputOperator();
   }
 
+  @Test
+  public void testPipelinedStore() throws Exception
+  {
+    RedisStore store = new RedisStore();
+    store.setPipelined(true);
+    store.connect();
+    store.remove("test_pipelined_sum");
+    store.remove("test_pipelined_key");
+    store.flush();
+    long roundTrips = store.getRoundTrips();
+
+    for (int i = 0; i < 100; i++) {
+      store.incrByFloat("test_pipelined_sum", 1);
+    }
+    store.incrByFloat("test_pipelined_key", 1);
+    // the pending increment is sent before the put, the later increment after it
+    store.put("test_pipelined_key", "5");
+    store.incrByFloat("test_pipelined_key", 2);
+    Assert.assertEquals("round trips before flush", roundTrips, store.getRoundTrips());
+    store.flush();
+    Assert.assertEquals("round trips after flush", roundTrips + 1, store.getRoundTrips());
+
+    Assert.assertEquals(100.0, Double.parseDouble(store.get("test_pipelined_sum").toString()), 0);
+    Assert.assertEquals(7.0, Double.parseDouble(store.get("test_pipelined_key").toString()), 0);
+    store.disconnect();
+  }
+
+  @Test
+  public void testPipelineSize() throws Exception
+  {
+    RedisStore store = new RedisStore();
+    store.setPipelined(true);
+    store.setPipelineSize(10);
+    store.connect();
+    long roundTrips = store.getRoundTrips();
+    for (int i = 0; i < 25; i++) {
+      store.put("test_pipelined_" + i, Integer.toString(i));
+    }
+    Assert.assertEquals("synced chunks", roundTrips + 2, store.getRoundTrips());
+    store.flush();
+    Assert.assertEquals("synced rest", roundTrips + 3, store.getRoundTrips());
+    Assert.assertEquals("24", store.get("test_pipelined_24"));
+    store.disconnect();
+  }
+
+  @Test
+  public void testPipelinedLettuceStore() throws Exception
+  {
+    LettuceStore store = new LettuceStore();
+    store.setPipelined(true);
+    store.connect();
+    store.remove("test_pipelined_sum");
+    store.flush();
+    long roundTrips = store.getRoundTrips();
+    for (int i = 0; i < 100; i++) {
+      store.incrByFloat("test_pipelined_sum", 1);
+      store.hincrByFloat("test_pipelined_hash", "field", 1);
+    }
+    store.flush();
+    Assert.assertEquals("round trips", roundTrips + 1, store.getRoundTrips());
+    Assert.assertEquals(100.0, Double.parseDouble(store.get("test_pipelined_sum").toString()), 0);
+    store.remove("test_pipelined_hash");
+    store.disconnect();
+  }
+
+  @Test
+  public void testRoundTripCounters() throws Exception
+  {
+    RedisStore store = new RedisStore();
+    store.connect();
+    store.removeCommittedWindowId("test_appid", 0);
+    store.remove("test_pipelined_a");
+    store.remove("test_pipelined_b");
+    store.disconnect();
+
+    store.setPipelined(true);
+    RedisNumberSummationMapOutputOperator<String, Integer> operator = new RedisNumberSummationMapOutputOperator<String, Integer>();
+    operator.setStore(store);
+    Attribute.AttributeMap.DefaultAttributeMap attributes = new Attribute.AttributeMap.DefaultAttributeMap();
+    attributes.put(DAG.APPLICATION_ID, "test_appid");
+    operator.setup(new OperatorContextTestHelper.TestIdOperatorContext(0, attributes));
+
+    operator.beginWindow(1);
+    for (int i = 0; i < 1000; i++) {
+      Map<String, Integer> tuple = ImmutableMap.of("test_pipelined_a", 1, "test_pipelined_b", 2);
+      operator.input.process(tuple);
+    }
+    operator.endWindow();
+
+    Assert.assertEquals("round trips of the window", 1,
+        operator.counters.getCounter(AbstractRedisAggregateOutputOperator.RedisCounters.WINDOW_ROUND_TRIPS).longValue());
+    Assert.assertEquals(2000.0, Double.parseDouble(store.get("test_pipelined_b").toString()), 0);
+    operator.teardown();
+  }
+
 }
@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io.file.tfile;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BlockCacheTest
+{
+  private static byte[] block(int length, int seed)
+  {
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte)(i * 31 + seed);
+    }
+    return data;
+  }
+
+  @Test
+  public void testPutGet()
+  {
+    BlockCache cache = new BlockCache(64 * 1024, 1024);
+    long file1 = cache.newFileId();
+    long file2 = cache.newFileId();
+
+    byte[] data = block(2500, 1);
+    Assert.assertTrue(cache.put(file1, 0, data, data.length));
+    Assert.assertArrayEquals("same block", data, cache.get(file1, 0));
+    Assert.assertNull("other file", cache.get(file2, 0));
+    Assert.assertNull("other offset", cache.get(file1, 2500));
+
+    Assert.assertEquals("hits", 1, cache.getHitCount());
+    Assert.assertEquals("misses", 2, cache.getMissCount());
+    Assert.assertEquals("used bytes", 2500, cache.getUsedBytes());
+    Assert.assertEquals("allocated bytes", 3 * 1024, cache.getAllocatedBytes());
+
+    cache.invalidate(file1, 0);
+    Assert.assertNull("invalidated", cache.get(file1, 0));
+    Assert.assertEquals("used bytes", 0, cache.getUsedBytes());
+    Assert.assertEquals("blocks", 0, cache.getBlockCount());
+  }
+
+  @Test
+  public void testEvictionWithinBudget()
+  {
+    BlockCache cache = new BlockCache(16 * 1024, 1024);
+    long file = cache.newFileId();
+
+    for (int i = 0; i < 100; i++) {
+      byte[] data = block(3000, i);
+      Assert.assertTrue(cache.put(file, i * 3000L, data, data.length));
+      Assert.assertTrue("within budget", cache.getAllocatedBytes() <= 16 * 1024);
+      // keep the first block hot
+      Assert.assertNotNull("hot block", cache.get(file, 0));
+    }
+
+    Assert.assertEquals("blocks", 5, cache.getBlockCount());
+    Assert.assertEquals("evictions", 95, cache.getEvictionCount());
+    Assert.assertArrayEquals(block(3000, 0), cache.get(file, 0));
+    Assert.assertArrayEquals(block(3000, 99), cache.get(file, 99 * 3000L));
+    Assert.assertNull("evicted", cache.get(file, 3000L));
+
+    Assert.assertFalse("larger than budget", cache.put(file, -1, new byte[17 * 1024], 17 * 1024));
+
+    cache.clear();
+    Assert.assertEquals("blocks", 0, cache.getBlockCount());
+    Assert.assertEquals("allocated bytes", 0, cache.getAllocatedBytes());
+  }
+}
@@ -194,6 +194,44 @@ public class DTFileTest
     Assert.assertEquals("Size of reverse lookup cache is zero ", 0, reader.readerBCF.getCacheKeys().size());
   }
 
+  @Test
+  public void seekDTFileWithBlockCache() throws IOException
+  {
+    byte[] key = new byte[16];
+    ByteBuffer bb = ByteBuffer.wrap(key);
+
+    BlockCache blockCache = new BlockCache(1024 * 1024);
+    BlockCache otherCache = new BlockCache(1024 * 1024);
+    long globalCacheSize = CacheManager.getCacheSize();
+
+    DTFile.Reader reader = new DTFile.Reader(fs.open(path), fs.getFileStatus(path).getLen(), conf, blockCache);
+    DTFile.Reader otherReader = new DTFile.Reader(fs.open(path), fs.getFileStatus(path).getLen(), conf, otherCache);
+    DTFile.Reader.Scanner scanner = reader.createScanner();
+
+    long blocks = blockCache.getBlockCount();
+    bb.putLong(0);
+    scanner.lowerBound(key);
+    Assert.assertEquals("first block cached", blocks + 1, blockCache.getBlockCount());
+    scanner.close();
+
+    long hits = blockCache.getHitCount();
+    bb.clear();
+    bb.putLong(1);
+    scanner.lowerBound(key);
+    Assert.assertEquals("cache hit", hits + 1, blockCache.getHitCount());
+    Assert.assertEquals("key read from cached block", 1, ByteBuffer.wrap(scanner.entry().getBlockBuffer(),
+        scanner.entry().getKeyOffset(), scanner.entry().getKeyLength()).getLong());
+    scanner.close();
+
+    Assert.assertEquals("global cache not used", globalCacheSize, CacheManager.getCacheSize());
+    Assert.assertEquals("caches are independent", 0, otherCache.getHitCount());
+    Assert.assertTrue("budget", blockCache.getAllocatedBytes() <= blockCache.getMaxBytes());
+
+    reader.close();
+    Assert.assertEquals("blocks are deleted on reader close", 0, blockCache.getBlockCount());
+    otherReader.close();
+  }
+
   @Test
   public void checkInvalidKeys()
   {
@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io.file.tfile;
+
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.file.tfile.DTFile.Reader;
+import org.apache.hadoop.io.file.tfile.DTFile.Reader.Scanner;
+import org.apache.hadoop.io.file.tfile.DTFile.Writer;
+
+/**
+ * test the Bloom filter and key range meta block of DTFile.
+ */
+public class TestDTFileKeyFilter extends TestCase {
+  private static String ROOT =
+      System.getProperty("test.build.data", "/tmp/tfile-test");
+  private static final String localFormatter = "%010d";
+  private static final int numKeys = 10000;
+  private FileSystem fs;
+  private Configuration conf;
+
+  @Override
+  public void setUp() throws IOException {
+    conf = new Configuration();
+    fs = FileSystem.get(conf);
+  }
+
+  private static byte[] key(int i) {
+    return String.format(localFormatter, i).getBytes();
+  }
+
+  // even keys only, odd keys are misses inside the key range
+  private Path writeFile(String name, int bitsPerKey) throws IOException {
+    Path path = new Path(ROOT, name);
+    Configuration writeConf = new Configuration(conf);
+    writeConf.setInt(DTFile.BLOOM_FILTER_BITS_PER_KEY_ATTR, bitsPerKey);
+    FSDataOutputStream out = fs.create(path);
+    Writer writer = new Writer(out, 1024, DTFile.COMPRESSION_GZ, DTFile.COMPARATOR_MEMCMP, writeConf);
+    for (int i = 0; i < numKeys; i += 2) {
+      writer.append(key(i), ("value" + i).getBytes());
+    }
+    writer.close();
+    out.close();
+    return path;
+  }
+
+  public void testKeyFilter() throws IOException {
+    Path path = writeFile("keyfilter.dtfile", 10);
+    Reader reader = new Reader(fs.open(path), fs.getFileStatus(path).getLen(), conf);
+    assertTrue(reader.hasKeyFilter());
+
+    for (int i = 0; i < numKeys; i += 2) {
+      assertTrue("no false negatives", reader.mightContain(key(i), 0, key(i).length));
+    }
+    int falsePositives = 0;
+    for (int i = 1; i < numKeys; i += 2) {
+      if (reader.mightContain(key(i), 0, key(i).length)) {
+        falsePositives++;
+      }
+    }
+    assertTrue("false positives " + falsePositives, falsePositives < numKeys / 2 / 20);
+    assertFalse("before first key", reader.mightContain(key(-1), 0, key(-1).length));
+    assertFalse("after last key", reader.mightContain(key(numKeys), 0, key(numKeys).length));
+
+    Scanner scanner = reader.createScanner();
+    assertTrue(scanner.seekToExact(key(100), 0, key(100).length));
+    assertEquals("value100", new String(readValue(scanner)));
+    assertFalse(scanner.seekToExact(key(numKeys + 1), 0, key(numKeys + 1).length));
+    assertTrue(scanner.atEnd());
+    assertTrue("cursor usable after a filtered lookup", scanner.seekToExact(key(2), 0, key(2).length));
+    scanner.close();
+    reader.close();
+  }
+
+  public void testWithoutKeyFilter() throws IOException {
+    Path path = writeFile("nokeyfilter.dtfile", 0);
+    Reader reader = new Reader(fs.open(path), fs.getFileStatus(path).getLen(), conf);
+    assertFalse(reader.hasKeyFilter());
+    assertTrue(reader.mightContain(key(1), 0, key(1).length));
+    Scanner scanner = reader.createScanner();
+    assertFalse(scanner.seekToExact(key(1), 0, key(1).length));
+    assertTrue(scanner.seekToExact(key(2), 0, key(2).length));
+    scanner.close();
+    reader.close();
+  }
+
+  public void testReadableByTFile() throws IOException {
+    Path path = writeFile("keyfilter.tfile", 10);
+    TFile.Reader reader = new TFile.Reader(fs.open(path), fs.getFileStatus(path).getLen(), conf);
+    assertEquals(numKeys / 2, reader.getEntryCount());
+    TFile.Reader.Scanner scanner = reader.createScanner();
+    assertTrue(scanner.seekTo(key(100)));
+    int count = 0;
+    scanner.rewind();
+    while (!scanner.atEnd()) {
+      count++;
+      scanner.advance();
+    }
+    assertEquals(numKeys / 2, count);
+    scanner.close();
+    reader.close();
+  }
+
+  public void testEmptyFile() throws IOException {
+    Path path = new Path(ROOT, "empty.dtfile");
+    Configuration writeConf = new Configuration(conf);
+    writeConf.setInt(DTFile.BLOOM_FILTER_BITS_PER_KEY_ATTR, 10);
+    FSDataOutputStream out = fs.create(path);
+    new Writer(out, 1024, DTFile.COMPRESSION_NONE, DTFile.COMPARATOR_MEMCMP, writeConf).close();
+    out.close();
+
+    Reader reader = new Reader(fs.open(path), fs.getFileStatus(path).getLen(), conf);
+    assertTrue(reader.hasKeyFilter());
+    assertFalse(reader.mightContain(key(0), 0, key(0).length));
+    reader.close();
+  }
+
+  private static byte[] readValue(Scanner scanner) throws IOException {
+    byte[] value = new byte[scanner.entry().getValueLength()];
+    scanner.entry().getValue(value);
+    return value;
+  }
+}
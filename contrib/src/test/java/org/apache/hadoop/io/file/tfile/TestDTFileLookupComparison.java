@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io.file.tfile;
+
+import java.io.IOException;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Point lookup benchmark of DTFile with and without the key filter meta
+ * block, for mixes of lookups of present and absent keys.
+ */
+public class TestDTFileLookupComparison extends TestCase {
+  private static String ROOT =
+      System.getProperty("test.build.data", "/tmp/tfile-test");
+  private static final int numKeys = 200000;
+  private static final int numLookups = 20000;
+  private static final int valueLength = 100;
+  private static final int minBlockSize = 64 * 1024;
+  // small enough that most lookups have to read and decompress their block
+  private static final long blockCacheSize = 1024 * 1024;
+  private static final int[] hitPercentages = {100, 50, 10, 0};
+
+  private FileSystem fs;
+  private Configuration conf;
+
+  @Override
+  public void setUp() throws IOException {
+    conf = new Configuration();
+    fs = FileSystem.get(conf);
+  }
+
+  private static byte[] key(long i) {
+    byte[] key = new byte[16];
+    for (int b = 0; b < 8; b++) {
+      key[b] = (byte) (i >>> (56 - 8 * b));
+    }
+    return key;
+  }
+
+  // keys are the even numbers, so misses fall inside the key range of the file
+  private Path writeFile(String name, int bitsPerKey) throws IOException {
+    Path path = new Path(ROOT, name);
+    Configuration writeConf = new Configuration(conf);
+    writeConf.setInt(DTFile.BLOOM_FILTER_BITS_PER_KEY_ATTR, bitsPerKey);
+    byte[] value = new byte[valueLength];
+    Random random = new Random(0);
+    FSDataOutputStream out = fs.create(path);
+    DTFile.Writer writer = new DTFile.Writer(out, minBlockSize, DTFile.COMPRESSION_GZ, DTFile.COMPARATOR_MEMCMP, writeConf);
+    try {
+      for (long i = 0; i < numKeys; i++) {
+        random.nextBytes(value);
+        writer.append(key(2 * i), value);
+      }
+    } finally {
+      writer.close();
+      out.close();
+    }
+    return path;
+  }
+
+  private double lookupsPerSecond(Path path, int hitPercentage) throws IOException {
+    BlockCache blockCache = new BlockCache(blockCacheSize);
+    DTFile.Reader reader = new DTFile.Reader(fs.open(path), fs.getFileStatus(path).getLen(), conf, blockCache);
+    DTFile.Reader.Scanner scanner = reader.createScanner();
+    Random random = new Random(hitPercentage);
+    int found = 0;
+    int expected = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < numLookups; i++) {
+      long k = 2L * random.nextInt(numKeys);
+      if (random.nextInt(100) >= hitPercentage) {
+        k++;
+      } else {
+        expected++;
+      }
+      byte[] key = key(k);
+      if (scanner.seekToExact(key, 0, key.length)) {
+        found++;
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    scanner.close();
+    reader.close();
+    assertEquals("keys found", expected, found);
+    return numLookups * 1e9 / elapsed;
+  }
+
+  public void testLookups() throws IOException {
+    Path withFilter = writeFile("lookup-filter.dtfile", 10);
+    Path withoutFilter = writeFile("lookup-nofilter.dtfile", 0);
+
+    // warm up
+    lookupsPerSecond(withFilter, 50);
+    lookupsPerSecond(withoutFilter, 50);
+
+    System.out.println("=== DTFile: point lookups (" + numKeys + " keys, " + numLookups + " lookups) ===");
+    for (int hitPercentage : hitPercentages) {
+      double without = lookupsPerSecond(withoutFilter, hitPercentage);
+      double with = lookupsPerSecond(withFilter, hitPercentage);
+      System.out.println(String.format("hits %3d%%: %10.0f lookups/s without key filter, %10.0f lookups/s with key filter",
+          hitPercentage, without, with));
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.algo;
+
+import java.util.Set;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+import com.datatorrent.lib.algo.UniqueValueCount.InternalCountOutput;
+import com.datatorrent.lib.db.Connectable;
+import com.datatorrent.lib.db.cache.AbstractDBLookupCacheBackedOperator;
+import com.datatorrent.lib.db.cache.CacheManager;
+
+/**
+ * This operator counts the unique values of a key across windows with {@link HyperLogLog} sketches which are
+ * kept in a {@link CacheManager}.&nbsp;
+ * It is appended to the output port of {@link UniqueValueCount} and emits the key and its estimated count of unique values
+ * since the start of the application.
+ * <p>
+ * The sketch of every received {@link InternalCountOutput} is merged into the sketch of its key which is looked up in the cache
+ * and, when missing, in the backup store. The merged sketch is serialized and saved in both. When the count of the tuple is exact,
+ * its set of values is added to a sketch first. Since merging sketches is idempotent, the tuples which are replayed after a failure
+ * do not inflate the counts.<br/>
+ * Concrete implementations provide the backup store in which the serialized sketches, which are byte arrays, are saved.
+ * The lookup batch size of {@link AbstractDBLookupCacheBackedOperator} is not used by this operator.
+ * </p>
+ * @displayName Abstract Cumulative Unique Value Count
+ * @category Stats and Aggregations
+ * @tags count, key value, approximate
+ *
+ * @param <K> type of keys
+ * @param <S> type of store
+ * @since 3.0.0
+ */
+public abstract class AbstractCumulativeUniqueValueCount<K, S extends Connectable> extends AbstractDBLookupCacheBackedOperator<InternalCountOutput<K>, S>
+{
+  @Min(HyperLogLog.MIN_PRECISION)
+  @Max(HyperLogLog.MAX_PRECISION)
+  private int precision = HyperLogLog.DEFAULT_PRECISION;
+
+  @Override
+  protected void processTuple(InternalCountOutput<K> tuple)
+  {
+    HyperLogLog sketch;
+    if (tuple.getSketch() != null) {
+      sketch = HyperLogLog.fromBytes(tuple.getSketch());
+    }
+    else {
+      sketch = new HyperLogLog(precision);
+      Set<Object> values = tuple.getInternalSet();
+      if (values != null) {
+        for (Object value : values) {
+          sketch.add(value);
+        }
+      }
+    }
+
+    Object key = getKeyFromTuple(tuple);
+    byte[] saved = (byte[])cacheManager.get(key);
+    if (saved != null) {
+      sketch.merge(saved);
+    }
+    cacheManager.put(key, sketch.toBytes());
+    emitTuple(tuple, key, sketch.cardinality());
+  }
+
+  @Override
+  protected Object getKeyFromTuple(InternalCountOutput<K> tuple)
+  {
+    return tuple.getKey();
+  }
+
+  /**
+   * Sets the precision of the sketches which are created from exact counts. It should be the precision of the
+   * upstream {@link UniqueValueCount} in approximate mode, because only sketches of the same precision can be merged.
+   *
+   * @param precision precision between 4 and 18, 14 by default.
+   */
+  public void setPrecision(int precision)
+  {
+    this.precision = precision;
+  }
+
+  public int getPrecision()
+  {
+    return precision;
+  }
+}
@@ -0,0 +1,351 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.algo;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A HyperLogLog sketch which estimates the number of distinct values added to it.<br>
+ * <p>
+ * A sketch of precision p has 2<sup>p</sup> registers and estimates cardinalities with a standard error of about
+ * 1.04 / sqrt(2<sup>p</sup>), for eg. 0.8% with the default precision of 14. Like HyperLogLog++ values are hashed to 64 bits,
+ * so there is no correction for large cardinalities, and a sketch starts in a sparse representation which only stores
+ * the registers which are set, so sketches of keys with few values stay small. The sketch switches to the dense array of
+ * registers when the sparse representation would be larger. Small cardinalities are estimated with linear counting.
+ * </p>
+ * <p>
+ * Sketches of the same precision are merged by taking the maximum of each register. Merging is idempotent, so merging
+ * a sketch again after a replay does not change the estimate. {@link #toBytes()} and {@link #fromBytes(byte[])} convert
+ * a sketch to and from its compact serialized form.
+ * </p>
+ * This is not thread-safe.
+ *
+ * @since 3.0.0
+ */
+public class HyperLogLog
+{
+  public static final int MIN_PRECISION = 4;
+  public static final int MAX_PRECISION = 18;
+  public static final int DEFAULT_PRECISION = 14;
+
+  private static final byte SPARSE = 1;
+  private static final byte DENSE = 2;
+  private static final int RANK_BITS = 6;
+  private static final int RANK_MASK = (1 << RANK_BITS) - 1;
+  private static final long SEED = 0x9E3779B97F4A7C15L;
+
+  private int precision;
+  /**
+   * Registers of the dense representation, null while the sketch is sparse.
+   */
+  private byte[] registers;
+  /**
+   * Set registers of the sparse representation as (index << 6 | rank), sorted by index.
+   */
+  private int[] sparse;
+  private int sparseCount;
+
+  public HyperLogLog()
+  {
+    this(DEFAULT_PRECISION);
+  }
+
+  /**
+   * @param precision number of bits of the hash which select a register, between 4 and 18.
+   */
+  public HyperLogLog(int precision)
+  {
+    if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+      throw new IllegalArgumentException("precision " + precision + " is not between " + MIN_PRECISION + " and " + MAX_PRECISION);
+    }
+    this.precision = precision;
+    this.sparse = new int[8];
+  }
+
+  public int getPrecision()
+  {
+    return precision;
+  }
+
+  /**
+   * Adds a value to the sketch.
+   *
+   * @param value value
+   */
+  public void add(Object value)
+  {
+    addHash(hash(value));
+  }
+
+  /**
+   * Adds the 64 bit hash of a value to the sketch.
+   *
+   * @param hash well distributed 64 bit hash of a value
+   */
+  public void addHash(long hash)
+  {
+    int index = (int)(hash >>> (64 - precision));
+    //the marker bit limits the rank to the number of remaining bits + 1
+    long remaining = (hash << precision) | (1L << (precision - 1));
+    update(index, Long.numberOfLeadingZeros(remaining) + 1);
+  }
+
+  private void update(int index, int rank)
+  {
+    if (registers != null) {
+      if (registers[index] < rank) {
+        registers[index] = (byte)rank;
+      }
+      return;
+    }
+
+    int pos = findSparse(index);
+    if (pos >= 0) {
+      if ((sparse[pos] & RANK_MASK) < rank) {
+        sparse[pos] = (index << RANK_BITS) | rank;
+      }
+      return;
+    }
+
+    if (sparseCount >= maxSparseCount()) {
+      toDense();
+      registers[index] = (byte)rank;
+      return;
+    }
+    pos = -pos - 1;
+    if (sparseCount == sparse.length) {
+      sparse = Arrays.copyOf(sparse, Math.min(sparse.length * 2, maxSparseCount()));
+    }
+    System.arraycopy(sparse, pos, sparse, pos + 1, sparseCount - pos);
+    sparse[pos] = (index << RANK_BITS) | rank;
+    sparseCount++;
+  }
+
+  /**
+   * The sparse representation takes 4 bytes per register, so it is used while it is smaller than the dense one.
+   */
+  private int maxSparseCount()
+  {
+    return (1 << precision) / 4;
+  }
+
+  private int findSparse(int index)
+  {
+    int low = 0;
+    int high = sparseCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int midIndex = sparse[mid] >>> RANK_BITS;
+      if (midIndex < index) {
+        low = mid + 1;
+      }
+      else if (midIndex > index) {
+        high = mid - 1;
+      }
+      else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  private void toDense()
+  {
+    registers = new byte[1 << precision];
+    for (int i = 0; i < sparseCount; i++) {
+      registers[sparse[i] >>> RANK_BITS] = (byte)(sparse[i] & RANK_MASK);
+    }
+    sparse = null;
+    sparseCount = 0;
+  }
+
+  /**
+   * Merges another sketch into this sketch.
+   *
+   * @param other sketch of the same precision
+   */
+  public void merge(HyperLogLog other)
+  {
+    if (other.precision != precision) {
+      throw new IllegalArgumentException("cannot merge a sketch of precision " + other.precision + " into " + precision);
+    }
+    if (other.registers != null) {
+      if (registers == null) {
+        toDense();
+      }
+      for (int i = 0; i < registers.length; i++) {
+        if (registers[i] < other.registers[i]) {
+          registers[i] = other.registers[i];
+        }
+      }
+    }
+    else {
+      for (int i = 0; i < other.sparseCount; i++) {
+        update(other.sparse[i] >>> RANK_BITS, other.sparse[i] & RANK_MASK);
+      }
+    }
+  }
+
+  /**
+   * Merges a serialized sketch into this sketch.
+   *
+   * @param bytes sketch of the same precision serialized by {@link #toBytes()}
+   */
+  public void merge(byte[] bytes)
+  {
+    merge(fromBytes(bytes));
+  }
+
+  /**
+   * @return the estimated number of distinct values which were added to the sketch.
+   */
+  public long cardinality()
+  {
+    int m = 1 << precision;
+    double sum = 0;
+    int zeros = 0;
+    if (registers != null) {
+      for (byte register : registers) {
+        sum += 1.0 / (1L << register);
+        if (register == 0) {
+          zeros++;
+        }
+      }
+    }
+    else {
+      zeros = m - sparseCount;
+      sum = zeros;
+      for (int i = 0; i < sparseCount; i++) {
+        sum += 1.0 / (1L << (sparse[i] & RANK_MASK));
+      }
+    }
+
+    double estimate = alpha(m) * m * m / sum;
+    if (estimate <= 2.5 * m && zeros > 0) {
+      estimate = m * Math.log((double)m / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  private static double alpha(int m)
+  {
+    switch (m) {
+      case 16:
+        return 0.673;
+      case 32:
+        return 0.697;
+      case 64:
+        return 0.709;
+      default:
+        return 0.7213 / (1 + 1.079 / m);
+    }
+  }
+
+  /**
+   * Serializes the sketch. A sparse sketch takes 4 bytes per set register and a dense sketch 1 byte per register.
+   *
+   * @return serialized sketch
+   */
+  public byte[] toBytes()
+  {
+    ByteBuffer buffer;
+    if (registers != null) {
+      buffer = ByteBuffer.allocate(2 + registers.length);
+      buffer.put(DENSE).put((byte)precision).put(registers);
+    }
+    else {
+      buffer = ByteBuffer.allocate(6 + 4 * sparseCount);
+      buffer.put(SPARSE).put((byte)precision).putInt(sparseCount);
+      for (int i = 0; i < sparseCount; i++) {
+        buffer.putInt(sparse[i]);
+      }
+    }
+    return buffer.array();
+  }
+
+  /**
+   * @param bytes sketch serialized by {@link #toBytes()}
+   * @return the sketch
+   */
+  public static HyperLogLog fromBytes(byte[] bytes)
+  {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    byte format = buffer.get();
+    HyperLogLog sketch = new HyperLogLog(buffer.get());
+    if (format == DENSE) {
+      sketch.sparse = null;
+      sketch.registers = new byte[1 << sketch.precision];
+      buffer.get(sketch.registers);
+    }
+    else if (format == SPARSE) {
+      sketch.sparseCount = buffer.getInt();
+      sketch.sparse = new int[Math.max(8, sketch.sparseCount)];
+      for (int i = 0; i < sketch.sparseCount; i++) {
+        sketch.sparse[i] = buffer.getInt();
+      }
+    }
+    else {
+      throw new IllegalArgumentException("unknown sketch format " + format);
+    }
+    return sketch;
+  }
+
+  /**
+   * Hashes a value to 64 bits. Strings and byte arrays are hashed by their content, numbers by their long value and
+   * other objects by their hash code.
+   *
+   * @param value value
+   * @return 64 bit hash
+   */
+  public static long hash(Object value)
+  {
+    long hash;
+    if (value instanceof String) {
+      String string = (String)value;
+      hash = 0xcbf29ce484222325L;
+      for (int i = 0; i < string.length(); i++) {
+        hash = (hash ^ string.charAt(i)) * 0x100000001b3L;
+      }
+    }
+    else if (value instanceof byte[]) {
+      hash = 0xcbf29ce484222325L;
+      for (byte b : (byte[])value) {
+        hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+      }
+    }
+    else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      hash = ((Number)value).longValue();
+    }
+    else {
+      hash = value.hashCode();
+    }
+    return mix(hash ^ SEED);
+  }
+
+  /**
+   * The finalizer of MurmurHash3 which spreads every input bit over all the output bits.
+   */
+  private static long mix(long hash)
+  {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
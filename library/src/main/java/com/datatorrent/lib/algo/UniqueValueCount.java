@@ -18,6 +18,9 @@ package com.datatorrent.lib.algo;
 import java.util.Map;
 import java.util.Set;
 
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -40,6 +43,10 @@ import com.datatorrent.api.annotation.Stateless;
  * When the operator is partitioned, the unifier uses the internal set of values to
  * compute the count of unique values again.<br>
  * <br>
+ * In approximate mode the operator keeps a {@link HyperLogLog} sketch per key instead of the set of values.
+ * {@link InternalCountOutput} then contains the estimated count and the serialized sketch, which the unifier merges,
+ * and nothing is emitted on the port of the values.<br>
+ * <br>
  * Partitions: yes, uses {@link UniqueCountUnifier} to merge partitioned output.<br>
  * Stateful: no<br>
  * <br></br>
@@ -58,6 +65,11 @@ public class UniqueValueCount<K> extends BaseOperator
 {
 
   private final Map<K, Set<Object>> interimUniqueValues;
+  private final Map<K, HyperLogLog> interimSketches;
+  private boolean approximate;
+  @Min(HyperLogLog.MIN_PRECISION)
+  @Max(HyperLogLog.MAX_PRECISION)
+  private int precision = HyperLogLog.DEFAULT_PRECISION;
 
   /**
    * The input port that receives key value pairs.
@@ -68,6 +80,15 @@ public class UniqueValueCount<K> extends BaseOperator
     @Override
     public void process(KeyValPair<K, Object> pair)
     {
+      if (approximate) {
+        HyperLogLog sketch = interimSketches.get(pair.getKey());
+        if (sketch == null) {
+          sketch = new HyperLogLog(precision);
+          interimSketches.put(pair.getKey(), sketch);
+        }
+        sketch.add(pair.getValue());
+        return;
+      }
       Set<Object> values = interimUniqueValues.get(pair.getKey());
       if (values == null) {
         values = Sets.newHashSet();
@@ -106,6 +127,7 @@ public class UniqueValueCount<K> extends BaseOperator
   public UniqueValueCount()
   {
     this.interimUniqueValues = Maps.newHashMap();
+    this.interimSketches = Maps.newHashMap();
   }
 
   @Override
@@ -121,6 +143,49 @@ public class UniqueValueCount<K> extends BaseOperator
       }
     }
     interimUniqueValues.clear();
+    if (output.isConnected()) {
+      for (Map.Entry<K, HyperLogLog> entry : interimSketches.entrySet()) {
+        HyperLogLog sketch = entry.getValue();
+        output.emit(new InternalCountOutput<>(entry.getKey(), count(sketch), null, sketch.toBytes()));
+      }
+    }
+    interimSketches.clear();
+  }
+
+  private static int count(HyperLogLog sketch)
+  {
+    return (int)Math.min(Integer.MAX_VALUE, sketch.cardinality());
+  }
+
+  /**
+   * When approximate, the unique values of a key are counted with a {@link HyperLogLog} sketch instead of a set.
+   *
+   * @param approximate whether the counts are approximate.
+   */
+  public void setApproximate(boolean approximate)
+  {
+    this.approximate = approximate;
+  }
+
+  public boolean isApproximate()
+  {
+    return approximate;
+  }
+
+  /**
+   * Sets the precision of the sketches in approximate mode. A sketch takes at most 2<sup>precision</sup> bytes and has
+   * a standard error of about 1.04 / sqrt(2<sup>precision</sup>).
+   *
+   * @param precision precision between 4 and 18, 14 by default.
+   */
+  public void setPrecision(int precision)
+  {
+    this.precision = precision;
+  }
+
+  public int getPrecision()
+  {
+    return precision;
   }
 
   /**
@@ -132,6 +197,7 @@ public class UniqueValueCount<K> extends BaseOperator
   {
 
     private final Set<Object> interimUniqueValues;
+    private final byte[] sketch;
 
     @SuppressWarnings("unused")
     protected InternalCountOutput()
@@ -140,15 +206,32 @@ public class UniqueValueCount<K> extends BaseOperator
     }
 
     public InternalCountOutput(K k, Integer count, Set<Object> interimUniqueValues)
+    {
+      this(k, count, interimUniqueValues, null);
+    }
+
+    public InternalCountOutput(K k, Integer count, Set<Object> interimUniqueValues, byte[] sketch)
     {
       super(k, count);
       this.interimUniqueValues = interimUniqueValues;
+      this.sketch = sketch;
     }
 
+    /**
+     * @return the set of values; null when the count is approximate.
+     */
     public Set<Object> getInternalSet()
     {
       return interimUniqueValues;
     }
+
+    /**
+     * @return the serialized {@link HyperLogLog} sketch of the values when the count is approximate; null otherwise.
+     */
+    public byte[] getSketch()
+    {
+      return sketch;
+    }
   }
 
   /**
@@ -210,7 +293,8 @@ public class UniqueValueCount<K> extends BaseOperator
   /**
    * Unifier for {@link UniqueValueCount} operator.<br>
    * It uses the internal set of values emitted by the operator and
-   * emits {@link KeyValPair} of the key and its unique count.<br></br>
+   * emits {@link KeyValPair} of the key and its unique count.<br>
+   * In approximate mode it merges the sketches emitted by the operator instead.<br></br>
    *
    * @param <K>Type of Key objects</K>
    */
@@ -220,15 +304,27 @@ public class UniqueValueCount<K> extends BaseOperator
     public final transient DefaultOutputPort<InternalCountOutput<K>> output = new DefaultOutputPort<>();
 
     private final Map<K, Set<Object>> finalUniqueValues;
+    private final Map<K, HyperLogLog> finalSketches;
 
     public UniqueCountUnifier()
     {
       this.finalUniqueValues = Maps.newHashMap();
+      this.finalSketches = Maps.newHashMap();
     }
 
     @Override
     public void process(InternalCountOutput<K> tuple)
     {
+      if (tuple.sketch != null) {
+        HyperLogLog sketch = finalSketches.get(tuple.getKey());
+        if (sketch == null) {
+          finalSketches.put(tuple.getKey(), HyperLogLog.fromBytes(tuple.sketch));
+        }
+        else {
+          sketch.merge(tuple.sketch);
+        }
+        return;
+      }
       Set<Object> values = finalUniqueValues.get(tuple.getKey());
       if (values == null) {
         values = Sets.newHashSet();
@@ -249,6 +345,11 @@ public class UniqueValueCount<K> extends BaseOperator
         output.emit(new InternalCountOutput<>(key, finalUniqueValues.get(key).size(), finalUniqueValues.get(key)));
       }
       finalUniqueValues.clear();
+      for (Map.Entry<K, HyperLogLog> entry : finalSketches.entrySet()) {
+        HyperLogLog sketch = entry.getValue();
+        output.emit(new InternalCountOutput<>(entry.getKey(), count(sketch), null, sketch.toBytes()));
+      }
+      finalSketches.clear();
     }
 
     @Override
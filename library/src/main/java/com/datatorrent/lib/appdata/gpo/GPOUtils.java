@@ -25,12 +25,14 @@ import java.util.Map;
 import java.util.Set;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 
+import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.mutable.MutableInt;
 
 import com.datatorrent.lib.appdata.schemas.Fields;
@@ -47,6 +49,7 @@ import com.datatorrent.lib.util.PojoUtils.GetterFloat;
 import com.datatorrent.lib.util.PojoUtils.GetterInt;
 import com.datatorrent.lib.util.PojoUtils.GetterLong;
 import com.datatorrent.lib.util.PojoUtils.GetterShort;
+import com.datatorrent.lib.util.PojoUtils.RecordGetter;
 
 /**
  * This class holds utility methods for serializing and deserializing {@link GPOMutable} objects to/from bytes and JSON.
@@ -1332,6 +1335,62 @@ public class GPOUtils
     return gpoGetters;
   }
 
+  /**
+   * This is a utility method which builds a single {@link RecordGetter} corresponding to the given {@link FieldsDescriptor}.
+   * Unlike {@link #buildGPOGetters(Map, FieldsDescriptor, Class)}, which compiles a class per field, this compiles one
+   * class for all the fields and copies all the values of a POJO with one call.
+   * @param fieldToGetter A map whose keys are field names and whose values correspond to java getter expressions. Field names
+   * in this map should be the same as field names in the provided {@link FieldsDescriptor} object.
+   * @param fieldsDescriptor A {@link FieldsDescriptor} object which describes the type name and order of fields.
+   * @param clazz The Class of the POJO that the getter will be applied to.
+   * @return The {@link RecordGetter} which can be used to convert POJOs into {@link GPOMutable} objects initialized
+   * with the same {@link FieldsDescriptor} object.
+   */
+  public static RecordGetter<Object> buildGPORecordGetter(Map<String, String> fieldToGetter,
+                                                          FieldsDescriptor fieldsDescriptor,
+                                                          Class<?> clazz)
+  {
+    Map<Class<?>, List<String>> classToGetterExprs = Maps.newHashMap();
+
+    for(Map.Entry<Type, List<String>> entry: fieldsDescriptor.getTypeToFields().entrySet()) {
+      Class<?> exprClass = entry.getKey().getClazz();
+      if(ClassUtils.isPrimitiveWrapper(exprClass)) {
+        exprClass = ClassUtils.wrapperToPrimitive(exprClass);
+      }
+
+      List<String> getterExprs = Lists.newArrayList();
+      for(String field: entry.getValue()) {
+        getterExprs.add(fieldToGetter.get(field));
+      }
+      classToGetterExprs.put(exprClass, getterExprs);
+    }
+
+    return PojoUtils.createRecordGetter(clazz, classToGetterExprs);
+  }
+
+  /**
+   * This is a utility method for converting a POJO to a {@link GPOMutable} object with a {@link RecordGetter} built by
+   * {@link #buildGPORecordGetter(Map, FieldsDescriptor, Class)}. This method assumes that the provided GPOMutable is
+   * initialized with the same {@link FieldsDescriptor} as the getter.
+   * @param mutable The {@link GPOMutable} object to copy POJO values into.
+   * @param getter The getter to use when retrieving values from the provided POJO.
+   * @param object The POJO to extract values from.
+   */
+  public static void copyPOJOToGPO(GPOMutable mutable, RecordGetter<Object> getter, Object object)
+  {
+    getter.get(object,
+               mutable.getFieldsBoolean(),
+               mutable.getFieldsCharacter(),
+               mutable.getFieldsByte(),
+               mutable.getFieldsShort(),
+               mutable.getFieldsInteger(),
+               mutable.getFieldsLong(),
+               mutable.getFieldsFloat(),
+               mutable.getFieldsDouble(),
+               mutable.getFieldsString(),
+               mutable.getFieldsObject());
+  }
+
   /**
    * This is a utility method for converting a POJO to a {@link GPOMutable} object. This method assumes that the provided
    * GPOMutable is initialized with the correct {@link FieldsDescriptor}, and that the given {@link GPOGetters} object has getters
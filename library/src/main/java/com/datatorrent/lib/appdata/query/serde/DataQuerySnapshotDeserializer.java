@@ -17,9 +17,12 @@ package com.datatorrent.lib.appdata.query.serde;
 
 import java.io.IOException;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 import org.codehaus.jettison.json.JSONArray;
@@ -94,6 +97,11 @@ public class DataQuerySnapshotDeserializer implements CustomMessageDeserializer
     ////Data
     Map<String, String> schemaKeys = null;
     Set<String> fieldsSet = Sets.newHashSet();
+    List<DataQuerySnapshot.Filter> filters = Lists.newArrayList();
+    String sortBy = null;
+    boolean ascending = true;
+    int offset = 0;
+    int limit = -1;
 
     if(jo.has(DataQuerySnapshot.FIELD_DATA)) {
       JSONObject data = jo.getJSONObject(DataQuerySnapshot.FIELD_DATA);
@@ -116,21 +124,77 @@ public class DataQuerySnapshotDeserializer implements CustomMessageDeserializer
           }
         }
       }
+
+      if(data.has(DataQuerySnapshot.FIELD_FILTERS)) {
+        //// Filters
+        JSONArray jArray = data.getJSONArray(DataQuerySnapshot.FIELD_FILTERS);
+
+        for(int index = 0;
+            index < jArray.length();
+            index++) {
+          JSONObject filter = jArray.getJSONObject(index);
+          String operatorName = filter.getString(DataQuerySnapshot.FIELD_FILTER_OPERATOR);
+          DataQuerySnapshot.Operator operator = null;
+
+          for(DataQuerySnapshot.Operator candidate: DataQuerySnapshot.Operator.values()) {
+            if(candidate.name().equalsIgnoreCase(operatorName)) {
+              operator = candidate;
+              break;
+            }
+          }
+
+          if(operator == null) {
+            LOG.error("The filter operator {} is not one of the valid operators {}.",
+                      operatorName,
+                      Arrays.toString(DataQuerySnapshot.Operator.values()));
+            return null;
+          }
+
+          filters.add(new DataQuerySnapshot.Filter(filter.getString(DataQuerySnapshot.FIELD_FILTER_FIELD),
+                                                   operator,
+                                                   filter.get(DataQuerySnapshot.FIELD_FILTER_VALUE)));
+        }
+      }
+
+      //// Sorting and paging
+      if(data.has(DataQuerySnapshot.FIELD_SORT_BY)) {
+        sortBy = data.getString(DataQuerySnapshot.FIELD_SORT_BY);
+        ascending = data.optBoolean(DataQuerySnapshot.FIELD_ASCENDING, true);
+      }
+
+      offset = data.optInt(DataQuerySnapshot.FIELD_OFFSET, 0);
+      limit = data.optInt(DataQuerySnapshot.FIELD_LIMIT, -1);
+
+      if(offset < 0) {
+        LOG.error("The offset {} must not be negative.", offset);
+        return null;
+      }
+
+      if(limit < -1) {
+        LOG.error("The limit {} must not be negative.", limit);
+        return null;
+      }
     }
 
     Fields fields = new Fields(fieldsSet);
+    DataQuerySnapshot query;
 
     if(!hasCountdown) {
-      return new DataQuerySnapshot(id,
-                                  fields,
-                                  schemaKeys);
+      query = new DataQuerySnapshot(id,
+                                    fields,
+                                    schemaKeys);
     }
     else {
-      return new DataQuerySnapshot(id,
-                                  fields,
-                                  countdown,
-                                  schemaKeys);
+      query = new DataQuerySnapshot(id,
+                                    fields,
+                                    countdown,
+                                    schemaKeys);
     }
+
+    query.setFilters(filters);
+    query.setSortBy(sortBy, ascending);
+    query.setPage(offset, limit);
+    return query;
   }
 
   private static final Logger LOG = LoggerFactory.getLogger(DataQuerySnapshotDeserializer.class);
@@ -17,13 +17,17 @@ package com.datatorrent.lib.appdata.query.serde;
 
 import java.util.Set;
 
+import com.google.common.collect.Sets;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.datatorrent.lib.appdata.schemas.DataQuerySnapshot;
+import com.datatorrent.lib.appdata.schemas.FieldsDescriptor;
 import com.datatorrent.lib.appdata.schemas.Message;
 import com.datatorrent.lib.appdata.schemas.SchemaRegistry;
 import com.datatorrent.lib.appdata.schemas.SnapshotSchema;
+import com.datatorrent.lib.appdata.schemas.Type;
 
 /**
  * This class is a validator for {@link DataQuerySnapshot} objects.
@@ -44,7 +48,8 @@ public class DataQuerySnapshotValidator implements CustomMessageValidator
     DataQuerySnapshot gdqt = (DataQuerySnapshot) query;
     SnapshotSchema schema = (SnapshotSchema) ((SchemaRegistry) context).getSchema(gdqt.getSchemaKeys());
 
-    Set<String> fields = schema.getValuesDescriptor().getFields().getFields();
+    FieldsDescriptor fd = schema.getValuesDescriptor();
+    Set<String> fields = fd.getFields().getFields();
 
     if(!fields.containsAll(gdqt.getFields().getFields())) {
       LOG.error("Some of the fields in the query {} are not one of the valid fields {}.",
@@ -53,8 +58,78 @@ public class DataQuerySnapshotValidator implements CustomMessageValidator
       return false;
     }
 
+    for(DataQuerySnapshot.Filter filter: gdqt.getFilters()) {
+      if(!fields.contains(filter.getField())) {
+        LOG.error("The filter field {} is not one of the valid fields {}.", filter.getField(), fields);
+        return false;
+      }
+
+      Type type = fd.getType(filter.getField());
+
+      if(!COMPARABLE_TYPES.contains(type)) {
+        LOG.error("The filter field {} has the type {} which cannot be filtered on.", filter.getField(), type);
+        return false;
+      }
+
+      if(!isValidValue(type, filter.getValue())) {
+        LOG.error("The filter value {} is not a valid {} for the field {}.", filter.getValue(), type, filter.getField());
+        return false;
+      }
+    }
+
+    if(gdqt.getSortBy() != null) {
+      if(!fields.contains(gdqt.getSortBy())) {
+        LOG.error("The sort field {} is not one of the valid fields {}.", gdqt.getSortBy(), fields);
+        return false;
+      }
+
+      Type type = fd.getType(gdqt.getSortBy());
+
+      if(!COMPARABLE_TYPES.contains(type)) {
+        LOG.error("The sort field {} has the type {} which cannot be sorted on.", gdqt.getSortBy(), type);
+        return false;
+      }
+    }
+
     return true;
   }
 
+  /**
+   * Checks that a filter value can be compared with a field of the given type.
+   * Numeric fields need a number, boolean fields need true or false and character fields need one character.
+   */
+  private static boolean isValidValue(Type type, Object value)
+  {
+    String stringValue = value.toString();
+
+    switch(type) {
+      case BOOLEAN:
+        return value instanceof Boolean || stringValue.equalsIgnoreCase("true") || stringValue.equalsIgnoreCase("false");
+      case CHAR:
+        return stringValue.length() == 1;
+      case STRING:
+        return true;
+      default:
+        if(value instanceof Number) {
+          return true;
+        }
+
+        try {
+          Double.parseDouble(stringValue);
+          return true;
+        }
+        catch(NumberFormatException ex) {
+          return false;
+        }
+    }
+  }
+
+  /**
+   * The types of the fields which can be filtered and sorted on.
+   */
+  private static final Set<Type> COMPARABLE_TYPES = Sets.immutableEnumSet(Type.BOOLEAN, Type.CHAR, Type.STRING,
+                                                                          Type.BYTE, Type.SHORT, Type.INTEGER,
+                                                                          Type.LONG, Type.FLOAT, Type.DOUBLE);
+
   private static final Logger LOG = LoggerFactory.getLogger(DataQuerySnapshotValidator.class);
 }
@@ -15,7 +15,10 @@
  */
 package com.datatorrent.lib.appdata.query.serde;
 
+import java.util.List;
+
 import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +27,7 @@ import com.datatorrent.lib.appdata.gpo.GPOMutable;
 import com.datatorrent.lib.appdata.gpo.GPOUtils;
 import com.datatorrent.lib.appdata.schemas.DataQuerySnapshot;
 import com.datatorrent.lib.appdata.schemas.DataResultSnapshot;
+import com.datatorrent.lib.appdata.schemas.Fields;
 import com.datatorrent.lib.appdata.schemas.Message;
 import com.datatorrent.lib.appdata.schemas.Result;
 import com.datatorrent.lib.appdata.schemas.ResultFormatter;
@@ -60,16 +64,23 @@ public class DataResultSnapshotSerializer implements CustomMessageSerializer
     jo.put(Result.FIELD_ID, gResult.getId());
     jo.put(Result.FIELD_TYPE, gResult.getType());
 
-    JSONArray ja = new JSONArray();
+    if(gResult.getValuesJSON() != null) {
+      if(!gResult.isOneTime()) {
+        jo.put(Result.FIELD_COUNTDOWN, gResult.getCountdown());
+      }
 
-    for(GPOMutable value: gResult.getValues()) {
-      JSONObject dataValue = GPOUtils.serializeJSONObject(value,
-                                                          ((DataQuerySnapshot) gResult.getQuery()).getFields(),
-                                                          resultFormatter);
-      ja.put(dataValue);
+      //Splice in the values which were serialized ahead.
+      String head = jo.toString();
+      StringBuilder sb = new StringBuilder(head.length() + gResult.getValuesJSON().length() + 16);
+      sb.append(head, 0, head.length() - 1).
+      append(",\"").append(DataResultSnapshot.FIELD_DATA).append("\":").
+      append(gResult.getValuesJSON()).append('}');
+      return sb.toString();
     }
 
-    jo.put(DataResultSnapshot.FIELD_DATA, ja);
+    jo.put(DataResultSnapshot.FIELD_DATA, serializeValuesHelper(gResult.getValues(),
+                                                                ((DataQuerySnapshot) gResult.getQuery()).getFields(),
+                                                                resultFormatter));
 
     if(!gResult.isOneTime()) {
       jo.put(Result.FIELD_COUNTDOWN, gResult.getCountdown());
@@ -78,5 +89,37 @@ public class DataResultSnapshotSerializer implements CustomMessageSerializer
     return jo.toString();
   }
 
+  /**
+   * Serializes the given values into a JSON array which can be set on a {@link DataResultSnapshot}
+   * with {@link DataResultSnapshot#setValuesJSON}.
+   * @param values The values to serialize.
+   * @param fields The fields of the values to serialize.
+   * @param resultFormatter The result formatter to use when serializing data.
+   * @return The values serialized as a JSON array.
+   */
+  public static String serializeValues(List<GPOMutable> values, Fields fields, ResultFormatter resultFormatter)
+  {
+    try {
+      return serializeValuesHelper(values, fields, resultFormatter).toString();
+    }
+    catch(JSONException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
+  private static JSONArray serializeValuesHelper(List<GPOMutable> values, Fields fields, ResultFormatter resultFormatter) throws JSONException
+  {
+    JSONArray ja = new JSONArray();
+
+    for(GPOMutable value: values) {
+      JSONObject dataValue = GPOUtils.serializeJSONObject(value,
+                                                          fields,
+                                                          resultFormatter);
+      ja.put(dataValue);
+    }
+
+    return ja;
+  }
+
   private static final Logger LOG = LoggerFactory.getLogger(DataResultSnapshotSerializer.class);
 }
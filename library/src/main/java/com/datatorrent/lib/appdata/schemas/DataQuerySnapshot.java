@@ -15,7 +15,10 @@
  */
 package com.datatorrent.lib.appdata.schemas;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 
 import com.google.common.base.Preconditions;
 
@@ -51,11 +54,57 @@ public class DataQuerySnapshot extends Query
    * The JSON string for the schemaKeys in the query.
    */
   public static final String SCHEMA_KEYS = "schemaKeys";
+  /**
+   * The JSON key string for the filters of the query.
+   */
+  public static final String FIELD_FILTERS = "filters";
+  /**
+   * The JSON key string for the field of a filter.
+   */
+  public static final String FIELD_FILTER_FIELD = "field";
+  /**
+   * The JSON key string for the operator of a filter.
+   */
+  public static final String FIELD_FILTER_OPERATOR = "operator";
+  /**
+   * The JSON key string for the value of a filter.
+   */
+  public static final String FIELD_FILTER_VALUE = "value";
+  /**
+   * The JSON key string for the field the results are sorted by.
+   */
+  public static final String FIELD_SORT_BY = "sortBy";
+  /**
+   * The JSON key string for the sort order of the results.
+   */
+  public static final String FIELD_ASCENDING = "ascending";
+  /**
+   * The JSON key string for the index of the first row returned.
+   */
+  public static final String FIELD_OFFSET = "offset";
+  /**
+   * The JSON key string for the maximum number of rows returned.
+   */
+  public static final String FIELD_LIMIT = "limit";
 
   /**
    * The fields requested to be returned in the query.
    */
   private Fields fields;
+  /**
+   * The filters which all returned rows have to pass.
+   */
+  private List<Filter> filters = Collections.emptyList();
+  /**
+   * The field to sort the rows by, or null to return them in snapshot order.
+   */
+  private String sortBy;
+  private boolean ascending = true;
+  private int offset;
+  /**
+   * The maximum number of rows to return, or -1 to return all rows.
+   */
+  private int limit = -1;
 
   /**
    * This creates a query with the given id, which requests the given fields. This constructor
@@ -146,4 +195,172 @@ public class DataQuerySnapshot extends Query
   {
     return fields;
   }
+
+  /**
+   * Gets the filters of the query.
+   * @return The filters of the query.
+   */
+  public List<Filter> getFilters()
+  {
+    return filters;
+  }
+
+  /**
+   * Sets the filters of the query. A row is returned only if it passes all of them.
+   * @param filters The filters of the query.
+   */
+  public void setFilters(List<Filter> filters)
+  {
+    this.filters = Preconditions.checkNotNull(filters);
+  }
+
+  /**
+   * Gets the field the result rows are sorted by.
+   * @return The field the result rows are sorted by, or null if they are returned in snapshot order.
+   */
+  public String getSortBy()
+  {
+    return sortBy;
+  }
+
+  /**
+   * Sets the field the result rows are sorted by.
+   * @param sortBy The field the result rows are sorted by, or null to return them in snapshot order.
+   * @param ascending True to sort in ascending order, false to sort in descending order.
+   */
+  public void setSortBy(String sortBy, boolean ascending)
+  {
+    this.sortBy = sortBy;
+    this.ascending = ascending;
+  }
+
+  /**
+   * Returns whether the result rows are sorted in ascending order.
+   * @return True if the result rows are sorted in ascending order.
+   */
+  public boolean isAscending()
+  {
+    return ascending;
+  }
+
+  /**
+   * Gets the index of the first row returned.
+   * @return The index of the first row returned.
+   */
+  public int getOffset()
+  {
+    return offset;
+  }
+
+  /**
+   * Gets the maximum number of rows returned.
+   * @return The maximum number of rows returned, or -1 if all rows are returned.
+   */
+  public int getLimit()
+  {
+    return limit;
+  }
+
+  /**
+   * Sets the page of rows to return. Together with {@link #setSortBy} this gives top N queries.
+   * @param offset The index of the first row to return.
+   * @param limit The maximum number of rows to return, or -1 to return all rows.
+   */
+  public void setPage(int offset, int limit)
+  {
+    Preconditions.checkArgument(offset >= 0, "offset " + offset);
+    Preconditions.checkArgument(limit >= -1, "limit " + limit);
+    this.offset = offset;
+    this.limit = limit;
+  }
+
+  /**
+   * Gets a key which is equal for all queries that return the same rows and fields
+   * from the same snapshot, regardless of their id and countdown.
+   * @return The key describing the shape of the query.
+   */
+  public String getShapeKey()
+  {
+    StringBuilder sb = new StringBuilder();
+    sb.append(new TreeSet<String>(fields.getFields())).append('|').append(filters).append('|').append(sortBy).append('|').
+    append(ascending).append('|').append(offset).append('|').append(limit);
+    return sb.toString();
+  }
+
+  /**
+   * A comparison of a field of a row with a constant value.
+   */
+  public static class Filter
+  {
+    private final String field;
+    private final Operator operator;
+    private final Object value;
+
+    /**
+     * Creates a filter.
+     * @param field The field to compare.
+     * @param operator The comparison operator.
+     * @param value The value to compare with. Numeric fields are compared with numbers,
+     * all other fields are compared with their string representation.
+     */
+    public Filter(String field, Operator operator, Object value)
+    {
+      this.field = Preconditions.checkNotNull(field);
+      this.operator = Preconditions.checkNotNull(operator);
+      this.value = Preconditions.checkNotNull(value);
+    }
+
+    public String getField()
+    {
+      return field;
+    }
+
+    public Operator getOperator()
+    {
+      return operator;
+    }
+
+    public Object getValue()
+    {
+      return value;
+    }
+
+    @Override
+    public String toString()
+    {
+      return field + " " + operator + " " + value;
+    }
+  }
+
+  /**
+   * The comparison operators of a {@link Filter}.
+   */
+  public enum Operator
+  {
+    EQ, NE, LT, LE, GT, GE;
+
+    /**
+     * Whether the result of a comparison satisfies the operator.
+     * @param comparison A negative number, zero, or a positive number if the field value is
+     * less than, equal to, or greater than the filter value.
+     * @return True if the comparison satisfies the operator.
+     */
+    public boolean matches(int comparison)
+    {
+      switch(this) {
+        case EQ:
+          return comparison == 0;
+        case NE:
+          return comparison != 0;
+        case LT:
+          return comparison < 0;
+        case LE:
+          return comparison <= 0;
+        case GT:
+          return comparison > 0;
+        default:
+          return comparison >= 0;
+      }
+    }
+  }
 }
@@ -38,6 +38,10 @@ public class DataResultSnapshot extends Result
   public static final String TYPE = "dataResult";
 
   private List<GPOMutable> values;
+  /**
+   * The values already serialized as a JSON array, or null.
+   */
+  private String valuesJSON;
 
   /**
    * This creates a {@link DataResultSnapShot} object from the given query and
@@ -94,4 +98,23 @@ public class DataResultSnapshot extends Result
   {
     return values;
   }
+
+  /**
+   * Gets the values of this result serialized as a JSON array, if they were serialized ahead.
+   * @return The values serialized as a JSON array, or null.
+   */
+  public String getValuesJSON()
+  {
+    return valuesJSON;
+  }
+
+  /**
+   * Sets the values of this result serialized as a JSON array. The serializer then emits this JSON
+   * instead of serializing the values again, which allows results to be cached across queries.
+   * @param valuesJSON The values serialized as a JSON array.
+   */
+  public void setValuesJSON(String valuesJSON)
+  {
+    this.valuesJSON = valuesJSON;
+  }
 }
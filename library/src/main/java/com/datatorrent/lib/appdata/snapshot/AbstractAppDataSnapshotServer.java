@@ -17,8 +17,11 @@ package com.datatorrent.lib.appdata.snapshot;
 
 import java.io.IOException;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import com.google.common.collect.Lists;
@@ -32,6 +35,7 @@ import com.datatorrent.lib.appdata.gpo.GPOMutable;
 import com.datatorrent.lib.appdata.query.AppDataWindowEndQueueManager;
 import com.datatorrent.lib.appdata.query.QueryExecutor;
 import com.datatorrent.lib.appdata.query.QueryManagerSynchronous;
+import com.datatorrent.lib.appdata.query.serde.DataResultSnapshotSerializer;
 import com.datatorrent.lib.appdata.query.serde.MessageDeserializerFactory;
 import com.datatorrent.lib.appdata.query.serde.MessageSerializerFactory;
 import com.datatorrent.lib.appdata.schemas.*;
@@ -51,6 +55,12 @@ import com.datatorrent.common.experimental.AppData;
  * in the form of a list of objects. The last list of data sent to the operator is what the operator will serve.
  * Additionally the list of input objects then need to be converted into {@link GPOMutable} objects
  * via an implementation of the {@link #convert} convert method.
+ * <p>
+ * The {@link GPOMutable} objects of the previous snapshot are reused for the rows of the next one.
+ * Queries may restrict the returned fields, filter the rows, sort them by a field and request a page of them,
+ * which gives top N queries. The serialized values of a result are cached per query shape until a new snapshot
+ * arrives, so dashboards polling the same query only pay for the serialization once per snapshot.
+ * </p>
  * @param <INPUT_EVENT> The type of the input events that the operator accepts.
  * @since 3.0.0
  */
@@ -84,6 +94,15 @@ public abstract class AbstractAppDataSnapshotServer<INPUT_EVENT> implements Oper
    * The current data to be served by the operator.
    */
   private List<GPOMutable> currentData = Lists.newArrayList();
+  /**
+   * The maximum number of query shapes whose results are cached.
+   */
+  @Min(0)
+  private int maxCachedResults = 64;
+  /**
+   * The serialized values of the current snapshot by query shape.
+   */
+  private transient Map<String, CachedResult> resultCache;
 
   @AppData.ResultPort
   public final transient DefaultOutputPort<String> queryResult = new DefaultOutputPort<String>();
@@ -126,12 +145,29 @@ public abstract class AbstractAppDataSnapshotServer<INPUT_EVENT> implements Oper
     @Override
     public void process(List<INPUT_EVENT> rows)
     {
-      currentData.clear();
+      int index = 0;
 
       for(INPUT_EVENT inputEvent: rows) {
-        GPOMutable gpoRow = convert(inputEvent);
-        currentData.add(gpoRow);
+        if(index < currentData.size()) {
+          GPOMutable reuse = currentData.get(index);
+          GPOMutable gpoRow = convert(inputEvent, reuse);
+
+          if(gpoRow != reuse) {
+            currentData.set(index, gpoRow);
+          }
+        }
+        else {
+          currentData.add(convert(inputEvent, null));
+        }
+
+        index++;
       }
+
+      if(index < currentData.size()) {
+        currentData.subList(index, currentData.size()).clear();
+      }
+
+      resultCache.clear();
     }
   };
 
@@ -150,6 +186,19 @@ public abstract class AbstractAppDataSnapshotServer<INPUT_EVENT> implements Oper
    */
   public abstract GPOMutable convert(INPUT_EVENT inputEvent);
 
+  /**
+   * This method converts input data to GPOMutable objects to serve, reusing a {@link GPOMutable} of the
+   * previous snapshot when possible. Implementations which override this method must set all the
+   * fields of the reused object. The default implementation ignores the given object and calls {@link #convert(Object)}.
+   * @param inputEvent The input object to convert to a {@link GPOMutable}.
+   * @param reuse A {@link GPOMutable} of the previous snapshot which is no longer served, or null.
+   * @return The converted input event.
+   */
+  public GPOMutable convert(INPUT_EVENT inputEvent, GPOMutable reuse)
+  {
+    return convert(inputEvent);
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public void setup(OperatorContext context)
@@ -164,6 +213,17 @@ public abstract class AbstractAppDataSnapshotServer<INPUT_EVENT> implements Oper
     queryDeserializerFactory.setContext(DataQuerySnapshot.class, schemaRegistry);
     resultSerializerFactory = new MessageSerializerFactory(resultFormatter);
     queryProcessor.setup(context);
+
+    resultCache = new LinkedHashMap<String, CachedResult>(16, 0.75f, true)
+    {
+      private static final long serialVersionUID = 201509041123L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest)
+      {
+        return size() > maxCachedResults;
+      }
+    };
   }
 
   @Override
@@ -230,6 +290,25 @@ public abstract class AbstractAppDataSnapshotServer<INPUT_EVENT> implements Oper
     this.resultFormatter = resultFormatter;
   }
 
+  /**
+   * Gets the maximum number of query shapes whose results are cached.
+   * @return The maximum number of query shapes whose results are cached.
+   */
+  public int getMaxCachedResults()
+  {
+    return maxCachedResults;
+  }
+
+  /**
+   * Sets the maximum number of query shapes whose results are cached. Queries differing only in their
+   * id and countdown have the same shape. 0 disables the cache.
+   * @param maxCachedResults The maximum number of query shapes whose results are cached.
+   */
+  public void setMaxCachedResults(int maxCachedResults)
+  {
+    this.maxCachedResults = maxCachedResults;
+  }
+
   /**
    * The {@link QueryExecutor} which returns the results for queries.
    */
@@ -238,9 +317,39 @@ public abstract class AbstractAppDataSnapshotServer<INPUT_EVENT> implements Oper
     @Override
     public Result executeQuery(Query query, Void metaQuery, MutableLong queueContext)
     {
-      return new DataResultSnapshot(query,
-                                   currentData,
-                                   queueContext.getValue());
+      DataQuerySnapshot dataQuery = (DataQuerySnapshot) query;
+      String shapeKey = dataQuery.getShapeKey();
+      CachedResult cachedResult = resultCache.get(shapeKey);
+
+      if(cachedResult == null) {
+        List<GPOMutable> values = SnapshotRowSelector.select(currentData, dataQuery, schema.getValuesDescriptor());
+        cachedResult = new CachedResult(values,
+                                        DataResultSnapshotSerializer.serializeValues(values,
+                                                                                     dataQuery.getFields(),
+                                                                                     resultFormatter));
+        resultCache.put(shapeKey, cachedResult);
+      }
+
+      DataResultSnapshot result = new DataResultSnapshot(query,
+                                                         cachedResult.values,
+                                                         queueContext.getValue());
+      result.setValuesJSON(cachedResult.valuesJSON);
+      return result;
+    }
+  }
+
+  /**
+   * The values of a result and their serialized form.
+   */
+  private static class CachedResult
+  {
+    final List<GPOMutable> values;
+    final String valuesJSON;
+
+    CachedResult(List<GPOMutable> values, String valuesJSON)
+    {
+      this.values = values;
+      this.valuesJSON = valuesJSON;
     }
   }
 
@@ -50,9 +50,15 @@ public class AppDataSnapshotServerMap extends AbstractAppDataSnapshotServer<Map<
 
   @Override
   public GPOMutable convert(Map<String, Object> inputEvent)
+  {
+    return convert(inputEvent, null);
+  }
+
+  @Override
+  public GPOMutable convert(Map<String, Object> inputEvent, GPOMutable reuse)
   {
     FieldsDescriptor fd = schema.getValuesDescriptor();
-    GPOMutable values = new GPOMutable(fd);
+    GPOMutable values = reuse == null ? new GPOMutable(fd) : reuse;
 
     List<String> fields = fd.getFieldList();
 
@@ -22,9 +22,9 @@ import javax.validation.constraints.NotNull;
 import org.apache.hadoop.classification.InterfaceStability.Evolving;
 
 import com.google.common.base.Preconditions;
-import com.datatorrent.lib.appdata.gpo.GPOGetters;
 import com.datatorrent.lib.appdata.gpo.GPOMutable;
 import com.datatorrent.lib.appdata.gpo.GPOUtils;
+import com.datatorrent.lib.util.PojoUtils.RecordGetter;
 
 /**
  * This operator accepts a list of POJOs, and serves the data under the {@link SnapshotSchema}.
@@ -37,17 +37,12 @@ import com.datatorrent.lib.appdata.gpo.GPOUtils;
 @Evolving
 public class AppDataSnapshotServerPOJO extends AbstractAppDataSnapshotServer<Object>
 {
-  /**
-   * Flag indicating whether or not the first tuple was processed.
-   */
-  private boolean firstTupleProcessed = false;
-
   @NotNull
   private Map<String, String> fieldToGetter;
   /**
-   * The getters for retrieving values from input POJOs.
+   * The getter for retrieving values from input POJOs. It is built when the first tuple is processed.
    */
-  private GPOGetters getters;
+  private transient RecordGetter<Object> getter;
 
   /**
    * Create the operator.
@@ -59,12 +54,18 @@ public class AppDataSnapshotServerPOJO extends AbstractAppDataSnapshotServer<Obj
 
   @Override
   public GPOMutable convert(Object inputEvent)
+  {
+    return convert(inputEvent, null);
+  }
+
+  @Override
+  public GPOMutable convert(Object inputEvent, GPOMutable reuse)
   {
     firstTuple(inputEvent);
 
-    GPOMutable convertedResult = new GPOMutable(schema.getValuesDescriptor());
+    GPOMutable convertedResult = reuse == null ? new GPOMutable(schema.getValuesDescriptor()) : reuse;
 
-    GPOUtils.copyPOJOToGPO(convertedResult, getters, inputEvent);
+    GPOUtils.copyPOJOToGPO(convertedResult, getter, inputEvent);
     return convertedResult;
   }
 
@@ -74,17 +75,15 @@ public class AppDataSnapshotServerPOJO extends AbstractAppDataSnapshotServer<Obj
    */
   private void firstTuple(Object inputEvent)
   {
-    if(firstTupleProcessed) {
+    if(getter != null) {
       return;
     }
 
-    firstTupleProcessed = true;
-
     Class<?> clazz = inputEvent.getClass();
 
-    getters = GPOUtils.buildGPOGetters(fieldToGetter,
-                                       schema.getValuesDescriptor(),
-                                       clazz);
+    getter = GPOUtils.buildGPORecordGetter(fieldToGetter,
+                                           schema.getValuesDescriptor(),
+                                           clazz);
   }
 
   /**
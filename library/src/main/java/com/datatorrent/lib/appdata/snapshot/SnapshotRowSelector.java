@@ -0,0 +1,304 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.appdata.snapshot;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.google.common.collect.Lists;
+
+import com.datatorrent.lib.appdata.gpo.GPOMutable;
+import com.datatorrent.lib.appdata.schemas.DataQuerySnapshot;
+import com.datatorrent.lib.appdata.schemas.FieldsDescriptor;
+import com.datatorrent.lib.appdata.schemas.Type;
+
+/**
+ * This class applies the filters, the sort order and the page of a {@link DataQuerySnapshot}
+ * to the rows of a snapshot. Fields are read straight from the typed arrays of the
+ * {@link GPOMutable} rows, so no values are boxed while filtering and sorting.
+ * @since 3.0.0
+ */
+class SnapshotRowSelector
+{
+  private SnapshotRowSelector()
+  {
+    //Do nothing
+  }
+
+  /**
+   * Selects the rows of the snapshot which are returned for the given query.
+   * @param rows The rows of the snapshot.
+   * @param query The query.
+   * @param fd The descriptor of the rows.
+   * @return The selected rows. This is the given list itself if the query neither filters, sorts nor pages.
+   */
+  static List<GPOMutable> select(List<GPOMutable> rows, DataQuerySnapshot query, FieldsDescriptor fd)
+  {
+    List<GPOMutable> selected = rows;
+
+    if(!query.getFilters().isEmpty()) {
+      List<FieldFilter> filters = Lists.newArrayList();
+
+      for(DataQuerySnapshot.Filter filter: query.getFilters()) {
+        filters.add(new FieldFilter(filter, fd));
+      }
+
+      selected = Lists.newArrayList();
+
+      for(GPOMutable row: rows) {
+        if(matches(row, filters)) {
+          selected.add(row);
+        }
+      }
+    }
+
+    int end = query.getLimit() < 0 ? selected.size() : (int)Math.min(selected.size(), (long)query.getOffset() + query.getLimit());
+
+    if(query.getSortBy() != null) {
+      Comparator<GPOMutable> comparator = new FieldComparator(fd, query.getSortBy(), query.isAscending());
+
+      if(end < selected.size()) {
+        selected = top(selected, end, comparator);
+      }
+      else {
+        selected = Lists.newArrayList(selected);
+        Collections.sort(selected, comparator);
+      }
+    }
+
+    if(query.getOffset() == 0 && end == selected.size()) {
+      return selected;
+    }
+
+    if(query.getOffset() >= end) {
+      return Lists.newArrayList();
+    }
+
+    return Lists.newArrayList(selected.subList(query.getOffset(), end));
+  }
+
+  /**
+   * Returns the first n rows in the order of the given comparator, in O(rows * log(n)).
+   */
+  private static List<GPOMutable> top(List<GPOMutable> rows, int n, Comparator<GPOMutable> comparator)
+  {
+    if(n == 0) {
+      return Lists.newArrayList();
+    }
+
+    //The head of the queue is the greatest of the n smallest rows seen so far.
+    PriorityQueue<GPOMutable> queue = new PriorityQueue<GPOMutable>(n, Collections.reverseOrder(comparator));
+
+    for(GPOMutable row: rows) {
+      if(queue.size() < n) {
+        queue.add(row);
+      }
+      else if(comparator.compare(row, queue.peek()) < 0) {
+        queue.poll();
+        queue.add(row);
+      }
+    }
+
+    List<GPOMutable> top = Lists.newArrayList(queue);
+    Collections.sort(top, comparator);
+    return top;
+  }
+
+  private static boolean matches(GPOMutable row, List<FieldFilter> filters)
+  {
+    for(int index = 0;
+        index < filters.size();
+        index++) {
+      if(!filters.get(index).matches(row)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * A {@link DataQuerySnapshot.Filter} resolved against the type and the index of its field.
+   */
+  private static class FieldFilter
+  {
+    private final Type type;
+    private final int index;
+    private final DataQuerySnapshot.Operator operator;
+    private final boolean integral;
+    private final long longValue;
+    private final double doubleValue;
+    private final String stringValue;
+
+    FieldFilter(DataQuerySnapshot.Filter filter, FieldsDescriptor fd)
+    {
+      type = fd.getType(filter.getField());
+      index = fd.getTypeToFieldToIndex().get(type).getInt(filter.getField());
+      operator = filter.getOperator();
+
+      Object value = filter.getValue();
+      stringValue = value.toString();
+
+      if(value instanceof Number) {
+        integral = !(value instanceof Double || value instanceof Float);
+        longValue = ((Number)value).longValue();
+        doubleValue = ((Number)value).doubleValue();
+      }
+      else if(type == Type.STRING || type == Type.CHAR || type == Type.BOOLEAN) {
+        integral = false;
+        longValue = 0L;
+        doubleValue = 0.0;
+      }
+      else {
+        //DataQuerySnapshotValidator makes sure that the value of a numeric field is a number.
+        long parsedLong = 0L;
+        boolean parsedIntegral = true;
+
+        try {
+          parsedLong = Long.parseLong(stringValue);
+        }
+        catch(NumberFormatException ex) {
+          parsedIntegral = false;
+        }
+
+        integral = parsedIntegral;
+        longValue = parsedLong;
+        doubleValue = parsedIntegral ? parsedLong : Double.parseDouble(stringValue);
+      }
+    }
+
+    boolean matches(GPOMutable row)
+    {
+      return operator.matches(compare(row));
+    }
+
+    private int compare(GPOMutable row)
+    {
+      switch(type) {
+        case BOOLEAN: {
+          boolean val = row.getFieldsBoolean()[index];
+          return val == Boolean.parseBoolean(stringValue) ? 0 : (val ? 1 : -1);
+        }
+        case CHAR: {
+          return stringValue.isEmpty() ? 1 : row.getFieldsCharacter()[index] - stringValue.charAt(0);
+        }
+        case STRING: {
+          String val = row.getFieldsString()[index];
+          return val == null ? -1 : val.compareTo(stringValue);
+        }
+        case BYTE: {
+          return compareIntegral(row.getFieldsByte()[index]);
+        }
+        case SHORT: {
+          return compareIntegral(row.getFieldsShort()[index]);
+        }
+        case INTEGER: {
+          return compareIntegral(row.getFieldsInteger()[index]);
+        }
+        case LONG: {
+          return compareIntegral(row.getFieldsLong()[index]);
+        }
+        case FLOAT: {
+          return Double.compare(row.getFieldsFloat()[index], doubleValue);
+        }
+        default: {
+          //The remaining type is DOUBLE, DataQuerySnapshotValidator rejects filters on other types.
+          return Double.compare(row.getFieldsDouble()[index], doubleValue);
+        }
+      }
+    }
+
+    private int compareIntegral(long val)
+    {
+      if(integral) {
+        return val < longValue ? -1 : (val == longValue ? 0 : 1);
+      }
+
+      return Double.compare(val, doubleValue);
+    }
+  }
+
+  /**
+   * Compares rows by the value of one field.
+   */
+  private static class FieldComparator implements Comparator<GPOMutable>
+  {
+    private final Type type;
+    private final int index;
+    private final int sign;
+
+    FieldComparator(FieldsDescriptor fd, String field, boolean ascending)
+    {
+      type = fd.getType(field);
+      index = fd.getTypeToFieldToIndex().get(type).getInt(field);
+      sign = ascending ? 1 : -1;
+    }
+
+    @Override
+    public int compare(GPOMutable a, GPOMutable b)
+    {
+      return sign * compareAscending(a, b);
+    }
+
+    private int compareAscending(GPOMutable a, GPOMutable b)
+    {
+      switch(type) {
+        case BOOLEAN: {
+          boolean valA = a.getFieldsBoolean()[index];
+          return valA == b.getFieldsBoolean()[index] ? 0 : (valA ? 1 : -1);
+        }
+        case CHAR: {
+          return a.getFieldsCharacter()[index] - b.getFieldsCharacter()[index];
+        }
+        case STRING: {
+          String valA = a.getFieldsString()[index];
+          String valB = b.getFieldsString()[index];
+
+          if(valA == null || valB == null) {
+            return valA == null ? (valB == null ? 0 : -1) : 1;
+          }
+
+          return valA.compareTo(valB);
+        }
+        case BYTE: {
+          return a.getFieldsByte()[index] - b.getFieldsByte()[index];
+        }
+        case SHORT: {
+          return a.getFieldsShort()[index] - b.getFieldsShort()[index];
+        }
+        case INTEGER: {
+          int valA = a.getFieldsInteger()[index];
+          int valB = b.getFieldsInteger()[index];
+          return valA < valB ? -1 : (valA == valB ? 0 : 1);
+        }
+        case LONG: {
+          long valA = a.getFieldsLong()[index];
+          long valB = b.getFieldsLong()[index];
+          return valA < valB ? -1 : (valA == valB ? 0 : 1);
+        }
+        case FLOAT: {
+          return Float.compare(a.getFieldsFloat()[index], b.getFieldsFloat()[index]);
+        }
+        default: {
+          //The remaining type is DOUBLE, DataQuerySnapshotValidator rejects sorting on other types.
+          return Double.compare(a.getFieldsDouble()[index], b.getFieldsDouble()[index]);
+        }
+      }
+    }
+  }
+}
@@ -16,17 +16,34 @@
 package com.datatorrent.lib.db.cache;
 
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.commons.lang.mutable.MutableLong;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
 import com.datatorrent.api.Context;
 import com.datatorrent.api.DefaultInputPort;
 import com.datatorrent.api.DefaultOutputPort;
 import com.datatorrent.api.Operator;
 
+import com.datatorrent.common.util.NameableThreadFactory;
+
+import com.datatorrent.lib.counters.BasicCounters;
 import com.datatorrent.lib.db.Connectable;
 import com.datatorrent.lib.util.KeyValPair;
 
@@ -41,6 +58,16 @@ import com.datatorrent.lib.util.KeyValPair;
  * <li>Method to extract a key from tuple.</li>
  * <li>Query to fetch the value of the key from tuple when the value is not present in the cache.</li>
  * </ul>
+ * The cache hits, misses, loads, evictions and refreshes are published as operator counters every window.
+ * Values refreshed by the {@link CacheManager} are installed in the cache at the beginning of a window.
+ * </p>
+ * <p>
+ * When the lookup batch size is set, the keys which are not in the cache are not queried one at a time on the
+ * operator thread. They are collected in batches which are fetched with a single {@link #getAll(List)} call by
+ * background loaders while the operator continues to process tuples. Tuples of a pending key are parked and emitted
+ * in their arrival order once the value is loaded. All the pending lookups are completed before the window ends.<br/>
+ * When more than one loader is used, the {@link #getAll(List)} implementation needs to be thread-safe. More loaders
+ * only help the backends which can run {@link #getAll(List)} calls concurrently.
  * </p>
  * @displayName Abstract DB Lookup Cache Backed
  * @category Input
@@ -57,9 +84,23 @@ public abstract class AbstractDBLookupCacheBackedOperator<T, S extends Connectab
   @NotNull
   protected CacheManager cacheManager;
 
+  protected final BasicCounters<MutableLong> counters;
+  protected transient Context.OperatorContext context;
+
+  @Min(0)
+  private int lookupBatchSize = 0;
+  @Min(1)
+  private int numLoaders = 1;
+
+  private transient ExecutorService loaders;
+  private transient Map<Object, List<T>> parkedTuples;
+  private transient List<Object> missedKeys;
+  private transient List<Future<BatchLookup>> inflightLookups;
+
   protected AbstractDBLookupCacheBackedOperator()
   {
     cacheManager = new CacheManager();
+    counters = new BasicCounters<MutableLong>(MutableLong.class);
   }
 
   /**
@@ -77,10 +118,104 @@ public abstract class AbstractDBLookupCacheBackedOperator<T, S extends Connectab
   protected void processTuple(T tuple)
   {
     Object key = getKeyFromTuple(tuple);
+    if (lookupBatchSize > 0) {
+      processTupleInBatch(tuple, key);
+      return;
+    }
     Object value = cacheManager.get(key);
 
     if (value != null) {
-      output.emit(new KeyValPair<Object, Object>(key, value));
+      emitTuple(tuple, key, value);
+    }
+  }
+
+  /**
+   * Emits the value of the key of a tuple.
+   *
+   * @param tuple input tuple.
+   * @param key   key of the tuple.
+   * @param value value of the key.
+   */
+  protected void emitTuple(T tuple, Object key, Object value)
+  {
+    output.emit(new KeyValPair<Object, Object>(key, value));
+  }
+
+  private void processTupleInBatch(T tuple, Object key)
+  {
+    completeLookups(false);
+
+    List<T> parked = parkedTuples.get(key);
+    if (parked != null) {
+      //keeps the order of the tuples of a key
+      parked.add(tuple);
+      return;
+    }
+
+    Object value = cacheManager.getFromPrimary(key);
+    if (value != null) {
+      emitTuple(tuple, key, value);
+      return;
+    }
+
+    parked = Lists.newArrayList();
+    parked.add(tuple);
+    parkedTuples.put(key, parked);
+    missedKeys.add(key);
+    if (missedKeys.size() >= lookupBatchSize) {
+      submitLookup();
+    }
+  }
+
+  private void submitLookup()
+  {
+    final List<Object> keys = missedKeys;
+    missedKeys = Lists.newArrayList();
+    inflightLookups.add(loaders.submit(new Callable<BatchLookup>()
+    {
+      @Override
+      public BatchLookup call() throws Exception
+      {
+        return new BatchLookup(keys, getAll(keys));
+      }
+    }));
+  }
+
+  /**
+   * Installs the values of the completed batch lookups in the cache and emits the parked tuples.
+   *
+   * @param waitForAll when true waits for all the in-flight lookups to complete.
+   */
+  private void completeLookups(boolean waitForAll)
+  {
+    Iterator<Future<BatchLookup>> iterator = inflightLookups.iterator();
+    while (iterator.hasNext()) {
+      Future<BatchLookup> future = iterator.next();
+      if (!waitForAll && !future.isDone()) {
+        continue;
+      }
+      iterator.remove();
+      BatchLookup lookup;
+      try {
+        lookup = future.get();
+      }
+      catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      catch (ExecutionException e) {
+        throw new RuntimeException("while fetching keys", e.getCause());
+      }
+      for (int i = 0; i < lookup.keys.size(); i++) {
+        Object key = lookup.keys.get(i);
+        Object value = lookup.values == null ? null : lookup.values.get(i);
+        List<T> parked = parkedTuples.remove(key);
+        if (value != null) {
+          cacheManager.putLoadedValue(key, value);
+          for (T tuple : parked) {
+            emitTuple(tuple, key, value);
+          }
+        }
+      }
     }
   }
 
@@ -89,18 +224,35 @@ public abstract class AbstractDBLookupCacheBackedOperator<T, S extends Connectab
   @Override
   public void beginWindow(long l)
   {
-    //Do nothing
+    cacheManager.installRefreshedValues();
   }
 
   @Override
   public void endWindow()
   {
-    //Do nothing
+    if (lookupBatchSize > 0) {
+      if (!missedKeys.isEmpty()) {
+        submitLookup();
+      }
+      completeLookups(true);
+    }
+    counters.getCounter(CacheCounters.HITS).setValue(cacheManager.getHitCount());
+    counters.getCounter(CacheCounters.MISSES).setValue(cacheManager.getMissCount());
+    counters.getCounter(CacheCounters.LOADS).setValue(cacheManager.getLoadCount());
+    counters.getCounter(CacheCounters.EVICTIONS).setValue(cacheManager.getEvictionCount());
+    counters.getCounter(CacheCounters.REFRESHES).setValue(cacheManager.getRefreshCount());
+    counters.getCounter(CacheCounters.REFRESHED_KEYS).setValue(cacheManager.getRefreshedKeyCount());
+    counters.getCounter(CacheCounters.LAST_REFRESH_TIME).setValue(cacheManager.getLastRefreshTimeInMillis());
+    context.setCounters(counters);
   }
 
   @Override
   public void setup(Context.OperatorContext context)
   {
+    this.context = context;
+    for (CacheCounters key : CacheCounters.values()) {
+      counters.setCounter(key, new MutableLong());
+    }
     cacheManager.setBackup(this);
     try {
       cacheManager.initialize();
@@ -108,11 +260,20 @@ public abstract class AbstractDBLookupCacheBackedOperator<T, S extends Connectab
     catch (IOException e) {
       throw new RuntimeException(e);
     }
+    if (lookupBatchSize > 0) {
+      parkedTuples = Maps.newHashMap();
+      missedKeys = Lists.newArrayList();
+      inflightLookups = Lists.newLinkedList();
+      loaders = Executors.newFixedThreadPool(numLoaders, new NameableThreadFactory("Lookup-Loader"));
+    }
   }
 
   @Override
   public void teardown()
   {
+    if (loaders != null) {
+      loaders.shutdownNow();
+    }
     try {
       cacheManager.close();
     }
@@ -159,6 +320,38 @@ public abstract class AbstractDBLookupCacheBackedOperator<T, S extends Connectab
     return cacheManager;
   }
 
+  /**
+   * Sets the number of missed keys which are fetched together from the backup store. When it is 0, which is the
+   * default, a missed key is fetched synchronously as soon as it is encountered.
+   *
+   * @param lookupBatchSize number of keys in a batch lookup.
+   */
+  public void setLookupBatchSize(int lookupBatchSize)
+  {
+    this.lookupBatchSize = lookupBatchSize;
+  }
+
+  public int getLookupBatchSize()
+  {
+    return lookupBatchSize;
+  }
+
+  /**
+   * Sets the number of threads which fetch batches of missed keys concurrently. This only helps when the
+   * {@link #getAll(List)} calls of the backend can run concurrently.
+   *
+   * @param numLoaders number of loader threads.
+   */
+  public void setNumLoaders(int numLoaders)
+  {
+    this.numLoaders = numLoaders;
+  }
+
+  public int getNumLoaders()
+  {
+    return numLoaders;
+  }
+
   /**
    * <br>This operator receives tuples which encapsulates the keys. Concrete classes should
    * provide the implementation to extract a key from a tuple.</br>
@@ -168,6 +361,23 @@ public abstract class AbstractDBLookupCacheBackedOperator<T, S extends Connectab
    */
   protected abstract Object getKeyFromTuple(T tuple);
 
+  private static class BatchLookup
+  {
+    final List<Object> keys;
+    final List<Object> values;
+
+    BatchLookup(List<Object> keys, List<Object> values)
+    {
+      this.keys = keys;
+      this.values = values;
+    }
+  }
+
+  public static enum CacheCounters
+  {
+    HITS, MISSES, LOADS, EVICTIONS, REFRESHES, REFRESHED_KEYS, LAST_REFRESH_TIME
+  }
+
   private final static Logger LOG = LoggerFactory.getLogger(AbstractDBLookupCacheBackedOperator.class);
 
 }
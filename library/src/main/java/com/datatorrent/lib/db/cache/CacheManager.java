@@ -18,9 +18,15 @@ package com.datatorrent.lib.db.cache;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import org.slf4j.Logger;
@@ -28,6 +34,9 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import com.datatorrent.common.util.NameableThreadFactory;
 
 import com.datatorrent.lib.db.KeyValueStore;
 
@@ -40,6 +49,10 @@ import com.datatorrent.lib.db.KeyValueStore;
  * <p>
  * Typically primary store is faster but has limited size like memory and backup store is slower but unlimited like databases.<br/>
  * Store Manager can also refresh the values of keys at a specified time every day. This time is in format HH:mm:ss Z.<br/>
+ * Alternatively the keys can be refreshed at a fixed interval. A refresh walks the keys of the primary store in chunks
+ * and fetches every chunk from the backup store in a background thread. The refreshed values are saved in the primary
+ * store only when {@link #installRefreshedValues()} is called, except for the keys which were updated through the
+ * cache manager after their chunk was fetched, whose newer values are kept.<br/>
  * This is not thread-safe.
  * </p>
  *
@@ -52,7 +65,28 @@ public class CacheManager implements Closeable
   @NotNull
   protected Backup backup;
   protected String refreshTime;
-  private transient Timer refresher;
+  @Min(0)
+  protected long refreshIntervalInMillis;
+  @Min(1)
+  protected int refreshChunkSize = 1000;
+  private transient ScheduledExecutorService refresher;
+  private transient BlockingQueue<RefreshedChunk> refreshedValues;
+  private transient volatile boolean refreshing;
+  /**
+   * Sequence of the updates of the primary store through the cache manager. It is only incremented by the thread which
+   * uses the cache manager and is read by the refresher before fetching a chunk.
+   */
+  private transient volatile long updateSequence;
+  /**
+   * Sequence of the last update of the keys which were updated while a refresh was running or not yet installed.
+   */
+  private transient Map<Object, Long> pendingUpdates;
+  private transient volatile long refreshCount;
+  private transient volatile long refreshedKeyCount;
+  private transient volatile long lastRefreshTimeInMillis;
+  private transient long hitCount;
+  private transient long missCount;
+  private transient long loadCount;
 
   public CacheManager()
   {
@@ -68,44 +102,140 @@ public class CacheManager implements Closeable
       primary.putAll(initialEntries);
     }
 
-    if (!Strings.isNullOrEmpty(refreshTime)) {
+    if (!Strings.isNullOrEmpty(refreshTime) || refreshIntervalInMillis > 0) {
+      long initialDelay = refreshIntervalInMillis;
+      long period = refreshIntervalInMillis > 0 ? refreshIntervalInMillis : DAY_IN_MILLIS;
+      boolean refreshNow = false;
 
-      String[] parts = refreshTime.split("[:\\s]");
+      if (!Strings.isNullOrEmpty(refreshTime)) {
+        String[] parts = refreshTime.split("[:\\s]");
 
-      Calendar timeToRefresh = Calendar.getInstance();
-      timeToRefresh.set(Calendar.HOUR_OF_DAY, Integer.parseInt(parts[0]));
-      if (parts.length >= 2) {
-        timeToRefresh.set(Calendar.MINUTE, Integer.parseInt(parts[1]));
-      }
-      if (parts.length >= 3) {
-        timeToRefresh.set(Calendar.SECOND, Integer.parseInt(parts[2]));
+        Calendar timeToRefresh = Calendar.getInstance();
+        timeToRefresh.set(Calendar.HOUR_OF_DAY, Integer.parseInt(parts[0]));
+        if (parts.length >= 2) {
+          timeToRefresh.set(Calendar.MINUTE, Integer.parseInt(parts[1]));
+        }
+        if (parts.length >= 3) {
+          timeToRefresh.set(Calendar.SECOND, Integer.parseInt(parts[2]));
+        }
+        initialDelay = timeToRefresh.getTimeInMillis() - Calendar.getInstance().getTimeInMillis();
+        if (initialDelay < 0) {
+          //the time has passed today, so refresh once now and then at the time from tomorrow on
+          refreshNow = true;
+          timeToRefresh.add(Calendar.DAY_OF_MONTH, 1);
+          initialDelay = timeToRefresh.getTimeInMillis() - Calendar.getInstance().getTimeInMillis();
+        }
       }
-      long initialDelay = timeToRefresh.getTimeInMillis() - Calendar.getInstance().getTimeInMillis();
 
-      TimerTask task = new TimerTask()
+      refreshedValues = new ArrayBlockingQueue<RefreshedChunk>(MAX_PENDING_REFRESH_CHUNKS);
+      pendingUpdates = Maps.newHashMap();
+      refresher = Executors.newSingleThreadScheduledExecutor(new NameableThreadFactory("Cache-Refresher"));
+      Runnable task = new Runnable()
       {
         @Override
         public void run()
         {
-          List<Object> keysToRefresh = Lists.newArrayList(primary.getKeys());
-          if (keysToRefresh.size() > 0) {
-            List<Object> refreshedValues = backup.getAll(keysToRefresh);
-            if (refreshedValues != null) {
-              for (int i = 0; i < keysToRefresh.size(); i++) {
-                primary.put(keysToRefresh.get(i), refreshedValues.get(i));
-              }
-            }
+          try {
+            refresh();
+          }
+          catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          catch (Throwable t) {
+            LOG.error("refreshing cache", t);
           }
         }
       };
+      if (refreshNow) {
+        refresher.execute(task);
+      }
+      refresher.scheduleAtFixedRate(task, initialDelay, period, TimeUnit.MILLISECONDS);
+    }
+  }
 
-      refresher = new Timer();
-      if (initialDelay < 0) {
-        refresher.schedule(task, 0);
-        timeToRefresh.add(Calendar.DAY_OF_MONTH, 1);
-        initialDelay = timeToRefresh.getTimeInMillis();
+  /**
+   * Walks the keys of the primary store in chunks and fetches the values of each chunk from the backup store with
+   * a single {@link Backup#getAll(List)} call. This runs in the refresher thread so the refreshed values are handed
+   * over to the caller's thread which installs them in {@link #installRefreshedValues()}.
+   */
+  private void refresh() throws InterruptedException
+  {
+    long start = System.currentTimeMillis();
+    long keyCount = 0;
+    refreshing = true;
+    try {
+      Iterator<Object> keys = primary.getKeys().iterator();
+      List<Object> chunk = Lists.newArrayListWithCapacity(refreshChunkSize);
+      while (keys.hasNext()) {
+        chunk.add(keys.next());
+        if (chunk.size() == refreshChunkSize || !keys.hasNext()) {
+          long sequence = updateSequence;
+          List<Object> values = backup.getAll(chunk);
+          if (values != null) {
+            Map<Object, Object> chunkValues = Maps.newHashMapWithExpectedSize(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+              chunkValues.put(chunk.get(i), values.get(i));
+            }
+            refreshedValues.put(new RefreshedChunk(sequence, chunkValues));
+          }
+          keyCount += chunk.size();
+          chunk = Lists.newArrayListWithCapacity(refreshChunkSize);
+        }
+      }
+    }
+    finally {
+      refreshing = false;
+    }
+    refreshedKeyCount += keyCount;
+    lastRefreshTimeInMillis = System.currentTimeMillis() - start;
+    refreshCount++;
+  }
+
+  /**
+   * Installs the values fetched by the refresher in the primary store. The keys whose value is no longer present in
+   * the backup store are removed. A key which was updated through the cache manager after its chunk was fetched keeps
+   * the newer value. This should be called periodically from the thread which uses the cache manager, for eg. at
+   * window boundaries.
+   *
+   * @return number of refreshed keys which were installed.
+   */
+  public int installRefreshedValues()
+  {
+    if (refreshedValues == null) {
+      return 0;
+    }
+    int installed = 0;
+    RefreshedChunk chunk;
+    while ((chunk = refreshedValues.poll()) != null) {
+      for (Map.Entry<Object, Object> entry : chunk.values.entrySet()) {
+        Long lastUpdate = pendingUpdates.get(entry.getKey());
+        if (lastUpdate != null && lastUpdate > chunk.sequence) {
+          continue;
+        }
+        if (entry.getValue() != null) {
+          primary.put(entry.getKey(), entry.getValue());
+        }
+        else {
+          primary.remove(entry.getKey());
+        }
+        installed++;
       }
-      refresher.scheduleAtFixedRate(task, initialDelay, 86400000);
+    }
+    if (!refreshing && refreshedValues.isEmpty()) {
+      pendingUpdates.clear();
+    }
+    return installed;
+  }
+
+  /**
+   * Records an update of the primary store so that a value which was fetched by the refresher before the update does
+   * not overwrite it.
+   */
+  private void updated(Object key)
+  {
+    long sequence = ++updateSequence;
+    if (pendingUpdates != null && (refreshing || !refreshedValues.isEmpty())) {
+      pendingUpdates.put(key, sequence);
     }
   }
 
@@ -114,26 +244,65 @@ public class CacheManager implements Closeable
   {
     Object primaryVal = primary.get(key);
     if (primaryVal != null) {
+      hitCount++;
       return primaryVal;
     }
 
+    missCount++;
     Object backupVal = backup.get(key);
     if (backupVal != null) {
+      loadCount++;
       primary.put(key, backupVal);
+      updated(key);
     }
     return backupVal;
   }
 
+  /**
+   * Looks up a key only in the primary store.
+   *
+   * @param key key
+   * @return value of the key in the primary store; null otherwise.
+   */
+  @Nullable
+  public Object getFromPrimary(@Nonnull Object key)
+  {
+    Object primaryVal = primary.get(key);
+    if (primaryVal != null) {
+      hitCount++;
+    }
+    else {
+      missCount++;
+    }
+    return primaryVal;
+  }
+
+  /**
+   * Saves a value which was loaded from the backup store outside of {@link #get(Object)} in the primary store.
+   *
+   * @param key   key
+   * @param value value loaded from the backup store.
+   */
+  public void putLoadedValue(@Nonnull Object key, @Nonnull Object value)
+  {
+    loadCount++;
+    primary.put(key, value);
+    updated(key);
+  }
+
   public void put(@Nonnull Object key, @Nonnull Object value)
   {
     primary.put(key, value);
     backup.put(key, value);
+    updated(key);
   }
 
   @Override
   public void close() throws IOException
   {
-    refresher.cancel();
+    if (refresher != null) {
+      refresher.shutdownNow();
+    }
     primary.disconnect();
     backup.disconnect();
   }
@@ -158,6 +327,96 @@ public class CacheManager implements Closeable
     return backup;
   }
 
+  /**
+   * @return number of lookups which were served by the primary store.
+   */
+  public long getHitCount()
+  {
+    return hitCount;
+  }
+
+  /**
+   * @return number of lookups which were not found in the primary store and were queried in the backup store.
+   */
+  public long getMissCount()
+  {
+    return missCount;
+  }
+
+  /**
+   * @return number of values which were loaded from the backup store into the primary store on a miss.
+   */
+  public long getLoadCount()
+  {
+    return loadCount;
+  }
+
+  /**
+   * @return number of entries evicted from the primary store if it tracks evictions; 0 otherwise.
+   */
+  public long getEvictionCount()
+  {
+    if (primary instanceof CacheStore) {
+      return ((CacheStore) primary).getStats().evictionCount();
+    }
+    return 0;
+  }
+
+  /**
+   * @return number of completed refreshes.
+   */
+  public long getRefreshCount()
+  {
+    return refreshCount;
+  }
+
+  /**
+   * @return total number of keys fetched from the backup store by refreshes.
+   */
+  public long getRefreshedKeyCount()
+  {
+    return refreshedKeyCount;
+  }
+
+  /**
+   * @return time taken by the last refresh to fetch all the keys from the backup store.
+   */
+  public long getLastRefreshTimeInMillis()
+  {
+    return lastRefreshTimeInMillis;
+  }
+
+  /**
+   * Sets the interval at which cache is refreshed. When refresh time is also set, the first refresh happens at the
+   * refresh time. If neither is set, cache is not refreshed.
+   *
+   * @param refreshIntervalInMillis refresh interval in millis.
+   */
+  public void setRefreshIntervalInMillis(long refreshIntervalInMillis)
+  {
+    this.refreshIntervalInMillis = refreshIntervalInMillis;
+  }
+
+  public long getRefreshIntervalInMillis()
+  {
+    return refreshIntervalInMillis;
+  }
+
+  /**
+   * Sets the number of keys which are refreshed with one call to the backup store.
+   *
+   * @param refreshChunkSize number of keys in a refresh chunk.
+   */
+  public void setRefreshChunkSize(int refreshChunkSize)
+  {
+    this.refreshChunkSize = refreshChunkSize;
+  }
+
+  public int getRefreshChunkSize()
+  {
+    return refreshChunkSize;
+  }
+
   /**
    * The cache store can be refreshed every day at a specific time. This sets
    * the time. If the time is not set, cache is not refreshed.
@@ -181,7 +440,8 @@ public class CacheManager implements Closeable
   {
 
     /**
-     * Get all the keys in the store.
+     * Get all the keys in the store. The refresher iterates over these keys in a separate thread, so the returned set
+     * should be safe to iterate while the store is modified.
      *
      * @return all present keys.
      */
@@ -202,7 +462,21 @@ public class CacheManager implements Closeable
     Map<Object, Object> loadInitialData();
   }
 
-  @SuppressWarnings("unused")
+  private static class RefreshedChunk
+  {
+    final long sequence;
+    final Map<Object, Object> values;
+
+    RefreshedChunk(long sequence, Map<Object, Object> values)
+    {
+      this.sequence = sequence;
+      this.values = values;
+    }
+  }
+
+  private static final long DAY_IN_MILLIS = 86400000;
+  private static final int MAX_PENDING_REFRESH_CHUNKS = 4;
+
   private final static Logger LOG = LoggerFactory.getLogger(CacheManager.class);
 
 }
@@ -28,6 +28,8 @@ import javax.validation.constraints.NotNull;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.Lists;
 
 /**
@@ -37,9 +39,13 @@ import com.google.common.collect.Lists;
  * <ul>
  * <li>Transient: It is not checkpointed.</li>
  * <li>Max Cache Size: it starts evicting entries before this limit is exceeded.</li>
+ * <li>Max Cache Weight: when a {@link Weigher} class is set, the cache is bounded by the total weight of the entries,
+ * for eg. their estimated size in bytes, instead of the number of entries.</li>
  * <li>Entry expiry time: the entries epire after the specified duration.</li>
  * <li>Cache cleanup interval: the interval at which the cache is cleaned up of expired entries periodically.</li>
  * </ul>
+ * Eviction is least-recently-used within each segment of the cache, so the keys which are looked up frequently stay
+ * in memory. Hit, miss and eviction statistics are available through {@link #getStats()}.
  *
  * @since 0.9.2
  */
@@ -49,6 +55,14 @@ public class CacheStore implements CacheManager.Primary
   @Min(0)
   protected long maxCacheSize = 2000;
 
+  @Min(0)
+  protected long maxCacheWeight = 0;
+
+  /**
+   * Name of the {@link Weigher} class, which is instantiated when the store is connected.
+   */
+  protected String weigherClass;
+
   @Min(0)
   protected int entryExpiryDurationInMillis = 60000; //1 minute
 
@@ -60,6 +74,7 @@ public class CacheStore implements CacheManager.Primary
 
   private transient ScheduledExecutorService cleanupScheduler;
   private transient Cache<Object, Object> cache;
+  private transient Weigher<Object, Object> weigher;
   private transient boolean open;
 
 
@@ -108,7 +123,14 @@ public class CacheStore implements CacheManager.Primary
   {
     open = true;
 
-    CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder();
+    CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().recordStats();
+    weigher = weigherClass == null ? null : createWeigher(weigherClass);
+    if (weigher != null && maxCacheWeight > 0) {
+      cacheBuilder.maximumWeight(maxCacheWeight).weigher(weigher);
+    }
+    else {
+      cacheBuilder.maximumSize(maxCacheSize);
+    }
     if (entryExpiryStrategy == ExpiryType.EXPIRE_AFTER_ACCESS) {
       cacheBuilder.expireAfterAccess(entryExpiryDurationInMillis, TimeUnit.MILLISECONDS);
     }
@@ -127,6 +149,23 @@ public class CacheStore implements CacheManager.Primary
     }, cacheCleanupIntervalInMillis, cacheCleanupIntervalInMillis, TimeUnit.MILLISECONDS);
   }
 
+  @SuppressWarnings("unchecked")
+  private static Weigher<Object, Object> createWeigher(String className) throws IOException
+  {
+    try {
+      return (Weigher<Object, Object>)Thread.currentThread().getContextClassLoader().loadClass(className).newInstance();
+    }
+    catch (ClassNotFoundException e) {
+      throw new IOException("weigher class " + className, e);
+    }
+    catch (InstantiationException e) {
+      throw new IOException("weigher class " + className, e);
+    }
+    catch (IllegalAccessException e) {
+      throw new IOException("weigher class " + className, e);
+    }
+  }
+
   @Override
   public boolean isConnected()
   {
@@ -141,15 +180,63 @@ public class CacheStore implements CacheManager.Primary
   }
 
   /**
-   * Sets the max size of cache.
+   * Returns a snapshot of the hit, miss and eviction statistics of the cache.
+   *
+   * @return cache statistics.
+   */
+  public CacheStats getStats()
+  {
+    return cache.stats();
+  }
+
+  /**
+   * Sets the max size of cache. It is ignored when the cache is bounded by weight.
    *
-   * @param maxCacheSize the max size of cache in memory.
+   * @param maxCacheSize the max number of entries in the cache.
    */
   public void setMaxCacheSize(long maxCacheSize)
   {
     this.maxCacheSize = maxCacheSize;
   }
 
+  public long getMaxCacheSize()
+  {
+    return maxCacheSize;
+  }
+
+  /**
+   * Sets the max total weight of the cache entries. This is used along with the {@link #setWeigherClass(String) weigher}.
+   *
+   * @param maxCacheWeight the max total weight of entries in the cache.
+   */
+  public void setMaxCacheWeight(long maxCacheWeight)
+  {
+    this.maxCacheWeight = maxCacheWeight;
+  }
+
+  public long getMaxCacheWeight()
+  {
+    return maxCacheWeight;
+  }
+
+  /**
+   * Sets the class of the weigher which computes the weight, for eg. estimated bytes, of a cache entry. When it is set
+   * along with a positive max cache weight, the cache is bounded by weight instead of number of entries.<br/>
+   * The class has to implement {@link Weigher} and have a public no argument constructor. It is instantiated when the
+   * store is connected, so only its name is checkpointed.
+   *
+   * @param weigherClass fully qualified name of the weigher class.
+   */
+  public void setWeigherClass(String weigherClass)
+  {
+    this.weigherClass = weigherClass;
+  }
+
+  public String getWeigherClass()
+  {
+    return weigherClass;
+  }
+
   /**
    * Sets the cache entry expiry strategy.
    *
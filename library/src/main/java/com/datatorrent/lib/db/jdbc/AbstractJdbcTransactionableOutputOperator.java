@@ -17,7 +17,13 @@ package com.datatorrent.lib.db.jdbc;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.annotation.Nonnull;
 import javax.validation.constraints.Min;
@@ -25,10 +31,12 @@ import javax.validation.constraints.Min;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.Lists;
+import org.apache.commons.lang.mutable.MutableLong;
 
 import com.datatorrent.api.Context;
 
+import com.datatorrent.common.util.NameableThreadFactory;
+import com.datatorrent.lib.counters.BasicCounters;
 import com.datatorrent.lib.db.AbstractPassThruTransactionableStoreOutputOperator;
 
 /**
@@ -41,9 +49,18 @@ import com.datatorrent.lib.db.AbstractPassThruTransactionableStoreOutputOperator
  * The size of a batch is configured by batchSize property.
  * </p>
  * <p>
- * The tuples in a window are stored in check-pointed collection which is cleared in the endWindow().
- * This is needed for the recovery. The operator writes a tuple exactly once in the database, which is why
- * only when all the updates are executed, the transaction is committed in the end window call.
+ * A tuple is bound to the update statement as soon as it arrives, so the operator does not hold on to the tuples of a window.
+ * When asyncExecution is set, the tuples of a full batch are handed over to a dedicated thread which binds and executes
+ * them while the operator collects the next batch. At most one batch is executing at any time and the operator thread
+ * does not use the connection while a batch executes, so the connection is only used by one thread at a time.
+ * All batches are executed on the connection of the store, inside the transaction of the window.
+ * The operator writes a tuple exactly once in the database, which is why
+ * only when all the updates are executed, the transaction is committed together with the window id in the end window call.
+ * Asynchronous execution is off by default. The tuples of the executing and of the collected batch are then held by
+ * the operator, so they should not be modified once they are emitted to it.
+ * </p>
+ * <p>
+ * The number of batches and rows, the latency of the batches and the rows written per second are published as counters.
  * </p>
  * @displayName Abstract JDBC Transactionable Output
  * @category Output
@@ -58,16 +75,30 @@ public abstract class AbstractJdbcTransactionableOutputOperator<T> extends Abstr
 
   @Min(1)
   private int batchSize;
-  private final List<T> tuples;
+  private boolean asyncExecution;
 
-  private transient int batchStartIdx;
   private transient PreparedStatement updateCommand;
+  private transient int batchRows;
+  /**
+   * Tuples of the batch which is collected when batches are executed asynchronously.
+   */
+  private transient List<T> batchTuples;
+
+  private transient ExecutorService executor;
+  private transient Future<Long> executingBatch;
+  private transient int executingBatchRows;
+
+  protected transient BasicCounters<MutableLong> counters;
+  private transient Context.OperatorContext context;
+  private transient int windowBatches;
+  private transient long windowRows;
+  private transient long windowBatchNanos;
+  private transient long windowMaxBatchNanos;
 
   public AbstractJdbcTransactionableOutputOperator()
   {
-    tuples = Lists.newArrayList();
     batchSize = DEFAULT_BATCH_SIZE;
-    batchStartIdx = 0;
+    asyncExecution = false;
     store = new JdbcTransactionalStore();
   }
 
@@ -75,54 +106,159 @@ public abstract class AbstractJdbcTransactionableOutputOperator<T> extends Abstr
   public void setup(Context.OperatorContext context)
   {
     super.setup(context);
+    this.context = context;
     try {
       updateCommand = store.connection.prepareStatement(getUpdateCommand());
     }
     catch (SQLException e) {
       throw new RuntimeException(e);
     }
+    batchRows = 0;
+    if (asyncExecution) {
+      batchTuples = new ArrayList<T>(batchSize);
+      executor = Executors.newSingleThreadExecutor(new NameableThreadFactory("Jdbc-Batch-Executor-" + (context == null ? "" : context.getId())));
+    }
 
+    counters = new BasicCounters<MutableLong>(MutableLong.class);
+    for (JdbcCounters counter : JdbcCounters.values()) {
+      counters.setCounter(counter, new MutableLong());
+    }
+  }
+
+  @Override
+  public void beginWindow(long windowId)
+  {
+    super.beginWindow(windowId);
+    windowBatches = 0;
+    windowRows = 0;
+    windowBatchNanos = 0;
+    windowMaxBatchNanos = 0;
   }
 
   @Override
   public void endWindow()
   {
-    if (tuples.size() - batchStartIdx > 0) {
+    if (batchRows > 0) {
       processBatch();
     }
+    waitForBatch();
     super.endWindow();
-    tuples.clear();
-    batchStartIdx = 0;
+
+    counters.getCounter(JdbcCounters.BATCHES).add(windowBatches);
+    counters.getCounter(JdbcCounters.ROWS).add(windowRows);
+    counters.getCounter(JdbcCounters.BATCH_LATENCY_MICROS).setValue(windowBatches == 0 ? 0 : windowBatchNanos / windowBatches / 1000);
+    counters.getCounter(JdbcCounters.MAX_BATCH_LATENCY_MICROS).setValue(windowMaxBatchNanos / 1000);
+    counters.getCounter(JdbcCounters.ROWS_PER_SECOND).setValue(windowBatchNanos == 0 ? 0 : windowRows * 1000000000L / windowBatchNanos);
+    if (context != null) {
+      context.setCounters(counters);
+    }
+  }
+
+  @Override
+  public void teardown()
+  {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+    executingBatch = null;
+    super.teardown();
   }
 
   @Override
   public void processTuple(T tuple)
   {
-    tuples.add(tuple);
-    if ((tuples.size() - batchStartIdx) >= batchSize) {
+    if (executor == null) {
+      try {
+        setStatementParameters(updateCommand, tuple);
+        updateCommand.addBatch();
+      }
+      catch (SQLException e) {
+        throw new RuntimeException("binding tuple", e);
+      }
+    }
+    else {
+      batchTuples.add(tuple);
+    }
+    if (++batchRows >= batchSize) {
       processBatch();
     }
   }
 
+  /**
+   * Executes the bound batch, or hands the tuples of the batch over to the executor which binds and executes them.
+   * Waits first for the previous batch, which keeps the batches in order and at most one of them in flight.
+   */
   private void processBatch()
   {
-    logger.debug("start {} end {}", batchStartIdx, tuples.size());
-    try {
-      for (int i = batchStartIdx; i < tuples.size(); i++) {
-        setStatementParameters(updateCommand, tuples.get(i));
-        updateCommand.addBatch();
+    waitForBatch();
+    logger.debug("batch of {} rows", batchRows);
+    final List<T> tuples = batchTuples;
+    Callable<Long> batch = new Callable<Long>()
+    {
+      @Override
+      public Long call() throws SQLException
+      {
+        if (tuples != null) {
+          for (T tuple : tuples) {
+            setStatementParameters(updateCommand, tuple);
+            updateCommand.addBatch();
+          }
+        }
+        long start = System.nanoTime();
+        try {
+          updateCommand.executeBatch();
+        }
+        finally {
+          updateCommand.clearBatch();
+        }
+        return System.nanoTime() - start;
+      }
+
+    };
+    executingBatchRows = batchRows;
+    if (executor == null) {
+      try {
+        batchExecuted(batch.call());
+      }
+      catch (SQLException e) {
+        throw new RuntimeException("processing batch", e);
       }
-      updateCommand.executeBatch();
-      updateCommand.clearBatch();
     }
-    catch (SQLException e) {
-      throw new RuntimeException("processing batch", e);
+    else {
+      executingBatch = executor.submit(batch);
+      batchTuples = new ArrayList<T>(batchSize);
+    }
+    batchRows = 0;
+  }
+
+  private void waitForBatch()
+  {
+    if (executingBatch == null) {
+      return;
+    }
+    try {
+      batchExecuted(executingBatch.get());
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("waiting for batch", e);
+    }
+    catch (ExecutionException e) {
+      throw new RuntimeException("processing batch", e.getCause());
     }
     finally {
-      batchStartIdx += tuples.size() - batchStartIdx;
+      executingBatch = null;
     }
   }
 
+  private void batchExecuted(long nanos)
+  {
+    windowBatches++;
+    windowRows += executingBatchRows;
+    windowBatchNanos += nanos;
+    windowMaxBatchNanos = Math.max(windowMaxBatchNanos, nanos);
+  }
+
   /**
    * Sets the size of a batch operation.<br/>
    * <b>Default:</b> {@value #DEFAULT_BATCH_SIZE}
@@ -134,6 +270,27 @@ public abstract class AbstractJdbcTransactionableOutputOperator<T> extends Abstr
     this.batchSize = batchSize;
   }
 
+  public int getBatchSize()
+  {
+    return batchSize;
+  }
+
+  /**
+   * When true, the tuples of a batch are bound and executed on a separate thread while the next batch is collected.
+   * The operator thread does not use the connection while a batch executes. Default is false.
+   *
+   * @param asyncExecution whether to execute batches asynchronously
+   */
+  public void setAsyncExecution(boolean asyncExecution)
+  {
+    this.asyncExecution = asyncExecution;
+  }
+
+  public boolean isAsyncExecution()
+  {
+    return asyncExecution;
+  }
+
   /**
    * Gets the statement which insert/update the table in the database.
    *
@@ -151,6 +308,30 @@ public abstract class AbstractJdbcTransactionableOutputOperator<T> extends Abstr
    */
   protected abstract void setStatementParameters(PreparedStatement statement, T tuple) throws SQLException;
 
+  public static enum JdbcCounters
+  {
+    /**
+     * Batches executed since the operator was deployed
+     */
+    BATCHES,
+    /**
+     * Rows written since the operator was deployed
+     */
+    ROWS,
+    /**
+     * Average latency of the batches in the last window
+     */
+    BATCH_LATENCY_MICROS,
+    /**
+     * Latency of the slowest batch in the last window
+     */
+    MAX_BATCH_LATENCY_MICROS,
+    /**
+     * Rows written per second of batch execution in the last window
+     */
+    ROWS_PER_SECOND
+  }
+
   private static final Logger logger = LoggerFactory.getLogger(AbstractJdbcTransactionableOutputOperator.class);
 
 }
@@ -19,10 +19,14 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 import javax.validation.constraints.NotNull;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.google.common.collect.Lists;
 
 import com.datatorrent.api.Context;
@@ -33,7 +37,12 @@ import com.datatorrent.lib.db.cache.AbstractDBLookupCacheBackedOperator;
  * This is the base implementation of an operator that maintains a loading cache.&nbsp;
  * The cache is kept in a database which is connected to via JDBC.&nbsp;
  * Subclasses should implement the methods which are required to insert and retrieve data from the database.
- * <p></p>
+ * <p>
+ * The batches of keys of the cache refresher and the batch lookups are fetched one key at a time with the get query
+ * unless the subclass provides a bulk query through {@link #fetchGetAllQuery(int)}, in which case the keys are fetched
+ * with one query per {@link #MAX_KEYS_PER_QUERY} keys. All the queries go through a single connection so
+ * {@link #getAll(List)} is serialized and more than one loader does not speed up the lookups of this operator.
+ * </p>
  * @displayName JDBC Lookup Cache Backed
  * @category Input
  * @tags cache, key value
@@ -43,11 +52,17 @@ import com.datatorrent.lib.db.cache.AbstractDBLookupCacheBackedOperator;
  */
 public abstract class JDBCLookupCacheBackedOperator<T> extends AbstractDBLookupCacheBackedOperator<T, JdbcStore>
 {
+  /**
+   * Max number of keys which are fetched by one bulk query.
+   */
+  public static final int MAX_KEYS_PER_QUERY = 500;
+
   @NotNull
   protected String tableName;
 
   protected transient PreparedStatement putStatement;
   protected transient PreparedStatement getStatement;
+  protected transient PreparedStatement getAllStatement;
 
   public JDBCLookupCacheBackedOperator()
   {
@@ -69,12 +84,16 @@ public abstract class JDBCLookupCacheBackedOperator<T> extends AbstractDBLookupC
   public void setup(Context.OperatorContext context)
   {
     super.setup(context);
+    if (getNumLoaders() > 1) {
+      logger.warn("{} loaders share a single connection, the batches of keys are fetched one at a time", getNumLoaders());
+    }
 
     String insertQuery = fetchInsertQuery();
     String getQuery = fetchGetQuery();
     try {
       putStatement = store.connection.prepareStatement(insertQuery);
       getStatement = store.connection.prepareStatement(getQuery);
+      getAllStatement = store.connection.prepareStatement(getQuery);
     }
     catch (SQLException e) {
       throw new RuntimeException(e);
@@ -106,23 +125,90 @@ public abstract class JDBCLookupCacheBackedOperator<T> extends AbstractDBLookupC
     }
   }
 
+  /**
+   * {@inheritDoc}<br/>
+   * This is called by the cache refresher and batch lookup threads so it uses separate statements and is synchronized.
+   * The keys are fetched with one bulk query per {@link #MAX_KEYS_PER_QUERY} keys when {@link #fetchGetAllQuery(int)}
+   * is provided and one at a time otherwise.
+   */
   @Override
-  public List<Object> getAll(List<Object> keys)
+  public synchronized List<Object> getAll(List<Object> keys)
   {
-    List<Object> values = Lists.newArrayList();
-    for (Object key : keys) {
-      try {
-        prepareGetStatement(getStatement, key);
-        ResultSet resultSet = getStatement.executeQuery();
-        values.add(processResultSet(resultSet));
+    List<Object> values = Lists.newArrayListWithCapacity(keys.size());
+    try {
+      if (fetchGetAllQuery(1) == null) {
+        for (Object key : keys) {
+          prepareGetStatement(getAllStatement, key);
+          ResultSet resultSet = getAllStatement.executeQuery();
+          values.add(processResultSet(resultSet));
+        }
       }
-      catch (SQLException e) {
-        throw new RuntimeException("while fetching keys", e);
+      else {
+        for (List<Object> chunk : Lists.partition(keys, MAX_KEYS_PER_QUERY)) {
+          fetchChunk(chunk, values);
+        }
       }
     }
+    catch (SQLException e) {
+      throw new RuntimeException("while fetching keys", e);
+    }
     return values;
   }
 
+  private void fetchChunk(List<Object> keys, List<Object> values) throws SQLException
+  {
+    PreparedStatement statement = store.connection.prepareStatement(fetchGetAllQuery(keys.size()));
+    try {
+      prepareGetAllStatement(statement, keys);
+      Map<Object, Object> found = processGetAllResultSet(statement.executeQuery());
+      for (Object key : keys) {
+        values.add(found.get(key));
+      }
+    }
+    finally {
+      statement.close();
+    }
+  }
+
+  /**
+   * Returns the query which fetches the keys and values of the given number of keys, for eg.
+   * <code>select key, value from table where key in (?, ?, ?)</code>.<br/>
+   * When it is provided {@link #processGetAllResultSet(ResultSet)} needs to be implemented as well.
+   *
+   * @param numKeys number of keys which are fetched.
+   * @return the bulk query, or null when the keys are fetched one at a time with the get query.
+   */
+  protected String fetchGetAllQuery(int numKeys)
+  {
+    return null;
+  }
+
+  /**
+   * Sets the keys as the parameters of the bulk query in their order.
+   *
+   * @param getAllStatement statement of the query returned by {@link #fetchGetAllQuery(int)}.
+   * @param keys keys which are fetched.
+   * @throws SQLException
+   */
+  protected void prepareGetAllStatement(PreparedStatement getAllStatement, List<Object> keys) throws SQLException
+  {
+    for (int i = 0; i < keys.size(); i++) {
+      getAllStatement.setObject(i + 1, keys.get(i));
+    }
+  }
+
+  /**
+   * Reads the rows of the bulk query.
+   *
+   * @param resultSet result of the query returned by {@link #fetchGetAllQuery(int)}.
+   * @return the values of the keys which are found mapped by keys equal to the ones which were fetched.
+   * @throws SQLException
+   */
+  protected Map<Object, Object> processGetAllResultSet(ResultSet resultSet) throws SQLException
+  {
+    throw new UnsupportedOperationException("processGetAllResultSet needs to be implemented along with fetchGetAllQuery");
+  }
+
   protected abstract void prepareGetStatement(PreparedStatement getStatement, Object key) throws SQLException;
 
   protected abstract void preparePutStatement(PreparedStatement putStatement, Object key, Object value) throws SQLException;
@@ -133,4 +219,6 @@ public abstract class JDBCLookupCacheBackedOperator<T> extends AbstractDBLookupC
 
   protected abstract Object processResultSet(ResultSet resultSet) throws SQLException;
 
+  private static final Logger logger = LoggerFactory.getLogger(JDBCLookupCacheBackedOperator.class);
+
 }
@@ -17,17 +17,14 @@ package com.datatorrent.lib.db.jdbc;
 
 import com.datatorrent.api.Context.OperatorContext;
 import com.datatorrent.lib.util.PojoUtils;
-import com.datatorrent.lib.util.PojoUtils.Getter;
-import com.datatorrent.lib.util.PojoUtils.GetterBoolean;
-import com.datatorrent.lib.util.PojoUtils.GetterChar;
-import com.datatorrent.lib.util.PojoUtils.GetterDouble;
-import com.datatorrent.lib.util.PojoUtils.GetterFloat;
-import com.datatorrent.lib.util.PojoUtils.GetterInt;
-import com.datatorrent.lib.util.PojoUtils.GetterLong;
-import com.datatorrent.lib.util.PojoUtils.GetterShort;
+import com.datatorrent.lib.util.PojoUtils.RecordGetter;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
 
 import javax.validation.constraints.NotNull;
 
@@ -39,6 +36,8 @@ import org.slf4j.LoggerFactory;
  * <p>
  * JdbcPOJOOutputOperator class.</p>
  * A Generic implementation of AbstractJdbcTransactionableOutputOperator which takes in any POJO.
+ * The values of all the columns are read from a tuple with a single {@link RecordGetter} which is compiled for the
+ * class of the first tuple.
  *
  * @displayName Jdbc Output Operator
  * @category Output
@@ -99,7 +98,18 @@ public class JdbcPOJOOutputOperator extends AbstractJdbcTransactionableOutputOpe
 
   @NotNull
   private ArrayList<String> expressions;
-  private transient ArrayList<Object> getters;
+  private transient RecordGetter<Object> recordGetter;
+  //Index of the value of every column in the array of its type
+  private transient int[] valueIndexes;
+  private transient boolean[] booleanVals;
+  private transient char[] charVals;
+  private transient short[] shortVals;
+  private transient int[] intVals;
+  private transient long[] longVals;
+  private transient float[] floatVals;
+  private transient double[] doubleVals;
+  private transient String[] stringVals;
+  private transient Object[] objectVals;
   private String insertStatement;
 
   @Override
@@ -153,13 +163,12 @@ public class JdbcPOJOOutputOperator extends AbstractJdbcTransactionableOutputOpe
   {
     super();
     columnDataTypes = new ArrayList<Integer>();
-    getters = new ArrayList<Object>();
   }
 
   @Override
   public void processTuple(Object tuple)
   {
-    if (getters.isEmpty()) {
+    if (recordGetter == null) {
       processFirstTuple(tuple);
     }
     super.processTuple(tuple);
@@ -169,50 +178,69 @@ public class JdbcPOJOOutputOperator extends AbstractJdbcTransactionableOutputOpe
   {
     final Class<?> fqcn = tuple.getClass();
     final int size = columnDataTypes.size();
+    Map<Class<?>, List<String>> classToGetterExprs = Maps.newHashMap();
+    valueIndexes = new int[size];
     for (int i = 0; i < size; i++) {
-      final int type = columnDataTypes.get(i);
-      final String getterExpression = expressions.get(i);
-      final Object getter;
-      switch (type) {
-        case Types.CHAR:
-          getter = PojoUtils.createGetterChar(fqcn, getterExpression);
-          break;
-        case Types.VARCHAR:
-          getter = PojoUtils.createGetter(fqcn, getterExpression, String.class);
-          break;
-        case Types.BOOLEAN:
-        case Types.TINYINT:
-          getter = PojoUtils.createGetterBoolean(fqcn, getterExpression);
-          break;
-        case Types.SMALLINT:
-          getter = PojoUtils.createGetterShort(fqcn, getterExpression);
-          break;
-        case Types.INTEGER:
-          getter = PojoUtils.createGetterInt(fqcn, getterExpression);
-          break;
-        case Types.BIGINT:
-          getter = PojoUtils.createGetterLong(fqcn, getterExpression);
-          break;
-        case Types.FLOAT:
-          getter = PojoUtils.createGetterFloat(fqcn, getterExpression);
-          break;
-        case Types.DOUBLE:
-          getter = PojoUtils.createGetterDouble(fqcn, getterExpression);
-          break;
-        default:
-          /*
-           Types.DECIMAL
-           Types.DATE
-           Types.TIME
-           Types.ARRAY
-           Types.OTHER
-           */
-          getter = PojoUtils.createGetter(fqcn, getterExpression, Object.class);
-          break;
+      Class<?> valueClass = getValueClass(columnDataTypes.get(i));
+      List<String> getterExprs = classToGetterExprs.get(valueClass);
+      if (getterExprs == null) {
+        getterExprs = new ArrayList<String>();
+        classToGetterExprs.put(valueClass, getterExprs);
       }
-      getters.add(getter);
+      valueIndexes[i] = getterExprs.size();
+      getterExprs.add(expressions.get(i));
     }
+    booleanVals = new boolean[getValueCount(classToGetterExprs, boolean.class)];
+    charVals = new char[getValueCount(classToGetterExprs, char.class)];
+    shortVals = new short[getValueCount(classToGetterExprs, short.class)];
+    intVals = new int[getValueCount(classToGetterExprs, int.class)];
+    longVals = new long[getValueCount(classToGetterExprs, long.class)];
+    floatVals = new float[getValueCount(classToGetterExprs, float.class)];
+    doubleVals = new double[getValueCount(classToGetterExprs, double.class)];
+    stringVals = new String[getValueCount(classToGetterExprs, String.class)];
+    objectVals = new Object[getValueCount(classToGetterExprs, Object.class)];
+    recordGetter = PojoUtils.createRecordGetter(fqcn, classToGetterExprs);
+  }
 
+  private static int getValueCount(Map<Class<?>, List<String>> classToGetterExprs, Class<?> valueClass)
+  {
+    List<String> getterExprs = classToGetterExprs.get(valueClass);
+    return getterExprs == null ? 0 : getterExprs.size();
+  }
+
+  /**
+   * @return the class of the values which are bound to a column of the sql type.
+   */
+  private static Class<?> getValueClass(int type)
+  {
+    switch (type) {
+      case Types.CHAR:
+        return char.class;
+      case Types.VARCHAR:
+        return String.class;
+      case Types.BOOLEAN:
+      case Types.TINYINT:
+        return boolean.class;
+      case Types.SMALLINT:
+        return short.class;
+      case Types.INTEGER:
+        return int.class;
+      case Types.BIGINT:
+        return long.class;
+      case Types.FLOAT:
+        return float.class;
+      case Types.DOUBLE:
+        return double.class;
+      default:
+        /*
+         Types.DECIMAL
+         Types.DATE
+         Types.TIME
+         Types.ARRAY
+         Types.OTHER
+         */
+        return Object.class;
+    }
   }
 
   @Override
@@ -223,37 +251,39 @@ public class JdbcPOJOOutputOperator extends AbstractJdbcTransactionableOutputOpe
   }
 
   @Override
-  @SuppressWarnings("unchecked")
   protected void setStatementParameters(PreparedStatement statement, Object tuple) throws SQLException
   {
+    recordGetter.get(tuple, booleanVals, charVals, null, shortVals, intVals, longVals, floatVals, doubleVals,
+        stringVals, objectVals);
     final int size = columnDataTypes.size();
     for (int i = 0; i < size; i++) {
       final int type = columnDataTypes.get(i);
+      final int index = valueIndexes[i];
       switch (type) {
         case (Types.CHAR):
-          statement.setString(i + 1, ((Getter<Object, String>)getters.get(i)).get(tuple));
+          statement.setString(i + 1, String.valueOf(charVals[index]));
           break;
         case (Types.VARCHAR):
-          statement.setString(i + 1, ((Getter<Object, String>)getters.get(i)).get(tuple));
+          statement.setString(i + 1, stringVals[index]);
           break;
         case (Types.BOOLEAN):
         case (Types.TINYINT):
-          statement.setBoolean(i + 1, ((GetterBoolean<Object>)getters.get(i)).get(tuple));
+          statement.setBoolean(i + 1, booleanVals[index]);
           break;
         case (Types.SMALLINT):
-          statement.setShort(i + 1, ((GetterShort<Object>)getters.get(i)).get(tuple));
+          statement.setShort(i + 1, shortVals[index]);
           break;
         case (Types.INTEGER):
-          statement.setInt(i + 1, ((GetterInt<Object>)getters.get(i)).get(tuple));
+          statement.setInt(i + 1, intVals[index]);
           break;
         case (Types.BIGINT):
-          statement.setLong(i + 1, ((GetterLong<Object>)getters.get(i)).get(tuple));
+          statement.setLong(i + 1, longVals[index]);
           break;
         case (Types.FLOAT):
-          statement.setFloat(i + 1, ((GetterFloat<Object>)getters.get(i)).get(tuple));
+          statement.setFloat(i + 1, floatVals[index]);
           break;
         case (Types.DOUBLE):
-          statement.setDouble(i + 1, ((GetterDouble<Object>)getters.get(i)).get(tuple));
+          statement.setDouble(i + 1, doubleVals[index]);
           break;
         default:
           /*
@@ -263,7 +293,7 @@ public class JdbcPOJOOutputOperator extends AbstractJdbcTransactionableOutputOpe
            Types.ARRAY
            Types.OTHER
            */
-          statement.setObject(i + 1, ((Getter<Object, Object>)getters.get(i)).get(tuple));
+          statement.setObject(i + 1, objectVals[index]);
           break;
       }
     }
@@ -15,19 +15,35 @@
  */
 package com.datatorrent.lib.io;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.zip.CRC32;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.collect.TreeMultimap;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
 
 import com.datatorrent.api.Component;
@@ -344,6 +360,496 @@ public interface IdempotentStorageManager extends StorageAgent, Component<Contex
     }
   }
 
+  /**
+   * An {@link IdempotentStorageManager} which appends the state of every window to a write-ahead log on FS instead of
+   * saving it in a file per window.<br/>
+   * <p>
+   * Every operator appends records of its windows to its own rolling segment files and keeps an index from the window id to the
+   * segment and the offset of its record. A segment is rolled over when it reaches the segment size or the number of windows per
+   * segment. Setup rebuilds the indices of all the operators with one sequential scan of their segments, and a record that was
+   * not completely written is detected by its checksum. Committed windows are purged by deleting the segments which only contain
+   * committed windows, and a deleted window is recorded with a tombstone.
+   * </p>
+   *
+   * @since 3.0.0
+   */
+  public static class FSLogIdempotentStorageManager extends FSIdempotentStorageManager
+  {
+    private static final String DEF_LOG_RECOVERY_PATH = "idempotentLog";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final byte STATE = 1;
+    private static final byte TOMBSTONE = 2;
+    /**
+     * length of the payload, checksum of the payload, window id and type of the record.
+     */
+    private static final int HEADER_LENGTH = 4 + 4 + 8 + 1;
+
+    @Min(1)
+    private long segmentSize;
+    @Min(1)
+    private int windowsPerSegment;
+
+    private final transient Map<Integer, OperatorLog> logs;
+    private final transient CRC32 checksum;
+    private transient Kryo kryo;
+    private transient Output output;
+    private transient Segment readSegment;
+    private transient FSDataInputStream readStream;
+    /**
+     * The local file system whose raw file system is {@link #fs}.
+     */
+    private transient FileSystem localFs;
+
+    public FSLogIdempotentStorageManager()
+    {
+      recoveryPath = DEF_LOG_RECOVERY_PATH;
+      segmentSize = 16 * 1024 * 1024;
+      windowsPerSegment = 7200;
+      logs = Maps.newHashMap();
+      checksum = new CRC32();
+    }
+
+    @Override
+    public void setup(Context.OperatorContext context)
+    {
+      close();
+      logs.clear();
+      replayState.clear();
+      largestRecoveryWindow = Stateless.WINDOW_ID;
+
+      kryo = new Kryo();
+      kryo.setClassLoader(Thread.currentThread().getContextClassLoader());
+      output = new Output(4096, -1);
+      appPath = new Path(context.getValue(DAG.APPLICATION_PATH) + Path.SEPARATOR + recoveryPath);
+
+      try {
+        closeFileSystem();
+        fs = FileSystem.newInstance(appPath.toUri(), new Configuration());
+        if (fs instanceof LocalFileSystem) {
+          //records carry their own checksum, and the checksummed stream holds back partial chunks on flush
+          localFs = fs;
+          fs = ((LocalFileSystem)fs).getRawFileSystem();
+        }
+
+        if (fs.exists(appPath)) {
+          for (FileStatus operatorDirStatus : fs.listStatus(appPath)) {
+            int operatorId = Integer.parseInt(operatorDirStatus.getPath().getName());
+            OperatorLog log = getLog(operatorId);
+
+            for (FileStatus status : fs.listStatus(operatorDirStatus.getPath())) {
+              String fileName = status.getPath().getName();
+              if (fileName.endsWith(SEGMENT_SUFFIX)) {
+                long sequence = Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()), 16);
+                log.segments.add(new Segment(sequence, status.getPath()));
+              }
+            }
+            Collections.sort(log.segments);
+            for (Segment segment : log.segments) {
+              scan(log, segment);
+              log.nextSequence = segment.sequence + 1;
+            }
+
+            for (long windowId : log.windows.keySet()) {
+              replayState.put(windowId, operatorId);
+              if (windowId > largestRecoveryWindow) {
+                largestRecoveryWindow = windowId;
+              }
+            }
+          }
+        }
+      }
+      catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    /**
+     * Reads the records of a segment in order and updates the index of the operator.
+     */
+    private void scan(OperatorLog log, Segment segment) throws IOException
+    {
+      long fileLength = fs.getFileStatus(segment.path).getLen();
+      DataInputStream input = new DataInputStream(new BufferedInputStream(fs.open(segment.path)));
+      try {
+        byte[] payload = new byte[4096];
+        long offset = 0;
+        while (true) {
+          int length;
+          int payloadChecksum;
+          long windowId;
+          byte type;
+          try {
+            length = input.readInt();
+            payloadChecksum = input.readInt();
+            windowId = input.readLong();
+            type = input.readByte();
+            if (length < 0 || (type != STATE && type != TOMBSTONE)) {
+              LOG.warn("corrupt record at {} in {}", offset, segment.path);
+              break;
+            }
+            if (length > fileLength - offset - HEADER_LENGTH) {
+              //the length is checked before the payload is allocated, since the header is not covered by the checksum
+              LOG.warn("incomplete record at {} in {}", offset, segment.path);
+              break;
+            }
+            if (payload.length < length) {
+              payload = new byte[length];
+            }
+            input.readFully(payload, 0, length);
+          }
+          catch (EOFException e) {
+            if (offset < fileLength) {
+              LOG.warn("incomplete record at {} in {}", offset, segment.path);
+            }
+            break;
+          }
+          checksum.reset();
+          checksum.update(payload, 0, length);
+          if ((int)checksum.getValue() != payloadChecksum) {
+            LOG.warn("checksum mismatch of the record at {} in {}", offset, segment.path);
+            break;
+          }
+
+          if (type == STATE) {
+            log.windows.put(windowId, new Location(segment, offset + HEADER_LENGTH, length));
+          }
+          else {
+            log.windows.remove(windowId);
+          }
+          segment.lastWindow = Math.max(segment.lastWindow, windowId);
+          offset += HEADER_LENGTH + length;
+        }
+      }
+      finally {
+        input.close();
+      }
+    }
+
+    @Override
+    public void save(Object object, int operatorId, long windowId) throws IOException
+    {
+      output.clear();
+      output.setPosition(HEADER_LENGTH);
+      kryo.writeClassAndObject(output, object);
+      append(getLog(operatorId), windowId, STATE);
+    }
+
+    /**
+     * Appends the record in the output buffer, whose payload follows the space reserved for the header.
+     */
+    private void append(OperatorLog log, long windowId, byte type) throws IOException
+    {
+      if (log.out != null && (log.out.getPos() >= segmentSize || log.segmentWindows >= windowsPerSegment)) {
+        log.closeSegment();
+      }
+      if (log.out == null) {
+        long sequence = log.nextSequence++;
+        Path operatorPath = new Path(appPath, Integer.toString(log.operatorId));
+        log.current = new Segment(sequence, new Path(operatorPath, Long.toHexString(sequence) + SEGMENT_SUFFIX));
+        log.segments.add(log.current);
+        log.out = fs.create(log.current.path, false);
+        log.segmentWindows = 0;
+      }
+
+      byte[] buffer = output.getBuffer();
+      int length = output.position() - HEADER_LENGTH;
+      checksum.reset();
+      checksum.update(buffer, HEADER_LENGTH, length);
+      ByteBuffer.wrap(buffer, 0, HEADER_LENGTH).putInt(length).putInt((int)checksum.getValue()).putLong(windowId).put(type);
+
+      long offset = log.out.getPos();
+      log.out.write(buffer, 0, output.position());
+      log.out.hflush();
+      log.segmentWindows++;
+      log.current.lastWindow = Math.max(log.current.lastWindow, windowId);
+
+      if (type == STATE) {
+        log.windows.put(windowId, new Location(log.current, offset + HEADER_LENGTH, length));
+      }
+      else {
+        log.windows.remove(windowId);
+      }
+    }
+
+    @Override
+    public Object load(int operatorId, long windowId) throws IOException
+    {
+      Set<Integer> operators = replayState.get(windowId);
+      OperatorLog log = logs.get(operatorId);
+      if (operators == null || !operators.contains(operatorId) || log == null) {
+        return null;
+      }
+      Location location = log.windows.get(windowId);
+      if (location == null) {
+        return null;
+      }
+      if (readSegment != location.segment) {
+        closeReader();
+        readStream = fs.open(location.segment.path);
+        readSegment = location.segment;
+      }
+      byte[] payload = new byte[location.length];
+      readStream.readFully(location.offset, payload);
+      return kryo.readClassAndObject(new Input(payload));
+    }
+
+    /**
+     * Appends a tombstone for the window.
+     */
+    @Override
+    public void delete(int operatorId, long windowId) throws IOException
+    {
+      OperatorLog log = logs.get(operatorId);
+      if (log == null || !log.windows.containsKey(windowId)) {
+        return;
+      }
+      output.clear();
+      output.setPosition(HEADER_LENGTH);
+      append(log, windowId, TOMBSTONE);
+    }
+
+    @Override
+    public long[] getWindowIds(int operatorId) throws IOException
+    {
+      OperatorLog log = logs.get(operatorId);
+      if (log == null || log.windows.isEmpty()) {
+        return null;
+      }
+      long[] windowIds = new long[log.windows.size()];
+      int i = 0;
+      for (long windowId : log.windows.keySet()) {
+        windowIds[i++] = windowId;
+      }
+      return windowIds;
+    }
+
+    /**
+     * This deletes the segments which only contain windows <= windowId.
+     *
+     * @param operatorId operator id.
+     * @param windowId   the largest window id for which the states will be deleted.
+     * @throws IOException
+     */
+    @Override
+    public void deleteUpTo(int operatorId, long windowId) throws IOException
+    {
+      purge(operatorId, windowId);
+
+      if (deletedOperators != null) {
+        Iterator<Integer> deletedIterator = deletedOperators.iterator();
+        while (deletedIterator.hasNext()) {
+          int deletedOperator = deletedIterator.next();
+          purge(deletedOperator, windowId);
+          OperatorLog log = logs.get(deletedOperator);
+          if (log == null || log.segments.isEmpty()) {
+            //The operator was deleted and it has nothing to replay.
+            deletedIterator.remove();
+            logs.remove(deletedOperator);
+            fs.delete(new Path(appPath, Integer.toString(deletedOperator)), true);
+          }
+        }
+      }
+
+      Iterator<Long> windowsIterator = replayState.keySet().iterator();
+      while (windowsIterator.hasNext() && windowsIterator.next() <= windowId) {
+        windowsIterator.remove();
+      }
+    }
+
+    private void purge(int operatorId, long windowId) throws IOException
+    {
+      OperatorLog log = logs.get(operatorId);
+      if (log == null) {
+        return;
+      }
+      Iterator<Segment> segmentsIterator = log.segments.iterator();
+      while (segmentsIterator.hasNext()) {
+        Segment segment = segmentsIterator.next();
+        if (segment.lastWindow > windowId) {
+          continue;
+        }
+        if (segment == log.current) {
+          log.closeSegment();
+        }
+        if (segment == readSegment) {
+          closeReader();
+        }
+        fs.delete(segment.path, false);
+        segmentsIterator.remove();
+      }
+      //windows <= windowId which remain in a segment with later windows are never replayed
+      log.windows.headMap(windowId, true).clear();
+    }
+
+    @Override
+    public void partitioned(Collection<IdempotentStorageManager> newManagers, Set<Integer> removedOperatorIds)
+    {
+      super.partitioned(newManagers, removedOperatorIds);
+      for (IdempotentStorageManager storageManager : newManagers) {
+        FSLogIdempotentStorageManager lmanager = (FSLogIdempotentStorageManager) storageManager;
+        lmanager.segmentSize = this.segmentSize;
+        lmanager.windowsPerSegment = this.windowsPerSegment;
+      }
+    }
+
+    @Override
+    public void teardown()
+    {
+      close();
+      try {
+        closeFileSystem();
+      }
+      catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    /**
+     * Closes the file system, through the local file system which wraps it when there is one.
+     */
+    private void closeFileSystem() throws IOException
+    {
+      FileSystem outer = localFs != null ? localFs : fs;
+      localFs = null;
+      fs = null;
+      if (outer != null) {
+        outer.close();
+      }
+    }
+
+    private void close()
+    {
+      try {
+        for (OperatorLog log : logs.values()) {
+          log.closeSegment();
+        }
+        closeReader();
+      }
+      catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    private void closeReader() throws IOException
+    {
+      if (readStream != null) {
+        readStream.close();
+        readStream = null;
+        readSegment = null;
+      }
+    }
+
+    private OperatorLog getLog(int operatorId)
+    {
+      OperatorLog log = logs.get(operatorId);
+      if (log == null) {
+        log = new OperatorLog(operatorId);
+        logs.put(operatorId, log);
+      }
+      return log;
+    }
+
+    public long getSegmentSize()
+    {
+      return segmentSize;
+    }
+
+    /**
+     * Sets the size in bytes after which a segment is rolled over.
+     *
+     * @param segmentSize size of a segment in bytes.
+     */
+    public void setSegmentSize(long segmentSize)
+    {
+      this.segmentSize = segmentSize;
+    }
+
+    public int getWindowsPerSegment()
+    {
+      return windowsPerSegment;
+    }
+
+    /**
+     * Sets the number of windows after which a segment is rolled over. Committed windows are purged a segment at a time,
+     * so this bounds the number of committed windows which are kept.
+     *
+     * @param windowsPerSegment number of windows in a segment.
+     */
+    public void setWindowsPerSegment(int windowsPerSegment)
+    {
+      this.windowsPerSegment = windowsPerSegment;
+    }
+
+    @Override
+    public FSLogIdempotentStorageManager newInstance()
+    {
+      return new FSLogIdempotentStorageManager();
+    }
+
+    /**
+     * Segments and index of the windows of an operator.
+     */
+    private static class OperatorLog
+    {
+      final int operatorId;
+      final List<Segment> segments = new ArrayList<Segment>();
+      final TreeMap<Long, Location> windows = new TreeMap<Long, Location>();
+      long nextSequence;
+      Segment current;
+      FSDataOutputStream out;
+      int segmentWindows;
+
+      OperatorLog(int operatorId)
+      {
+        this.operatorId = operatorId;
+      }
+
+      void closeSegment() throws IOException
+      {
+        if (out != null) {
+          out.close();
+          out = null;
+          current = null;
+        }
+      }
+    }
+
+    private static class Segment implements Comparable<Segment>
+    {
+      final long sequence;
+      final Path path;
+      long lastWindow = Long.MIN_VALUE;
+
+      Segment(long sequence, Path path)
+      {
+        this.sequence = sequence;
+        this.path = path;
+      }
+
+      @Override
+      public int compareTo(Segment segment)
+      {
+        return sequence < segment.sequence ? -1 : (sequence == segment.sequence ? 0 : 1);
+      }
+    }
+
+    private static class Location
+    {
+      final Segment segment;
+      final long offset;
+      final int length;
+
+      Location(Segment segment, long offset, int length)
+      {
+        this.segment = segment;
+        this.offset = offset;
+        this.length = length;
+      }
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(FSLogIdempotentStorageManager.class);
+  }
+
   /**
    * This {@link IdempotentStorageManager} will never do recovery. This is a convenience class so that operators
    * can use the same logic for maintaining idempotency and avoiding idempotency.
@@ -19,7 +19,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import com.esotericsoftware.kryo.Kryo;
@@ -39,6 +45,7 @@ import com.datatorrent.lib.counters.BasicCounters;
 import com.datatorrent.api.*;
 
 import com.datatorrent.common.util.BaseOperator;
+import com.datatorrent.common.util.NameableThreadFactory;
 
 /**
  * AbstractBlockReader processes a block of data from a stream.<br/>
@@ -56,6 +63,13 @@ import com.datatorrent.common.util.BaseOperator;
  * {@link #maxReaders}: Maximum number of readers when dynamic partitioning is on.<br/>
  * {@link #minReaders}: Minimum number of readers when dynamic partitioning is on.<br/>
  * {@link #intervalMillis}: interval at which stats are processed by the block reader.<br/>
+ * {@link #prefetchBlocks}: number of received blocks which are fetched in the background while a block is parsed.<br/>
+ * {@link #maxPrefetchBytes}: maximum bytes of the blocks which are fetched in the background.<br/>
+ *
+ * <p/>
+ * When prefetching is enabled, received blocks are queued and the next {@link #prefetchBlocks} blocks are read into
+ * memory by a background thread while the block at the head of the queue is parsed. Records are always emitted by the
+ * operator thread and all the blocks received in a window are processed before the window ends.
  *
  * <p/>
  * It emits a {@link ReaderRecord} which wraps the record and the block id of the record.
@@ -116,6 +130,25 @@ public abstract class AbstractBlockReader<R, B extends BlockMetadata, STREAM ext
   protected transient long lastBlockOpenTime;
   protected transient boolean consecutiveBlock;
 
+  /**
+   * Number of blocks that are fetched ahead. Default : 0 which disables prefetching.
+   */
+  @Min(0)
+  protected int prefetchBlocks;
+  /**
+   * Maximum bytes of the blocks which are fetched ahead. Default : 256MB
+   */
+  @Min(1)
+  protected long maxPrefetchBytes;
+
+  private transient ExecutorService prefetcher;
+  private transient Deque<PrefetchedBlock<B>> prefetchQueue;
+  private transient long prefetchedBytes;
+  /**
+   * Bytes of the block being read when they were fetched ahead; null otherwise.
+   */
+  protected transient byte[] prefetchedData;
+
   public final transient DefaultOutputPort<B> blocksMetadataOutput = new DefaultOutputPort<B>();
   public final transient DefaultOutputPort<ReaderRecord<R>> messages = new DefaultOutputPort<ReaderRecord<R>>();
 
@@ -124,7 +157,12 @@ public abstract class AbstractBlockReader<R, B extends BlockMetadata, STREAM ext
     @Override
     public void process(B block)
     {
-      processBlockMetadata(block);
+      if (prefetchQueue != null) {
+        queueBlock(block);
+      }
+      else {
+        processBlockMetadata(block);
+      }
     }
   };
 
@@ -139,6 +177,7 @@ public abstract class AbstractBlockReader<R, B extends BlockMetadata, STREAM ext
     counters = new BasicCounters<MutableLong>(MutableLong.class);
     collectStats = true;
     lastBlockOpenTime = -1;
+    maxPrefetchBytes = 256 * 1024 * 1024L;
   }
 
   @Override
@@ -153,6 +192,23 @@ public abstract class AbstractBlockReader<R, B extends BlockMetadata, STREAM ext
     counters.setCounter(ReaderCounterKeys.BYTES, new MutableLong());
     counters.setCounter(ReaderCounterKeys.TIME, new MutableLong());
     sleepTimeMillis = context.getValue(Context.OperatorContext.SPIN_MILLIS);
+    if (prefetchBlocks > 0 && !isPrefetchSupported()) {
+      LOG.warn("{}: prefetching is not supported by {}, blocks are read without prefetching", operatorId,
+        getClass().getName());
+    }
+    else if (prefetchBlocks > 0) {
+      prefetchQueue = new ArrayDeque<PrefetchedBlock<B>>();
+      prefetcher = Executors.newSingleThreadExecutor(new NameableThreadFactory("Block-Prefetcher-" + operatorId));
+    }
+  }
+
+  @Override
+  public void teardown()
+  {
+    if (prefetcher != null) {
+      prefetcher.shutdownNow();
+    }
+    super.teardown();
   }
 
   @Override
@@ -165,6 +221,11 @@ public abstract class AbstractBlockReader<R, B extends BlockMetadata, STREAM ext
   @Override
   public void handleIdleTime()
   {
+    if (prefetchQueue != null && !prefetchQueue.isEmpty()) {
+      //no more blocks are coming in right now, so parse the queued ones
+      processQueuedBlock();
+      return;
+    }
     if (lastProcessedBlock != null && System.currentTimeMillis() - lastBlockOpenTime > intervalMillis) {
       try {
         teardownStream(lastProcessedBlock);
@@ -188,6 +249,11 @@ public abstract class AbstractBlockReader<R, B extends BlockMetadata, STREAM ext
   @Override
   public void endWindow()
   {
+    if (prefetchQueue != null) {
+      while (!prefetchQueue.isEmpty()) {
+        processQueuedBlock();
+      }
+    }
     counters.getCounter(ReaderCounterKeys.BLOCKS).add(blocksPerWindow);
     context.setCounters(counters);
   }
@@ -228,6 +294,118 @@ public abstract class AbstractBlockReader<R, B extends BlockMetadata, STREAM ext
     }
   }
 
+  /**
+   * Queues a block and processes the head of the queue when more than {@link #prefetchBlocks} are queued.
+   */
+  private void queueBlock(B block)
+  {
+    prefetchQueue.add(new PrefetchedBlock<B>(block));
+    startPrefetches();
+    while (prefetchQueue.size() > prefetchBlocks) {
+      processQueuedBlock();
+    }
+  }
+
+  /**
+   * Starts fetching the queued blocks in order as long as they fit in {@link #maxPrefetchBytes}.
+   */
+  private void startPrefetches()
+  {
+    for (final PrefetchedBlock<B> queued : prefetchQueue) {
+      if (queued.data != null) {
+        continue;
+      }
+      long blockLength = queued.block.getLength() - queued.block.getOffset();
+      if (blockLength > Integer.MAX_VALUE || prefetchedBytes + blockLength > maxPrefetchBytes) {
+        break;
+      }
+      prefetchedBytes += blockLength;
+      queued.length = blockLength;
+      queued.data = prefetcher.submit(new Callable<byte[]>()
+      {
+        @Override
+        public byte[] call() throws Exception
+        {
+          return fetchBlock(queued.block);
+        }
+      });
+    }
+  }
+
+  private void processQueuedBlock()
+  {
+    PrefetchedBlock<B> queued = prefetchQueue.poll();
+    if (queued.data != null) {
+      try {
+        prefetchedData = queued.data.get();
+      }
+      catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      catch (ExecutionException e) {
+        throw new RuntimeException("prefetching block " + queued.block.getBlockId(), e.getCause());
+      }
+      finally {
+        prefetchedBytes -= queued.length;
+      }
+    }
+    try {
+      processBlockMetadata(queued.block);
+    }
+    finally {
+      prefetchedData = null;
+    }
+    startPrefetches();
+  }
+
+  /**
+   * Reads the bytes of a block. This is called by the prefetch thread so it should not modify the state of the
+   * operator. By default it opens a new stream of the block with {@link #setupStream(BlockMetadata)}.
+   *
+   * @param block block
+   * @return bytes of the block
+   * @throws IOException
+   */
+  protected byte[] fetchBlock(B block) throws IOException
+  {
+    STREAM fetchStream = setupStream(block);
+    try {
+      byte[] data = new byte[(int) (block.getLength() - block.getOffset())];
+      fetchStream.readFully(block.getOffset(), data, 0, data.length);
+      return data;
+    }
+    finally {
+      fetchStream.close();
+    }
+  }
+
+  /**
+   * Readers which support prefetching override this and {@link #createPrefetchedStream}. When prefetching is
+   * configured for a reader which doesn't support it, the blocks are read without prefetching.
+   *
+   * @return whether the reader supports prefetching. False by default.
+   */
+  protected boolean isPrefetchSupported()
+  {
+    return false;
+  }
+
+  /**
+   * Creates a stream which serves the reads within the block from the prefetched bytes and the other reads from the
+   * stream of the block. Readers which support prefetching should override this. By default the stream of the block
+   * is returned, so the prefetched bytes are not used.
+   *
+   * @param stream        stream of the block
+   * @param blockMetadata block
+   * @param data          prefetched bytes of the block
+   * @return stream over the prefetched bytes.
+   * @throws IOException
+   */
+  protected STREAM createPrefetchedStream(STREAM stream, BlockMetadata blockMetadata, byte[] data) throws IOException
+  {
+    return stream;
+  }
+
   /**
    * Override this if you want to change how much of the block is read.
    *
@@ -236,13 +414,18 @@ public abstract class AbstractBlockReader<R, B extends BlockMetadata, STREAM ext
    */
   protected void readBlock(BlockMetadata blockMetadata) throws IOException
   {
-    readerContext.initialize(stream, blockMetadata, consecutiveBlock);
+    if (prefetchedData != null) {
+      readerContext.initialize(createPrefetchedStream(stream, blockMetadata, prefetchedData), blockMetadata, consecutiveBlock);
+    }
+    else {
+      readerContext.initialize(stream, blockMetadata, consecutiveBlock);
+    }
     ReaderContext.Entity entity;
     while ((entity = readerContext.next()) != null) {
 
       counters.getCounter(ReaderCounterKeys.BYTES).add(entity.getUsedBytes());
 
-      R record = convertToRecord(entity.getRecord());
+      R record = convertToRecord(entity.getRecordBuffer(), entity.getRecordOffset(), entity.getRecordLength());
 
       //If the record is partial then ignore the record.
       if (record != null) {
@@ -450,6 +633,26 @@ public abstract class AbstractBlockReader<R, B extends BlockMetadata, STREAM ext
    */
   protected abstract R convertToRecord(byte[] bytes);
 
+  /**
+   * Converts a slice of a buffer to record. The buffer can be reused by the {@link ReaderContext} once this returns,
+   * so the record should not refer to it.<br/>
+   * By default the slice is copied when it is not the whole buffer and {@link #convertToRecord(byte[])} is called.
+   * A buffer which holds exactly the record is owned by the record, since reader contexts never reuse such a buffer.
+   * Override this to convert the record without copying.
+   *
+   * @param buffer buffer
+   * @param offset offset of the record in the buffer
+   * @param length length of the record
+   * @return record
+   */
+  protected R convertToRecord(byte[] buffer, int offset, int length)
+  {
+    if (buffer == null || (offset == 0 && length == buffer.length)) {
+      return convertToRecord(buffer);
+    }
+    return convertToRecord(Arrays.copyOfRange(buffer, offset, offset + length));
+  }
+
   /**
    * Sets the maximum number of block readers.
    *
@@ -520,6 +723,43 @@ public abstract class AbstractBlockReader<R, B extends BlockMetadata, STREAM ext
     return intervalMillis;
   }
 
+  /**
+   * Sets the number of blocks which are fetched in the background while a block is parsed. 0 disables prefetching.
+   *
+   * @param prefetchBlocks number of blocks to fetch ahead.
+   */
+  public void setPrefetchBlocks(int prefetchBlocks)
+  {
+    this.prefetchBlocks = prefetchBlocks;
+  }
+
+  /**
+   * @return number of blocks which are fetched ahead.
+   */
+  public int getPrefetchBlocks()
+  {
+    return prefetchBlocks;
+  }
+
+  /**
+   * Sets the maximum bytes of the blocks which are fetched in the background. A block larger than this is read
+   * directly from the stream.
+   *
+   * @param maxPrefetchBytes maximum bytes of prefetched blocks.
+   */
+  public void setMaxPrefetchBytes(long maxPrefetchBytes)
+  {
+    this.maxPrefetchBytes = maxPrefetchBytes;
+  }
+
+  /**
+   * @return maximum bytes of prefetched blocks.
+   */
+  public long getMaxPrefetchBytes()
+  {
+    return maxPrefetchBytes;
+  }
+
   public void setReaderContext(ReaderContext<STREAM> readerContext)
   {
     this.readerContext = readerContext;
@@ -571,6 +811,21 @@ public abstract class AbstractBlockReader<R, B extends BlockMetadata, STREAM ext
 
   }
 
+  /**
+   * A queued block and its prefetched bytes.
+   */
+  private static class PrefetchedBlock<B extends BlockMetadata>
+  {
+    final B block;
+    Future<byte[]> data;
+    long length;
+
+    PrefetchedBlock(B block)
+    {
+      this.block = block;
+    }
+  }
+
   public static enum ReaderCounterKeys
   {
     RECORDS, BLOCKS, BYTES, TIME
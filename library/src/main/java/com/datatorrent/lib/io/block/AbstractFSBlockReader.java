@@ -15,12 +15,16 @@
  */
 package com.datatorrent.lib.io.block;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PositionedReadable;
+import org.apache.hadoop.fs.Seekable;
 
 import com.datatorrent.api.Context;
 import com.datatorrent.api.StatsListener;
@@ -69,6 +73,19 @@ public abstract class AbstractFSBlockReader<R> extends AbstractBlockReader<R, Bl
     return fs.open(new Path(block.getFilePath()));
   }
 
+  @Override
+  protected boolean isPrefetchSupported()
+  {
+    return true;
+  }
+
+  @Override
+  protected FSDataInputStream createPrefetchedStream(FSDataInputStream stream, BlockMetadata blockMetadata, byte[] data)
+    throws IOException
+  {
+    return new FSDataInputStream(new PrefetchedInputStream(stream, blockMetadata.getOffset(), data));
+  }
+
   /**
    * Override this method to change the FileSystem instance that is used by the operator.
    *
@@ -108,4 +125,97 @@ public abstract class AbstractFSBlockReader<R> extends AbstractBlockReader<R, Bl
       this.readerContext = new ReaderContext.ReadAheadLineReaderContext<FSDataInputStream>();
     }
   }
+
+  /**
+   * Serves the reads within a block from its prefetched bytes and the reads outside of the block from the stream of
+   * the file.
+   */
+  static class PrefetchedInputStream extends InputStream implements Seekable, PositionedReadable
+  {
+    private final FSDataInputStream stream;
+    private final long start;
+    private final byte[] data;
+    private long position;
+
+    PrefetchedInputStream(FSDataInputStream stream, long start, byte[] data)
+    {
+      this.stream = stream;
+      this.start = start;
+      this.data = data;
+      this.position = start;
+    }
+
+    @Override
+    public int read(long pos, byte[] buffer, int offset, int length) throws IOException
+    {
+      if (pos >= start && pos < start + data.length) {
+        int bytesToRead = Math.min(length, (int) (start + data.length - pos));
+        System.arraycopy(data, (int) (pos - start), buffer, offset, bytesToRead);
+        return bytesToRead;
+      }
+      return stream.read(pos, buffer, offset, length);
+    }
+
+    @Override
+    public void readFully(long pos, byte[] buffer, int offset, int length) throws IOException
+    {
+      int read = 0;
+      while (read < length) {
+        int bytesRead = read(pos + read, buffer, offset + read, length - read);
+        if (bytesRead < 0) {
+          throw new EOFException("end of file reached before reading fully");
+        }
+        read += bytesRead;
+      }
+    }
+
+    @Override
+    public void readFully(long pos, byte[] buffer) throws IOException
+    {
+      readFully(pos, buffer, 0, buffer.length);
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+      byte[] single = new byte[1];
+      return read(single, 0, 1) <= 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException
+    {
+      int bytesRead = read(position, buffer, offset, length);
+      if (bytesRead > 0) {
+        position += bytesRead;
+      }
+      return bytesRead;
+    }
+
+    @Override
+    public void seek(long pos) throws IOException
+    {
+      position = pos;
+    }
+
+    @Override
+    public long getPos() throws IOException
+    {
+      return position;
+    }
+
+    @Override
+    public boolean seekToNewSource(long targetPos) throws IOException
+    {
+      return false;
+    }
+
+    /**
+     * The stream of the file is closed by the reader.
+     */
+    @Override
+    public void close() throws IOException
+    {
+    }
+  }
 }
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.io.block;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.validation.constraints.Min;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.Path;
+
+import com.datatorrent.api.StatsListener;
+
+/**
+ * An {@link AbstractFSBlockReader} which memory maps the blocks of local files.<br/>
+ * When the file system of a block is local ("file" scheme), the range of every block is mapped with
+ * {@link java.nio.channels.FileChannel#map} and the {@link ReaderContext} reads from the mapped region instead of
+ * issuing a system call for each read.<br/>
+ * The {@link ReaderContext}s and the records of byte arrays copy the bytes of every record once out of the mapped
+ * region. {@link FSMappedByteBufferReader} emits views of the mapped block instead, which are not copied. Other
+ * subclasses can get such views from {@link MappedFileInputStream#getByteBuffer(long, int)} of
+ * {@link #getMappedStream()}.<br/>
+ * Blocks of files on other file systems are read through the stream of the file system.
+ *
+ * @param <R> type of record
+ *
+ * @since 3.0.0
+ */
+@StatsListener.DataQueueSize
+public abstract class AbstractFSMappedBlockReader<R> extends AbstractFSBlockReader<R>
+{
+  /**
+   * Minimum number of bytes that are mapped when a read falls outside of the mapped block.
+   */
+  @Min(1)
+  protected int minMapSize = 1024 * 1024;
+
+  @Override
+  protected FSDataInputStream setupStream(BlockMetadata.FileBlockMetadata block) throws IOException
+  {
+    Path path = fs.makeQualified(new Path(block.getFilePath()));
+    if (!"file".equals(path.toUri().getScheme())) {
+      return super.setupStream(block);
+    }
+    return new FSDataInputStream(new MappedFileInputStream(new File(path.toUri()), minMapSize));
+  }
+
+  @Override
+  protected void readBlock(BlockMetadata blockMetadata) throws IOException
+  {
+    MappedFileInputStream mappedStream = getMappedStream();
+    if (mappedStream != null) {
+      mappedStream.map(blockMetadata.getOffset(), blockMetadata.getLength() - blockMetadata.getOffset());
+    }
+    super.readBlock(blockMetadata);
+  }
+
+  /**
+   * @return the mapped stream of the current block; null when the block is not on the local file system.
+   */
+  public MappedFileInputStream getMappedStream()
+  {
+    if (stream != null && stream.getWrappedStream() instanceof MappedFileInputStream) {
+      return (MappedFileInputStream) stream.getWrappedStream();
+    }
+    return null;
+  }
+
+  /**
+   * Sets the minimum number of bytes that are mapped when a read falls outside of the mapped block.
+   *
+   * @param minMapSize minimum size of mapped region.
+   */
+  public void setMinMapSize(int minMapSize)
+  {
+    this.minMapSize = minMapSize;
+  }
+
+  /**
+   * @return minimum size of mapped region.
+   */
+  public int getMinMapSize()
+  {
+    return minMapSize;
+  }
+
+  /**
+   * An {@link AbstractFSMappedBlockReader} which reads lines from the block using {@link ReaderContext.LineReaderContext}
+   *
+   * @param <R> type of records
+   */
+  public static abstract class AbstractFSMappedLineReader<R> extends AbstractFSMappedBlockReader<R>
+  {
+    public AbstractFSMappedLineReader()
+    {
+      super();
+      this.readerContext = new ReaderContext.LineReaderContext<FSDataInputStream>();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.io.block;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+
+import com.datatorrent.api.StatsListener;
+
+/**
+ * An {@link AbstractFSMappedBlockReader} which emits fixed-size records as {@link ByteBuffer}s.<br/>
+ * The records of blocks on the local file system are read-only views of the mapped block, so the bytes are not copied
+ * by the reader. The views keep the mapped region alive until they are garbage collected. They are not meant to be
+ * serialized, so the operators which consume them should be deployed in the same container as the reader.<br/>
+ * The length of the records is the length of the {@link ReaderContext.FixedBytesReaderContext}. Blocks of files on
+ * other file systems, or when the reader context is replaced, are read through the reader context and every record
+ * wraps the array which was read.
+ *
+ * @category Input
+ * @tags fs
+ *
+ * @since 3.0.0
+ */
+@StatsListener.DataQueueSize
+public class FSMappedByteBufferReader extends AbstractFSMappedBlockReader<ByteBuffer>
+{
+  public FSMappedByteBufferReader()
+  {
+    super();
+    this.readerContext = new ReaderContext.FixedBytesReaderContext<FSDataInputStream>();
+  }
+
+  @Override
+  protected void readBlock(BlockMetadata blockMetadata) throws IOException
+  {
+    MappedFileInputStream mappedStream = getMappedStream();
+    if (mappedStream == null || prefetchedData != null || !(readerContext instanceof ReaderContext.FixedBytesReaderContext)) {
+      super.readBlock(blockMetadata);
+      return;
+    }
+    mappedStream.map(blockMetadata.getOffset(), blockMetadata.getLength() - blockMetadata.getOffset());
+    //initializes the default record length
+    readerContext.initialize(stream, blockMetadata, consecutiveBlock);
+    int length = ((ReaderContext.FixedBytesReaderContext<FSDataInputStream>) readerContext).getLength();
+
+    long offset = blockMetadata.getOffset();
+    while (offset < blockMetadata.getLength()) {
+      ByteBuffer record = mappedStream.getByteBuffer(offset, (int) Math.min(length, blockMetadata.getLength() - offset));
+      if (record == null) {
+        break;
+      }
+      offset += record.remaining();
+      counters.getCounter(ReaderCounterKeys.BYTES).add(record.remaining());
+      counters.getCounter(ReaderCounterKeys.RECORDS).increment();
+      messages.emit(new ReaderRecord<ByteBuffer>(blockMetadata.getBlockId(), record));
+    }
+  }
+
+  @Override
+  protected ByteBuffer convertToRecord(byte[] bytes)
+  {
+    return ByteBuffer.wrap(bytes);
+  }
+}
@@ -0,0 +1,222 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.io.block;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.hadoop.fs.PositionedReadable;
+import org.apache.hadoop.fs.Seekable;
+
+/**
+ * An input stream over a local file which serves the reads from a memory mapped region of the file.<br/>
+ * A region is mapped explicitly with {@link #map(long, long)}, typically the range of a block, or implicitly when a
+ * read falls outside the current region. Reads copy the bytes straight out of the mapped region without a system
+ * call. {@link #getByteBuffer(long, int)} provides a view of the file without copying, which is not used by the
+ * {@link ReaderContext}s since they read into byte arrays.<br/>
+ * It can be wrapped in an {@link org.apache.hadoop.fs.FSDataInputStream} and used wherever a hadoop stream is used.
+ *
+ * @since 3.0.0
+ */
+public class MappedFileInputStream extends InputStream implements Seekable, PositionedReadable
+{
+  private final RandomAccessFile file;
+  private final FileChannel channel;
+  private final long fileLength;
+  private final int minMapSize;
+
+  private MappedByteBuffer region;
+  private long regionStart;
+  private int regionLength;
+  private long position;
+
+  /**
+   * @param file       local file
+   * @param minMapSize minimum number of bytes that are mapped when a read falls outside the mapped region.
+   * @throws IOException
+   */
+  public MappedFileInputStream(File file, int minMapSize) throws IOException
+  {
+    this.file = new RandomAccessFile(file, "r");
+    this.channel = this.file.getChannel();
+    this.fileLength = channel.size();
+    this.minMapSize = minMapSize;
+  }
+
+  /**
+   * Maps a region of the file. The region is truncated to the end of the file and to 2GB.
+   *
+   * @param start  start position of the region.
+   * @param length length of the region.
+   * @throws IOException
+   */
+  public void map(long start, long length) throws IOException
+  {
+    region = null;
+    regionLength = 0;
+    if (start >= fileLength) {
+      return;
+    }
+    long mapLength = Math.min(Math.max(length, minMapSize), Math.min(fileLength - start, Integer.MAX_VALUE));
+    region = channel.map(FileChannel.MapMode.READ_ONLY, start, mapLength);
+    regionStart = start;
+    regionLength = (int) mapLength;
+  }
+
+  /**
+   * Ensures that the byte at the position is mapped.
+   *
+   * @return false if the position is beyond the end of file; true otherwise.
+   */
+  private boolean ensureMapped(long pos, int length) throws IOException
+  {
+    if (pos >= fileLength) {
+      return false;
+    }
+    if (region == null || pos < regionStart || pos >= regionStart + regionLength) {
+      map(pos, length);
+    }
+    return true;
+  }
+
+  /**
+   * Returns a read-only view of the file which starts at the position. The view is shorter than the length when the
+   * end of the file or the end of the mapped region is reached.
+   *
+   * @param pos    position in the file.
+   * @param length length of the view.
+   * @return view of the file; null when the position is beyond the end of file.
+   * @throws IOException
+   */
+  public ByteBuffer getByteBuffer(long pos, int length) throws IOException
+  {
+    if (!ensureMapped(pos, length)) {
+      return null;
+    }
+    int start = (int) (pos - regionStart);
+    ByteBuffer view = region.asReadOnlyBuffer();
+    view.position(start);
+    view.limit(start + Math.min(length, regionLength - start));
+    return view.slice();
+  }
+
+  @Override
+  public int read(long pos, byte[] buffer, int offset, int length) throws IOException
+  {
+    if (length == 0) {
+      return 0;
+    }
+    if (!ensureMapped(pos, length)) {
+      return -1;
+    }
+    int start = (int) (pos - regionStart);
+    int bytesToRead = Math.min(length, regionLength - start);
+    ByteBuffer view = region.duplicate();
+    view.position(start);
+    view.get(buffer, offset, bytesToRead);
+    return bytesToRead;
+  }
+
+  @Override
+  public void readFully(long pos, byte[] buffer, int offset, int length) throws IOException
+  {
+    int read = 0;
+    while (read < length) {
+      int bytesRead = read(pos + read, buffer, offset + read, length - read);
+      if (bytesRead < 0) {
+        throw new EOFException("end of file reached before reading fully");
+      }
+      read += bytesRead;
+    }
+  }
+
+  @Override
+  public void readFully(long pos, byte[] buffer) throws IOException
+  {
+    readFully(pos, buffer, 0, buffer.length);
+  }
+
+  @Override
+  public int read() throws IOException
+  {
+    if (!ensureMapped(position, minMapSize)) {
+      return -1;
+    }
+    return region.get((int) (position++ - regionStart)) & 0xff;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException
+  {
+    int bytesRead = read(position, buffer, offset, length);
+    if (bytesRead > 0) {
+      position += bytesRead;
+    }
+    return bytesRead;
+  }
+
+  @Override
+  public long skip(long n) throws IOException
+  {
+    long skipped = Math.max(0, Math.min(n, fileLength - position));
+    position += skipped;
+    return skipped;
+  }
+
+  @Override
+  public int available() throws IOException
+  {
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(0, fileLength - position));
+  }
+
+  @Override
+  public void seek(long pos) throws IOException
+  {
+    if (pos < 0 || pos > fileLength) {
+      throw new EOFException("seek position " + pos + " is out of file");
+    }
+    position = pos;
+  }
+
+  @Override
+  public long getPos() throws IOException
+  {
+    return position;
+  }
+
+  @Override
+  public boolean seekToNewSource(long targetPos) throws IOException
+  {
+    return false;
+  }
+
+  /**
+   * The mapped regions are released by the garbage collector.
+   */
+  @Override
+  public void close() throws IOException
+  {
+    region = null;
+    channel.close();
+    file.close();
+  }
+}
@@ -15,9 +15,9 @@
  */
 package com.datatorrent.lib.io.block;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.PositionedReadable;
@@ -54,27 +54,73 @@ public interface ReaderContext<STREAM extends InputStream & PositionedReadable>
 
   /**
    * Represents the total bytes used to construct the record.<br/>
-   * Used bytes can be different from the bytes in the record.
+   * Used bytes can be different from the bytes in the record.<br/>
+   * The record can be a slice of a buffer which is reused by the reader context. Such a buffer is valid only till
+   * the next entity is read. A record which spans the whole array is never reused by the reader context.
    */
   public static class Entity
   {
     private byte[] record;
+    private int recordOffset;
+    private int recordLength;
     private long usedBytes;
 
     public void clear()
     {
       record = null;
+      recordOffset = 0;
+      recordLength = 0;
       usedBytes = -1;
     }
 
+    /**
+     * @return bytes of the record. These are copied out of the buffer when the record is a slice of the buffer.
+     */
     public byte[] getRecord()
     {
-      return record;
+      if (record == null || (recordOffset == 0 && recordLength == record.length)) {
+        return record;
+      }
+      return Arrays.copyOfRange(record, recordOffset, recordOffset + recordLength);
     }
 
     public void setRecord(byte[] record)
     {
       this.record = record;
+      this.recordOffset = 0;
+      this.recordLength = record == null ? 0 : record.length;
+    }
+
+    /**
+     * Sets the record as a slice of a buffer.
+     *
+     * @param buffer buffer which contains the record.
+     * @param offset offset of the record in the buffer.
+     * @param length length of the record.
+     */
+    public void setRecord(byte[] buffer, int offset, int length)
+    {
+      this.record = buffer;
+      this.recordOffset = offset;
+      this.recordLength = length;
+    }
+
+    /**
+     * @return the buffer which contains the record, without copying.
+     */
+    public byte[] getRecordBuffer()
+    {
+      return record;
+    }
+
+    public int getRecordOffset()
+    {
+      return recordOffset;
+    }
+
+    public int getRecordLength()
+    {
+      return recordLength;
     }
 
     public long getUsedBytes()
@@ -124,7 +170,9 @@ public interface ReaderContext<STREAM extends InputStream & PositionedReadable>
     {
       if (offset < blockMetadata.getLength()) {
         Entity entity = readEntity();
-        offset += entity.usedBytes;
+        if (entity != null) {
+          offset += entity.usedBytes;
+        }
         return entity;
       }
       return null;
@@ -136,7 +184,9 @@ public interface ReaderContext<STREAM extends InputStream & PositionedReadable>
   /**
    * This reader context splits the block into entities on '\n' or '\r'.<br/>
    * It will not read ahead of the block boundary if the last entity was completely contained in the block.<br/>
-   * Any records formed using this context will need a way to validate the start of the record.
+   * Any records formed using this context will need a way to validate the start of the record.<br/>
+   * The delimiters can be changed to any set of single byte characters. The block is scanned byte by byte and a
+   * record which is contained in the read buffer is handed out as a slice of that buffer without copying.
    *
    * @param <STREAM> type of stream.
    */
@@ -146,21 +196,27 @@ public interface ReaderContext<STREAM extends InputStream & PositionedReadable>
 
     protected int bufferSize;
 
-    private final transient ByteArrayOutputStream lineBuilder;
-    private final transient ByteArrayOutputStream emptyBuilder;
-    private final transient ByteArrayOutputStream tmpBuilder;
+    /**
+     * Each of these bytes ends a line.
+     */
+    protected byte[] delimiters;
 
     private transient byte[] buffer;
-    private transient String strBuffer;
-    private transient int posInStr;
+    //position of the first byte of the buffer in the stream
+    private transient long bufferPosition;
+    //number of valid bytes in the buffer
+    private transient int bufferLength;
+    private transient boolean[] delimiterTable;
+
+    //used when a line is split across reads
+    private transient byte[] lineBuffer;
+    private transient int lineLength;
 
     public LineReaderContext()
     {
       super();
       bufferSize = 8192;
-      lineBuilder = new ByteArrayOutputStream();
-      emptyBuilder = new ByteArrayOutputStream();
-      tmpBuilder = new ByteArrayOutputStream();
+      delimiters = new byte[]{'\r', '\n'};
     }
 
     @Override
@@ -168,6 +224,14 @@ public interface ReaderContext<STREAM extends InputStream & PositionedReadable>
     {
       if (buffer == null) {
         buffer = new byte[bufferSize];
+        lineBuffer = new byte[bufferSize];
+        delimiterTable = new boolean[256];
+        for (byte delimiter : delimiters) {
+          delimiterTable[delimiter & 0xff] = true;
+        }
+      }
+      if (stream != this.stream) {
+        bufferLength = 0;
       }
       super.initialize(stream, blockMetadata, consecutiveBlock);
     }
@@ -178,69 +242,109 @@ public interface ReaderContext<STREAM extends InputStream & PositionedReadable>
       //Implemented a buffered reader instead of using java's BufferedReader because it was reading much ahead of block boundary
       //and faced issues with duplicate records. Controlling the buffer size didn't help either.
 
+      long position = offset;
       boolean foundEOL = false;
-      int bytesRead = 0;
-      long usedBytes = 0;
+      boolean reachedEOS = false;
+      lineLength = 0;
+      int sliceStart = -1;
+      int sliceLength = 0;
 
       while (!foundEOL) {
-        tmpBuilder.reset();
-        if (posInStr == 0) {
-          bytesRead = stream.read(offset + usedBytes, buffer, 0, bufferSize);
-          if (bytesRead == -1) {
-            break;
-          }
-          strBuffer = new String(buffer);
+        if (!isBuffered(position) && !fill(position)) {
+          reachedEOS = true;
+          break;
         }
-
-        while (posInStr < strBuffer.length()) {
-          char c = strBuffer.charAt(posInStr);
-          if (c != '\r' && c != '\n') {
-            tmpBuilder.write(c);
-            posInStr++;
-          }
-          else {
-            foundEOL = true;
-            break;
-          }
+        int start = (int) (position - bufferPosition);
+        int pos = start;
+        while (pos < bufferLength && !delimiterTable[buffer[pos] & 0xff]) {
+          pos++;
+        }
+        foundEOL = pos < bufferLength;
+        if (foundEOL && sliceStart == -1 && lineLength == 0) {
+          //the line is contained in the buffer
+          sliceStart = start;
+          sliceLength = pos - start;
         }
-        byte[] subLine = tmpBuilder.toByteArray();
-        usedBytes += subLine.length;
-        lineBuilder.write(subLine);
-
-        if (foundEOL) {
-          while (posInStr < strBuffer.length()) {
-            char c = strBuffer.charAt(posInStr);
-            if (c == '\r' || c == '\n') {
-              emptyBuilder.write(c);
-              posInStr++;
+        else {
+          appendToLine(start, pos - start);
+        }
+        position += pos - start;
+      }
+
+      if (foundEOL) {
+        //skip all the consecutive delimiters
+        boolean skipped = false;
+        while (!skipped) {
+          if (!isBuffered(position)) {
+            if (sliceStart != -1) {
+              //the buffer is going to be refilled
+              appendToLine(sliceStart, sliceLength);
+              sliceStart = -1;
             }
-            else {
+            if (!fill(position)) {
               break;
             }
           }
-          usedBytes += emptyBuilder.toByteArray().length;
-        }
-        else {
-          //read more bytes from the input stream
-          posInStr = 0;
+          int start = (int) (position - bufferPosition);
+          int pos = start;
+          while (pos < bufferLength && delimiterTable[buffer[pos] & 0xff]) {
+            pos++;
+          }
+          skipped = pos < bufferLength;
+          position += pos - start;
         }
       }
-      posInStr = 0;
-      //when end of stream is reached then bytesRead is -1
-      if (bytesRead == -1) {
-        lineBuilder.reset();
-        emptyBuilder.reset();
+
+      long usedBytes = position - offset;
+      if (reachedEOS && usedBytes == 0) {
         return null;
       }
       entity.clear();
-      entity.record = lineBuilder.toByteArray();
+      if (sliceStart != -1) {
+        entity.setRecord(buffer, sliceStart, sliceLength);
+      }
+      else {
+        entity.setRecord(lineBuffer, 0, lineLength);
+        if (lineLength == lineBuffer.length) {
+          //a record which is the whole array is owned by the caller, so the line buffer is handed over
+          lineBuffer = new byte[Math.max(bufferSize, 1)];
+        }
+      }
       entity.usedBytes = usedBytes;
-
-      lineBuilder.reset();
-      emptyBuilder.reset();
       return entity;
     }
 
+    private boolean isBuffered(long position)
+    {
+      return position >= bufferPosition && position < bufferPosition + bufferLength;
+    }
+
+    /**
+     * Reads bytes from the stream into the buffer starting at the given position.
+     *
+     * @return false when end of stream is reached; true otherwise.
+     */
+    private boolean fill(long position) throws IOException
+    {
+      bufferPosition = position;
+      bufferLength = 0;
+      int bytesRead = stream.read(position, buffer, 0, buffer.length);
+      if (bytesRead <= 0) {
+        return false;
+      }
+      bufferLength = bytesRead;
+      return true;
+    }
+
+    private void appendToLine(int start, int length)
+    {
+      if (lineLength + length > lineBuffer.length) {
+        lineBuffer = Arrays.copyOf(lineBuffer, Math.max(lineBuffer.length << 1, lineLength + length));
+      }
+      System.arraycopy(buffer, start, lineBuffer, lineLength, length);
+      lineLength += length;
+    }
+
     /**
      * Sets the buffer size of read.
      *
@@ -258,6 +362,24 @@ public interface ReaderContext<STREAM extends InputStream & PositionedReadable>
     {
       return this.bufferSize;
     }
+
+    /**
+     * Sets the bytes which end a line. Default delimiters are '\r' and '\n'.
+     *
+     * @param delimiters line delimiters.
+     */
+    public void setDelimiters(byte[] delimiters)
+    {
+      this.delimiters = delimiters;
+    }
+
+    /**
+     * @return the bytes which end a line.
+     */
+    public byte[] getDelimiters()
+    {
+      return delimiters;
+    }
   }
 
   /**
@@ -281,7 +403,9 @@ public interface ReaderContext<STREAM extends InputStream & PositionedReadable>
       if (!consecutiveBlock && blockMetadata.getOffset() != 0) {
         try {
           Entity entity = readEntity();
-          offset += entity.usedBytes;
+          if (entity != null) {
+            offset += entity.usedBytes;
+          }
         }
         catch (IOException e) {
           throw new RuntimeException("when reading first entity", e);
@@ -294,7 +418,9 @@ public interface ReaderContext<STREAM extends InputStream & PositionedReadable>
     {
       if (offset < blockMetadata.getLength() || (offset == blockMetadata.getLength() && !blockMetadata.isLastBlock())) {
         Entity entity = readEntity();
-        offset += entity.usedBytes;
+        if (entity != null) {
+          offset += entity.usedBytes;
+        }
         return entity;
       }
       return null;
@@ -333,7 +459,7 @@ public interface ReaderContext<STREAM extends InputStream & PositionedReadable>
       byte[] record = new byte[bytesToRead];
       stream.readFully(offset, record, 0, bytesToRead);
       entity.usedBytes = bytesToRead;
-      entity.record = record;
+      entity.setRecord(record);
 
       return entity;
     }
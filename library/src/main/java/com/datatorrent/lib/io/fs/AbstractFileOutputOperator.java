@@ -18,8 +18,14 @@ package com.datatorrent.lib.io.fs;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.annotation.Nonnull;
 import javax.validation.constraints.Min;
@@ -28,6 +34,7 @@ import javax.validation.constraints.NotNull;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import com.google.common.cache.*;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -43,6 +50,7 @@ import org.apache.hadoop.fs.permission.FsPermission;
 import com.datatorrent.lib.counters.BasicCounters;
 
 import com.datatorrent.common.util.BaseOperator;
+import com.datatorrent.common.util.NameableThreadFactory;
 import com.datatorrent.api.Context;
 import com.datatorrent.api.Context.OperatorContext;
 import com.datatorrent.api.DefaultInputPort;
@@ -225,6 +233,47 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
 
   protected long currentWindow;
 
+  /**
+   * Size in bytes of the per file write-behind buffers. When this is greater than 0, serialized tuples are appended to
+   * a buffer of their file and full buffers are written to the file streams by a dedicated writer thread. All buffers
+   * are drained in {@link #endWindow()}, which precedes every checkpoint of this operator, so the end offsets, rotation
+   * and recovery behave the same as without buffering. Default is 0, which writes every tuple in the operator thread.
+   */
+  @Min(0)
+  protected int writeBufferSize = 0;
+
+  /**
+   * The maximum number of buffers queued to the writer thread before the operator thread waits for the writer.
+   */
+  @Min(1)
+  protected int maxPendingWrites = 8;
+
+  private transient ExecutorService writer;
+  private transient Map<String, FileBuffer> fileBuffers;
+  private transient Deque<Future<Void>> pendingWrites;
+  private transient Queue<ByteBuffer> bufferPool;
+  /**
+   * Bytes of the tuple which did not fit in the write-behind buffer, kept by the default conversion for the retry.
+   */
+  private transient byte[] overflowBytes;
+
+  /**
+   * Time spent by the writer thread. Only updated by the writer thread and read after the pending writes are done.
+   */
+  private transient long writeBehindTime;
+
+  /**
+   * Active file path to length of the files which were closed by this operator. Reopening a file which is known here
+   * doesn't need any file system lookups. The entry of a file is removed when the file is opened and added again when
+   * the operator closes it.
+   */
+  private transient Map<Path, Long> fileStates;
+
+  private transient long fileStateLookups;
+  private transient long fileStateHits;
+  private transient long fileOpens;
+  private transient long fileEvictions;
+
   /**
    * This input port receives incoming tuples.
    */
@@ -302,6 +351,14 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
 
     LOG.debug("FS class {}", fs.getClass());
 
+    fileStates = Maps.newHashMap();
+    if (writeBufferSize > 0) {
+      fileBuffers = Maps.newHashMap();
+      pendingWrites = new ArrayDeque<Future<Void>>();
+      bufferPool = new ConcurrentLinkedQueue<ByteBuffer>();
+      writer = Executors.newSingleThreadExecutor(new NameableThreadFactory("File-Writer-" + context.getId()));
+    }
+
     //When an entry is removed from the cache, removal listener is notified and it closes the output stream.
     RemovalListener<String, FSFilterStreamContext> removalListener = new RemovalListener<String, FSFilterStreamContext>()
     {
@@ -317,10 +374,17 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
             String partFileName = getPartFileNamePri(filename);
 
             LOG.debug("closing {}", partFileName);
+            if (writeBufferSize > 0) {
+              flushFileBuffer(filename);
+            }
             long start = System.currentTimeMillis();
             streamContext.close();
             //filterStream.close();
             totalWritingTime += System.currentTimeMillis() - start;
+            if (notification.wasEvicted()) {
+              fileEvictions++;
+            }
+            cacheFileState(filename, partFileName);
           }
           catch (IOException e) {
             throw new RuntimeException(e);
@@ -354,9 +418,23 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
         FSDataOutputStream fsOutput;
 
         boolean sawThisFileBefore = endOffsets.containsKey(filename);
+        fileOpens++;
 
         try {
-          if (fs.exists(originalFilePath) || (alwaysWriteToTmp && fs.exists(activeFilePath))) {
+          Long knownLength = null;
+          if (sawThisFileBefore) {
+            fileStateLookups++;
+            knownLength = fileStates.remove(activeFilePath);
+          }
+
+          if (knownLength != null) {
+            //The file was closed by this operator, so it exists and its length is known.
+            fileStateHits++;
+            endOffsets.get(filename).setValue(knownLength);
+            fsOutput = fs.append(activeFilePath);
+            LOG.debug("appending to known {}", activeFilePath);
+          }
+          else if (fs.exists(originalFilePath) || (alwaysWriteToTmp && fs.exists(activeFilePath))) {
             if(sawThisFileBefore) {
               FileStatus fileStatus = fs.getFileStatus(activeFilePath);
               MutableLong endOffset = endOffsets.get(filename);
@@ -475,6 +553,7 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
             } else {
               inputStream.close();
             }
+            cacheFileState(seenFileName, seenFileNamePart);
           }
         }
       }
@@ -540,6 +619,14 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
                             new MutableLong());
     fileCounters.setCounter(Counters.TOTAL_TIME_WRITING_MILLISECONDS,
                             new MutableLong());
+    fileCounters.setCounter(Counters.TOTAL_FILE_STATE_LOOKUPS,
+                            new MutableLong());
+    fileCounters.setCounter(Counters.TOTAL_FILE_STATE_HITS,
+                            new MutableLong());
+    fileCounters.setCounter(Counters.TOTAL_FILE_OPENS,
+                            new MutableLong());
+    fileCounters.setCounter(Counters.TOTAL_FILE_EVICTIONS,
+                            new MutableLong());
   }
 
   /**
@@ -584,6 +671,15 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
     int numberOfFailures = 0;
     IOException savedException = null;
 
+    if (writeBufferSize > 0) {
+      try {
+        flushBuffers();
+      }
+      finally {
+        writer.shutdownNow();
+      }
+    }
+
     //Close all the streams you can
     Map<String, FSFilterStreamContext> openStreams = streamsCache.asMap();
     for(String seenFileName: openStreams.keySet()) {
@@ -664,12 +760,19 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
     }
 
     try {
-      FilterOutputStream fsOutput = streamsCache.get(fileName).getFilterStream();
-      byte[] tupleBytes = getBytesForTuple(tuple);
-      long start = System.currentTimeMillis();
-      fsOutput.write(tupleBytes);
-      totalWritingTime += System.currentTimeMillis() - start;
-      totalBytesWritten += tupleBytes.length;
+      int tupleLength;
+      if (writeBufferSize > 0) {
+        tupleLength = writeToBuffer(fileName, tuple);
+      }
+      else {
+        FilterOutputStream fsOutput = streamsCache.get(fileName).getFilterStream();
+        byte[] tupleBytes = getBytesForTuple(tuple);
+        long start = System.currentTimeMillis();
+        fsOutput.write(tupleBytes);
+        totalWritingTime += System.currentTimeMillis() - start;
+        tupleLength = tupleBytes.length;
+      }
+      totalBytesWritten += tupleLength;
       MutableLong currentOffset = endOffsets.get(fileName);
 
       if(currentOffset == null) {
@@ -677,7 +780,7 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
         endOffsets.put(fileName, currentOffset);
       }
 
-      currentOffset.add(tupleBytes.length);
+      currentOffset.add(tupleLength);
 
       if (rotationWindows > 0) {
         getRotationState(fileName).notEmpty = true;
@@ -704,6 +807,141 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
     }
   }
 
+  /**
+   * Appends the tuple to the write-behind buffer of the file. Full buffers are handed over to the writer thread.
+   * @param fileName The file that the tuple is written to.
+   * @param tuple The tuple.
+   * @return The number of bytes of the tuple.
+   * @throws ExecutionException
+   */
+  private int writeToBuffer(String fileName, INPUT tuple) throws ExecutionException
+  {
+    FileBuffer fileBuffer = fileBuffers.get(fileName);
+    if (fileBuffer == null) {
+      fileBuffer = new FileBuffer(streamsCache.get(fileName));
+      fileBuffers.put(fileName, fileBuffer);
+    }
+    fileBuffer.touched = true;
+    if (fileBuffer.buffer == null) {
+      fileBuffer.buffer = allocateBuffer();
+    }
+
+    int tupleLength = getBytesForTuple(tuple, fileBuffer.buffer);
+    if (tupleLength < 0) {
+      //The tuple does not fit in the remaining space so the buffer is handed over to the writer. The bytes which the
+      //default conversion already produced are reused instead of converting the tuple again.
+      byte[] tupleBytes = overflowBytes;
+      overflowBytes = null;
+      tupleLength = -tupleLength;
+      fileBuffer.submit();
+      if (tupleLength > writeBufferSize) {
+        //The tuple is larger than a buffer so it is handed over to the writer on its own.
+        ByteBuffer tupleBuffer;
+        if (tupleBytes != null) {
+          tupleBuffer = ByteBuffer.wrap(tupleBytes);
+        }
+        else {
+          tupleBuffer = ByteBuffer.allocate(tupleLength);
+          getBytesForTuple(tuple, tupleBuffer);
+          tupleBuffer.flip();
+        }
+        submitWrite(fileBuffer.streamContext, tupleBuffer, false);
+      }
+      else {
+        fileBuffer.buffer = allocateBuffer();
+        if (tupleBytes != null) {
+          fileBuffer.buffer.put(tupleBytes);
+        }
+        else {
+          getBytesForTuple(tuple, fileBuffer.buffer);
+        }
+      }
+    }
+    return tupleLength;
+  }
+
+  private ByteBuffer allocateBuffer()
+  {
+    ByteBuffer buffer = bufferPool.poll();
+    return buffer != null ? buffer : ByteBuffer.allocate(writeBufferSize);
+  }
+
+  /**
+   * Queues a buffer to the writer thread. The buffer is written from its position to its limit.
+   */
+  private void submitWrite(final FSFilterStreamContext streamContext, final ByteBuffer buffer, final boolean pooled)
+  {
+    pendingWrites.add(writer.submit(new Callable<Void>()
+    {
+      @Override
+      public Void call() throws IOException
+      {
+        long start = System.currentTimeMillis();
+        streamContext.getFilterStream().write(buffer.array(), buffer.arrayOffset() + buffer.position(),
+            buffer.remaining());
+        writeBehindTime += System.currentTimeMillis() - start;
+        if (pooled) {
+          buffer.clear();
+          bufferPool.offer(buffer);
+        }
+        return null;
+      }
+    }));
+    waitForWrites(maxPendingWrites);
+  }
+
+  /**
+   * Waits till there are at most the given number of writes pending with the writer thread.
+   */
+  private void waitForWrites(int maxPending)
+  {
+    try {
+      while (pendingWrites.size() > maxPending) {
+        pendingWrites.poll().get();
+      }
+    }
+    catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+    catch (ExecutionException e) {
+      throw new RuntimeException("writing to file failed", e.getCause());
+    }
+  }
+
+  /**
+   * Writes out the buffered bytes of a file before its stream is closed.
+   */
+  private void flushFileBuffer(String fileName)
+  {
+    FileBuffer fileBuffer = fileBuffers.remove(fileName);
+    if (fileBuffer != null) {
+      fileBuffer.submit();
+    }
+    waitForWrites(0);
+  }
+
+  /**
+   * Writes out the buffered bytes of all the files and waits for the writer thread to finish.
+   */
+  private void flushBuffers()
+  {
+    List<String> touchedFiles = Lists.newArrayList();
+    for (Map.Entry<String, FileBuffer> entry : fileBuffers.entrySet()) {
+      FileBuffer fileBuffer = entry.getValue();
+      fileBuffer.submit();
+      if (fileBuffer.touched) {
+        touchedFiles.add(entry.getKey());
+        fileBuffer.touched = false;
+      }
+    }
+    waitForWrites(0);
+
+    //Buffered tuples bypass the streams cache, so the recency of the written files is refreshed here.
+    for (String fileName : touchedFiles) {
+      streamsCache.getIfPresent(fileName);
+    }
+  }
+
   /**
    * This method rolls over to the next files.
    * @param fileName The file that you are rolling.
@@ -718,6 +956,11 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
     requestFinalize(fileName);
     counts.remove(fileName);
     streamsCache.invalidate(fileName);
+    //The rotated part is not opened again.
+    Path rotatedFilePath = getActiveFilePath(getPartFileNamePri(fileName));
+    if (rotatedFilePath != null) {
+      fileStates.remove(rotatedFilePath);
+    }
     MutableInt mi = openPart.get(fileName);
     int rotatedFileIndex = mi.getValue();
     mi.add(1);
@@ -731,6 +974,35 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
     }
   }
 
+  /**
+   * Remembers the length of a file which was closed by the operator, so that reopening it doesn't need file system
+   * lookups. The length is only known when no filter is applied, as the end offsets count the unfiltered bytes.
+   * @param fileName The name of the file.
+   * @param partFileName The name of the current part of the file.
+   */
+  private void cacheFileState(String fileName, String partFileName)
+  {
+    MutableLong endOffset = endOffsets.get(fileName);
+    Path activeFilePath = getActiveFilePath(partFileName);
+    if (filterStreamProvider == null && endOffset != null && activeFilePath != null) {
+      fileStates.put(activeFilePath, endOffset.longValue());
+    }
+  }
+
+  /**
+   * Gets the path that the operator writes a file part to.
+   * @param partFileName The name of the file part.
+   * @return The path which is written to or null if no tmp file has been assigned to the part yet.
+   */
+  private Path getActiveFilePath(String partFileName)
+  {
+    if (!alwaysWriteToTmp) {
+      return new Path(filePath + Path.SEPARATOR + partFileName);
+    }
+    String tmpFileName = fileNameToTmpName.get(partFileName);
+    return tmpFileName == null ? null : new Path(filePath + Path.SEPARATOR + tmpFileName);
+  }
+
   private RotationState getRotationState(String fileName)
   {
     RotationState rotationState = rotationStates.get(fileName);
@@ -822,6 +1094,10 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
     @Override
   public void endWindow()
   {
+    if (writeBufferSize > 0) {
+      flushBuffers();
+    }
+
     try {
       Map<String, FSFilterStreamContext> openStreams = streamsCache.asMap();
       for (FSFilterStreamContext streamContext: openStreams.values()) {
@@ -868,8 +1144,12 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
       }
     }
 
-    fileCounters.getCounter(Counters.TOTAL_TIME_WRITING_MILLISECONDS).setValue(totalWritingTime);
+    fileCounters.getCounter(Counters.TOTAL_TIME_WRITING_MILLISECONDS).setValue(totalWritingTime + writeBehindTime);
     fileCounters.getCounter(Counters.TOTAL_BYTES_WRITTEN).setValue(totalBytesWritten);
+    fileCounters.getCounter(Counters.TOTAL_FILE_STATE_LOOKUPS).setValue(fileStateLookups);
+    fileCounters.getCounter(Counters.TOTAL_FILE_STATE_HITS).setValue(fileStateHits);
+    fileCounters.getCounter(Counters.TOTAL_FILE_OPENS).setValue(fileOpens);
+    fileCounters.getCounter(Counters.TOTAL_FILE_EVICTIONS).setValue(fileEvictions);
     context.setCounters(fileCounters);
   }
 
@@ -887,6 +1167,28 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
    */
   protected abstract byte[] getBytesForTuple(INPUT tuple);
 
+  /**
+   * This method converts a tuple into bytes straight into the given write-behind buffer, starting at the
+   * position of the buffer. It is used when {@link #writeBufferSize} is set. The default implementation copies
+   * the bytes returned by {@link #getBytesForTuple(Object)}, override it to avoid creating an array per tuple.
+   * When the tuple does not fit, the operator hands the buffer over to the writer and calls this again with a buffer
+   * which has room for the required number of bytes.
+   * @param tuple A received tuple to be converted into bytes.
+   * @param buffer The buffer that the bytes are written to.
+   * @return The number of bytes written, or the negated number of bytes the tuple needs when it does not fit in the
+   * remaining space of the buffer, in which case nothing is written and the position of the buffer is left unchanged.
+   */
+  protected int getBytesForTuple(INPUT tuple, ByteBuffer buffer)
+  {
+    byte[] tupleBytes = getBytesForTuple(tuple);
+    if (tupleBytes.length > buffer.remaining()) {
+      overflowBytes = tupleBytes;
+      return -tupleBytes.length;
+    }
+    buffer.put(tupleBytes);
+    return tupleBytes.length;
+  }
+
   /**
    * Sets the path of the working directory where files are being written.
    * @param dir The path of the working directory where files are being written.
@@ -1000,6 +1302,43 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
     this.filterStreamProvider = filterStreamProvider;
   }
 
+  /**
+   * Gets the size of the per file write-behind buffers.
+   * @return The size of the write-behind buffers in bytes, 0 when write-behind is disabled.
+   */
+  public int getWriteBufferSize()
+  {
+    return writeBufferSize;
+  }
+
+  /**
+   * Sets the size of the per file write-behind buffers. When set, tuples are appended to a buffer of their file
+   * and full buffers are written by a dedicated writer thread. The buffers are drained at the end of every window.
+   * @param writeBufferSize The size of the write-behind buffers in bytes, 0 to disable write-behind.
+   */
+  public void setWriteBufferSize(int writeBufferSize)
+  {
+    this.writeBufferSize = writeBufferSize;
+  }
+
+  /**
+   * Gets the maximum number of buffers which can be queued to the writer thread.
+   * @return The maximum number of pending writes.
+   */
+  public int getMaxPendingWrites()
+  {
+    return maxPendingWrites;
+  }
+
+  /**
+   * Sets the maximum number of buffers which can be queued to the writer thread before the operator waits.
+   * @param maxPendingWrites The maximum number of pending writes.
+   */
+  public void setMaxPendingWrites(int maxPendingWrites)
+  {
+    this.maxPendingWrites = maxPendingWrites;
+  }
+
   public static enum Counters
   {
     /**
@@ -1012,7 +1351,30 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
      * An enum for counters representing the total time the operator has
      * been operational for.
      */
-    TOTAL_TIME_WRITING_MILLISECONDS
+    TOTAL_TIME_WRITING_MILLISECONDS,
+
+    /**
+     * An enum for counters representing the number of times the known file states
+     * were looked up while opening a file.
+     */
+    TOTAL_FILE_STATE_LOOKUPS,
+
+    /**
+     * An enum for counters representing the number of files which were opened
+     * without file system lookups because their state was known.
+     */
+    TOTAL_FILE_STATE_HITS,
+
+    /**
+     * An enum for counters representing the number of times a file stream was opened.
+     */
+    TOTAL_FILE_OPENS,
+
+    /**
+     * An enum for counters representing the number of file streams which were closed
+     * because the maximum number of open files was reached.
+     */
+    TOTAL_FILE_EVICTIONS
   }
 
   private class FSFilterStreamContext implements FilterStreamContext<FilterOutputStream>
@@ -1073,6 +1435,30 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
     
   }
   
+  /**
+   * The write-behind buffer of an open file.
+   */
+  private class FileBuffer
+  {
+    final FSFilterStreamContext streamContext;
+    ByteBuffer buffer;
+    boolean touched;
+
+    FileBuffer(FSFilterStreamContext streamContext)
+    {
+      this.streamContext = streamContext;
+    }
+
+    void submit()
+    {
+      if (buffer != null && buffer.position() > 0) {
+        buffer.flip();
+        submitWrite(streamContext, buffer, true);
+        buffer = null;
+      }
+    }
+  }
+
   private static class NonCloseableFilterOutputStream extends FilterOutputStream 
   {
     public NonCloseableFilterOutputStream(OutputStream out)
@@ -1137,6 +1523,8 @@ public abstract class AbstractFileOutputOperator<INPUT> extends BaseOperator imp
     }
     endOffsets.remove(fileName);
     fileNameToTmpName.remove(fileName);
+    fileStates.remove(srcPath);
+    fileStates.remove(destPath);
 
     //when writing to tmp files there can be vagrant tmp files which we have to clean
     FileStatus[] statuses = fs.listStatus(new Path(filePath));
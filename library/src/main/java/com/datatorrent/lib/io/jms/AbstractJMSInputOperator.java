@@ -17,6 +17,7 @@ package com.datatorrent.lib.io.jms;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -30,6 +31,10 @@ import org.apache.commons.lang.mutable.MutableLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -39,9 +44,11 @@ import com.datatorrent.api.DefaultOutputPort;
 import com.datatorrent.api.InputOperator;
 import com.datatorrent.api.Operator;
 import com.datatorrent.api.Operator.ActivationListener;
+import com.datatorrent.api.StreamCodec;
 import com.datatorrent.api.annotation.OperatorAnnotation;
 
 import com.datatorrent.netlet.util.DTThrowable;
+import com.datatorrent.netlet.util.Slice;
 import com.datatorrent.lib.counters.BasicCounters;
 import com.datatorrent.lib.io.IdempotentStorageManager;
 
@@ -57,9 +64,19 @@ import com.datatorrent.lib.io.IdempotentStorageManager;
  * well as idempotent. If {@link IdempotentStorageManager.NoopIdempotentStorageManager} is set on the operator then
  * it will not be fault-tolerant as well.
  * <p/>
+ * By default the payloads of a window are kept in a map which is saved as a whole at the end of the window. When a
+ * {@link #setRecoveryCodec(StreamCodec) recoveryCodec} is set, every payload is encoded with it into an append-only
+ * buffer as soon as it is processed, so the end of the window only writes the buffer and acknowledges the messages.
+ * <p/>
+ * A queue can be consumed by more than one session of the same connection, see {@link #setNumSessions(int)}. Every session
+ * has its own consumer, holding buffer and acknowledgement state. {@link #emitTuples()} takes messages from the buffers
+ * in turn and every session is acknowledged at the end of the window.
+ * <p/>
  * Configurations:<br/>
  * <b>bufferSize</b>: Controls the holding buffer size.<br/>
  * <b>consumerName</b>: Name that identifies the subscription.<br/>
+ * <b>recoveryCodec</b>: Codec of the payloads which are saved for recovery.<br/>
+ * <b>numSessions</b>: Number of sessions which consume the queue concurrently.<br/>
  *
  * @param <T> type of tuple emitted
  * @displayName Abstract JMS Input
@@ -77,19 +94,35 @@ public abstract class AbstractJMSInputOperator<T> extends JMSBase implements Inp
   @Min(1)
   protected int bufferSize = DEFAULT_BUFFER_SIZE;
   private String consumerName;
+  private StreamCodec<T> recoveryCodec;
+  @Min(1)
+  private int numSessions = 1;
 
   protected transient ArrayBlockingQueue<Message> holdingBuffer;
   protected final transient Map<String, T> currentWindowRecoveryState;
+  /**
+   * Message ids and encoded payloads of the current window when there is a recovery codec.
+   */
+  private final transient Output currentWindowRecoveryBuffer;
 
   protected transient Message lastMsg;
 
   private transient MessageProducer replyProducer;
   private transient MessageConsumer consumer;
+  /**
+   * Sessions after the first one, which is the session of {@link JMSBase}.
+   */
+  private final transient List<ConsumerSession> additionalSessions;
 
   @NotNull
   private final BasicCounters<MutableLong> counters;
   private transient Context.OperatorContext context;
   private transient long spinMillis;
+  /**
+   * Set while the recovery state of a window is saved and the messages are acknowledged, the JMS threads wait on
+   * {@link #lock} for it to be cleared before consuming a message.
+   */
+  private transient boolean consumptionPaused;
 
   private final transient AtomicReference<Throwable> throwable;
 
@@ -112,10 +145,20 @@ public abstract class AbstractJMSInputOperator<T> extends JMSBase implements Inp
     idempotentStorageManager = new IdempotentStorageManager.FSIdempotentStorageManager();
 
     lock = new Lock();
+    additionalSessions = Lists.newArrayList();
 
     //Recovery state is a linked hash map to maintain the order of tuples.
     currentWindowRecoveryState = Maps.newLinkedHashMap();
-    holdingBuffer = new ArrayBlockingQueue<Message>(bufferSize)
+    currentWindowRecoveryBuffer = new Output(4096, -1);
+    holdingBuffer = newHoldingBuffer(bufferSize);
+  }
+
+  /**
+   * Creates a holding buffer which checks every message with {@link #messageConsumed(Message)} before adding it.
+   */
+  private ArrayBlockingQueue<Message> newHoldingBuffer(int capacity)
+  {
+    return new ArrayBlockingQueue<Message>(capacity)
     {
       private static final long serialVersionUID = 201411151139L;
 
@@ -125,8 +168,15 @@ public abstract class AbstractJMSInputOperator<T> extends JMSBase implements Inp
       {
         synchronized (lock) {
           try {
+            while (consumptionPaused) {
+              lock.wait();
+            }
             return messageConsumed(message) && super.add(message);
           }
+          catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+          }
           catch (JMSException e) {
             LOG.error("message consumption", e);
             throwable.set(e);
@@ -151,15 +201,21 @@ public abstract class AbstractJMSInputOperator<T> extends JMSBase implements Inp
   }
 
   /**
-   * If getJMSReplyTo is set then send message back to reply producer.
+   * If getJMSReplyTo is set then send message back to reply producer.<br/>
+   * This is called for the messages of the first session.
    *
    * @param message
    */
   protected void sendReply(Message message)
+  {
+    sendReply(message, getSession(), replyProducer);
+  }
+
+  private void sendReply(Message message, Session session, MessageProducer producer)
   {
     try {
       if (message.getJMSReplyTo() != null) { // Send reply only if the replyTo destination is set
-        replyProducer.send(message.getJMSReplyTo(), getSession().createTextMessage("Reply: " + message.getJMSMessageID()));
+        producer.send(message.getJMSReplyTo(), session.createTextMessage("Reply: " + message.getJMSMessageID()));
       }
     }
     catch (JMSException ex) {
@@ -186,10 +242,14 @@ public abstract class AbstractJMSInputOperator<T> extends JMSBase implements Inp
   @Override
   public void setup(OperatorContext context)
   {
+    Preconditions.checkArgument(numSessions == 1 || !isTopic(), "multiple sessions are only supported for queues");
     this.context = context;
     spinMillis = context.getValue(OperatorContext.SPIN_MILLIS);
     counters.setCounter(CounterKeys.RECEIVED, new MutableLong());
     counters.setCounter(CounterKeys.REDELIVERED, new MutableLong());
+    counters.setCounter(CounterKeys.END_WINDOW_BLOCKED_MILLIS, new MutableLong());
+    consumptionPaused = false;
+    currentWindowRecoveryBuffer.clear();
     idempotentStorageManager.setup(context);
     try {
       operatorRecoveredWindows = idempotentStorageManager.getWindowIds(context.getId());
@@ -239,6 +299,10 @@ public abstract class AbstractJMSInputOperator<T> extends JMSBase implements Inp
         getSession().createDurableSubscriber((Topic) getDestination(), consumerName) :
         getSession().createConsumer(getDestination());
       consumer.setMessageListener(this);
+
+      for (int i = 1; i < numSessions; i++) {
+        additionalSessions.add(new ConsumerSession());
+      }
     }
     catch (JMSException ex) {
       throw new RuntimeException(ex);
@@ -260,12 +324,17 @@ public abstract class AbstractJMSInputOperator<T> extends JMSBase implements Inp
   protected void replay(long windowId)
   {
     try {
-      @SuppressWarnings("unchecked")
-      Map<String, T> recoveredData = (Map<String, T>) idempotentStorageManager.load(context.getId(), windowId);
+      Object recoveredData = idempotentStorageManager.load(context.getId(), windowId);
       if (recoveredData == null) {
         return;
       }
-      for (Map.Entry<String, T> recoveredEntry : recoveredData.entrySet()) {
+      if (recoveredData instanceof byte[]) {
+        replay((byte[])recoveredData);
+        return;
+      }
+      @SuppressWarnings("unchecked")
+      Map<String, T> recoveredMap = (Map<String, T>)recoveredData;
+      for (Map.Entry<String, T> recoveredEntry : recoveredMap.entrySet()) {
         pendingAck.add(recoveredEntry.getKey());
         emit(recoveredEntry.getValue());
       }
@@ -275,6 +344,25 @@ public abstract class AbstractJMSInputOperator<T> extends JMSBase implements Inp
     }
   }
 
+  /**
+   * Replays a window which was saved with the recovery codec.
+   */
+  private void replay(byte[] recoveredData)
+  {
+    if (recoveryCodec == null) {
+      throw new IllegalStateException("recovery codec is required to replay window " + currentWindowId);
+    }
+    Input input = new Input(recoveredData);
+    while (input.position() < recoveredData.length) {
+      pendingAck.add(input.readString());
+      int length = input.readInt();
+      @SuppressWarnings("unchecked")
+      T payload = (T)recoveryCodec.fromByteArray(new Slice(recoveredData, input.position(), length));
+      input.setPosition(input.position() + length);
+      emit(payload);
+    }
+  }
+
   @Override
   public void emitTuples()
   {
@@ -282,11 +370,32 @@ public abstract class AbstractJMSInputOperator<T> extends JMSBase implements Inp
       return;
     }
 
-    Message msg;
-    while (emitCount < bufferSize && (msg = holdingBuffer.poll()) != null) {
-      processMessage(msg);
-      emitCount++;
-      lastMsg = msg;
+    if (additionalSessions.isEmpty()) {
+      Message msg;
+      while (emitCount < bufferSize && (msg = holdingBuffer.poll()) != null) {
+        processMessage(msg);
+        emitCount++;
+        lastMsg = msg;
+      }
+      return;
+    }
+
+    //take messages from the buffers of the sessions in turn
+    boolean polled = true;
+    while (emitCount < bufferSize && polled) {
+      Message msg = holdingBuffer.poll();
+      polled = msg != null;
+      if (polled) {
+        processMessage(msg);
+        emitCount++;
+        lastMsg = msg;
+      }
+      for (int i = 0; i < additionalSessions.size() && emitCount < bufferSize; i++) {
+        if (additionalSessions.get(i).emitNext()) {
+          emitCount++;
+          polled = true;
+        }
+      }
     }
   }
 
@@ -300,7 +409,15 @@ public abstract class AbstractJMSInputOperator<T> extends JMSBase implements Inp
     try {
       T payload = convert(message);
       if (payload != null) {
-        currentWindowRecoveryState.put(message.getJMSMessageID(), payload);
+        if (recoveryCodec == null) {
+          currentWindowRecoveryState.put(message.getJMSMessageID(), payload);
+        }
+        else {
+          Slice slice = recoveryCodec.toByteArray(payload);
+          currentWindowRecoveryBuffer.writeString(message.getJMSMessageID());
+          currentWindowRecoveryBuffer.writeInt(slice.length);
+          currentWindowRecoveryBuffer.writeBytes(slice.buffer, slice.offset, slice.length);
+        }
         emit(payload);
       }
     }
@@ -335,51 +452,73 @@ public abstract class AbstractJMSInputOperator<T> extends JMSBase implements Inp
    * acknowledged have been persisted because they wouldn't be redelivered. Also if they are persisted then
    * they shouldn't be re-delivered because that would cause duplicates.<br/>
    *
-   * This is why when recovery data is persisted and messages are acknowledged, the thread that consumes message is blocked.<br/>
+   * This is why when recovery data is persisted and messages are acknowledged, the thread that consumes message is blocked.
+   * The pending messages are emitted under {@link #lock}, then consumption is paused and the lock is released while the
+   * recovery data is encoded and saved and the messages are acknowledged. The time for which consumption is blocked in
+   * the window is published in the {@link CounterKeys#END_WINDOW_BLOCKED_MILLIS} counter.<br/>
    */
   @Override
   public void endWindow()
   {
     if (currentWindowId > idempotentStorageManager.getLargestRecoveryWindow()) {
+      long blockedStart = System.nanoTime();
       synchronized (lock) {
-        boolean stateSaved = false;
-        boolean ackCompleted = false;
-        try {
-          //No more messages can be consumed now. so we will call emit tuples once more
-          //so that any pending messages can be emitted.
-          Message msg;
-          while ((msg = holdingBuffer.poll()) != null) {
-            processMessage(msg);
+        //No more messages can be consumed now. so we will call emit tuples once more
+        //so that any pending messages can be emitted.
+        Message msg;
+        while ((msg = holdingBuffer.poll()) != null) {
+          processMessage(msg);
+          emitCount++;
+          lastMsg = msg;
+        }
+        for (ConsumerSession consumerSession : additionalSessions) {
+          while (consumerSession.emitNext()) {
             emitCount++;
-            lastMsg = msg;
           }
+        }
+        //the messages consumed from now on would be acknowledged without being saved
+        consumptionPaused = true;
+      }
+      boolean stateSaved = false;
+      boolean ackCompleted = false;
+      try {
+        if (recoveryCodec == null) {
           idempotentStorageManager.save(currentWindowRecoveryState, context.getId(), currentWindowId);
-          stateSaved = true;
+        }
+        else {
+          idempotentStorageManager.save(currentWindowRecoveryBuffer.toBytes(), context.getId(), currentWindowId);
+        }
+        stateSaved = true;
 
-          currentWindowRecoveryState.clear();
-          if (lastMsg != null) {
-            acknowledge();
-          }
-          ackCompleted = true;
-          pendingAck.clear();
+        currentWindowRecoveryState.clear();
+        currentWindowRecoveryBuffer.clear();
+        if (lastMsg != null || !additionalSessions.isEmpty()) {
+          acknowledge();
         }
-        catch (Throwable t) {
-          if (!ackCompleted) {
-            LOG.info("confirm recovery of {} for {} does not exist", context.getId(), currentWindowId, t);
-          }
-          DTThrowable.rethrow(t);
+        ackCompleted = true;
+        pendingAck.clear();
+      }
+      catch (Throwable t) {
+        if (!ackCompleted) {
+          LOG.info("confirm recovery of {} for {} does not exist", context.getId(), currentWindowId, t);
         }
-        finally {
-          if (stateSaved && !ackCompleted) {
-            try {
-              idempotentStorageManager.delete(context.getId(), currentWindowId);
-            }
-            catch (IOException e) {
-              LOG.error("unable to delete corrupted state", e);
-            }
+        DTThrowable.rethrow(t);
+      }
+      finally {
+        if (stateSaved && !ackCompleted) {
+          try {
+            idempotentStorageManager.delete(context.getId(), currentWindowId);
+          }
+          catch (IOException e) {
+            LOG.error("unable to delete corrupted state", e);
           }
         }
+        synchronized (lock) {
+          consumptionPaused = false;
+          lock.notifyAll();
+        }
       }
+      counters.getCounter(CounterKeys.END_WINDOW_BLOCKED_MILLIS).setValue((System.nanoTime() - blockedStart) / 1000000);
       emitCount = 0; //reset emit count
     }
     else if (operatorRecoveredWindows != null && currentWindowId < operatorRecoveredWindows[operatorRecoveredWindows.length - 1]) {
@@ -392,16 +531,21 @@ public abstract class AbstractJMSInputOperator<T> extends JMSBase implements Inp
   }
 
   /**
-   * Commit/Acknowledge messages that have been received.<br/>
+   * Commit/Acknowledge messages that have been received by every session.<br/>
    * @throws javax.jms.JMSException
    */
   protected void acknowledge() throws JMSException
   {
-    if (isTransacted()) {
-      getSession().commit();
+    if (lastMsg != null) {
+      if (isTransacted()) {
+        getSession().commit();
+      }
+      else if (getSessionAckMode(getAckMode()) == Session.CLIENT_ACKNOWLEDGE) {
+        lastMsg.acknowledge(); // acknowledge all consumed messages till now
+      }
     }
-    else if (getSessionAckMode(getAckMode()) == Session.CLIENT_ACKNOWLEDGE) {
-      lastMsg.acknowledge(); // acknowledge all consumed messages till now
+    for (ConsumerSession consumerSession : additionalSessions) {
+      consumerSession.acknowledge();
     }
   }
 
@@ -431,6 +575,11 @@ public abstract class AbstractJMSInputOperator<T> extends JMSBase implements Inp
   protected void cleanup()
   {
     try {
+      for (ConsumerSession consumerSession : additionalSessions) {
+        consumerSession.close();
+      }
+      additionalSessions.clear();
+
       consumer.setMessageListener(null);
       replyProducer.close();
       replyProducer = null;
@@ -495,6 +644,45 @@ public abstract class AbstractJMSInputOperator<T> extends JMSBase implements Inp
     this.consumerName = consumerName;
   }
 
+  /**
+   * @return the number of sessions which consume the queue.
+   */
+  public int getNumSessions()
+  {
+    return numSessions;
+  }
+
+  /**
+   * Sets the number of sessions of the connection which consume the queue concurrently. The delivery rate of a single
+   * session can be the bottleneck for queues with a large backlog. This is only supported for queues because every
+   * subscriber of a topic receives all the messages.
+   *
+   * @param numSessions the number of sessions.
+   */
+  public void setNumSessions(int numSessions)
+  {
+    this.numSessions = numSessions;
+  }
+
+  /**
+   * @return the codec of the payloads which are saved for recovery.
+   */
+  public StreamCodec<T> getRecoveryCodec()
+  {
+    return recoveryCodec;
+  }
+
+  /**
+   * Sets the codec which encodes the payloads saved for recovery. When it is set, the payloads are encoded into a
+   * buffer as they are processed instead of being kept in a map which is serialized at the end of the window.
+   *
+   * @param recoveryCodec codec of the payloads.
+   */
+  public void setRecoveryCodec(StreamCodec<T> recoveryCodec)
+  {
+    this.recoveryCodec = recoveryCodec;
+  }
+
   /**
    * Sets this idempotent storage manager.
    *
@@ -517,12 +705,77 @@ public abstract class AbstractJMSInputOperator<T> extends JMSBase implements Inp
 
   public static enum CounterKeys
   {
-    RECEIVED, REDELIVERED
+    RECEIVED, REDELIVERED, END_WINDOW_BLOCKED_MILLIS
   }
 
   private static class Lock
   {
   }
 
+  /**
+   * A session after the first one with its own consumer, holding buffer and last message for acknowledgement.
+   */
+  private class ConsumerSession implements MessageListener
+  {
+    private final Session session;
+    private final MessageProducer replyProducer;
+    private final MessageConsumer consumer;
+    private final ArrayBlockingQueue<Message> buffer;
+    private Message lastMsg;
+
+    ConsumerSession() throws JMSException
+    {
+      session = getConnection().createSession(isTransacted(), getSessionAckMode(getAckMode()));
+      replyProducer = session.createProducer(null);
+      buffer = newHoldingBuffer(bufferSize);
+      consumer = session.createConsumer(getDestination());
+      consumer.setMessageListener(this);
+    }
+
+    @Override
+    public void onMessage(Message message)
+    {
+      buffer.add(message);
+      sendReply(message, session, replyProducer);
+    }
+
+    /**
+     * Processes the next message in the buffer.
+     *
+     * @return false if the buffer is empty
+     */
+    boolean emitNext()
+    {
+      Message msg = buffer.poll();
+      if (msg == null) {
+        return false;
+      }
+      processMessage(msg);
+      lastMsg = msg;
+      return true;
+    }
+
+    void acknowledge() throws JMSException
+    {
+      if (lastMsg == null) {
+        return;
+      }
+      if (isTransacted()) {
+        session.commit();
+      }
+      else if (getSessionAckMode(getAckMode()) == Session.CLIENT_ACKNOWLEDGE) {
+        lastMsg.acknowledge();
+      }
+    }
+
+    void close() throws JMSException
+    {
+      consumer.setMessageListener(null);
+      replyProducer.close();
+      consumer.close();
+      session.close();
+    }
+  }
+
   private static final Logger LOG = LoggerFactory.getLogger(AbstractJMSInputOperator.class);
 }
@@ -65,6 +65,13 @@ public class MultiWindowDimensionAggregation implements Operator
   private Map<Integer, Map<String, Map<String, Number>>> cacheOject;
 
   private transient List<Pattern> patternList;
+  /*
+   * The same keys are received in many windows and matched again when their window expires,
+   * so the matches are cached instead of running the patterns every time.
+   */
+  private transient Map<String, KeyMatch> keyMatches;
+  private static final int MAX_KEY_MATCHES = 100000;
+  private static final KeyMatch NO_MATCH = new KeyMatch(-1, null);
   private transient int applicationWindowSize = 500;
   /**
    * This is the output port which emits aggregated dimensions.
@@ -81,32 +88,23 @@ public class MultiWindowDimensionAggregation implements Operator
       for (Map.Entry<String, Map<String, Number>> tupleEntry : tuple.entrySet()) {
         String tupleKey = tupleEntry.getKey();
         Map<String, Number> tupleValue = tupleEntry.getValue();
-        int currentPattern = 0;
-        for (Pattern pattern : patternList) {
-          Matcher matcher = pattern.matcher(tupleKey);
-          if (matcher.matches()) {
-            String currentPatternString = dimensionArrayString.get(currentPattern);
-            Map<String, KeyValPair<MutableDouble, Integer>> currentPatternMap = outputMap.get(currentPatternString);
-            if (currentPatternMap == null) {
-              currentPatternMap = new HashMap<String, KeyValPair<MutableDouble, Integer>>();
-              outputMap.put(currentPatternString, currentPatternMap);
-            }
-            StringBuilder builder = new StringBuilder(matcher.group(2));
-            for (int i = 1; i < dimensionArray.get(currentPattern).length; i++) {
-              builder.append("," + matcher.group(i + 2));
-            }
+        KeyMatch keyMatch = match(tupleKey);
+        if (keyMatch.pattern >= 0) {
+          String currentPatternString = dimensionArrayString.get(keyMatch.pattern);
+          Map<String, KeyValPair<MutableDouble, Integer>> currentPatternMap = outputMap.get(currentPatternString);
+          if (currentPatternMap == null) {
+            currentPatternMap = new HashMap<String, KeyValPair<MutableDouble, Integer>>();
+            outputMap.put(currentPatternString, currentPatternMap);
+          }
 
-            KeyValPair<MutableDouble, Integer> currentDimensionKeyValPair = currentPatternMap.get(builder.toString());
-            if (currentDimensionKeyValPair == null) {
-              currentDimensionKeyValPair = new KeyValPair<MutableDouble, Integer>(new MutableDouble(tupleValue.get(dimensionKeyVal)), 1);
-              currentPatternMap.put(builder.toString(), currentDimensionKeyValPair);
-            } else {
-              currentDimensionKeyValPair.getKey().add(tupleValue.get(dimensionKeyVal));
-              currentDimensionKeyValPair.setValue(currentDimensionKeyValPair.getValue() + 1);
-            }
-            break;
+          KeyValPair<MutableDouble, Integer> currentDimensionKeyValPair = currentPatternMap.get(keyMatch.dimensions);
+          if (currentDimensionKeyValPair == null) {
+            currentDimensionKeyValPair = new KeyValPair<MutableDouble, Integer>(new MutableDouble(tupleValue.get(dimensionKeyVal)), 1);
+            currentPatternMap.put(keyMatch.dimensions, currentDimensionKeyValPair);
+          } else {
+            currentDimensionKeyValPair.getKey().add(tupleValue.get(dimensionKeyVal));
+            currentDimensionKeyValPair.setValue(currentDimensionKeyValPair.getValue() + 1);
           }
-          currentPattern++;
         }
 
       }
@@ -189,6 +187,39 @@ public class MultiWindowDimensionAggregation implements Operator
       pattern = Pattern.compile(builder.toString());
       patternList.add(pattern);
     }
+    keyMatches = new HashMap<String, KeyMatch>();
+  }
+
+  /**
+   * Finds the first dimension combination whose pattern matches the key.
+   *
+   * @param tupleKey The key of the input tuple
+   * @return The match, whose pattern is -1 if no pattern matches
+   */
+  private KeyMatch match(String tupleKey)
+  {
+    KeyMatch keyMatch = keyMatches.get(tupleKey);
+    if (keyMatch == null) {
+      keyMatch = NO_MATCH;
+      int currentPattern = 0;
+      for (Pattern pattern : patternList) {
+        Matcher matcher = pattern.matcher(tupleKey);
+        if (matcher.matches()) {
+          StringBuilder builder = new StringBuilder(matcher.group(2));
+          for (int i = 1; i < dimensionArray.get(currentPattern).length; i++) {
+            builder.append(",").append(matcher.group(i + 2));
+          }
+          keyMatch = new KeyMatch(currentPattern, builder.toString());
+          break;
+        }
+        currentPattern++;
+      }
+      if (keyMatches.size() >= MAX_KEY_MATCHES) {
+        keyMatches.clear();
+      }
+      keyMatches.put(tupleKey, keyMatch);
+    }
+    return keyMatch;
   }
 
   @Override
@@ -207,29 +238,20 @@ public class MultiWindowDimensionAggregation implements Operator
       for (Map.Entry<String, Map<String, Number>> tupleEntry : currentWindowMap.entrySet()) {
         String tupleKey = tupleEntry.getKey();
         Map<String, Number> tupleValue = tupleEntry.getValue();
-        int currentPattern = 0;
-        for (Pattern pattern : patternList) {
-          Matcher matcher = pattern.matcher(tupleKey);
-          if (matcher.matches()) {
-            String currentPatternString = dimensionArrayString.get(currentPattern);
-            Map<String, KeyValPair<MutableDouble, Integer>> currentPatternMap = outputMap.get(currentPatternString);
-            if (currentPatternMap != null) {
-              StringBuilder builder = new StringBuilder(matcher.group(2));
-              for (int i = 1; i < dimensionArray.get(currentPattern).length; i++) {
-                builder.append("," + matcher.group(i + 2));
-              }
-              KeyValPair<MutableDouble, Integer> currentDimensionKeyValPair = currentPatternMap.get(builder.toString());
-              if (currentDimensionKeyValPair != null) {
-                currentDimensionKeyValPair.getKey().add(0 - tupleValue.get(dimensionKeyVal).doubleValue());
-                currentDimensionKeyValPair.setValue(currentDimensionKeyValPair.getValue() - 1);
-                if (currentDimensionKeyValPair.getKey().doubleValue() == 0.0) {
-                  currentPatternMap.remove(builder.toString());
-                }
+        KeyMatch keyMatch = match(tupleKey);
+        if (keyMatch.pattern >= 0) {
+          String currentPatternString = dimensionArrayString.get(keyMatch.pattern);
+          Map<String, KeyValPair<MutableDouble, Integer>> currentPatternMap = outputMap.get(currentPatternString);
+          if (currentPatternMap != null) {
+            KeyValPair<MutableDouble, Integer> currentDimensionKeyValPair = currentPatternMap.get(keyMatch.dimensions);
+            if (currentDimensionKeyValPair != null) {
+              currentDimensionKeyValPair.getKey().add(0 - tupleValue.get(dimensionKeyVal).doubleValue());
+              currentDimensionKeyValPair.setValue(currentDimensionKeyValPair.getValue() - 1);
+              if (currentDimensionKeyValPair.getKey().doubleValue() == 0.0) {
+                currentPatternMap.remove(keyMatch.dimensions);
               }
             }
-            break;
           }
-          currentPattern++;
         }
 
       }
@@ -274,4 +296,19 @@ public class MultiWindowDimensionAggregation implements Operator
     this.operationType = operationType;
   }
 
+  /**
+   * The index of the dimension combination matched by a key and the dimension values of the key separated by commas.
+   */
+  private static class KeyMatch
+  {
+    final int pattern;
+    final String dimensions;
+
+    KeyMatch(int pattern, String dimensions)
+    {
+      this.pattern = pattern;
+      this.dimensions = dimensions;
+    }
+  }
+
 }
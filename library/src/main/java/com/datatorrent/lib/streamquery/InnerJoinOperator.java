@@ -17,12 +17,14 @@ package com.datatorrent.lib.streamquery;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.datatorrent.api.Context.OperatorContext;
 import com.datatorrent.api.DefaultInputPort;
 import com.datatorrent.api.DefaultOutputPort;
 import com.datatorrent.api.Operator;
+import com.datatorrent.api.StreamCodec;
 import com.datatorrent.api.annotation.OperatorAnnotation;
 import com.datatorrent.lib.streamquery.condition.Condition;
 import com.datatorrent.lib.streamquery.index.Index;
@@ -34,7 +36,8 @@ import com.datatorrent.lib.streamquery.index.Index;
  * joined result at output port.
  *  <br>
  *  <b>StateFull : Yes,</b> Operator aggregates input over application window. <br>
- *  <b>Partitions : No, </b> will yield wrong result(s). <br>
+ *  <b>Partitions : No, </b> will yield wrong result(s), see {@link PartitionedHashJoinOperator} for a hash join
+ *  which can be partitioned. <br>
  *  <br>
  *  <b>Ports : </b> <br>
  *  <b> inport1 : </b> Input port for table 1, expects HashMap&lt;String, Object&gt; <br>
@@ -45,6 +48,8 @@ import com.datatorrent.lib.streamquery.index.Index;
  *  <b> joinCondition : </b> Join condition for table rows. <br>
  *  <b> table1Columns : </b> Columns to be selected from table1. <br>
  *  <b> table2Columns : </b> Columns to be selected from table2. <br>
+ *  <b> table1JoinColumns : </b> Equi-join columns of table1, enables hash join mode. <br>
+ *  <b> table2JoinColumns : </b> Equi-join columns of table2, enables hash join mode. <br>
  *  <br>
  * @displayName Inner join
  * @category Stream Manipulators
@@ -81,6 +86,26 @@ public class InnerJoinOperator implements Operator
    */
   protected ArrayList<Map<String, Object>> table2;
 
+  /**
+   * Table1 equi-join columns, when set the operator runs in hash join mode.
+   */
+  private ArrayList<String> table1JoinColumns = new ArrayList<String>();
+
+  /**
+   * Table2 equi-join columns, matched position wise with table1 join columns.
+   */
+  private ArrayList<String> table2JoinColumns = new ArrayList<String>();
+
+  /**
+   * Hash index on join key of rows collected from input port 1 in hash join mode.
+   */
+  protected HashMap<Object, List<Map<String, Object>>> table1Index;
+
+  /**
+   * Hash index on join key of rows collected from input port 2 in hash join mode.
+   */
+  protected HashMap<Object, List<Map<String, Object>>> table2Index;
+
   /**
    * Input port 1 that takes a map of &lt;string,object&gt;.
    */
@@ -89,6 +114,22 @@ public class InnerJoinOperator implements Operator
     @Override
     public void process(Map<String, Object> tuple)
     {
+      if (isHashJoin()) {
+        Object key = JoinKeyStreamCodec.getJoinKey(tuple, table1JoinColumns);
+        addToIndex(table1Index, key, tuple);
+        if (key != null) {
+          List<Map<String, Object>> matches = table2Index.get(key);
+          if (matches != null) {
+            for (int j = 0; j < matches.size(); j++) {
+              if ((joinCondition == null)
+                  || (joinCondition.isValidJoin(tuple, matches.get(j)))) {
+                joinRows(tuple, matches.get(j));
+              }
+            }
+          }
+        }
+        return;
+      }
       table1.add(tuple);
       for (int j = 0; j < table2.size(); j++) {
         if ((joinCondition == null)
@@ -97,6 +138,15 @@ public class InnerJoinOperator implements Operator
         }
       }
 		}
+
+    @Override
+    public StreamCodec<Map<String, Object>> getStreamCodec()
+    {
+      if (isHashJoin()) {
+        return new JoinKeyStreamCodec(table1JoinColumns);
+      }
+      return super.getStreamCodec();
+    }
 	};
 
 	/**
@@ -106,6 +156,22 @@ public class InnerJoinOperator implements Operator
 		@Override
 		public void process(Map<String, Object> tuple)
 		{
+      if (isHashJoin()) {
+        Object key = JoinKeyStreamCodec.getJoinKey(tuple, table2JoinColumns);
+        addToIndex(table2Index, key, tuple);
+        if (key != null) {
+          List<Map<String, Object>> matches = table1Index.get(key);
+          if (matches != null) {
+            for (int j = 0; j < matches.size(); j++) {
+              if ((joinCondition == null)
+                  || (joinCondition.isValidJoin(matches.get(j), tuple))) {
+                joinRows(matches.get(j), tuple);
+              }
+            }
+          }
+        }
+        return;
+      }
 	    table2.add(tuple);
       for (int j = 0; j < table1.size(); j++) {
         if ((joinCondition == null)
@@ -114,6 +180,15 @@ public class InnerJoinOperator implements Operator
         }
       }
 		}
+
+    @Override
+    public StreamCodec<Map<String, Object>> getStreamCodec()
+    {
+      if (isHashJoin()) {
+        return new JoinKeyStreamCodec(table2JoinColumns);
+      }
+      return super.getStreamCodec();
+    }
 	};
 
 	/**
@@ -125,8 +200,13 @@ public class InnerJoinOperator implements Operator
 	@Override
   public void setup(OperatorContext arg0)
   {
+    if (table1JoinColumns.size() != table2JoinColumns.size()) {
+      throw new IllegalArgumentException("table1 and table2 must have the same number of join columns");
+    }
     table1 = new ArrayList<Map<String, Object>>();
     table2 = new ArrayList<Map<String, Object>>();
+    table1Index = new HashMap<Object, List<Map<String, Object>>>();
+    table2Index = new HashMap<Object, List<Map<String, Object>>>();
   }
 
   @Override
@@ -144,6 +224,8 @@ public class InnerJoinOperator implements Operator
   {
     table1.clear();
     table2.clear();
+    table1Index.clear();
+    table2Index.clear();
   }
 
   /**
@@ -179,6 +261,62 @@ public class InnerJoinOperator implements Operator
     table2Columns.add(column);
   }
 
+  /**
+   * Adds an equi-join column pair. Once join columns are added the operator keeps a hash index
+   * on the join key of each table and probes it in constant time instead of scanning the other
+   * table for every row. {@link #getJoinCondition()}, if set, is evaluated on key matched rows only.
+   *
+   * @param table1Column join column of table1
+   * @param table2Column join column of table2
+   */
+  public void addJoinColumns(String table1Column, String table2Column)
+  {
+    table1JoinColumns.add(table1Column);
+    table2JoinColumns.add(table2Column);
+  }
+
+  public List<String> getTable1JoinColumns()
+  {
+    return table1JoinColumns;
+  }
+
+  public void setTable1JoinColumns(List<String> table1JoinColumns)
+  {
+    this.table1JoinColumns = new ArrayList<String>(table1JoinColumns);
+  }
+
+  public List<String> getTable2JoinColumns()
+  {
+    return table2JoinColumns;
+  }
+
+  public void setTable2JoinColumns(List<String> table2JoinColumns)
+  {
+    this.table2JoinColumns = new ArrayList<String>(table2JoinColumns);
+  }
+
+  /**
+   * @return true if join columns are declared and rows are joined through the hash index.
+   */
+  public boolean isHashJoin()
+  {
+    return !table1JoinColumns.isEmpty();
+  }
+
+  /**
+   * Adds a row to the hash index. Rows without a complete join key are kept under the null key
+   * so that outer joins can still emit them.
+   */
+  protected void addToIndex(Map<Object, List<Map<String, Object>>> index, Object key, Map<String, Object> row)
+  {
+    List<Map<String, Object>> rows = index.get(key);
+    if (rows == null) {
+      rows = new ArrayList<Map<String, Object>>(1);
+      index.put(key, rows);
+    }
+    rows.add(row);
+  }
+
   /**
    * Join row from table1 and table2.
    */
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.streamquery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.validation.constraints.NotNull;
+
+import com.datatorrent.lib.codec.KryoSerializableStreamCodec;
+
+/**
+ * A stream codec that partitions table rows on the values of the join columns. <br>
+ * <p>
+ * When both inputs of an equi-join are partitioned with this codec, rows with equal join keys
+ * are delivered to the same join partition, so the join can be scaled out. The key computed here
+ * is the same key that {@link InnerJoinOperator} uses for its hash index.
+ *
+ * @since 3.0.0
+ */
+public class JoinKeyStreamCodec extends KryoSerializableStreamCodec<Map<String, Object>>
+{
+  /**
+   * Join columns of the table that is partitioned by this codec.
+   */
+  private ArrayList<String> columns;
+
+  @SuppressWarnings("unused")
+  private JoinKeyStreamCodec()
+  {
+    // for kryo
+  }
+
+  public JoinKeyStreamCodec(@NotNull List<String> columns)
+  {
+    this.columns = new ArrayList<String>(columns);
+  }
+
+  @Override
+  public int getPartition(Map<String, Object> row)
+  {
+    Object key = getJoinKey(row, columns);
+    return key == null ? 0 : key.hashCode();
+  }
+
+  public List<String> getColumns()
+  {
+    return columns;
+  }
+
+  /**
+   * Builds the join key of a row. A single column key is the column value itself, a multi column key
+   * is the list of column values. Returns null when any of the join columns is missing or null, as such
+   * a row can never satisfy an equi-join.
+   *
+   * @param row     table row
+   * @param columns join columns
+   * @return join key or null
+   */
+  static Object getJoinKey(Map<String, Object> row, List<String> columns)
+  {
+    if (columns.size() == 1) {
+      return row.get(columns.get(0));
+    }
+    Object[] values = new Object[columns.size()];
+    for (int i = 0; i < values.length; i++) {
+      Object value = row.get(columns.get(i));
+      if (value == null) {
+        return null;
+      }
+      values[i] = value;
+    }
+    return Arrays.asList(values);
+  }
+
+  private static final long serialVersionUID = 201507201200L;
+}
@@ -15,6 +15,9 @@
  */
 package com.datatorrent.lib.streamquery;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * An operator that provides sql left,right and full outer join metric semantics on live stream. <br>
  * <p>
@@ -24,6 +27,7 @@ package com.datatorrent.lib.streamquery;
  * <b> Properties : </b> <br>
  * <b> isLeftJoin : </b> Left join flag. <br>
  * <b> isFullJoin : </b> Full join flag. <br>
+ * In hash join mode unmatched rows are emitted at end window by probing the join key index. <br>
  * @displayName Outer Join
  * @category Stream Manipulators
  * @tags sql, outer join operator
@@ -38,6 +42,18 @@ public class OuterJoinOperator extends InnerJoinOperator
   @Override
   public void endWindow()
   {
+    // hash join, unmatched rows are found with one index probe per key
+    if (isHashJoin()) {
+      if (isFullJoin || isLeftJoin) {
+        emitUnmatched(table1Index, table2Index, true);
+      }
+      if (isFullJoin || !isLeftJoin) {
+        emitUnmatched(table2Index, table1Index, false);
+      }
+      super.endWindow();
+      return;
+    }
+
     // full outer join
     if (isFullJoin) {
       for (int i = 0; i < table1.size(); i++) {
@@ -97,6 +113,36 @@ public class OuterJoinOperator extends InnerJoinOperator
     }
   }
 
+  /**
+   * Emits rows of the given index that did not join with any row of the other index.
+   */
+  private void emitUnmatched(Map<Object, List<Map<String, Object>>> index,
+      Map<Object, List<Map<String, Object>>> otherIndex, boolean isTable1)
+  {
+    for (Map.Entry<Object, List<Map<String, Object>>> entry : index.entrySet()) {
+      List<Map<String, Object>> others = entry.getKey() == null ? null : otherIndex.get(entry.getKey());
+      for (Map<String, Object> row : entry.getValue()) {
+        boolean merged = false;
+        if (others != null) {
+          if (joinCondition == null) {
+            merged = true;
+          } else {
+            for (int j = 0; j < others.size() && !merged; j++) {
+              merged = isTable1 ? joinCondition.isValidJoin(row, others.get(j)) : joinCondition.isValidJoin(others.get(j), row);
+            }
+          }
+        }
+        if (!merged) {
+          if (isTable1) {
+            joinRows(row, null);
+          } else {
+            joinRows(null, row);
+          }
+        }
+      }
+    }
+  }
+
   public void setLeftJoin()
   {
     isLeftJoin = true;
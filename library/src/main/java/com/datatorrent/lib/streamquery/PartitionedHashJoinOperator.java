@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.streamquery;
+
+import java.util.Collection;
+import java.util.Map;
+
+import javax.validation.constraints.Min;
+
+import com.datatorrent.api.Context.OperatorContext;
+import com.datatorrent.api.Partitioner;
+import com.datatorrent.api.annotation.OperatorAnnotation;
+import com.datatorrent.common.partitioner.StatelessPartitioner;
+
+/**
+ * An inner equi-join which can be partitioned. <br>
+ * <p>
+ * The rows are joined through the hash index of {@link InnerJoinOperator} and both input ports partition the rows
+ * on their join key, so the rows of both tables with the same join key reach the same partition.
+ *  <br>
+ *  <b>StateFull : Yes,</b> Operator aggregates input over application window. <br>
+ *  <b>Partitions : Yes, </b> on the join key. <br>
+ *  <br>
+ *  <b> Properties : </b>
+ *  <b> table1JoinColumns : </b> Equi-join columns of table1, required. <br>
+ *  <b> table2JoinColumns : </b> Equi-join columns of table2, required. <br>
+ *  <b> partitionCount : </b> Number of partitions. <br>
+ *  <br>
+ * @displayName Partitioned Hash Join
+ * @category Stream Manipulators
+ * @tags sql, inner join operator
+ *
+ * @since 3.0.0
+ */
+@OperatorAnnotation(partitionable = true)
+public class PartitionedHashJoinOperator extends InnerJoinOperator implements Partitioner<PartitionedHashJoinOperator>
+{
+  /**
+   * Number of partitions of the operator.
+   */
+  @Min(1)
+  private int partitionCount = 1;
+
+  @Override
+  public void setup(OperatorContext context)
+  {
+    if (!isHashJoin()) {
+      throw new IllegalArgumentException("join columns are required");
+    }
+    super.setup(context);
+  }
+
+  @Override
+  public Collection<Partition<PartitionedHashJoinOperator>> definePartitions(Collection<Partition<PartitionedHashJoinOperator>> partitions, PartitioningContext context)
+  {
+    if (!isHashJoin()) {
+      throw new IllegalStateException("Only a hash join, which has join columns, can be partitioned");
+    }
+    return new StatelessPartitioner<PartitionedHashJoinOperator>(partitionCount).definePartitions(partitions, context);
+  }
+
+  @Override
+  public void partitioned(Map<Integer, Partition<PartitionedHashJoinOperator>> partitions)
+  {
+  }
+
+  public int getPartitionCount()
+  {
+    return partitionCount;
+  }
+
+  /**
+   * Sets the number of partitions.
+   *
+   * @param partitionCount number of partitions
+   */
+  public void setPartitionCount(int partitionCount)
+  {
+    this.partitionCount = partitionCount;
+  }
+}
@@ -82,48 +82,21 @@ public abstract class AbstractDimensionTimeBucketOperator extends BaseOperator
     {
       try {
         long time = extractTimeFromTuple(tuple);
-        calendar.setTimeInMillis(time);
-        List<String> timeBucketList = new ArrayList<String>();
-
-        if ((timeBucketFlags & TIMEBUCKET_YEAR) != 0) {
-          timeBucketList.add(String.format("Y|%04d", calendar.get(Calendar.YEAR)));
-        }
-        if ((timeBucketFlags & TIMEBUCKET_MONTH) != 0) {
-          timeBucketList.add(String.format("M|%04d%02d", calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1));
-        }
-        if ((timeBucketFlags & TIMEBUCKET_WEEK) != 0) {
-          timeBucketList.add(String.format("W|%04d%02d", calendar.get(Calendar.YEAR), calendar.get(Calendar.WEEK_OF_YEAR)));
+        if (time < timeBucketStart || time >= timeBucketEnd) {
+          setTimeBuckets(time);
         }
-        if ((timeBucketFlags & TIMEBUCKET_DAY) != 0) {
-          timeBucketList.add(String.format("D|%04d%02d%02d", calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH)));
-        }
-        if ((timeBucketFlags & TIMEBUCKET_HOUR) != 0) {
-          timeBucketList.add(String.format("h|%04d%02d%02d%02d", calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH), calendar.get(Calendar.HOUR_OF_DAY)));
-        }
-        if ((timeBucketFlags & TIMEBUCKET_MINUTE) != 0) {
-          timeBucketList.add(String.format("m|%04d%02d%02d%02d%02d", calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH), calendar.get(Calendar.HOUR_OF_DAY), calendar.get(Calendar.MINUTE)));
+        Arrays.fill(tupleValueIds, -1);
+        for (int i = 0; i < valueKeyNames.size(); i++) {
+          String valueKeyName = valueKeyNames.get(i);
+          tupleValues[i] = extractNumber(valueKeyName, tuple.get(valueKeyName));
         }
 
-        // System.out.println(dimensionCombinations.size()+ " testing");
-        for (String timeBucket : timeBucketList) {
-          for (int[] dimensionCombination : dimensionCombinations) {
-            String field = "0";
-            StringBuilder key = new StringBuilder();
-            if (dimensionCombination != null) {
-              for (int d : dimensionCombination) {
-                if (key.length() != 0) {
-                  key.append("|");
-                }
-                key.append(String.valueOf(d)).append(":").append(tuple.get(dimensionKeyNames.get(d)).toString());
-              }
-            }
-            AbstractDimensionTimeBucketOperator.this.process(timeBucket, key.toString(), field, 1);
+        for (int t = 0; t < timeBucketCount; t++) {
+          for (int c = 0; c < dimensionCombinations.size(); c++) {
+            DimensionKey key = getKey(timeBucketIds[t], c, tuple);
+            AbstractDimensionTimeBucketOperator.this.process(key, 0, 1);
             for (int i = 0; i < valueKeyNames.size(); i++) {
-              String valueKeyName = valueKeyNames.get(i);
-              field = String.valueOf(i + 1);
-              Object value = tuple.get(valueKeyName);
-              Number numberValue = extractNumber(valueKeyName, value);
-              AbstractDimensionTimeBucketOperator.this.process(timeBucket, key.toString(), field, numberValue);
+              AbstractDimensionTimeBucketOperator.this.process(key, i + 1, tupleValues[i]);
             }
           }
         }
@@ -150,6 +123,25 @@ public abstract class AbstractDimensionTimeBucketOperator extends BaseOperator
   private transient List<int[]> dimensionCombinations = new ArrayList<int[]>();
   private List<Set<String>> dimensionCombinationsSet;
   private transient NumberFormat numberFormat = NumberFormat.getInstance();
+  /*
+   * The time buckets of the current minute, which are the same for all tuples in that minute.
+   */
+  private transient long timeBucketStart = Long.MAX_VALUE;
+  private transient long timeBucketEnd = Long.MIN_VALUE;
+  private transient int[] timeBucketIds = new int[6];
+  private transient int timeBucketCount;
+  /*
+   * Time buckets, dimension values and keys are interned to ints for the current window.
+   */
+  private transient Map<String, Integer> timeBucketIdMap;
+  private transient List<String> timeBuckets;
+  private transient List<Map<String, Integer>> dimensionValueIdMaps;
+  private transient List<List<String>> dimensionValues;
+  private transient Map<DimensionKey, DimensionKey> keys;
+  private transient DimensionKey[] probes;
+  private transient int[] tupleValueIds;
+  private transient Number[] tupleValues;
+  private transient String[] fieldNames;
   public static final int TIMEBUCKET_MINUTE = 1;
   public static final int TIMEBUCKET_HOUR = 2;
   public static final int TIMEBUCKET_DAY = 4;
@@ -252,6 +244,19 @@ public abstract class AbstractDimensionTimeBucketOperator extends BaseOperator
       }
     }
     logger.info("number of combinations {}",dimensionCombinations.size());
+
+    probes = new DimensionKey[dimensionCombinations.size()];
+    for (int c = 0; c < probes.length; c++) {
+      int[] dimensionCombination = dimensionCombinations.get(c);
+      probes[c] = new DimensionKey(new int[2 + (dimensionCombination == null ? 0 : dimensionCombination.length)]);
+    }
+    tupleValueIds = new int[dimensionKeyNames.size()];
+    tupleValues = new Number[valueKeyNames.size()];
+    fieldNames = new String[valueKeyNames.size() + 1];
+    for (int i = 0; i < fieldNames.length; i++) {
+      fieldNames[i] = String.valueOf(i);
+    }
+    resetKeys();
   }
 
   @Override
@@ -259,6 +264,121 @@ public abstract class AbstractDimensionTimeBucketOperator extends BaseOperator
   {
     super.beginWindow(windowId);
     currentWindowId = windowId;
+    resetKeys();
+  }
+
+  /**
+   * Drops the interned time buckets, dimension values and keys of the previous window.
+   */
+  private void resetKeys()
+  {
+    timeBucketStart = Long.MAX_VALUE;
+    timeBucketEnd = Long.MIN_VALUE;
+    timeBucketIdMap = new HashMap<String, Integer>();
+    timeBuckets = new ArrayList<String>();
+    dimensionValueIdMaps = new ArrayList<Map<String, Integer>>();
+    dimensionValues = new ArrayList<List<String>>();
+    for (int d = 0; d < dimensionKeyNames.size(); d++) {
+      dimensionValueIdMaps.add(new HashMap<String, Integer>());
+      dimensionValues.add(new ArrayList<String>());
+    }
+    keys = new HashMap<DimensionKey, DimensionKey>();
+  }
+
+  /**
+   * Computes the time buckets of the minute which contains the given time.
+   */
+  private void setTimeBuckets(long time)
+  {
+    calendar.setTimeInMillis(time);
+    timeBucketStart = time - calendar.get(Calendar.SECOND) * 1000L - calendar.get(Calendar.MILLISECOND);
+    timeBucketEnd = timeBucketStart + 60000L;
+    timeBucketCount = 0;
+
+    if ((timeBucketFlags & TIMEBUCKET_YEAR) != 0) {
+      addTimeBucket(String.format("Y|%04d", calendar.get(Calendar.YEAR)));
+    }
+    if ((timeBucketFlags & TIMEBUCKET_MONTH) != 0) {
+      addTimeBucket(String.format("M|%04d%02d", calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1));
+    }
+    if ((timeBucketFlags & TIMEBUCKET_WEEK) != 0) {
+      addTimeBucket(String.format("W|%04d%02d", calendar.get(Calendar.YEAR), calendar.get(Calendar.WEEK_OF_YEAR)));
+    }
+    if ((timeBucketFlags & TIMEBUCKET_DAY) != 0) {
+      addTimeBucket(String.format("D|%04d%02d%02d", calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH)));
+    }
+    if ((timeBucketFlags & TIMEBUCKET_HOUR) != 0) {
+      addTimeBucket(String.format("h|%04d%02d%02d%02d", calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH), calendar.get(Calendar.HOUR_OF_DAY)));
+    }
+    if ((timeBucketFlags & TIMEBUCKET_MINUTE) != 0) {
+      addTimeBucket(String.format("m|%04d%02d%02d%02d%02d", calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH), calendar.get(Calendar.HOUR_OF_DAY), calendar.get(Calendar.MINUTE)));
+    }
+  }
+
+  private void addTimeBucket(String timeBucket)
+  {
+    Integer id = timeBucketIdMap.get(timeBucket);
+    if (id == null) {
+      id = timeBuckets.size();
+      timeBucketIdMap.put(timeBucket, id);
+      timeBuckets.add(timeBucket);
+    }
+    timeBucketIds[timeBucketCount++] = id;
+  }
+
+  private int getDimensionValueId(int dimension, Map<String, Object> tuple)
+  {
+    int id = tupleValueIds[dimension];
+    if (id < 0) {
+      String value = tuple.get(dimensionKeyNames.get(dimension)).toString();
+      Map<String, Integer> idMap = dimensionValueIdMaps.get(dimension);
+      Integer valueId = idMap.get(value);
+      if (valueId == null) {
+        List<String> values = dimensionValues.get(dimension);
+        valueId = values.size();
+        idMap.put(value, valueId);
+        values.add(value);
+      }
+      id = valueId;
+      tupleValueIds[dimension] = id;
+    }
+    return id;
+  }
+
+  /**
+   * Looks up the key of the tuple for a time bucket and a dimension combination with a reused probe key,
+   * so that a new key is only allocated the first time it occurs in the window.
+   */
+  private DimensionKey getKey(int timeBucketId, int combinationIndex, Map<String, Object> tuple)
+  {
+    int[] dimensionCombination = dimensionCombinations.get(combinationIndex);
+    DimensionKey probe = probes[combinationIndex];
+    int[] ids = probe.ids;
+    ids[0] = timeBucketId;
+    ids[1] = combinationIndex;
+    if (dimensionCombination != null) {
+      for (int j = 0; j < dimensionCombination.length; j++) {
+        ids[j + 2] = getDimensionValueId(dimensionCombination[j], tuple);
+      }
+    }
+    probe.hashCode = Arrays.hashCode(ids);
+
+    DimensionKey key = keys.get(probe);
+    if (key == null) {
+      StringBuilder dimensions = new StringBuilder();
+      if (dimensionCombination != null) {
+        for (int j = 0; j < dimensionCombination.length; j++) {
+          if (dimensions.length() != 0) {
+            dimensions.append("|");
+          }
+          int d = dimensionCombination[j];
+          dimensions.append(d).append(":").append(dimensionValues.get(d).get(ids[j + 2]));
+        }
+      }
+      key = new DimensionKey(ids.clone(), keys.size(), timeBuckets.get(timeBucketId), dimensions.toString());
+      keys.put(key, key);
+    }
+    return key;
   }
 
   /**
@@ -299,6 +419,7 @@ public abstract class AbstractDimensionTimeBucketOperator extends BaseOperator
   public void setTimeBucketFlags(int timeBucketFlags)
   {
     this.timeBucketFlags = timeBucketFlags;
+    timeBucketStart = Long.MAX_VALUE;
   }
 
   /**
@@ -310,6 +431,7 @@ public abstract class AbstractDimensionTimeBucketOperator extends BaseOperator
   {
     timeZone = tz;
     calendar.setTimeZone(timeZone);
+    timeBucketStart = Long.MAX_VALUE;
   }
 
   /**
@@ -322,6 +444,102 @@ public abstract class AbstractDimensionTimeBucketOperator extends BaseOperator
    */
   public abstract void process(String timeBucket, String key, String field, Number value);
 
+  /**
+   * Processes a value field expanded from the tuple by its binary key. Subclasses which aggregate can override this method
+   * and index their aggregates by {@link DimensionKey#getIndex()} instead of hashing strings for every tuple.
+   * The default implementation calls {@link #process(String, String, String, Number)} with the string view of the key.
+   *
+   * @param key The key of the time bucket and the dimensions
+   * @param field The index of the value field, 0 is the count and i + 1 is the i-th value key name
+   * @param value The value
+   */
+  protected void process(DimensionKey key, int field, Number value)
+  {
+    process(key.getTimeBucket(), key.getDimensions(), fieldNames[field], value);
+  }
+
+  /**
+   * @param field The index of the value field
+   * @return The name of the value field in the output, which is the index as a string
+   */
+  protected String getFieldName(int field)
+  {
+    return fieldNames[field];
+  }
+
+  /**
+   * The key of a time bucket and the values of a dimension combination, stored as the ids the time bucket and the dimension
+   * values are interned to. Keys are unique within a window, so they can be compared by identity, and they are numbered
+   * in the order they first occur in the window. Keys must not be used across windows.
+   */
+  public static final class DimensionKey
+  {
+    private final int[] ids;
+    private int hashCode;
+    private final int index;
+    private final String timeBucket;
+    private final String dimensions;
+
+    private DimensionKey(int[] ids)
+    {
+      this(ids, -1, null, null);
+    }
+
+    private DimensionKey(int[] ids, int index, String timeBucket, String dimensions)
+    {
+      this.ids = ids;
+      this.hashCode = Arrays.hashCode(ids);
+      this.index = index;
+      this.timeBucket = timeBucket;
+      this.dimensions = dimensions;
+    }
+
+    /**
+     * @return The number of keys which occurred in the window before this key
+     */
+    public int getIndex()
+    {
+      return index;
+    }
+
+    /**
+     * @return The time bucket string, for example m|201501011230
+     */
+    public String getTimeBucket()
+    {
+      return timeBucket;
+    }
+
+    /**
+     * @return The dimensions string, for example 0:value|2:value
+     */
+    public String getDimensions()
+    {
+      return dimensions;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      return obj instanceof DimensionKey && Arrays.equals(ids, ((DimensionKey)obj).ids);
+    }
+
+    /**
+     * @return The time bucket and the dimensions separated by |, as the keys of the output map
+     */
+    @Override
+    public String toString()
+    {
+      return timeBucket + "|" + dimensions;
+    }
+  }
+
   public static class Combinations
   {
     public static <K> List<List<K>> getCombinations(List<K> list, int r)
@@ -15,7 +15,9 @@
  */
 package com.datatorrent.lib.util;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.apache.commons.lang.mutable.MutableDouble;
 import org.slf4j.Logger;
@@ -35,11 +37,49 @@ public class DimensionTimeBucketSumOperator extends AbstractDimensionTimeBucketO
 {
   private static final Logger LOG = LoggerFactory.getLogger(DimensionTimeBucketSumOperator.class);
   private Map<String, Map<String, Number>> dataMap;
+  /*
+   * The sums of the fields of the keys of the window, indexed by the index of the key.
+   */
+  private transient List<DimensionKey> keys;
+  private transient List<MutableDouble[]> sums;
+
+  @Override
+  protected void process(DimensionKey key, int field, Number value)
+  {
+    if (value == null) {
+      return;
+    }
+    int index = key.getIndex();
+    while (sums.size() <= index) {
+      keys.add(null);
+      sums.add(null);
+    }
+    MutableDouble[] fields = sums.get(index);
+    if (fields == null || fields.length <= field) {
+      MutableDouble[] newFields = new MutableDouble[field + 1];
+      if (fields != null) {
+        System.arraycopy(fields, 0, newFields, 0, fields.length);
+      }
+      fields = newFields;
+      keys.set(index, key);
+      sums.set(index, fields);
+    }
+    if (fields[field] == null) {
+      fields[field] = new MutableDouble(value);
+    }
+    else {
+      fields[field].add(value);
+    }
+  }
 
   @Override
   public void process(String timeBucket, String key, String field, Number value)
   {
-    String finalKey = timeBucket + "|" + key;
+    aggregate(timeBucket + "|" + key, field, value);
+  }
+
+  private void aggregate(String finalKey, String field, Number value)
+  {
     Map<String, Number> m = dataMap.get(finalKey);
     if (value == null) {
       return;
@@ -64,11 +104,26 @@ public class DimensionTimeBucketSumOperator extends AbstractDimensionTimeBucketO
   {
     super.beginWindow(windowId);
     dataMap = new HashMap<String, Map<String, Number>>();
+    keys = new ArrayList<DimensionKey>();
+    sums = new ArrayList<MutableDouble[]>();
   }
 
   @Override
   public void endWindow()
   {
+    for (int index = 0; index < keys.size(); index++) {
+      DimensionKey key = keys.get(index);
+      if (key == null) {
+        continue;
+      }
+      String finalKey = key.toString();
+      MutableDouble[] fields = sums.get(index);
+      for (int field = 0; field < fields.length; field++) {
+        if (fields[field] != null) {
+          aggregate(finalKey, getFieldName(field), fields[field]);
+        }
+      }
+    }
     if (!dataMap.isEmpty()) {
       out.emit(dataMap);
       LOG.info("Number of keyval pairs: {}", dataMap.size());
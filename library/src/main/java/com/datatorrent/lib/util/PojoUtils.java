@@ -20,16 +20,22 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Maps;
 
 import org.codehaus.commons.compiler.CompileException;
 import org.codehaus.commons.compiler.CompilerFactoryFactory;
+import org.codehaus.commons.compiler.IClassBodyEvaluator;
 import org.codehaus.commons.compiler.IScriptEvaluator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
 
@@ -53,6 +59,29 @@ public class PojoUtils
   private static final Map<Class<?>, Class<?>> primitiveClassToGetterInterface = Maps.newHashMap();
   private static final Map<Class<?>, Class<?>> primitiveClassToSetterInterface = Maps.newHashMap();
 
+  /**
+   * Classes which a {@link RecordGetter} copies values of, in the order of its array parameters.
+   */
+  private static final Class<?>[] RECORD_GETTER_CLASSES = new Class<?>[] {boolean.class, char.class, byte.class,
+    short.class, int.class, long.class, float.class, double.class, String.class, Object.class};
+
+  /**
+   * Compiled accessors per class loader of the POJO classes, keyed by the implemented interface and the generated code.
+   * The generated classes are stateless, so all operator instances in a container share them.
+   * The accessors refer to classes of their class loader, which would keep a weak key reachable, so the values are
+   * held softly. The accessors of a class loader that is no longer used are released when memory runs low, and then
+   * the class loader can be collected.
+   */
+  private static final LoadingCache<ClassLoader, ConcurrentMap<String, Object>> compiledAccessors =
+      CacheBuilder.newBuilder().weakKeys().softValues().build(new CacheLoader<ClassLoader, ConcurrentMap<String, Object>>()
+      {
+        @Override
+        public ConcurrentMap<String, Object> load(ClassLoader classLoader)
+        {
+          return Maps.newConcurrentMap();
+        }
+      });
+
   static {
     primitiveClassToGetterInterface.put(boolean.class, GetterBoolean.class);
     primitiveClassToGetterInterface.put(byte.class, GetterByte.class);
@@ -210,6 +239,67 @@ public class PojoUtils
     return (GetterDouble<T>) createGetter(pojoClass, getterExpr, exprObjectPlaceholder, double.class, GetterDouble.class);
   }
 
+  /**
+   * Getter which copies the values of a list of fields of a POJO into primitive specialized arrays with one call. The
+   * values of each type are copied into the array of that type in the order of the getter expressions of the type.
+   * Arrays of types without getter expressions are not accessed and may be null.
+   * @param <T> class of objects that the getter applies to
+   */
+  public interface RecordGetter<T>
+  {
+    void get(T obj, boolean[] booleanVals, char[] charVals, byte[] byteVals, short[] shortVals, int[] intVals,
+        long[] longVals, float[] floatVals, double[] doubleVals, String[] stringVals, Object[] objectVals);
+  }
+
+  /**
+   * Creates a {@link RecordGetter} which evaluates all the given getter expressions in a single generated class. This
+   * avoids compiling a class per field and the interface dispatch per field of the individual getters.
+   * @param pojoClass Class object that the getter applies to
+   * @param exprClassToGetterExprs Map from the value class to the getter expressions of the values of that class. The
+   * value classes can be the primitive classes, String or Object.
+   * @return the record getter
+   */
+  public static <T> RecordGetter<T> createRecordGetter(Class<? extends T> pojoClass, Map<Class<?>, List<String>> exprClassToGetterExprs)
+  {
+    return createRecordGetter(pojoClass, exprClassToGetterExprs, DEFAULT_EXP_OBJECT_PLACEHOLDER);
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T> RecordGetter<T> createRecordGetter(Class<? extends T> pojoClass, Map<Class<?>, List<String>> exprClassToGetterExprs, String exprObjectPlaceholder)
+  {
+    for (Class<?> exprClass : exprClassToGetterExprs.keySet()) {
+      if (!ArrayUtils.contains(RECORD_GETTER_CLASSES, exprClass)) {
+        throw new IllegalArgumentException("createRecordGetter does not allow class \"" + exprClass.getName() + "\".");
+      }
+    }
+
+    StringBuilder code = new StringBuilder("public void get(Object ").append(OBJECT);
+    for (Class<?> exprClass : RECORD_GETTER_CLASSES) {
+      code.append(", ").append(exprClass.getName()).append("[] ").append(getRecordArrayName(exprClass));
+    }
+    code.append(")\n{\n");
+
+    for (Class<?> exprClass : RECORD_GETTER_CLASSES) {
+      List<String> getterExprs = exprClassToGetterExprs.get(exprClass);
+      if (getterExprs == null) {
+        continue;
+      }
+      for (int index = 0; index < getterExprs.size(); index++) {
+        String target = getRecordArrayName(exprClass) + "[" + index + "]";
+        code.append(getGetterStatement(pojoClass, getterExprs.get(index), exprObjectPlaceholder, exprClass,
+            new JavaAssignmentStatement(target, exprClass))).append('\n');
+      }
+    }
+    code.append("}\n");
+
+    return (RecordGetter<T>) compileClassBody(pojoClass, code.toString(), RecordGetter.class);
+  }
+
+  private static String getRecordArrayName(Class<?> exprClass)
+  {
+    return ClassUtils.getShortClassName(exprClass).toLowerCase() + "Vals";
+  }
+
   public static <T, V> Getter<T, V> createGetter(Class<? extends T> pojoClass, String getterExpr, Class<? extends V> exprClass)
   {
     return createGetter(pojoClass, getterExpr, DEFAULT_EXP_OBJECT_PLACEHOLDER, exprClass);
@@ -480,6 +570,19 @@ public class PojoUtils
     }
   }
 
+  private static class JavaAssignmentStatement extends JavaStatement {
+    private JavaAssignmentStatement(String target, Class<?> type) {
+      super();
+      append(target).append(" = ((").append(type.getName()).append(")");
+    }
+
+    @Override
+    protected String getStatement() {
+      append(")");
+      return super.getStatement();
+    }
+  }
+
   private static class JavaReturnStatement extends JavaStatement {
     private JavaReturnStatement(Class<?> returnType) {
       super();
@@ -515,9 +618,8 @@ public class PojoUtils
    * @param exprClass expected field type
    * @return java code fragment
    */
-  private static String getSingleFieldGetterExpression(final Class<?> pojoClass, final String fieldExpression, final Class<?> exprClass)
+  private static String getSingleFieldGetterExpression(final Class<?> pojoClass, final String fieldExpression, final Class<?> exprClass, JavaStatement code)
   {
-    JavaStatement code = new JavaReturnStatement(pojoClass.getName().length() + fieldExpression.length() + exprClass.getName().length() + 32, exprClass);
     code.appendCastToTypeExpr(pojoClass, OBJECT).append(".");
     try {
       final Field field = pojoClass.getField(fieldExpression);
@@ -566,8 +668,24 @@ public class PojoUtils
     return code.append(fieldExpression).getStatement();
   }
 
-  @SuppressWarnings("StringEquality")
   private static Object createGetter(Class<?> pojoClass, String getterExpr, String exprObjectPlaceholder, Class<?> exprClass, Class<?> getterClass)
+  {
+    logger.debug("{} {} {} {}", pojoClass, getterExpr, exprClass, getterClass);
+
+    String code = getGetterStatement(pojoClass, getterExpr, exprObjectPlaceholder, exprClass,
+        new JavaReturnStatement(pojoClass.getName().length() + getterExpr.length() + exprClass.getName().length() + 32, exprClass));
+
+    logger.debug("code: {}", code);
+
+    return createFastEvaluator(pojoClass, code, getterClass, new String[] {PojoUtils.OBJECT});
+  }
+
+  /**
+   * Builds the statement which evaluates the getter expression. The statement starts with the given prefix statement,
+   * which either returns or assigns the value of the expression.
+   */
+  @SuppressWarnings("StringEquality")
+  private static String getGetterStatement(Class<?> pojoClass, String getterExpr, String exprObjectPlaceholder, Class<?> exprClass, JavaStatement statement)
   {
     if (getterExpr.startsWith(".")) {
       getterExpr = getterExpr.substring(1);
@@ -577,7 +695,37 @@ public class PojoUtils
       throw new IllegalArgumentException("The getter expression: \"" + getterExpr + "\" is invalid.");
     }
 
-    logger.debug("{} {} {} {}", pojoClass, getterExpr, exprClass, getterClass);
+    String code = StringUtils.replaceEach(getterExpr, new String[]{exprObjectPlaceholder},
+            new String[]{new JavaStatement(pojoClass.getName().length() + OBJECT.length() + 4).appendCastToTypeExpr(pojoClass, OBJECT).toString()});
+    if (code != getterExpr) {
+      code = statement.append(code).getStatement();
+      logger.debug("Original expression {} is a complex expression. Replacing it with {}.", getterExpr, code);
+      return code;
+    }
+    return getSingleFieldGetterExpression(pojoClass, getterExpr, exprClass, statement);
+  }
+
+  private static ConcurrentMap<String, Object> getCompiledAccessors(Class<?> pojoClass)
+  {
+    ClassLoader classLoader = pojoClass.getClassLoader();
+    if (classLoader == null) {
+      classLoader = PojoUtils.class.getClassLoader();
+    }
+    return compiledAccessors.getUnchecked(classLoader);
+  }
+
+  /**
+   * Compiles the script into an instance of the given interface or returns the instance compiled before for the same
+   * script by the class loader of the POJO class.
+   */
+  private static Object createFastEvaluator(Class<?> pojoClass, String code, Class<?> interfaceClass, String[] parameterNames)
+  {
+    ConcurrentMap<String, Object> accessors = getCompiledAccessors(pojoClass);
+    String key = interfaceClass.getName() + ":" + code;
+    Object accessor = accessors.get(key);
+    if (accessor != null) {
+      return accessor;
+    }
 
     IScriptEvaluator se;
 
@@ -587,23 +735,42 @@ public class PojoUtils
       throw new RuntimeException(ex);
     }
 
-    String code = StringUtils.replaceEach(getterExpr, new String[]{exprObjectPlaceholder},
-            new String[]{new JavaStatement(pojoClass.getName().length() + OBJECT.length() + 4).appendCastToTypeExpr(pojoClass, OBJECT).toString()});
-    if (code != getterExpr) {
-      code = new JavaReturnStatement(exprClass.getName().length() + code.length() + 12, exprClass).append(code).getStatement();
-      logger.debug("Original expression {} is a complex expression. Replacing it with {}.", getterExpr, code);
+    try {
+      accessor = se.createFastEvaluator(code, interfaceClass, parameterNames);
+    } catch (CompileException ex) {
+      throw new RuntimeException(ex);
     }
-    else {
-      code = getSingleFieldGetterExpression(pojoClass, getterExpr, exprClass);
+
+    Object previous = accessors.putIfAbsent(key, accessor);
+    return previous == null ? accessor : previous;
+  }
+
+  /**
+   * Compiles the class body into an instance of a class implementing the given interface or returns the instance
+   * compiled before for the same class body by the class loader of the POJO class.
+   */
+  private static Object compileClassBody(Class<?> pojoClass, String code, Class<?> interfaceClass)
+  {
+    ConcurrentMap<String, Object> accessors = getCompiledAccessors(pojoClass);
+    String key = interfaceClass.getName() + ":" + code;
+    Object accessor = accessors.get(key);
+    if (accessor != null) {
+      return accessor;
     }
 
     logger.debug("code: {}", code);
 
     try {
-      return se.createFastEvaluator(code, getterClass, new String[] {PojoUtils.OBJECT});
-    } catch (CompileException ex) {
+      IClassBodyEvaluator cbe = CompilerFactoryFactory.getDefaultCompilerFactory().newClassBodyEvaluator();
+      cbe.setImplementedInterfaces(new Class<?>[] {interfaceClass});
+      cbe.cook(code);
+      accessor = cbe.getClazz().newInstance();
+    } catch (Exception ex) {
       throw new RuntimeException(ex);
     }
+
+    Object previous = accessors.putIfAbsent(key, accessor);
+    return previous == null ? accessor : previous;
   }
 
   private static String getSingleFieldSetterExpression(final Class<?> pojoClass, final String fieldExpression, final Class<?> exprClass)
@@ -674,15 +841,6 @@ public class PojoUtils
 
     logger.debug("{} {} {} {}", pojoClass, setterExpr, exprClass, setterClass);
 
-    IScriptEvaluator se;
-
-    try {
-      se = CompilerFactoryFactory.getDefaultCompilerFactory().newScriptEvaluator();
-    } catch (Exception ex) {
-      throw new RuntimeException(ex);
-    }
-
-
     String code = StringUtils.replaceEach(setterExpr, new String[]{exprObjectPlaceholder, exprValPlaceholder},
             new String[]{new JavaStatement().appendCastToTypeExpr(pojoClass, OBJECT).toString(), new JavaStatement().appendCastToTypeExpr(exprClass, VAL).toString()});
     if (code != setterExpr) {
@@ -693,14 +851,9 @@ public class PojoUtils
       code = getSingleFieldSetterExpression(pojoClass, setterExpr, exprClass);
     }
 
-    try {
-
-      logger.debug("code: {}", code);
+    logger.debug("code: {}", code);
 
-      return se.createFastEvaluator(code, setterClass, new String[] { PojoUtils.OBJECT, PojoUtils.VAL});
-    } catch (CompileException ex) {
-      throw new RuntimeException(ex);
-    }
+    return createFastEvaluator(pojoClass, code, setterClass, new String[] { PojoUtils.OBJECT, PojoUtils.VAL});
   }
 
 }
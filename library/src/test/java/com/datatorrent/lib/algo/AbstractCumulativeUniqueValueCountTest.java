@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.algo;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import com.datatorrent.lib.algo.UniqueValueCount.InternalCountOutput;
+import com.datatorrent.lib.db.Connectable;
+import com.datatorrent.lib.helper.OperatorContextTestHelper;
+import com.datatorrent.lib.testbench.CollectorTestSink;
+import com.datatorrent.lib.util.KeyValPair;
+
+/**
+ * Tests for {@link AbstractCumulativeUniqueValueCount}
+ */
+public class AbstractCumulativeUniqueValueCountTest
+{
+  private static class DummyConnectable implements Connectable
+  {
+    @Override
+    public void connect() throws IOException
+    {
+    }
+
+    @Override
+    public void disconnect() throws IOException
+    {
+    }
+
+    @Override
+    public boolean isConnected()
+    {
+      return true;
+    }
+  }
+
+  private static class MapCumulativeUniqueValueCount extends AbstractCumulativeUniqueValueCount<String, DummyConnectable>
+  {
+    final Map<Object, Object> backupMap = Maps.newHashMap();
+
+    MapCumulativeUniqueValueCount()
+    {
+      store = new DummyConnectable();
+    }
+
+    @Override
+    public Map<Object, Object> loadInitialData()
+    {
+      return null;
+    }
+
+    @Override
+    public Object get(Object key)
+    {
+      return backupMap.get(key);
+    }
+
+    @Override
+    public List<Object> getAll(List<Object> keys)
+    {
+      List<Object> values = Lists.newArrayList();
+      for (Object key : keys) {
+        values.add(backupMap.get(key));
+      }
+      return values;
+    }
+
+    @Override
+    public void put(Object key, Object value)
+    {
+      backupMap.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<Object, Object> m)
+    {
+      backupMap.putAll(m);
+    }
+
+    @Override
+    public void remove(Object key)
+    {
+      backupMap.remove(key);
+    }
+  }
+
+  private static InternalCountOutput<String> sketchTuple(String key, int from, int to)
+  {
+    HyperLogLog sketch = new HyperLogLog();
+    for (int i = from; i < to; i++) {
+      sketch.add(i);
+    }
+    return new InternalCountOutput<String>(key, (int)sketch.cardinality(), null, sketch.toBytes());
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  @Test
+  public void testCumulativeCounts()
+  {
+    MapCumulativeUniqueValueCount operator = new MapCumulativeUniqueValueCount();
+    CollectorTestSink sink = new CollectorTestSink();
+    operator.output.setSink(sink);
+    operator.setup(new OperatorContextTestHelper.TestIdOperatorContext(1));
+
+    operator.beginWindow(0);
+    operator.input.process(sketchTuple("key1", 0, 1000));
+    operator.endWindow();
+
+    operator.beginWindow(1);
+    operator.input.process(sketchTuple("key1", 500, 1500));
+    Set<Object> values = Sets.newHashSet();
+    values.add(1);
+    values.add(2);
+    operator.input.process(new InternalCountOutput<String>("key2", 2, values));
+    operator.endWindow();
+
+    //replay of the last window
+    operator.beginWindow(1);
+    operator.input.process(sketchTuple("key1", 500, 1500));
+    operator.endWindow();
+
+    Assert.assertEquals("emitted tuples", 4, sink.collectedTuples.size());
+    KeyValPair<Object, Object> first = (KeyValPair<Object, Object>)sink.collectedTuples.get(0);
+    Assert.assertEquals("count of first window", 1000, ((Long)first.getValue()).doubleValue(), 20);
+    KeyValPair<Object, Object> second = (KeyValPair<Object, Object>)sink.collectedTuples.get(1);
+    Assert.assertEquals("count across windows", 1500, ((Long)second.getValue()).doubleValue(), 30);
+    KeyValPair<Object, Object> exact = (KeyValPair<Object, Object>)sink.collectedTuples.get(2);
+    Assert.assertEquals("key of exact count", "key2", exact.getKey());
+    Assert.assertEquals("count of exact values", 2L, exact.getValue());
+    KeyValPair<Object, Object> replayed = (KeyValPair<Object, Object>)sink.collectedTuples.get(3);
+    Assert.assertEquals("count after replay", second.getValue(), replayed.getValue());
+
+    Assert.assertNotNull("saved sketch", operator.backupMap.get("key1"));
+    operator.teardown();
+  }
+}
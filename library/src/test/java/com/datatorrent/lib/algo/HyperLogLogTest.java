@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.algo;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link HyperLogLog}
+ */
+public class HyperLogLogTest
+{
+  private static void assertEstimate(String message, long expected, long estimate, double error)
+  {
+    Assert.assertTrue(message + " expected " + expected + " estimate " + estimate, Math.abs(estimate - expected) <= expected * error);
+  }
+
+  @Test
+  public void testSmallCardinalities()
+  {
+    HyperLogLog sketch = new HyperLogLog();
+    Assert.assertEquals("empty", 0, sketch.cardinality());
+    for (int i = 0; i < 100; i++) {
+      sketch.add("value" + i);
+      sketch.add("value" + i);
+    }
+    assertEstimate("sparse", 100, sketch.cardinality(), 0.02);
+    Assert.assertEquals("sparse bytes", 6 + 4 * 100, sketch.toBytes().length, 4 * 2);
+  }
+
+  @Test
+  public void testLargeCardinalities()
+  {
+    HyperLogLog sketch = new HyperLogLog(14);
+    for (long i = 0; i < 1000000; i++) {
+      sketch.add(i);
+    }
+    assertEstimate("dense", 1000000, sketch.cardinality(), 0.03);
+    Assert.assertEquals("dense bytes", 2 + (1 << 14), sketch.toBytes().length);
+  }
+
+  @Test
+  public void testMerge()
+  {
+    HyperLogLog first = new HyperLogLog(12);
+    HyperLogLog second = new HyperLogLog(12);
+    for (int i = 0; i < 50000; i++) {
+      first.add("key" + i);
+      second.add("key" + (i + 25000));
+    }
+    HyperLogLog merged = HyperLogLog.fromBytes(first.toBytes());
+    merged.merge(second.toBytes());
+    assertEstimate("merged", 75000, merged.cardinality(), 0.05);
+
+    long estimate = merged.cardinality();
+    merged.merge(second);
+    Assert.assertEquals("merge is idempotent", estimate, merged.cardinality());
+
+    HyperLogLog sparse = new HyperLogLog(12);
+    sparse.add("key0");
+    sparse.add("another");
+    HyperLogLog dense = HyperLogLog.fromBytes(first.toBytes());
+    dense.merge(sparse);
+    assertEstimate("sparse into dense", 50001, dense.cardinality(), 0.05);
+  }
+
+  @Test
+  public void testSerialization()
+  {
+    HyperLogLog sketch = new HyperLogLog(10);
+    for (int i = 0; i < 100; i++) {
+      sketch.add(i);
+    }
+    HyperLogLog copy = HyperLogLog.fromBytes(sketch.toBytes());
+    Assert.assertEquals("precision", 10, copy.getPrecision());
+    Assert.assertEquals("sparse", sketch.cardinality(), copy.cardinality());
+    for (int i = 0; i < 10000; i++) {
+      sketch.add(i);
+    }
+    copy = HyperLogLog.fromBytes(sketch.toBytes());
+    Assert.assertEquals("dense", sketch.cardinality(), copy.cardinality());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMergeDifferentPrecisions()
+  {
+    new HyperLogLog(10).merge(new HyperLogLog(12));
+  }
+}
@@ -80,4 +80,46 @@ public class UniqueValueCountTest {
         LOG.debug("Done unique count testing testing\n") ;
     }
 
+    @Test
+    public void approximateUniqueCountTest(){
+        UniqueValueCount<String> partition1 = new UniqueValueCount<String>();
+        UniqueValueCount<String> partition2 = new UniqueValueCount<String>();
+        partition1.setApproximate(true);
+        partition2.setApproximate(true);
+        CollectorTestSink<KeyValPair <String,Integer>> outputSink = new CollectorTestSink<KeyValPair <String,Integer>>();
+        CollectorTestSink<KeyValPair <String,Set<Object>>> outputSetSink = new CollectorTestSink<KeyValPair <String, Set<Object>>>();
+        TestUtils.setSink(partition1.output, outputSink);
+        TestUtils.setSink(partition2.output, outputSink);
+        TestUtils.setSink(partition1.outputValues, outputSetSink);
+
+        partition1.beginWindow(0);
+        partition2.beginWindow(0);
+        for (int i = 0; i < 10000; i++) {
+            partition1.input.process(new KeyValPair<String, Object>("test1", i));
+            partition2.input.process(new KeyValPair<String, Object>("test1", i + 5000));
+        }
+        partition1.endWindow();
+        partition2.endWindow();
+
+        Assert.assertEquals("number emitted tuples", 2, outputSink.collectedTuples.size());
+        Assert.assertEquals("no sets emitted", 0, outputSetSink.collectedTuples.size());
+        UniqueValueCount.InternalCountOutput<String> emitted = (UniqueValueCount.InternalCountOutput<String>)outputSink.collectedTuples.get(0);
+        Assert.assertNull("no set", emitted.getInternalSet());
+        Assert.assertNotNull("sketch", emitted.getSketch());
+        Assert.assertEquals("estimate of partition", 10000, emitted.getValue(), 300);
+
+        UniqueValueCount.UniqueCountUnifier<String> unifier = new UniqueValueCount.UniqueCountUnifier<String>();
+        CollectorTestSink<UniqueValueCount.InternalCountOutput<String>> unifierSink = new CollectorTestSink<UniqueValueCount.InternalCountOutput<String>>();
+        TestUtils.setSink(unifier.output, unifierSink);
+        unifier.beginWindow(0);
+        for (KeyValPair<String, Integer> tuple : outputSink.collectedTuples) {
+            unifier.process((UniqueValueCount.InternalCountOutput<String>)tuple);
+        }
+        unifier.endWindow();
+
+        Assert.assertEquals("number unified tuples", 1, unifierSink.collectedTuples.size());
+        Assert.assertEquals("key", "test1", unifierSink.collectedTuples.get(0).getKey());
+        Assert.assertEquals("estimate of union", 15000, unifierSink.collectedTuples.get(0).getValue(), 450);
+    }
+
 }
@@ -81,4 +81,21 @@ public class DataQuerySnapshotDeserializerTest
     Assert.assertEquals("The fields must equal.", fields, gQuery.getFields());
     Assert.assertEquals(expectedSchemaKeys, gQuery.getSchemaKeys());
   }
+
+  @Test
+  public void invalidFilterAndPageTest() throws Exception
+  {
+    DataQuerySnapshotDeserializer deserializer = new DataQuerySnapshotDeserializer();
+
+    String queryJSON = "{\"id\": \"1\", \"type\": \"dataQuery\", \"data\": {\"fields\": [ \"url\", \"count\" ], %s}}";
+
+    Assert.assertNotNull(deserializer.deserialize(String.format(queryJSON, "\"filters\": [ {\"field\": \"count\", \"operator\": \"Ge\", \"value\": 1} ]"),
+                                                  DataQuerySnapshot.class, null));
+    Assert.assertNull("Unknown operator", deserializer.deserialize(String.format(queryJSON, "\"filters\": [ {\"field\": \"count\", \"operator\": \"like\", \"value\": 1} ]"),
+                                                                   DataQuerySnapshot.class, null));
+    Assert.assertNull("Negative offset", deserializer.deserialize(String.format(queryJSON, "\"offset\": -1"),
+                                                                  DataQuerySnapshot.class, null));
+    Assert.assertNull("Negative limit", deserializer.deserialize(String.format(queryJSON, "\"limit\": -2"),
+                                                                 DataQuerySnapshot.class, null));
+  }
 }
@@ -103,5 +103,122 @@ public class AppDataSnapshotServerMapTest
     TestUtils.clone(new Kryo(), snapshotServer);
   }
 
+  public static final String TOP_N_QUERY = "{\"id\": \"%s\",\n"
+                                           + "\"type\": \"dataQuery\",\n"
+                                           + "\"data\": {\n"
+                                           + "\"fields\": [ \"word\", \"count\" ],\n"
+                                           + "\"filters\": [ {\"field\": \"count\", \"operator\": \"ge\", \"value\": 10} ],\n"
+                                           + "\"sortBy\": \"count\",\n"
+                                           + "\"ascending\": false,\n"
+                                           + "\"offset\": 1,\n"
+                                           + "\"limit\": 3\n"
+                                           + "}\n"
+                                           + "}";
+
+  @Test
+  public void topNTest() throws Exception
+  {
+    AppDataSnapshotServerMap snapshotServer = new AppDataSnapshotServerMap();
+    snapshotServer.setSnapshotSchemaJSON(SIMPLE_SCHEMA);
+
+    List<Map<String, Object>> dataList = Lists.newArrayList();
+
+    for(int count = 0;
+        count < 100;
+        count++) {
+      Map<String, Object> data = Maps.newHashMap();
+      data.put("word", "w" + count);
+      data.put("count", (count * 37) % 100);
+      dataList.add(data);
+    }
+
+    CollectorTestSink<String> resultSink = new CollectorTestSink<String>();
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    CollectorTestSink<Object> tempResultSink = (CollectorTestSink) resultSink;
+    snapshotServer.queryResult.setSink(tempResultSink);
+
+    snapshotServer.setup(null);
+
+    snapshotServer.beginWindow(0L);
+    snapshotServer.input.put(dataList);
+    snapshotServer.query.put(String.format(TOP_N_QUERY, "1"));
+    snapshotServer.query.put(String.format(TOP_N_QUERY, "2"));
+    snapshotServer.endWindow();
+
+    Assert.assertEquals("Should get 2 results back", 2, tempResultSink.collectedTuples.size());
+
+    JSONObject result = new JSONObject((String) tempResultSink.collectedTuples.get(0));
+    Assert.assertEquals("1", result.getString("id"));
+    Assert.assertEquals("Num results", 3, result.getJSONArray("data").length());
+    Assert.assertEquals(98, result.getJSONArray("data").getJSONObject(0).getInt("count"));
+    Assert.assertEquals(97, result.getJSONArray("data").getJSONObject(1).getInt("count"));
+    Assert.assertEquals(96, result.getJSONArray("data").getJSONObject(2).getInt("count"));
+
+    JSONObject cachedResult = new JSONObject((String) tempResultSink.collectedTuples.get(1));
+    Assert.assertEquals("2", cachedResult.getString("id"));
+    Assert.assertEquals(result.getJSONArray("data").toString(), cachedResult.getJSONArray("data").toString());
+
+    //A new snapshot invalidates the cached results and reuses the rows.
+    for(Map<String, Object> data: dataList) {
+      data.put("count", ((Integer) data.get("count")) / 10);
+    }
+
+    tempResultSink.clear();
+    snapshotServer.beginWindow(1L);
+    snapshotServer.input.put(dataList.subList(0, 50));
+    snapshotServer.query.put(String.format(TOP_N_QUERY, "3"));
+    snapshotServer.endWindow();
+
+    result = new JSONObject((String) tempResultSink.collectedTuples.get(0));
+    Assert.assertEquals("No rows pass the filter", 0, result.getJSONArray("data").length());
+
+    TestUtils.clone(new Kryo(), snapshotServer);
+  }
+
+  public static final String FILTER_QUERY = "{\"id\": \"%s\",\n"
+                                             + "\"type\": \"dataQuery\",\n"
+                                             + "\"data\": {\n"
+                                             + "\"fields\": [ \"word\", \"count\" ],\n"
+                                             + "\"filters\": [ {\"field\": \"count\", \"operator\": \"gt\", \"value\": \"%s\"} ]\n"
+                                             + "}\n"
+                                             + "}";
+
+  @Test
+  public void invalidFilterValueTest() throws Exception
+  {
+    AppDataSnapshotServerMap snapshotServer = new AppDataSnapshotServerMap();
+    snapshotServer.setSnapshotSchemaJSON(SIMPLE_SCHEMA);
+
+    List<Map<String, Object>> dataList = Lists.newArrayList();
+
+    for(int count = 0;
+        count < 5;
+        count++) {
+      Map<String, Object> data = Maps.newHashMap();
+      data.put("word", "w" + count);
+      data.put("count", count);
+      dataList.add(data);
+    }
+
+    CollectorTestSink<String> resultSink = new CollectorTestSink<String>();
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    CollectorTestSink<Object> tempResultSink = (CollectorTestSink) resultSink;
+    snapshotServer.queryResult.setSink(tempResultSink);
+
+    snapshotServer.setup(null);
+
+    snapshotServer.beginWindow(0L);
+    snapshotServer.input.put(dataList);
+    snapshotServer.query.put(String.format(FILTER_QUERY, "1", "abc"));
+    snapshotServer.query.put(String.format(FILTER_QUERY, "2", "2"));
+    snapshotServer.endWindow();
+
+    Assert.assertEquals("The query with a non numeric value is rejected", 1, tempResultSink.collectedTuples.size());
+
+    JSONObject result = new JSONObject((String) tempResultSink.collectedTuples.get(0));
+    Assert.assertEquals("2", result.getString("id"));
+    Assert.assertEquals("Num results", 2, result.getJSONArray("data").length());
+  }
+
   private static final Logger LOG = LoggerFactory.getLogger(AppDataSnapshotServerMapTest.class);
 }
@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.db.cache;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import com.datatorrent.lib.db.Connectable;
+import com.datatorrent.lib.helper.OperatorContextTestHelper;
+import com.datatorrent.lib.testbench.CollectorTestSink;
+import com.datatorrent.lib.util.KeyValPair;
+
+/**
+ * Tests for batch lookups of {@link AbstractDBLookupCacheBackedOperator}
+ */
+public class AbstractDBLookupCacheBackedOperatorTest
+{
+  private static class DummyConnectable implements Connectable
+  {
+    @Override
+    public void connect() throws IOException
+    {
+    }
+
+    @Override
+    public void disconnect() throws IOException
+    {
+    }
+
+    @Override
+    public boolean isConnected()
+    {
+      return true;
+    }
+  }
+
+  private static class MapLookupOperator extends AbstractDBLookupCacheBackedOperator<Integer, DummyConnectable>
+  {
+    final Map<Object, Object> backupMap = Maps.newHashMap();
+    int getAllCalls;
+
+    MapLookupOperator()
+    {
+      store = new DummyConnectable();
+      for (int i = 0; i < 10; i++) {
+        backupMap.put(i, "value" + i);
+      }
+    }
+
+    @Override
+    protected Object getKeyFromTuple(Integer tuple)
+    {
+      return tuple;
+    }
+
+    @Override
+    public Map<Object, Object> loadInitialData()
+    {
+      return null;
+    }
+
+    @Override
+    public Object get(Object key)
+    {
+      return backupMap.get(key);
+    }
+
+    @Override
+    public synchronized List<Object> getAll(List<Object> keys)
+    {
+      getAllCalls++;
+      List<Object> values = Lists.newArrayList();
+      for (Object key : keys) {
+        values.add(backupMap.get(key));
+      }
+      return values;
+    }
+
+    @Override
+    public void put(Object key, Object value)
+    {
+      backupMap.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<Object, Object> m)
+    {
+      backupMap.putAll(m);
+    }
+
+    @Override
+    public void remove(Object key)
+    {
+      backupMap.remove(key);
+    }
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  @Test
+  public void testBatchLookups()
+  {
+    MapLookupOperator operator = new MapLookupOperator();
+    operator.setLookupBatchSize(3);
+    CollectorTestSink sink = new CollectorTestSink();
+    operator.output.setSink(sink);
+    operator.setup(new OperatorContextTestHelper.TestIdOperatorContext(1));
+
+    operator.beginWindow(0);
+    int[] tuples = new int[]{1, 2, 1, 3, 4, 2, 11, 5};
+    for (int tuple : tuples) {
+      operator.input.process(tuple);
+    }
+    operator.endWindow();
+
+    Assert.assertEquals("emitted tuples", 7, sink.collectedTuples.size());
+    Assert.assertEquals("batch lookups", 2, operator.getAllCalls);
+
+    int count1 = 0;
+    for (Object tuple : sink.collectedTuples) {
+      KeyValPair<Object, Object> pair = (KeyValPair<Object, Object>) tuple;
+      Assert.assertEquals("value", "value" + pair.getKey(), pair.getValue());
+      if (pair.getKey().equals(1)) {
+        count1++;
+      }
+    }
+    Assert.assertEquals("tuples of key 1", 2, count1);
+
+    sink.clear();
+    operator.beginWindow(1);
+    operator.input.process(1);
+    Assert.assertEquals("cached value emitted", 1, sink.collectedTuples.size());
+    operator.endWindow();
+    Assert.assertTrue("hits", operator.getCacheManager().getHitCount() >= 1);
+    operator.teardown();
+  }
+}
@@ -127,5 +127,60 @@ public class CacheManagerTest
 
     Assert.assertEquals("backup hit", "six", manager.get(6));
     Assert.assertEquals("primary updated- total", 6, manager.primary.getKeys().size());
+
+    Assert.assertEquals("primary hit", "six", manager.get(6));
+    Assert.assertEquals("hit count", 1, manager.getHitCount());
+    Assert.assertEquals("miss count", 1, manager.getMissCount());
+    Assert.assertEquals("load count", 1, manager.getLoadCount());
+  }
+
+  @Test
+  public void testIncrementalRefresh() throws Exception
+  {
+    CacheManager manager = new CacheManager();
+    manager.setBackup(new DummyBackupStore());
+    manager.setRefreshIntervalInMillis(100);
+    manager.setRefreshChunkSize(2);
+    manager.initialize();
+
+    manager.primary.put(1, "stale");
+    long startTime = System.currentTimeMillis();
+    while (manager.getRefreshCount() == 0 && System.currentTimeMillis() - startTime < 30000) {
+      Thread.sleep(20);
+    }
+    Assert.assertTrue("refreshed", manager.getRefreshCount() > 0);
+    Assert.assertTrue("refreshed keys", manager.getRefreshedKeyCount() >= 5);
+
+    int installed = 0;
+    startTime = System.currentTimeMillis();
+    while (installed < 5 && System.currentTimeMillis() - startTime < 30000) {
+      installed += manager.installRefreshedValues();
+      Thread.sleep(20);
+    }
+    Assert.assertTrue("installed", installed >= 5);
+    Assert.assertEquals("refreshed value", "one", manager.primary.get(1));
+    manager.close();
+  }
+
+  @Test
+  public void testRefreshDoesNotOverwriteNewerValue() throws Exception
+  {
+    CacheManager manager = new CacheManager();
+    manager.setBackup(new DummyBackupStore());
+    manager.setRefreshIntervalInMillis(2000);
+    manager.initialize();
+
+    long startTime = System.currentTimeMillis();
+    while (manager.getRefreshCount() == 0 && System.currentTimeMillis() - startTime < 30000) {
+      Thread.sleep(20);
+    }
+    Assert.assertTrue("refreshed", manager.getRefreshCount() > 0);
+
+    // loaded after the refresh fetched the key but before its value is installed
+    manager.putLoadedValue(2, "newer two");
+    Assert.assertEquals("installed", 4, manager.installRefreshedValues());
+    Assert.assertEquals("newer value", "newer two", manager.primary.get(2));
+    Assert.assertEquals("refreshed value", "one", manager.primary.get(1));
+    manager.close();
   }
 }
@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.db.cache;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.cache.Weigher;
+
+/**
+ * Tests for {@link CacheStore}
+ */
+public class CacheStoreTest
+{
+  public static class StringLengthWeigher implements Weigher<Object, Object>
+  {
+    @Override
+    public int weigh(Object key, Object value)
+    {
+      return ((String) value).length();
+    }
+  }
+
+  @Test
+  public void testMaxCacheSize() throws IOException
+  {
+    CacheStore store = new CacheStore();
+    store.setMaxCacheSize(10);
+    store.connect();
+    for (int i = 0; i < 100; i++) {
+      store.put(i, "value" + i);
+    }
+    Assert.assertTrue("bounded by size", store.getKeys().size() <= 10);
+    Assert.assertTrue("evictions", store.getStats().evictionCount() >= 90);
+
+    store.get(99);
+    store.get(0);
+    Assert.assertEquals("hits", 1, store.getStats().hitCount());
+    Assert.assertEquals("misses", 1, store.getStats().missCount());
+    store.disconnect();
+  }
+
+  @Test
+  public void testMaxCacheWeight() throws IOException
+  {
+    CacheStore store = new CacheStore();
+    store.setWeigherClass(StringLengthWeigher.class.getName());
+    store.setMaxCacheWeight(100);
+    store.connect();
+    for (int i = 0; i < 100; i++) {
+      store.put(i, "0123456789");
+    }
+    Assert.assertTrue("bounded by weight", store.getKeys().size() <= 10);
+    store.disconnect();
+  }
+}
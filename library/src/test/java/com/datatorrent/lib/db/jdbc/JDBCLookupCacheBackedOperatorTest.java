@@ -30,6 +30,7 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import com.datatorrent.api.Context;
@@ -112,6 +113,26 @@ public class JDBCLookupCacheBackedOperatorTest
       return "select col1, col2 from " + TABLE_NAME + " where col1 = ?";
     }
 
+    @Override
+    protected String fetchGetAllQuery(int numKeys)
+    {
+      StringBuilder query = new StringBuilder("select col1, col2 from " + TABLE_NAME + " where col1 in (?");
+      for (int i = 1; i < numKeys; i++) {
+        query.append(", ?");
+      }
+      return query.append(")").toString();
+    }
+
+    @Override
+    protected Map<Object, Object> processGetAllResultSet(ResultSet resultSet) throws SQLException
+    {
+      Map<Object, Object> values = Maps.newHashMap();
+      while (resultSet.next()) {
+        values.put(resultSet.getInt(1), resultSet.getString(1));
+      }
+      return values;
+    }
+
     @Override
     public List<Object> getAll(List<Object> keys)
     {
@@ -149,6 +170,7 @@ public class JDBCLookupCacheBackedOperatorTest
 
     List<Object> bulk = bulkValuesExchanger.exchange(null, 30, TimeUnit.SECONDS);
     Assert.assertEquals("bulk values retrieval", 2, bulk.size());
+    Assert.assertTrue("bulk values", bulk.containsAll(Lists.newArrayList("1", "2")));
   }
 
   @BeforeClass
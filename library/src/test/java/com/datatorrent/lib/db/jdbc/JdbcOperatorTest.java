@@ -280,6 +280,42 @@ public class JdbcOperatorTest
     cleanTable();
   }
 
+  @Test
+  public void testJdbcOutputOperatorBatches()
+  {
+    for (boolean async : new boolean[]{true, false}) {
+      JdbcTransactionalStore transactionalStore = new JdbcTransactionalStore();
+      transactionalStore.setDatabaseDriver(DB_DRIVER);
+      transactionalStore.setDatabaseUrl(URL);
+
+      com.datatorrent.api.Attribute.AttributeMap.DefaultAttributeMap attributeMap = new com.datatorrent.api.Attribute.AttributeMap.DefaultAttributeMap();
+      attributeMap.put(DAG.APPLICATION_ID, APP_ID);
+      OperatorContextTestHelper.TestIdOperatorContext context = new OperatorContextTestHelper.TestIdOperatorContext(OPERATOR_ID, attributeMap);
+
+      TestOutputOperator outputOperator = new TestOutputOperator();
+      outputOperator.setBatchSize(4);
+      outputOperator.setAsyncExecution(async);
+      outputOperator.setStore(transactionalStore);
+
+      outputOperator.setup(context);
+
+      for (int window = 0; window < 2; window++) {
+        outputOperator.beginWindow(window);
+        for (int i = 0; i < 10; i++) {
+          outputOperator.input.process(new TestEvent(window * 10 + i));
+        }
+        outputOperator.endWindow();
+      }
+
+      Assert.assertEquals("rows in db", 20, outputOperator.getNumOfEventsInStore());
+      Assert.assertEquals("committed window", 1, transactionalStore.getCommittedWindowId(APP_ID, OPERATOR_ID));
+      Assert.assertEquals("batches", 6, outputOperator.counters.getCounter(AbstractJdbcTransactionableOutputOperator.JdbcCounters.BATCHES).longValue());
+      Assert.assertEquals("rows", 20, outputOperator.counters.getCounter(AbstractJdbcTransactionableOutputOperator.JdbcCounters.ROWS).longValue());
+      outputOperator.teardown();
+      cleanTable();
+    }
+  }
+
   @Test
   public void testJdbcPOJOOutputOperator()
   {
@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.db.jdbc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datatorrent.api.DAG;
+
+import com.datatorrent.lib.helper.OperatorContextTestHelper;
+
+/**
+ * Measures the rows per second written by {@link AbstractJdbcTransactionableOutputOperator} into an in memory
+ * HSQLDB, with batches executed on the operator thread and on the executor thread.
+ */
+public class JdbcOutputOperatorBenchmarkTest
+{
+  private static final String TABLE_NAME = "benchmark_event_table";
+  private static final int NUM_WINDOWS = 10;
+  private static final int ROWS_PER_WINDOW = 20000;
+
+  @BeforeClass
+  public static void setup() throws Exception
+  {
+    JdbcOperatorTest.setup();
+    Connection con = DriverManager.getConnection(JdbcOperatorTest.URL);
+    Statement stmt = con.createStatement();
+    stmt.executeUpdate("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " (ID INTEGER, NAME VARCHAR(64), VAL DOUBLE)");
+    con.close();
+  }
+
+  private static void execute(String sql) throws SQLException
+  {
+    Connection con = DriverManager.getConnection(JdbcOperatorTest.URL);
+    Statement stmt = con.createStatement();
+    stmt.executeUpdate(sql);
+    con.close();
+  }
+
+  private static int countRows() throws SQLException
+  {
+    Connection con = DriverManager.getConnection(JdbcOperatorTest.URL);
+    Statement stmt = con.createStatement();
+    ResultSet resultSet = stmt.executeQuery("SELECT count(*) from " + TABLE_NAME);
+    resultSet.next();
+    int count = resultSet.getInt(1);
+    con.close();
+    return count;
+  }
+
+  private static class BenchmarkOutputOperator extends AbstractJdbcTransactionableOutputOperator<Integer>
+  {
+    @Nonnull
+    @Override
+    protected String getUpdateCommand()
+    {
+      return "INSERT INTO " + TABLE_NAME + " values (?, ?, ?)";
+    }
+
+    @Override
+    protected void setStatementParameters(PreparedStatement statement, Integer tuple) throws SQLException
+    {
+      statement.setInt(1, tuple);
+      statement.setString(2, "name" + tuple);
+      statement.setDouble(3, tuple * 0.5);
+    }
+  }
+
+  private long run(boolean async) throws SQLException
+  {
+    execute("delete from " + TABLE_NAME);
+    execute("delete from " + JdbcTransactionalStore.DEFAULT_META_TABLE);
+
+    JdbcTransactionalStore transactionalStore = new JdbcTransactionalStore();
+    transactionalStore.setDatabaseDriver(JdbcOperatorTest.DB_DRIVER);
+    transactionalStore.setDatabaseUrl(JdbcOperatorTest.URL);
+
+    com.datatorrent.api.Attribute.AttributeMap.DefaultAttributeMap attributeMap = new com.datatorrent.api.Attribute.AttributeMap.DefaultAttributeMap();
+    attributeMap.put(DAG.APPLICATION_ID, "JdbcOutputOperatorBenchmarkTest");
+    OperatorContextTestHelper.TestIdOperatorContext context = new OperatorContextTestHelper.TestIdOperatorContext(0, attributeMap);
+
+    BenchmarkOutputOperator operator = new BenchmarkOutputOperator();
+    operator.setStore(transactionalStore);
+    operator.setAsyncExecution(async);
+    operator.setup(context);
+
+    long start = System.nanoTime();
+    int tuple = 0;
+    for (int window = 0; window < NUM_WINDOWS; window++) {
+      operator.beginWindow(window);
+      for (int i = 0; i < ROWS_PER_WINDOW; i++) {
+        operator.input.process(tuple++);
+      }
+      operator.endWindow();
+    }
+    long elapsed = System.nanoTime() - start;
+    long rowsPerSecond = tuple * 1000000000L / elapsed;
+    logger.info("async {} rows {} elapsed {} ms rows/s {} last window batch latency {} us",
+        async, tuple, elapsed / 1000000, rowsPerSecond,
+        operator.counters.getCounter(AbstractJdbcTransactionableOutputOperator.JdbcCounters.BATCH_LATENCY_MICROS));
+    operator.teardown();
+
+    Assert.assertEquals("rows in db", tuple, countRows());
+    return rowsPerSecond;
+  }
+
+  @Test
+  public void benchmark() throws SQLException
+  {
+    // warm up the database and the jit
+    run(true);
+    long sync = run(false);
+    long async = run(true);
+    logger.info("rows/s sync {} async {}", sync, async);
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(JdbcOutputOperatorBenchmarkTest.class);
+}
@@ -0,0 +1,230 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import com.datatorrent.api.Attribute;
+import com.datatorrent.api.Context;
+import com.datatorrent.api.DAG;
+import com.datatorrent.api.annotation.Stateless;
+
+import com.datatorrent.lib.helper.OperatorContextTestHelper;
+
+/**
+ * Tests for {@link IdempotentStorageManager.FSLogIdempotentStorageManager}
+ */
+public class FSLogIdempotentStorageManagerTest
+{
+  private static class TestMeta extends TestWatcher
+  {
+
+    String applicationPath;
+    IdempotentStorageManager.FSLogIdempotentStorageManager storageManager;
+    Context.OperatorContext context;
+
+    @Override
+    protected void starting(Description description)
+    {
+      super.starting(description);
+      storageManager = new IdempotentStorageManager.FSLogIdempotentStorageManager();
+      applicationPath = "target/" + description.getClassName() + "/" + description.getMethodName();
+
+      Attribute.AttributeMap.DefaultAttributeMap attributes = new Attribute.AttributeMap.DefaultAttributeMap();
+      attributes.put(DAG.APPLICATION_PATH, applicationPath);
+      context = new OperatorContextTestHelper.TestIdOperatorContext(1, attributes);
+
+      storageManager.setup(context);
+    }
+
+    @Override
+    protected void finished(Description description)
+    {
+      storageManager.teardown();
+      try {
+        FileUtils.deleteDirectory(new File("target/" + description.getClassName()));
+      }
+      catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  @Rule
+  public TestMeta testMeta = new TestMeta();
+
+  private static Map<Integer, String> data(int start)
+  {
+    Map<Integer, String> data = Maps.newHashMap();
+    for (int i = start; i < start + 3; i++) {
+      data.put(i, "value" + i);
+    }
+    return data;
+  }
+
+  private FileStatus[] segments(int operatorId) throws IOException
+  {
+    Path appPath = new Path(testMeta.applicationPath + '/' + testMeta.storageManager.getRecoveryPath());
+    FileSystem fs = FileSystem.newInstance(appPath.toUri(), new Configuration());
+    try {
+      Path operatorPath = new Path(appPath, Integer.toString(operatorId));
+      return fs.exists(operatorPath) ? fs.listStatus(operatorPath) : null;
+    }
+    finally {
+      fs.close();
+    }
+  }
+
+  @Test
+  public void testLargestRecoveryWindow()
+  {
+    Assert.assertEquals("largest recovery", Stateless.WINDOW_ID, testMeta.storageManager.getLargestRecoveryWindow());
+  }
+
+  @Test
+  public void testSave() throws IOException
+  {
+    testMeta.storageManager.save(data(1), 1, 1);
+    testMeta.storageManager.save(data(4), 1, 2);
+
+    testMeta.storageManager.setup(testMeta.context);
+    Assert.assertEquals("window 1", data(1), testMeta.storageManager.load(1, 1));
+    Assert.assertEquals("window 2", data(4), testMeta.storageManager.load(1, 2));
+    Assert.assertNull("window 3", testMeta.storageManager.load(1, 3));
+    Assert.assertArrayEquals("window ids", new long[]{1, 2}, testMeta.storageManager.getWindowIds(1));
+    Assert.assertNull("no window ids", testMeta.storageManager.getWindowIds(2));
+  }
+
+  @Test
+  public void testLoad() throws IOException
+  {
+    testMeta.storageManager.save(data(1), 1, 1);
+    testMeta.storageManager.save(data(4), 2, 1);
+    testMeta.storageManager.setup(testMeta.context);
+
+    Map<Integer, Object> decodedStates = testMeta.storageManager.load(1);
+    Assert.assertEquals("no of states", 2, decodedStates.size());
+    Assert.assertEquals("data of 1", data(1), decodedStates.get(1));
+    Assert.assertEquals("data of 2", data(4), decodedStates.get(2));
+  }
+
+  @Test
+  public void testRecovery() throws IOException
+  {
+    testMeta.storageManager.save(data(1), 1, 1);
+    testMeta.storageManager.save(data(4), 2, 2);
+
+    testMeta.storageManager.setup(testMeta.context);
+    Assert.assertEquals("largest recovery window", 2, testMeta.storageManager.getLargestRecoveryWindow());
+
+    //windows saved after a restart go to a new segment
+    testMeta.storageManager.save(data(7), 1, 3);
+    testMeta.storageManager.setup(testMeta.context);
+    Assert.assertEquals("largest recovery window", 3, testMeta.storageManager.getLargestRecoveryWindow());
+    Assert.assertEquals("segments", 2, segments(1).length);
+    Assert.assertEquals("window 1", data(1), testMeta.storageManager.load(1, 1));
+    Assert.assertEquals("window 3", data(7), testMeta.storageManager.load(1, 3));
+  }
+
+  @Test
+  public void testTornRecord() throws IOException
+  {
+    testMeta.storageManager.save(data(1), 1, 1);
+    testMeta.storageManager.save(data(4), 1, 2);
+    testMeta.storageManager.teardown();
+
+    File segment = new File(segments(1)[0].getPath().toUri().getPath());
+    RandomAccessFile file = new RandomAccessFile(segment, "rw");
+    try {
+      file.setLength(file.length() - 1);
+    }
+    finally {
+      file.close();
+    }
+
+    testMeta.storageManager.setup(testMeta.context);
+    Assert.assertEquals("largest recovery window", 1, testMeta.storageManager.getLargestRecoveryWindow());
+    Assert.assertEquals("window 1", data(1), testMeta.storageManager.load(1, 1));
+    Assert.assertNull("window 2", testMeta.storageManager.load(1, 2));
+  }
+
+  @Test
+  public void testDeleteWindow() throws IOException
+  {
+    testMeta.storageManager.save(data(1), 1, 1);
+    testMeta.storageManager.save(data(4), 1, 2);
+    testMeta.storageManager.delete(1, 1);
+    Assert.assertArrayEquals("window ids", new long[]{2}, testMeta.storageManager.getWindowIds(1));
+
+    testMeta.storageManager.setup(testMeta.context);
+    Assert.assertArrayEquals("window ids after setup", new long[]{2}, testMeta.storageManager.getWindowIds(1));
+    Assert.assertNull("window 1", testMeta.storageManager.load(1, 1));
+  }
+
+  @Test
+  public void testSegmentRollOver() throws IOException
+  {
+    testMeta.storageManager.setWindowsPerSegment(2);
+    for (long windowId = 1; windowId <= 5; windowId++) {
+      testMeta.storageManager.save(data((int)windowId), 1, windowId);
+    }
+    Assert.assertEquals("segments", 3, segments(1).length);
+
+    testMeta.storageManager.deleteUpTo(1, 3);
+    Assert.assertEquals("segments after purge", 2, segments(1).length);
+    Assert.assertArrayEquals("window ids", new long[]{4, 5}, testMeta.storageManager.getWindowIds(1));
+
+    testMeta.storageManager.setup(testMeta.context);
+    Assert.assertEquals("window 4", data(4), testMeta.storageManager.load(1, 4));
+    Assert.assertEquals("window 5", data(5), testMeta.storageManager.load(1, 5));
+  }
+
+  @Test
+  public void testDelete() throws IOException
+  {
+    testMeta.storageManager.save(data(1), 1, 1);
+    testMeta.storageManager.save(data(4), 2, 1);
+    testMeta.storageManager.save(data(7), 3, 1);
+
+    testMeta.storageManager.partitioned(Lists.<IdempotentStorageManager>newArrayList(testMeta.storageManager),
+      Sets.newHashSet(2, 3));
+    testMeta.storageManager.setup(testMeta.context);
+    testMeta.storageManager.deleteUpTo(1, 1);
+
+    Assert.assertEquals("no data for 1", 0, segments(1).length);
+    Assert.assertNull("no data for 2", segments(2));
+    Assert.assertNull("no data for 3", segments(3));
+  }
+
+}
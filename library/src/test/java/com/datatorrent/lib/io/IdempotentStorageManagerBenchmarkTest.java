@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+
+import com.datatorrent.api.Attribute;
+import com.datatorrent.api.Context;
+import com.datatorrent.api.DAG;
+
+import com.datatorrent.lib.helper.OperatorContextTestHelper;
+
+/**
+ * Measures the windows saved per second, the time of a recovery setup and the time to purge committed windows
+ * of {@link IdempotentStorageManager.FSIdempotentStorageManager} and
+ * {@link IdempotentStorageManager.FSLogIdempotentStorageManager} on the local file system.
+ */
+public class IdempotentStorageManagerBenchmarkTest
+{
+  private static final int NUM_WINDOWS = 2000;
+  private static final int NUM_OPERATORS = 2;
+  private static final String APPLICATION_PATH = "target/" + IdempotentStorageManagerBenchmarkTest.class.getName();
+
+  /**
+   * The state of a window like the one saved by AbstractFileInputOperator, a few offsets of files.
+   */
+  private static List<String> createState(long windowId)
+  {
+    List<String> state = Lists.newArrayList();
+    for (int i = 0; i < 4; i++) {
+      state.add("/data/input/file" + i + ":" + windowId * 100);
+    }
+    return state;
+  }
+
+  private void run(IdempotentStorageManager storageManager, String path) throws IOException
+  {
+    Attribute.AttributeMap.DefaultAttributeMap attributes = new Attribute.AttributeMap.DefaultAttributeMap();
+    attributes.put(DAG.APPLICATION_PATH, APPLICATION_PATH + "/" + path);
+    Context.OperatorContext context = new OperatorContextTestHelper.TestIdOperatorContext(1, attributes);
+    storageManager.setup(context);
+
+    long start = System.nanoTime();
+    for (long windowId = 1; windowId <= NUM_WINDOWS; windowId++) {
+      for (int operatorId = 1; operatorId <= NUM_OPERATORS; operatorId++) {
+        storageManager.save(createState(windowId), operatorId, windowId);
+      }
+    }
+    long saveElapsed = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    storageManager.setup(context);
+    long setupElapsed = System.nanoTime() - start;
+    Assert.assertEquals("largest recovery window", NUM_WINDOWS, storageManager.getLargestRecoveryWindow());
+    Assert.assertEquals("state", createState(NUM_WINDOWS), storageManager.load(1, NUM_WINDOWS));
+
+    start = System.nanoTime();
+    for (int operatorId = 1; operatorId <= NUM_OPERATORS; operatorId++) {
+      storageManager.deleteUpTo(operatorId, NUM_WINDOWS);
+    }
+    long deleteElapsed = System.nanoTime() - start;
+    storageManager.teardown();
+
+    logger.info("{} windows/s {} setup {} ms deleteUpTo {} ms", storageManager.getClass().getSimpleName(),
+        (long)NUM_WINDOWS * NUM_OPERATORS * 1000000000L / saveElapsed, setupElapsed / 1000000, deleteElapsed / 1000000);
+  }
+
+  @Test
+  public void benchmark() throws IOException
+  {
+    // warm up the jit
+    run(new IdempotentStorageManager.FSIdempotentStorageManager(), "warmup");
+    run(new IdempotentStorageManager.FSLogIdempotentStorageManager(), "warmup");
+
+    run(new IdempotentStorageManager.FSIdempotentStorageManager(), "fs");
+    run(new IdempotentStorageManager.FSLogIdempotentStorageManager(), "log");
+  }
+
+  @After
+  public void cleanup() throws IOException
+  {
+    FileUtils.deleteDirectory(new File(APPLICATION_PATH));
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(IdempotentStorageManagerBenchmarkTest.class);
+}
@@ -20,6 +20,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Pattern;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -36,6 +37,7 @@ import com.datatorrent.api.DAG;
 
 import com.datatorrent.lib.helper.OperatorContextTestHelper;
 import com.datatorrent.lib.testbench.CollectorTestSink;
+import com.datatorrent.netlet.util.Slice;
 
 public class FSLineReaderTest
 {
@@ -175,6 +177,44 @@ public class FSLineReaderTest
     }
   }
 
+  @Test
+  public void testRecordsAreNotReused() throws IOException
+  {
+    File file = new File("target/" + FSLineReaderTest.class.getName() + "/lines.txt");
+    FileUtils.write(file, "abcdefgh\nijklmnop\nqrstuvwx\n");
+
+    //lines are longer than the read buffer so every line is collected in a line buffer of the same length
+    SliceLineReader sliceReader = new SliceLineReader();
+    ((ReaderContext.LineReaderContext<?>)sliceReader.getReaderContext()).setBufferSize(4);
+    sliceReader.setup(testMeta.readerContext);
+    CollectorTestSink<Object> sink = new CollectorTestSink<Object>();
+    sliceReader.messages.setSink(sink);
+
+    sliceReader.beginWindow(1);
+    sliceReader.blocksMetadataInput.process(new BlockMetadata.FileBlockMetadata(file.getAbsolutePath(), 0L, 0L,
+      file.length(), true, -1));
+    sliceReader.endWindow();
+    sliceReader.teardown();
+
+    String[] lines = {"abcdefgh", "ijklmnop", "qrstuvwx"};
+    Assert.assertEquals("No of records", lines.length, sink.collectedTuples.size());
+    for (int i = 0; i < lines.length; i++) {
+      @SuppressWarnings("unchecked")
+      AbstractBlockReader.ReaderRecord<Slice> msg = (AbstractBlockReader.ReaderRecord<Slice>) sink.collectedTuples.get(i);
+      Slice slice = msg.getRecord();
+      Assert.assertEquals("line " + i, lines[i], new String(slice.buffer, slice.offset, slice.length));
+    }
+  }
+
+  public static final class SliceLineReader extends AbstractFSBlockReader.AbstractFSLineReader<Slice>
+  {
+    @Override
+    protected Slice convertToRecord(byte[] bytes)
+    {
+      return new Slice(bytes);
+    }
+  }
+
   public static final class BlockReader extends AbstractFSBlockReader.AbstractFSLineReader<String>
   {
     private final Pattern datePattern = Pattern.compile("\\d{2}?/\\d{2}?/\\d{4}?");
@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.io.block;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+
+import com.datatorrent.api.Attribute;
+import com.datatorrent.api.Context;
+import com.datatorrent.api.DAG;
+
+import com.datatorrent.lib.helper.OperatorContextTestHelper;
+import com.datatorrent.lib.testbench.CollectorTestSink;
+
+/**
+ * Tests for {@link FSMappedByteBufferReader}.
+ */
+public class FSMappedByteBufferReaderTest
+{
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testBytesReceived() throws IOException
+  {
+    File dataFile = new File("src/test/resources/reader_test_data.csv");
+    FSMappedByteBufferReader blockReader = new FSMappedByteBufferReader();
+    ((ReaderContext.FixedBytesReaderContext<FSDataInputStream>) blockReader.getReaderContext()).setLength(100);
+
+    Attribute.AttributeMap.DefaultAttributeMap readerAttr = new Attribute.AttributeMap.DefaultAttributeMap();
+    readerAttr.put(DAG.APPLICATION_ID, Long.toHexString(System.currentTimeMillis()));
+    readerAttr.put(Context.OperatorContext.SPIN_MILLIS, 10);
+    blockReader.setup(new OperatorContextTestHelper.TestIdOperatorContext(1, readerAttr));
+    CollectorTestSink<Object> messageSink = new CollectorTestSink<Object>();
+    blockReader.messages.setSink(messageSink);
+
+    long blockSize = 1500;
+    int noOfBlocks = (int) ((dataFile.length() / blockSize) + (((dataFile.length() % blockSize) == 0) ? 0 : 1));
+
+    blockReader.beginWindow(1);
+    for (int i = 0; i < noOfBlocks; i++) {
+      blockReader.blocksMetadataInput.process(new BlockMetadata.FileBlockMetadata(dataFile.getAbsolutePath(), i,
+        i * blockSize, i == noOfBlocks - 1 ? dataFile.length() : (i + 1) * blockSize, i == noOfBlocks - 1, i - 1));
+    }
+    blockReader.endWindow();
+    blockReader.teardown();
+
+    ByteArrayOutputStream received = new ByteArrayOutputStream();
+    for (Object message : messageSink.collectedTuples) {
+      ByteBuffer record = ((AbstractBlockReader.ReaderRecord<ByteBuffer>) message).getRecord();
+      Assert.assertTrue("read-only view", record.isReadOnly());
+      Assert.assertTrue("record length", record.remaining() <= 100);
+      byte[] bytes = new byte[record.remaining()];
+      record.get(bytes);
+      received.write(bytes);
+    }
+    Assert.assertArrayEquals("file content", FileUtils.readFileToByteArray(dataFile), received.toByteArray());
+  }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.io.block;
+
+import java.util.regex.Pattern;
+
+/**
+ * Tests for {@link AbstractFSMappedBlockReader.AbstractFSMappedLineReader}.
+ */
+public class FSMappedLineReaderTest extends FSLineReaderTest
+{
+  @Override
+  AbstractFSBlockReader<String> getBlockReader()
+  {
+    return new MappedBlockReader();
+  }
+
+  public static final class MappedBlockReader extends AbstractFSMappedBlockReader.AbstractFSMappedLineReader<String>
+  {
+    private final Pattern datePattern = Pattern.compile("\\d{2}?/\\d{2}?/\\d{4}?");
+
+    public MappedBlockReader()
+    {
+      super();
+      //small map size so that reads beyond the block boundary remap
+      minMapSize = 64;
+    }
+
+    @Override
+    protected String convertToRecord(byte[] bytes)
+    {
+      String record = new String(bytes);
+      String[] parts = record.split(",");
+      return parts.length > 0 && datePattern.matcher(parts[0]).find() ? record : null;
+    }
+  }
+}
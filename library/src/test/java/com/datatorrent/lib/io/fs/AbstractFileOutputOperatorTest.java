@@ -16,6 +16,7 @@
 package com.datatorrent.lib.io.fs;
 
 import java.io.*;
+import java.net.URI;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.zip.GZIPInputStream;
@@ -40,6 +41,8 @@ import org.slf4j.LoggerFactory;
 import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
 
 import com.datatorrent.lib.helper.OperatorContextTestHelper;
 import com.datatorrent.lib.testbench.RandomWordGenerator;
@@ -757,6 +760,94 @@ public class AbstractFileOutputOperatorTest
     testMultiFileFailedWriteCache1();
   }
 
+  @Test
+  public void testMultiFileFailedWriteBehind()
+  {
+    EvenOddHDFSExactlyOnceWriter writer = new EvenOddHDFSExactlyOnceWriter();
+    writer.setWriteBufferSize(3);
+    writer.setMaxPendingWrites(1);
+
+    testMultiFileFailedWriteHelper(writer);
+
+    checkOutput(-1,
+                testMeta.getDir() + File.separator + EVEN_FILE,
+                "0\n2\n6\n8\n");
+    checkOutput(-1,
+                testMeta.getDir() + File.separator + ODD_FILE,
+                "1\n3\n7\n9\n");
+  }
+
+  @Test
+  public void testMultiFileFailedWriteBehindCache1Tmp()
+  {
+    testMeta.writeToTmp = true;
+    EvenOddHDFSExactlyOnceWriter writer = new EvenOddHDFSExactlyOnceWriter();
+    writer.setWriteBufferSize(64);
+    writer.setMaxOpenFiles(1);
+
+    testMultiFileFailedWriteHelper(writer);
+
+    checkOutput(-1,
+                testMeta.getDir() + File.separator + EVEN_FILE,
+                "0\n2\n6\n8\n");
+    checkOutput(-1,
+                testMeta.getDir() + File.separator + ODD_FILE,
+                "1\n3\n7\n9\n");
+  }
+
+  /**
+   * Local file system which counts the existence checks.
+   */
+  private static class ExistsCountingFileSystem extends RawLocalFileSystem
+  {
+    int existsCalls;
+
+    @Override
+    public boolean exists(Path f) throws IOException
+    {
+      existsCalls++;
+      return super.exists(f);
+    }
+  }
+
+  @Test
+  public void testKnownFileStates() throws IOException
+  {
+    final ExistsCountingFileSystem countingFS = new ExistsCountingFileSystem();
+    countingFS.initialize(URI.create("file:///"), new Configuration());
+    EvenOddHDFSExactlyOnceWriter writer = new EvenOddHDFSExactlyOnceWriter()
+    {
+      @Override
+      protected FileSystem getFSInstance() throws IOException
+      {
+        return countingFS;
+      }
+    };
+    writer.setMaxOpenFiles(1);
+    writer.setFilePath(testMeta.getDir());
+    writer.setAlwaysWriteToTmp(false);
+    writer.setup(testOperatorContext);
+
+    writer.beginWindow(0);
+    for (int i = 0; i < 8; i++) {
+      writer.input.put(i);
+    }
+    writer.endWindow();
+
+    //one check of the output directory at setup and one for the first open of each file
+    Assert.assertEquals("exists calls", 3, countingFS.existsCalls);
+    Assert.assertEquals("opens", 8,
+        writer.fileCounters.getCounter(AbstractFileOutputOperator.Counters.TOTAL_FILE_OPENS).longValue());
+    Assert.assertEquals("known file states", 6,
+        writer.fileCounters.getCounter(AbstractFileOutputOperator.Counters.TOTAL_FILE_STATE_HITS).longValue());
+    Assert.assertEquals("evictions", 7,
+        writer.fileCounters.getCounter(AbstractFileOutputOperator.Counters.TOTAL_FILE_EVICTIONS).longValue());
+    writer.teardown();
+
+    checkOutput(-1, testMeta.getDir() + File.separator + EVEN_FILE, "0\n2\n4\n6\n");
+    checkOutput(-1, testMeta.getDir() + File.separator + ODD_FILE, "1\n3\n5\n7\n");
+  }
+
   private void testMultiFileFailedWriteHelper(EvenOddHDFSExactlyOnceWriter writer)
   {
     File meta = new File(testMeta.getDir());
@@ -955,6 +1046,21 @@ public class AbstractFileOutputOperatorTest
     testSingleRollingFileFailedWrite();
   }
 
+  @Test
+  public void testSingleRollingFileFailedWriteBehind()
+  {
+    SingleHDFSExactlyOnceWriter writer = new SingleHDFSExactlyOnceWriter();
+    //smaller than a tuple so that every tuple is handed over to the writer on its own
+    writer.setWriteBufferSize(1);
+
+    testSingleRollingFileFailedWriteHelper(writer);
+
+    String singleFileName = testMeta.getDir() + File.separator + SINGLE_FILE;
+    checkOutput(0, singleFileName, "0\n1\n2\n");
+    checkOutput(1, singleFileName, "3\n4\n5\n");
+    checkOutput(2, singleFileName, "6\n7\n8\n");
+  }
+
   private void testSingleRollingFileFailedWriteHelper(SingleHDFSExactlyOnceWriter writer)
   {
     writer.setMaxLength(4);
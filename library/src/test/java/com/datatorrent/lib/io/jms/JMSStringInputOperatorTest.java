@@ -34,6 +34,7 @@ import com.datatorrent.api.Attribute;
 import com.datatorrent.api.Context;
 import com.datatorrent.api.annotation.Stateless;
 
+import com.datatorrent.lib.codec.KryoSerializableStreamCodec;
 import com.datatorrent.lib.helper.OperatorContextTestHelper;
 import com.datatorrent.lib.testbench.CollectorTestSink;
 
@@ -130,6 +131,75 @@ public class JMSStringInputOperatorTest
     testMeta.sink.collectedTuples.clear();
   }
 
+  @Test
+  public void testRecoveryWithCodec() throws Exception
+  {
+    testMeta.operator.deactivate();
+    testMeta.operator.teardown();
+    testMeta.operator = new JMSStringInputOperator();
+    testMeta.operator.getConnectionFactoryProperties().put(JMSTestBase.AMQ_BROKER_URL, "vm://localhost");
+    testMeta.operator.setRecoveryCodec(new KryoSerializableStreamCodec<String>());
+    testMeta.operator.output.setSink(testMeta.sink);
+    testMeta.operator.setup(testMeta.context);
+    testMeta.operator.activate(testMeta.context);
+
+    produceMsg(100);
+    Thread.sleep(1000);
+    testMeta.operator.beginWindow(1);
+    testMeta.operator.emitTuples();
+    testMeta.operator.endWindow();
+    Assert.assertEquals("num of messages in window 1", 100, testMeta.sink.collectedTuples.size());
+
+    //failure and then re-deployment of operator
+    testMeta.sink.collectedTuples.clear();
+    testMeta.operator.setup(testMeta.context);
+    testMeta.operator.activate(testMeta.context);
+
+    Assert.assertEquals("largest recovery window", 1, testMeta.operator.getIdempotentStorageManager().getLargestRecoveryWindow());
+
+    testMeta.operator.beginWindow(1);
+    testMeta.operator.endWindow();
+    Assert.assertEquals("num of messages in window 1", 100, testMeta.sink.collectedTuples.size());
+    Assert.assertEquals("message", "Hello world! From tester producer", testMeta.sink.collectedTuples.get(0));
+  }
+
+  @Test
+  public void testMultipleSessions() throws Exception
+  {
+    testMeta.operator.deactivate();
+    testMeta.operator.teardown();
+    testMeta.operator = new JMSStringInputOperator();
+    testMeta.operator.getConnectionFactoryProperties().put(JMSTestBase.AMQ_BROKER_URL, "vm://localhost");
+    testMeta.operator.setNumSessions(3);
+    testMeta.operator.output.setSink(testMeta.sink);
+    testMeta.operator.setup(testMeta.context);
+    testMeta.operator.activate(testMeta.context);
+
+    produceMsg(100);
+    Thread.sleep(1000);
+    testMeta.operator.beginWindow(1);
+    testMeta.operator.emitTuples();
+    testMeta.operator.endWindow();
+    Assert.assertEquals("num of messages in window 1", 100, testMeta.sink.collectedTuples.size());
+
+    //all the sessions were acknowledged so nothing is redelivered after re-deployment
+    testMeta.sink.collectedTuples.clear();
+    testMeta.operator.deactivate();
+    testMeta.operator.setup(testMeta.context);
+    testMeta.operator.activate(testMeta.context);
+
+    testMeta.operator.beginWindow(1);
+    testMeta.operator.endWindow();
+    Assert.assertEquals("num of replayed messages in window 1", 100, testMeta.sink.collectedTuples.size());
+
+    testMeta.sink.collectedTuples.clear();
+    Thread.sleep(1000);
+    testMeta.operator.beginWindow(2);
+    testMeta.operator.emitTuples();
+    testMeta.operator.endWindow();
+    Assert.assertEquals("num of messages in window 2", 0, testMeta.sink.collectedTuples.size());
+  }
+
   @Test
   public void testFailureAfterPersistenceAndBeforeRecovery() throws Exception
   {
@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.streamquery;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import com.datatorrent.api.DefaultPartition;
+import com.datatorrent.api.Partitioner.Partition;
+
+import com.datatorrent.lib.partitioner.StatelessPartitionerTest.PartitioningContextImpl;
+import com.datatorrent.lib.streamquery.index.ColumnIndex;
+import com.datatorrent.lib.testbench.CollectorTestSink;
+
+/**
+ * Functional test for hash join mode of {@link InnerJoinOperator}, {@link OuterJoinOperator} and
+ * {@link PartitionedHashJoinOperator}.
+ */
+public class HashJoinOperatorTest
+{
+  private static Map<String, Object> row(int a, int b, int c)
+  {
+    HashMap<String, Object> tuple = new HashMap<String, Object>();
+    tuple.put("a", a);
+    tuple.put("b", b);
+    tuple.put("c", c);
+    return tuple;
+  }
+
+  private static void process(InnerJoinOperator oper)
+  {
+    oper.setup(null);
+    oper.beginWindow(1);
+    oper.inport1.process(row(0, 1, 2));
+    oper.inport1.process(row(1, 3, 4));
+    oper.inport1.process(row(2, 11, 12));
+    oper.inport2.process(row(0, 7, 8));
+    oper.inport2.process(row(1, 5, 6));
+    oper.inport2.process(row(3, 9, 10));
+    oper.endWindow();
+    oper.teardown();
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  @Test
+  public void testInnerJoin()
+  {
+    InnerJoinOperator oper = new InnerJoinOperator();
+    CollectorTestSink sink = new CollectorTestSink();
+    oper.outport.setSink(sink);
+    oper.addJoinColumns("a", "a");
+    oper.selectTable1Column(new ColumnIndex("b", null));
+    oper.selectTable2Column(new ColumnIndex("c", null));
+
+    process(oper);
+
+    Assert.assertEquals("number of joined rows", 2, sink.collectedTuples.size());
+    Map<String, Object> joined = (Map<String, Object>)sink.collectedTuples.get(0);
+    Assert.assertEquals(1, joined.get("b"));
+    Assert.assertEquals(8, joined.get("c"));
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  @Test
+  public void testFullOuterJoin()
+  {
+    OuterJoinOperator oper = new OuterJoinOperator();
+    CollectorTestSink sink = new CollectorTestSink();
+    oper.outport.setSink(sink);
+    oper.setFullJoin(true);
+    oper.addJoinColumns("a", "a");
+    oper.selectTable1Column(new ColumnIndex("b", null));
+    oper.selectTable2Column(new ColumnIndex("c", null));
+
+    process(oper);
+
+    // two joined rows, one unmatched row of each table
+    Assert.assertEquals("number of rows", 4, sink.collectedTuples.size());
+    Map<String, Object> unmatched1 = (Map<String, Object>)sink.collectedTuples.get(2);
+    Assert.assertEquals(11, unmatched1.get("b"));
+    Assert.assertFalse(unmatched1.containsKey("c"));
+    Map<String, Object> unmatched2 = (Map<String, Object>)sink.collectedTuples.get(3);
+    Assert.assertEquals(10, unmatched2.get("c"));
+  }
+
+  @Test
+  public void testCodecPartitionsOnJoinKey()
+  {
+    JoinKeyStreamCodec codec1 = new JoinKeyStreamCodec(Arrays.asList("a", "b"));
+    JoinKeyStreamCodec codec2 = new JoinKeyStreamCodec(Arrays.asList("c", "b"));
+    Map<String, Object> row1 = row(1, 2, 3);
+    Map<String, Object> row2 = row(5, 2, 1);
+    Assert.assertEquals(codec1.getPartition(row1), codec2.getPartition(row2));
+  }
+
+  @Test
+  public void testPartitionHashJoin()
+  {
+    PartitionedHashJoinOperator oper = new PartitionedHashJoinOperator();
+    oper.addJoinColumns("a", "a");
+    oper.setPartitionCount(2);
+    List<Partition<PartitionedHashJoinOperator>> partitions = Lists.newArrayList();
+    partitions.add(new DefaultPartition<PartitionedHashJoinOperator>(oper));
+
+    Collection<Partition<PartitionedHashJoinOperator>> newPartitions = oper.definePartitions(partitions, new PartitioningContextImpl(null, 0));
+    Assert.assertEquals("number of partitions", 2, newPartitions.size());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testPartitionNestedLoopJoin()
+  {
+    PartitionedHashJoinOperator oper = new PartitionedHashJoinOperator();
+    oper.setPartitionCount(2);
+    List<Partition<PartitionedHashJoinOperator>> partitions = Lists.newArrayList();
+    partitions.add(new DefaultPartition<PartitionedHashJoinOperator>(oper));
+
+    oper.definePartitions(partitions, new PartitioningContextImpl(null, 0));
+  }
+}
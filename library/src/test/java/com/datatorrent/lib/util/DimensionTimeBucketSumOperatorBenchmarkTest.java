@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2015 DataTorrent, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datatorrent.lib.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.mutable.MutableDouble;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+
+import com.datatorrent.lib.testbench.CollectorTestSink;
+
+/**
+ * Measures the tuples per second processed by {@link DimensionTimeBucketSumOperator}, which aggregates by binary keys,
+ * against an operator which aggregates by the string keys of {@link AbstractDimensionTimeBucketOperator}.
+ */
+public class DimensionTimeBucketSumOperatorBenchmarkTest
+{
+  private static final int NUM_WINDOWS = 20;
+  private static final int TUPLES_PER_WINDOW = 20000;
+
+  /**
+   * Aggregates by the string keys, like subclasses which only implement the string process method.
+   */
+  private static class StringKeySumOperator extends AbstractDimensionTimeBucketOperator
+  {
+    private Map<String, Map<String, Number>> dataMap;
+
+    @Override
+    public void process(String timeBucket, String key, String field, Number value)
+    {
+      String finalKey = timeBucket + "|" + key;
+      Map<String, Number> m = dataMap.get(finalKey);
+      if (m == null) {
+        m = new HashMap<String, Number>();
+        dataMap.put(finalKey, m);
+      }
+      Number n = m.get(field);
+      if (n == null) {
+        m.put(field, new MutableDouble(value));
+      }
+      else {
+        ((MutableDouble)n).add(value);
+      }
+    }
+
+    @Override
+    public void beginWindow(long windowId)
+    {
+      super.beginWindow(windowId);
+      dataMap = new HashMap<String, Map<String, Number>>();
+    }
+
+    @Override
+    public void endWindow()
+    {
+      out.emit(dataMap);
+    }
+  }
+
+  private static List<Map<String, Object>> createTuples()
+  {
+    List<Map<String, Object>> tuples = Lists.newArrayList();
+    for (int i = 0; i < TUPLES_PER_WINDOW; i++) {
+      Map<String, Object> tuple = new HashMap<String, Object>();
+      tuple.put("time", 1420070400000L + i * 10L);
+      tuple.put("ipAddr", "10.10.1." + (i % 50));
+      tuple.put("url", "/page" + (i % 20));
+      tuple.put("status", i % 10 == 0 ? "404" : "200");
+      tuple.put("agent", i % 3 == 0 ? "FF" : "Chrome");
+      tuple.put("bytes", i % 1000);
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private long run(AbstractDimensionTimeBucketOperator oper, List<Map<String, Object>> tuples, CollectorTestSink sink)
+  {
+    oper.out.setSink(sink);
+    oper.addDimensionKeyName("ipAddr");
+    oper.addDimensionKeyName("url");
+    oper.addDimensionKeyName("status");
+    oper.addDimensionKeyName("agent");
+    oper.addValueKeyName("bytes");
+    oper.setTimeKeyName("time");
+    oper.setTimeBucketFlags(AbstractDimensionTimeBucketOperator.TIMEBUCKET_MINUTE | AbstractDimensionTimeBucketOperator.TIMEBUCKET_HOUR);
+    oper.setup(null);
+
+    long start = System.nanoTime();
+    for (int window = 0; window < NUM_WINDOWS; window++) {
+      oper.beginWindow(window);
+      for (Map<String, Object> tuple : tuples) {
+        oper.in.process(tuple);
+      }
+      oper.endWindow();
+    }
+    long elapsed = System.nanoTime() - start;
+    long tuplesPerSecond = (long)NUM_WINDOWS * TUPLES_PER_WINDOW * 1000000000L / elapsed;
+    logger.info("{} tuples {} elapsed {} ms tuples/s {}", oper.getClass().getSimpleName(), NUM_WINDOWS * TUPLES_PER_WINDOW,
+        elapsed / 1000000, tuplesPerSecond);
+    return tuplesPerSecond;
+  }
+
+  @Test
+  @SuppressWarnings("rawtypes")
+  public void benchmark()
+  {
+    List<Map<String, Object>> tuples = createTuples();
+    // warm up the jit
+    run(new StringKeySumOperator(), tuples, new CollectorTestSink());
+    run(new DimensionTimeBucketSumOperator(), tuples, new CollectorTestSink());
+
+    CollectorTestSink stringSink = new CollectorTestSink();
+    CollectorTestSink binarySink = new CollectorTestSink();
+    long stringKeys = run(new StringKeySumOperator(), tuples, stringSink);
+    long binaryKeys = run(new DimensionTimeBucketSumOperator(), tuples, binarySink);
+    logger.info("tuples/s string keys {} binary keys {}", stringKeys, binaryKeys);
+
+    Assert.assertEquals("emitted maps", stringSink.collectedTuples, binarySink.collectedTuples);
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(DimensionTimeBucketSumOperatorBenchmarkTest.class);
+}
@@ -93,4 +93,65 @@ public class DimensionTimeBucketSumOperatorTest
     logger.debug("Done testing round\n");
   }
 
+  private Map<String, Object> getMap(long time, String url, int bytes)
+  {
+    Map<String, Object> map = new HashMap<String, Object>();
+    map.put("time", time);
+    map.put("url", url);
+    map.put("bytes", bytes);
+    return map;
+  }
+
+  private Map<String, Number> getSums(double count, double bytes)
+  {
+    Map<String, Number> sums = Maps.newHashMap();
+    sums.put("0", new MutableDouble(count));
+    sums.put("1", new MutableDouble(bytes));
+    return sums;
+  }
+
+  @Test
+  public void testTimeBucketsAcrossMinutesAndWindows()
+  {
+    DimensionTimeBucketSumOperator oper = new DimensionTimeBucketSumOperator();
+    CollectorTestSink sink = new CollectorTestSink();
+    oper.out.setSink(sink);
+
+    oper.addDimensionKeyName("url");
+    oper.addValueKeyName("bytes");
+    oper.setTimeKeyName("time");
+    oper.setTimeBucketFlags(AbstractDimensionTimeBucketOperator.TIMEBUCKET_MINUTE | AbstractDimensionTimeBucketOperator.TIMEBUCKET_HOUR);
+    oper.setup(null);
+
+    oper.beginWindow(0);
+    oper.in.process(getMap(0L, "/a", 10));
+    oper.in.process(getMap(59999L, "/b", 20));
+    oper.in.process(getMap(60000L, "/a", 30));
+    oper.endWindow();
+
+    Map<String, Map<String, Number>> expected = Maps.newHashMap();
+    expected.put("m|197001010000|", getSums(2, 30));
+    expected.put("m|197001010000|0:/a", getSums(1, 10));
+    expected.put("m|197001010000|0:/b", getSums(1, 20));
+    expected.put("m|197001010001|", getSums(1, 30));
+    expected.put("m|197001010001|0:/a", getSums(1, 30));
+    expected.put("h|1970010100|", getSums(3, 60));
+    expected.put("h|1970010100|0:/a", getSums(2, 40));
+    expected.put("h|1970010100|0:/b", getSums(1, 20));
+    Assert.assertEquals("number emitted tuples", 1, sink.collectedTuples.size());
+    Assert.assertEquals("sums of first window", expected, sink.collectedTuples.get(0));
+
+    oper.beginWindow(1);
+    oper.in.process(getMap(60000L, "/b", 5));
+    oper.endWindow();
+
+    expected = Maps.newHashMap();
+    expected.put("m|197001010001|", getSums(1, 5));
+    expected.put("m|197001010001|0:/b", getSums(1, 5));
+    expected.put("h|1970010100|", getSums(1, 5));
+    expected.put("h|1970010100|0:/b", getSums(1, 5));
+    Assert.assertEquals("number emitted tuples", 2, sink.collectedTuples.size());
+    Assert.assertEquals("sums of second window", expected, sink.collectedTuples.get(1));
+  }
+
 }
@@ -26,6 +26,7 @@ import static com.datatorrent.lib.util.PojoUtils.createGetterFloat;
 import static com.datatorrent.lib.util.PojoUtils.createGetterInt;
 import static com.datatorrent.lib.util.PojoUtils.createGetterLong;
 import static com.datatorrent.lib.util.PojoUtils.createGetterShort;
+import static com.datatorrent.lib.util.PojoUtils.createRecordGetter;
 import static com.datatorrent.lib.util.PojoUtils.createSetter;
 import static com.datatorrent.lib.util.PojoUtils.createSetterBoolean;
 import static com.datatorrent.lib.util.PojoUtils.createSetterByte;
@@ -39,9 +40,16 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.google.common.collect.Maps;
+
+
 import com.datatorrent.lib.util.PojoUtils.GetterBoolean;
 import com.datatorrent.lib.util.PojoUtils.GetterByte;
 import com.datatorrent.lib.util.PojoUtils.GetterChar;
@@ -51,6 +59,7 @@ import com.datatorrent.lib.util.PojoUtils.GetterInt;
 import com.datatorrent.lib.util.PojoUtils.GetterLong;
 import com.datatorrent.lib.util.PojoUtils.Getter;
 import com.datatorrent.lib.util.PojoUtils.GetterShort;
+import com.datatorrent.lib.util.PojoUtils.RecordGetter;
 import com.datatorrent.lib.util.PojoUtils.Setter;
 import com.datatorrent.lib.util.PojoUtils.SetterBoolean;
 import com.datatorrent.lib.util.PojoUtils.SetterByte;
@@ -106,6 +115,59 @@ public class PojoUtilsTest
 
   }
 
+  @Test
+  public void testRecordGetter() throws Exception
+  {
+    Map<Class<?>, List<String>> getterExprs = Maps.newHashMap();
+    getterExprs.put(boolean.class, Arrays.asList("innerObj.boolVal"));
+    getterExprs.put(char.class, Arrays.asList("innerObj.charVal"));
+    getterExprs.put(int.class, Arrays.asList("innerObj.intVal", "innerObj.shortVal", "{$}.innerObj.byteVal + 1"));
+    getterExprs.put(long.class, Arrays.asList("innerObj.longVal"));
+    getterExprs.put(double.class, Arrays.asList("innerObj.doubleVal", "innerObj.floatVal"));
+    getterExprs.put(String.class, Arrays.asList("innerObj.stringVal"));
+    getterExprs.put(Object.class, Arrays.asList("innerObj.objVal"));
+
+    RecordGetter<Object> getter = createRecordGetter(fqcn, getterExprs);
+
+    boolean[] booleanVals = new boolean[1];
+    char[] charVals = new char[1];
+    int[] intVals = new int[3];
+    long[] longVals = new long[1];
+    double[] doubleVals = new double[2];
+    String[] stringVals = new String[1];
+    Object[] objectVals = new Object[1];
+    getter.get(testObj, booleanVals, charVals, null, null, intVals, longVals, null, doubleVals, stringVals, objectVals);
+
+    assertEquals(innerObj.boolVal, booleanVals[0]);
+    assertEquals(innerObj.charVal, charVals[0]);
+    assertEquals(innerObj.intVal, intVals[0]);
+    assertEquals(innerObj.shortVal, intVals[1]);
+    assertEquals(innerObj.byteVal + 1, intVals[2]);
+    assertEquals(innerObj.longVal, longVals[0]);
+    assertEquals(innerObj.doubleVal, doubleVals[0], 0);
+    assertEquals(innerObj.floatVal, doubleVals[1], 0);
+    assertEquals(innerObj.stringVal, stringVals[0]);
+    assertEquals(innerObj.objVal, objectVals[0]);
+
+    assertSame("compiled once per class loader", getter, createRecordGetter(fqcn, getterExprs));
+  }
+
+  @Test
+  public void testCompiledGettersAreShared() throws Exception
+  {
+    GetterInt<Object> getInt = createGetterInt(fqcn, "innerObj.intVal");
+    assertSame(getInt, createGetterInt(fqcn, "innerObj.intVal"));
+    Assert.assertNotSame(getInt, createGetterInt(fqcn, "innerObj.shortVal"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRecordGetterUnsupportedClass() throws Exception
+  {
+    Map<Class<?>, List<String>> getterExprs = Maps.newHashMap();
+    getterExprs.put(Integer.class, Arrays.asList("innerObj.intVal"));
+    createRecordGetter(fqcn, getterExprs);
+  }
+
   @Test
   public void testSerialization() throws Exception
   {